@@ -24,6 +24,7 @@ import com.ibm.icu.text.RuleBasedCollator;
 import com.ibm.icu.text.StringSearch;
 import com.ibm.icu.util.ULocale;
 
+import org.apache.spark.unsafe.Platform;
 import org.apache.spark.unsafe.UTF8StringBuilder;
 import org.apache.spark.unsafe.types.UTF8String;
 
@@ -263,6 +264,91 @@ public class CollationAwareUTF8String {
     return MATCH_NOT_FOUND;
   }
 
+  private static final boolean UNALIGNED = Platform.unaligned();
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  /**
+   * Returns the 8 ASCII bytes of `word` with the uppercase letters converted to lowercase. A
+   * byte is an uppercase letter if adding `0x80 - 'A'` sets its high bit but adding
+   * `0x80 - 'Z' - 1` does not, which does not carry into the next byte for ASCII bytes.
+   */
+  private static long asciiLowercaseWord(final long word) {
+    final long upper = ((word + (0x80 - 'A') * LOW_BITS) ^ (word + (0x80 - 'Z' - 1) * LOW_BITS))
+      & HIGH_BITS;
+    return word | (upper >>> 2);
+  }
+
+  /**
+   * Returns whether the `length` bytes of the ASCII strings `target` at byte position `pos` and
+   * `pattern` at byte position 0 are equal ignoring case, comparing 8 bytes at a time if possible.
+   */
+  private static boolean asciiLowercaseMatchAt(
+      final UTF8String target,
+      final UTF8String pattern,
+      final int pos,
+      final int length) {
+    final Object targetBase = target.getBaseObject(), patternBase = pattern.getBaseObject();
+    final long targetOffset = target.getBaseOffset() + pos;
+    final long patternOffset = pattern.getBaseOffset();
+    int i = 0;
+    if (UNALIGNED) {
+      for (; i + 8 <= length; i += 8) {
+        if (asciiLowercaseWord(Platform.getLong(targetBase, targetOffset + i)) !=
+            asciiLowercaseWord(Platform.getLong(patternBase, patternOffset + i))) {
+          return false;
+        }
+      }
+    }
+    for (; i < length; i++) {
+      if (Character.toLowerCase(Platform.getByte(targetBase, targetOffset + i)) !=
+          Character.toLowerCase(Platform.getByte(patternBase, patternOffset + i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the (byte and char) position of the first occurrence of the non-empty ASCII string
+   * `pattern` in the ASCII string `target` at or after `start`, ignoring case, or
+   * MATCH_NOT_FOUND. The positions where the first byte of the pattern matches are found 8 bytes
+   * at a time if possible, as in `ByteArrayMethods.indexOf`, and no string is lowercased.
+   */
+  private static int asciiLowercaseFind(
+      final UTF8String target,
+      final UTF8String pattern,
+      final int start) {
+    final int patternLength = pattern.numBytes();
+    final int last = target.numBytes() - patternLength;
+    final Object targetBase = target.getBaseObject();
+    final long targetOffset = target.getBaseOffset();
+    final int first = Character.toLowerCase(pattern.getByte(0));
+    int i = Math.max(start, 0);
+    if (UNALIGNED) {
+      final long firstBytes = LOW_BITS * first;
+      for (; i + 7 <= last; i += 8) {
+        final long x =
+          asciiLowercaseWord(Platform.getLong(targetBase, targetOffset + i)) ^ firstBytes;
+        long candidates = (x - LOW_BITS) & ~x & HIGH_BITS;
+        while (candidates != 0) {
+          final int pos = i + (Long.numberOfTrailingZeros(candidates) >>> 3);
+          if (asciiLowercaseMatchAt(target, pattern, pos, patternLength)) {
+            return pos;
+          }
+          candidates &= candidates - 1;
+        }
+      }
+    }
+    for (; i <= last; i++) {
+      if (Character.toLowerCase(Platform.getByte(targetBase, targetOffset + i)) == first &&
+          asciiLowercaseMatchAt(target, pattern, i, patternLength)) {
+        return i;
+      }
+    }
+    return MATCH_NOT_FOUND;
+  }
+
   /**
    * Lowercase UTF8String comparison used for UTF8_LCASE collation. This method uses lowercased
    * code points to compare the strings in a case-insensitive manner using ICU rules, taking into
@@ -364,6 +450,9 @@ public class CollationAwareUTF8String {
     if (target.numBytes() == 0 || search.numBytes() == 0) {
       return target;
     }
+    if (target.isFullAscii() && search.isFullAscii()) {
+      return lowercaseReplaceAscii(target, search, replace);
+    }
 
     UTF8String lowercaseSearch = lowerCaseCodePoints(search);
 
@@ -389,6 +478,32 @@ public class CollationAwareUTF8String {
     return buf.build();
   }
 
+  /**
+   * Fast version of the `lowercaseReplace` method, used when the target and the search strings
+   * are ASCII strings, so that the matches have the length of the search string.
+   */
+  private static UTF8String lowercaseReplaceAscii(final UTF8String target,
+      final UTF8String search, final UTF8String replace) {
+    int end = asciiLowercaseFind(target, search, 0);
+    if (end == MATCH_NOT_FOUND) {
+      // Search string was not found, so string is unchanged.
+      return target;
+    }
+    // The 16x multiplier here is chosen to match commons-lang3's implementation.
+    int increase = Math.max(0, replace.numBytes() - search.numBytes()) * 16;
+    final UTF8StringBuilder buf = new UTF8StringBuilder(target.numBytes() + increase);
+    int start = 0;
+    while (end != MATCH_NOT_FOUND) {
+      buf.appendBytes(target.getBaseObject(), target.getBaseOffset() + start, end - start);
+      buf.append(replace);
+      start = end + search.numBytes();
+      end = asciiLowercaseFind(target, search, start);
+    }
+    buf.appendBytes(target.getBaseObject(), target.getBaseOffset() + start,
+      target.numBytes() - start);
+    return buf.build();
+  }
+
   /**
    * Convert the input string to uppercase using the ICU root locale rules.
    *
@@ -743,7 +858,7 @@ public class CollationAwareUTF8String {
   public static boolean lowercaseContains(final UTF8String target, final UTF8String pattern) {
     // Fast path for ASCII-only strings.
     if (target.isFullAscii() && pattern.isFullAscii()) {
-      return target.toLowerCase().contains(pattern.toLowerCase());
+      return pattern.numBytes() == 0 || asciiLowercaseFind(target, pattern, 0) >= 0;
     }
     // Slow path for non-ASCII strings.
     return CollationAwareUTF8String.lowercaseIndexOfSlow(target, pattern, 0) >= 0;
@@ -760,7 +875,8 @@ public class CollationAwareUTF8String {
   public static boolean lowercaseStartsWith(final UTF8String target, final UTF8String pattern) {
     // Fast path for ASCII-only strings.
     if (target.isFullAscii() && pattern.isFullAscii()) {
-      return target.toLowerCase().startsWith(pattern.toLowerCase());
+      return pattern.numBytes() <= target.numBytes() &&
+        asciiLowercaseMatchAt(target, pattern, 0, pattern.numBytes());
     }
     // Slow path for non-ASCII strings.
     return CollationAwareUTF8String.lowercaseMatchFrom(target, lowerCaseCodePointsSlow(pattern), 0);
@@ -777,7 +893,8 @@ public class CollationAwareUTF8String {
   public static boolean lowercaseEndsWith(final UTF8String target, final UTF8String pattern) {
     // Fast path for ASCII-only strings.
     if (target.isFullAscii() && pattern.isFullAscii()) {
-      return target.toLowerCase().endsWith(pattern.toLowerCase());
+      return pattern.numBytes() <= target.numBytes() && asciiLowercaseMatchAt(
+        target, pattern, target.numBytes() - pattern.numBytes(), pattern.numBytes());
     }
     // Slow path for non-ASCII strings.
     return CollationAwareUTF8String.lowercaseMatchUntil(target, lowerCaseCodePointsSlow(pattern),
@@ -799,7 +916,7 @@ public class CollationAwareUTF8String {
       final int start) {
     if (pattern.numChars() == 0) return target.indexOfEmpty(start);
     if (target.isFullAscii() && pattern.isFullAscii()) {
-      return target.toLowerCase().indexOf(pattern.toLowerCase(), start);
+      return asciiLowercaseFind(target, pattern, start);
     }
     return lowercaseIndexOfSlow(target, pattern, start);
   }
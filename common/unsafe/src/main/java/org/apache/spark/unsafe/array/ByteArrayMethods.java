@@ -17,6 +17,8 @@
 
 package org.apache.spark.unsafe.array;
 
+import java.nio.ByteOrder;
+
 import org.apache.spark.unsafe.Platform;
 
 import static org.apache.spark.unsafe.Platform.BYTE_ARRAY_OFFSET;
@@ -89,13 +91,65 @@ public class ByteArrayMethods {
     if (sub.length == 0) {
       return true;
     }
-    byte first = sub[0];
-    for (int i = 0; i <= arr.length - sub.length; i++) {
-      if (arr[i] == first && matchAt(arr, sub, i)) {
-        return true;
+    return indexOf(arr, BYTE_ARRAY_OFFSET, arr.length, sub, BYTE_ARRAY_OFFSET, sub.length, 0) >= 0;
+  }
+
+  private static final boolean isLittleEndian =
+    ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  /**
+   * Returns the offset of the first occurrence of the non-empty `sub` in `arr` at or after
+   * `from`, or -1 if there is none.
+   *
+   * On architectures that support unaligned accesses, the first and the last byte of `sub` are
+   * compared with 8 candidate positions at a time (SWAR), and only the positions where both match
+   * are compared in full.
+   */
+  public static int indexOf(
+      Object arrBase, long arrOffset, int arrLength,
+      Object subBase, long subOffset, int subLength,
+      int from) {
+    final int last = arrLength - subLength;
+    int i = Math.max(from, 0);
+    if (i > last) {
+      return -1;
+    }
+    final byte first = Platform.getByte(subBase, subOffset);
+    if (unaligned) {
+      final long firstBytes = LOW_BITS * (first & 0xFF);
+      final byte lastByte = Platform.getByte(subBase, subOffset + subLength - 1);
+      final long lastBytes = LOW_BITS * (lastByte & 0xFF);
+      while (i + 7 <= last) {
+        long firstWord = Platform.getLong(arrBase, arrOffset + i);
+        long lastWord = Platform.getLong(arrBase, arrOffset + i + subLength - 1);
+        if (!isLittleEndian) {
+          firstWord = Long.reverseBytes(firstWord);
+          lastWord = Long.reverseBytes(lastWord);
+        }
+        // A zero byte in `x` is a position where both the first and the last byte match. The
+        // high bit of each such byte is set in `candidates`, as well as possibly some of the bytes
+        // after it, which the full comparison rules out.
+        final long x = (firstWord ^ firstBytes) | (lastWord ^ lastBytes);
+        long candidates = (x - LOW_BITS) & ~x & HIGH_BITS;
+        while (candidates != 0) {
+          final int pos = i + (Long.numberOfTrailingZeros(candidates) >>> 3);
+          if (arrayEquals(arrBase, arrOffset + pos, subBase, subOffset, subLength)) {
+            return pos;
+          }
+          candidates &= candidates - 1;
+        }
+        i += 8;
+      }
+    }
+    for (; i <= last; i++) {
+      if (Platform.getByte(arrBase, arrOffset + i) == first &&
+          arrayEquals(arrBase, arrOffset + i, subBase, subOffset, subLength)) {
+        return i;
       }
     }
-    return false;
+    return -1;
   }
 
   public static boolean startsWith(byte[] array, byte[] target) {
@@ -52,6 +52,26 @@ public final class Murmur3_x86_32 {
     return fmix(h1, 4);
   }
 
+  /**
+   * Hashes `values[i]` with `hashes[i]` as the seed into `hashes[i]`, as `hashInt` does, for each
+   * `i` in `[0, numValues)` where `isNull` is null or `isNull[i]` is false. Hashing the columns of
+   * a multi-column key one after another into the same `hashes`, which start with the seed,
+   * combines them as the hash expressions do row by row.
+   */
+  public static void hashInts(int[] values, boolean[] isNull, int[] hashes, int numValues) {
+    if (isNull == null) {
+      for (int i = 0; i < numValues; i++) {
+        hashes[i] = hashInt(values[i], hashes[i]);
+      }
+    } else {
+      for (int i = 0; i < numValues; i++) {
+        if (!isNull[i]) {
+          hashes[i] = hashInt(values[i], hashes[i]);
+        }
+      }
+    }
+  }
+
   public int hashUnsafeWords(Object base, long offset, int lengthInBytes) {
     return hashUnsafeWords(base, offset, lengthInBytes, seed);
   }
@@ -121,6 +141,24 @@ public final class Murmur3_x86_32 {
     return fmix(h1, 8);
   }
 
+  /**
+   * Hashes `values[i]` with `hashes[i]` as the seed into `hashes[i]`, as `hashLong` does, see
+   * {@link #hashInts}.
+   */
+  public static void hashLongs(long[] values, boolean[] isNull, int[] hashes, int numValues) {
+    if (isNull == null) {
+      for (int i = 0; i < numValues; i++) {
+        hashes[i] = hashLong(values[i], hashes[i]);
+      }
+    } else {
+      for (int i = 0; i < numValues; i++) {
+        if (!isNull[i]) {
+          hashes[i] = hashLong(values[i], hashes[i]);
+        }
+      }
+    }
+  }
+
   private static int mixK1(int k1) {
     k1 *= C1;
     k1 = Integer.rotateLeft(k1, 15);
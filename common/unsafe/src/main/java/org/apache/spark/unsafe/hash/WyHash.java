@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.unsafe.hash;
+
+import java.nio.ByteOrder;
+
+import org.apache.spark.unsafe.Platform;
+
+/**
+ * 64-bit wyhash hasher. This is based on the final version 4 of wyhash by Wang Yi, with its
+ * default secret.
+ *
+ * It mixes 16 bytes at a time with a 64x64-bit multiplication, so it is much faster than
+ * {@link Murmur3_x86_32} on long inputs. It is meant for the hash tables of a process, e.g. the
+ * keys of aggregation maps and hashed relations: the hashes must not be persisted or used to
+ * partition data, which must keep using the existing hash functions.
+ */
+public final class WyHash {
+  private static final boolean isBigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+
+  private static final long P0 = 0x2d358dccaa6c78a5L;
+  private static final long P1 = 0x8bb84b93962eacc9L;
+  private static final long P2 = 0x4b33a62ed433d4a3L;
+  private static final long P3 = 0x4d5a2da51de1aa47L;
+
+  private final long seed;
+
+  public WyHash(long seed) {
+    this.seed = seed;
+  }
+
+  @Override
+  public String toString() {
+    return "WyHash(seed=" + seed + ")";
+  }
+
+  public long hashLong(long input) {
+    return hashLong(input, seed);
+  }
+
+  /** Hashes the 8 bytes of `input` in little-endian order, as `hashUnsafeBytes` would. */
+  public static long hashLong(long input, long seed) {
+    seed ^= mix(seed ^ P0, P1);
+    // The halves of the bytes read as `hashUnsafeBytes` reads 8 bytes.
+    return finish(Long.rotateLeft(input, 32), input, seed, 8);
+  }
+
+  public long hashUnsafeWords(Object base, long offset, int lengthInBytes) {
+    return hashUnsafeWords(base, offset, lengthInBytes, seed);
+  }
+
+  public static long hashUnsafeWords(Object base, long offset, int lengthInBytes, long seed) {
+    assert (lengthInBytes % 8 == 0): "lengthInBytes must be a multiple of 8 (word-aligned)";
+    return hashUnsafeBytes(base, offset, lengthInBytes, seed);
+  }
+
+  public long hashUnsafeBytes(Object base, long offset, int lengthInBytes) {
+    return hashUnsafeBytes(base, offset, lengthInBytes, seed);
+  }
+
+  public static long hashUnsafeBytes(Object base, long offset, int lengthInBytes, long seed) {
+    assert (lengthInBytes >= 0): "lengthInBytes cannot be negative";
+    seed ^= mix(seed ^ P0, P1);
+    long a;
+    long b;
+    if (lengthInBytes <= 16) {
+      if (lengthInBytes >= 4) {
+        int shift = (lengthInBytes >>> 3) << 2;
+        long end = offset + lengthInBytes - 4;
+        a = (getUnsignedInt(base, offset) << 32) | getUnsignedInt(base, offset + shift);
+        b = (getUnsignedInt(base, end) << 32) | getUnsignedInt(base, end - shift);
+      } else if (lengthInBytes > 0) {
+        a = ((long) (Platform.getByte(base, offset) & 0xFF) << 16) |
+          ((long) (Platform.getByte(base, offset + (lengthInBytes >>> 1)) & 0xFF) << 8) |
+          (Platform.getByte(base, offset + lengthInBytes - 1) & 0xFF);
+        b = 0;
+      } else {
+        a = 0;
+        b = 0;
+      }
+    } else {
+      long p = offset;
+      int i = lengthInBytes;
+      if (i > 48) {
+        long see1 = seed;
+        long see2 = seed;
+        do {
+          seed = mix(getLong(base, p) ^ P1, getLong(base, p + 8) ^ seed);
+          see1 = mix(getLong(base, p + 16) ^ P2, getLong(base, p + 24) ^ see1);
+          see2 = mix(getLong(base, p + 32) ^ P3, getLong(base, p + 40) ^ see2);
+          p += 48;
+          i -= 48;
+        } while (i > 48);
+        seed ^= see1 ^ see2;
+      }
+      while (i > 16) {
+        seed = mix(getLong(base, p) ^ P1, getLong(base, p + 8) ^ seed);
+        p += 16;
+        i -= 16;
+      }
+      // The last 16 bytes, which may overlap the bytes mixed above.
+      a = getLong(base, p + i - 16);
+      b = getLong(base, p + i - 8);
+    }
+    return finish(a, b, seed, lengthInBytes);
+  }
+
+  private static long finish(long a, long b, long seed, int lengthInBytes) {
+    a ^= P1;
+    b ^= seed;
+    long low = a * b;
+    long high = unsignedMultiplyHigh(a, b);
+    return mix(low ^ P0 ^ lengthInBytes, high ^ P1);
+  }
+
+  // Returns the xor of the low and the high 64 bits of the 128-bit product of `a` and `b`.
+  private static long mix(long a, long b) {
+    return (a * b) ^ unsignedMultiplyHigh(a, b);
+  }
+
+  private static long unsignedMultiplyHigh(long a, long b) {
+    return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+  }
+
+  private static long getLong(Object base, long offset) {
+    long word = Platform.getLong(base, offset);
+    return isBigEndian ? Long.reverseBytes(word) : word;
+  }
+
+  private static long getUnsignedInt(Object base, long offset) {
+    int halfWord = Platform.getInt(base, offset);
+    return (isBigEndian ? Integer.reverseBytes(halfWord) : halfWord) & 0xFFFFFFFFL;
+  }
+}
@@ -21,6 +21,7 @@ import javax.annotation.Nonnull;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.function.Function;
 import java.util.Iterator;
@@ -688,14 +689,7 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
     if (substring.numBytes == 0) {
       return true;
     }
-
-    byte first = substring.getByte(0);
-    for (int i = 0; i <= numBytes - substring.numBytes; i++) {
-      if (getByte(i) == first && matchAt(substring, i)) {
-        return true;
-      }
-    }
-    return false;
+    return find(substring, 0) >= 0;
   }
 
   /**
@@ -1222,7 +1216,16 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
     if (v.numBytes() == 0) {
       return indexOfEmpty(start);
     }
+    return indexOf(v, null, start);
+  }
 
+  /**
+   * Returns the position of the first occurrence of the non-empty `v` in current string at or
+   * after the specified (char) position, searching for the bytes of `v` with `searcher` if it is
+   * not null. As the string may not be valid UTF-8, only the matches at the positions of chars
+   * count.
+   */
+  int indexOf(UTF8String v, UTF8StringSearcher searcher, int start) {
     // locate to the start position.
     int i = 0; // position in byte
     int c = 0; // position in character
@@ -1231,17 +1234,19 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
       c += 1;
     }
 
-    do {
-      if (i + v.numBytes > numBytes) {
+    while (i < numBytes) {
+      int matchPos = searcher != null ? searcher.find(this, i) : find(v, i);
+      if (matchPos < 0) {
         return -1;
       }
-      if (ByteArrayMethods.arrayEquals(base, offset + i, v.base, v.offset, v.numBytes)) {
+      while (i < matchPos) {
+        i += numBytesForFirstByte(getByte(i));
+        c += 1;
+      }
+      if (i == matchPos) {
         return c;
       }
-      i += numBytesForFirstByte(getByte(i));
-      c += 1;
-    } while (i < numBytes);
-
+    }
     return -1;
   }
 
@@ -1274,13 +1279,8 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
    */
   public int find(UTF8String str, int start) {
     assert (str.numBytes > 0);
-    while (start <= numBytes - str.numBytes) {
-      if (ByteArrayMethods.arrayEquals(base, offset + start, str.base, str.offset, str.numBytes)) {
-        return start;
-      }
-      start += 1;
-    }
-    return -1;
+    return ByteArrayMethods.indexOf(
+      base, offset, numBytes, str.base, str.offset, str.numBytes, start);
   }
 
   /**
@@ -1512,6 +1512,9 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
       result[newLimit - 1] = UTF8String.fromBytes(input, byteIndex, numBytes() - byteIndex);
       return result;
     }
+    if (pattern.numBytes() > 0 && isLiteralRegex(pattern)) {
+      return splitByLiteral(pattern, limit);
+    }
     return split(pattern.toString(), limit);
   }
 
@@ -1531,6 +1534,9 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
       }
       return result;
     }
+    if (pattern.numBytes() > 0 && isLiteralRegex(pattern)) {
+      return splitByLiteral(pattern, limit);
+    }
     return split(pattern.toString(), limit);
   }
 
@@ -1541,11 +1547,69 @@ public final class UTF8String implements Comparable<UTF8String>, Externalizable,
       return new UTF8String[]{this};
     } else {
       // we do not treat delimiter as a regex but consider the whole string of delimiter
-      // as the separator to split string. Java String's split, however, only accept
-      // regex as the pattern to split, thus we can quote the delimiter to escape special
-      // characters in the string.
+      // as the separator to split string.
+      return splitByLiteral(delimiter, limit);
+    }
+  }
+
+  /**
+   * Splits the current string around the matches of `regex`, which is compiled once for all the
+   * strings to split, with the semantics of `split` for a non-empty pattern.
+   */
+  public UTF8String[] split(Pattern regex, int limit) {
+    // See `split(String, int)`.
+    if (limit == 0) {
+      limit = -1;
+    }
+    String[] splits = regex.split(toString(), limit);
+    UTF8String[] res = new UTF8String[splits.length];
+    for (int i = 0; i < res.length; i++) {
+      res[i] = fromString(splits[i]);
+    }
+    return res;
+  }
+
+  /**
+   * Returns whether the regular expression `regex` only matches itself, so that `split` does not
+   * need to compile it.
+   */
+  public static boolean isLiteralRegex(UTF8String regex) {
+    for (int i = 0; i < regex.numBytes; i++) {
+      if (REGEX_METACHARACTERS.indexOf(regex.getByte(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final String REGEX_METACHARACTERS = ".$|()[]{}^?*+\\";
+
+  /**
+   * Splits the current string around the matches of the non-empty `delimiter`, as `split` of
+   * the quoted `delimiter` does. The parts are found by comparing bytes, and reference the bytes
+   * of the current string instead of copying them. The strings that are not valid UTF-8 are
+   * split as Java strings, which replace the invalid bytes.
+   */
+  private UTF8String[] splitByLiteral(UTF8String delimiter, int limit) {
+    if (!isValid() || !delimiter.isValid()) {
       return split(Pattern.quote(delimiter.toString()), limit);
     }
+    // See `split(String, int)`.
+    if (limit == 0) {
+      limit = -1;
+    }
+    ArrayList<UTF8String> parts = new ArrayList<>();
+    int start = 0;
+    while (limit < 0 || parts.size() < limit - 1) {
+      int end = find(delimiter, start);
+      if (end < 0) {
+        break;
+      }
+      parts.add(fromAddress(base, offset + start, end - start));
+      start = end + delimiter.numBytes;
+    }
+    parts.add(fromAddress(base, offset + start, numBytes - start));
+    return parts.toArray(new UTF8String[0]);
   }
 
   private UTF8String[] split(String delimiter, int limit) {
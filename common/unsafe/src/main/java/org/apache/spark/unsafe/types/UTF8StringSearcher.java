@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.unsafe.types;
+
+import java.io.Serializable;
+import java.nio.ByteOrder;
+
+import org.apache.spark.unsafe.Platform;
+import org.apache.spark.unsafe.array.ByteArrayMethods;
+
+/**
+ * Searches strings for the bytes of a pattern, which is prepared once to search many strings,
+ * e.g. the constant substring of `contains` or `instr` for all the rows of a task.
+ *
+ * Short patterns are searched with {@link ByteArrayMethods#indexOf}, which compares the first
+ * and the last byte of the pattern with 8 positions at a time. Patterns of at least
+ * {@link #TWO_WAY_MIN_LENGTH} bytes are searched with the Two-Way algorithm of Crochemore and
+ * Perrin, which compares each byte of the string a bounded number of times whatever the pattern
+ * and the string are, with no more space than a few integers.
+ */
+public final class UTF8StringSearcher implements Serializable {
+
+  /** The minimum length in bytes of the patterns searched with the Two-Way algorithm. */
+  public static final int TWO_WAY_MIN_LENGTH = 32;
+
+  private static final boolean UNALIGNED = Platform.unaligned();
+  private static final boolean IS_LITTLE_ENDIAN =
+    ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  private final byte[] pattern;
+  private final boolean twoWay;
+  // The critical position, which splits the pattern into a left and a right part.
+  private final int criticalPos;
+  // The period of the pattern if `periodic`, or the shift after a mismatch in the left part.
+  private final int period;
+  // Whether the left part of the pattern is a suffix of its prefix of length `period`.
+  private final boolean periodic;
+
+  public UTF8StringSearcher(UTF8String pattern) {
+    this.pattern = pattern.getBytes();
+    this.twoWay = this.pattern.length >= TWO_WAY_MIN_LENGTH;
+    if (twoWay) {
+      long lessSuffix = maximalSuffix(this.pattern, false);
+      long greaterSuffix = maximalSuffix(this.pattern, true);
+      long suffix = (int) (lessSuffix >>> 32) >= (int) (greaterSuffix >>> 32) ?
+        lessSuffix : greaterSuffix;
+      int pos = (int) (suffix >>> 32);
+      int suffixPeriod = (int) suffix;
+      this.criticalPos = pos;
+      if (pos + suffixPeriod <= this.pattern.length && ByteArrayMethods.arrayEquals(
+          this.pattern, Platform.BYTE_ARRAY_OFFSET,
+          this.pattern, Platform.BYTE_ARRAY_OFFSET + suffixPeriod, pos)) {
+        this.periodic = true;
+        this.period = suffixPeriod;
+      } else {
+        this.periodic = false;
+        this.period = Math.max(pos, this.pattern.length - pos) + 1;
+      }
+    } else {
+      this.criticalPos = 0;
+      this.period = 0;
+      this.periodic = false;
+    }
+  }
+
+  /** Returns the pattern that this searches for. */
+  public UTF8String pattern() {
+    return UTF8String.fromBytes(pattern);
+  }
+
+  /** Returns whether `s` contains the pattern, as `s.contains(pattern)`. */
+  public boolean containedIn(UTF8String s) {
+    return pattern.length == 0 || find(s, 0) >= 0;
+  }
+
+  /**
+   * Returns the (char) position of the first occurrence of the pattern in `s` at or after the
+   * (char) position `start`, or -1 if there is none, as `s.indexOf(pattern, start)`.
+   */
+  public int indexOf(UTF8String s, int start) {
+    if (pattern.length == 0) {
+      return s.indexOfEmpty(start);
+    }
+    return s.indexOf(null, this, start);
+  }
+
+  /**
+   * Returns the (byte) position of the first occurrence of the non-empty pattern in `s` at or
+   * after the (byte) position `start`, or -1 if there is none, as `s.find(pattern, start)`.
+   */
+  public int find(UTF8String s, int start) {
+    assert (pattern.length > 0);
+    if (twoWay) {
+      return twoWayFind(s.getBaseObject(), s.getBaseOffset(), s.numBytes(), Math.max(start, 0));
+    } else {
+      return ByteArrayMethods.indexOf(s.getBaseObject(), s.getBaseOffset(), s.numBytes(),
+        pattern, Platform.BYTE_ARRAY_OFFSET, pattern.length, start);
+    }
+  }
+
+  private int twoWayFind(Object base, long offset, int numBytes, int start) {
+    final int m = pattern.length;
+    int pos = start;
+    // The length of the prefix of the pattern known to match at `pos` in the periodic case.
+    int memory = 0;
+    // Nothing is known to match when `memory` is 0, so the search can skip the positions that
+    // cannot match, see `nextCandidate`.
+    pos = nextCandidate(base, offset, numBytes, pos);
+    while (pos >= 0 && pos <= numBytes - m) {
+      // Match the right part of the pattern from left to right.
+      int i = Math.max(criticalPos, memory);
+      while (i < m && pattern[i] == Platform.getByte(base, offset + pos + i)) {
+        i++;
+      }
+      if (i < m) {
+        memory = 0;
+        pos = nextCandidate(base, offset, numBytes, pos + i - criticalPos + 1);
+        continue;
+      }
+      // Match the left part of the pattern from right to left.
+      int j = criticalPos;
+      while (j > memory && pattern[j - 1] == Platform.getByte(base, offset + pos + j - 1)) {
+        j--;
+      }
+      if (j <= memory) {
+        return pos;
+      }
+      if (periodic) {
+        pos += period;
+        memory = m - period;
+      } else {
+        pos = nextCandidate(base, offset, numBytes, pos + period);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the first position at or after `pos` where the first and the last byte of the
+   * pattern match, or -1 if there is none. The positions in between, where the pattern cannot
+   * match, are skipped 8 at a time if possible.
+   */
+  private int nextCandidate(Object base, long offset, int numBytes, int pos) {
+    final int m = pattern.length;
+    final int last = numBytes - m;
+    final byte first = pattern[0];
+    final byte lastByte = pattern[m - 1];
+    if (UNALIGNED) {
+      final long firstBytes = LOW_BITS * (first & 0xFF);
+      final long lastBytes = LOW_BITS * (lastByte & 0xFF);
+      while (pos + 7 <= last) {
+        long firstWord = Platform.getLong(base, offset + pos);
+        long lastWord = Platform.getLong(base, offset + pos + m - 1);
+        if (!IS_LITTLE_ENDIAN) {
+          firstWord = Long.reverseBytes(firstWord);
+          lastWord = Long.reverseBytes(lastWord);
+        }
+        // See ByteArrayMethods.indexOf, the lowest candidate is a match of both bytes.
+        final long x = (firstWord ^ firstBytes) | (lastWord ^ lastBytes);
+        final long candidates = (x - LOW_BITS) & ~x & HIGH_BITS;
+        if (candidates != 0) {
+          return pos + (Long.numberOfTrailingZeros(candidates) >>> 3);
+        }
+        pos += 8;
+      }
+    }
+    for (; pos <= last; pos++) {
+      if (Platform.getByte(base, offset + pos) == first &&
+          Platform.getByte(base, offset + pos + m - 1) == lastByte) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the position of the maximal suffix of `pattern` in the (unsigned) byte order, or its
+   * reverse if `reversed`, in the higher 32 bits, and the period of the suffix in the lower 32
+   * bits.
+   */
+  private static long maximalSuffix(byte[] pattern, boolean reversed) {
+    int left = 0;
+    int right = 1;
+    int offset = 0;
+    int period = 1;
+    while (right + offset < pattern.length) {
+      int a = pattern[right + offset] & 0xFF;
+      int b = pattern[left + offset] & 0xFF;
+      if (reversed ? a > b : a < b) {
+        right += offset + 1;
+        offset = 0;
+        period = right - left;
+      } else if (a == b) {
+        if (offset + 1 == period) {
+          right += offset + 1;
+          offset = 0;
+        } else {
+          offset++;
+        }
+      } else {
+        left = right;
+        right++;
+        offset = 0;
+        period = 1;
+      }
+    }
+    return ((long) left << 32) | period;
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.spark.unsafe.hash;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
@@ -53,6 +54,36 @@ public class Murmur3_x86_32Suite {
     Assertions.assertEquals(-2106506049, hasher.hashLong(Long.MAX_VALUE));
   }
 
+  @Test
+  public void testBatchInputs() {
+    Random rand = new Random(42);
+    int size = 1000;
+    int[] ints = new int[size];
+    long[] longs = new long[size];
+    boolean[] isNull = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      ints[i] = rand.nextInt();
+      longs[i] = rand.nextLong();
+      isNull[i] = rand.nextInt(4) == 0;
+    }
+    for (boolean[] nulls : new boolean[][] { null, isNull }) {
+      int[] hashes = new int[size];
+      Arrays.fill(hashes, 42);
+      Murmur3_x86_32.hashInts(ints, nulls, hashes, size);
+      Murmur3_x86_32.hashLongs(longs, nulls, hashes, size - 1);
+      for (int i = 0; i < size; i++) {
+        int expected = 42;
+        if (nulls == null || !nulls[i]) {
+          expected = Murmur3_x86_32.hashInt(ints[i], expected);
+          if (i < size - 1) {
+            expected = Murmur3_x86_32.hashLong(longs[i], expected);
+          }
+        }
+        Assertions.assertEquals(expected, hashes[i]);
+      }
+    }
+  }
+
   // SPARK-23381 Check whether the hash of the byte array is the same as another implementations
   @Test
   public void testKnownBytesInputs() {
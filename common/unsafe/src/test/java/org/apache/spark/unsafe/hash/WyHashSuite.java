@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.unsafe.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.spark.unsafe.Platform;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test file based on the test vectors of the reference implementation of wyhash.
+ */
+public class WyHashSuite {
+
+  private static final WyHash hasher = new WyHash(42);
+
+  private static long hash(String input, long seed) {
+    byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+    return WyHash.hashUnsafeBytes(bytes, Platform.BYTE_ARRAY_OFFSET, bytes.length, seed);
+  }
+
+  @Test
+  public void testKnownBytesInputs() {
+    Assertions.assertEquals(0x93228a4de0eec5a2L, hash("", 0));
+    Assertions.assertEquals(0xc5bac3db178713c4L, hash("a", 1));
+    Assertions.assertEquals(0xa97f2f7b1d9b3314L, hash("abc", 2));
+    Assertions.assertEquals(0x786d1f1df3801df4L, hash("message digest", 3));
+    Assertions.assertEquals(0xdca5a8138ad37c87L, hash("abcdefghijklmnopqrstuvwxyz", 4));
+    Assertions.assertEquals(0xb9e734f117cfaf70L,
+      hash("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789", 5));
+    Assertions.assertEquals(0x6cc5eab49a92d617L, hash("1234567890".repeat(8), 6));
+  }
+
+  @Test
+  public void testLongInputs() {
+    Random rand = new Random(42);
+    byte[] bytes = new byte[8];
+    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 1000; i++) {
+      long input = i < 3 ? i - 1 : rand.nextLong();
+      buffer.putLong(0, input);
+      Assertions.assertEquals(
+        hasher.hashUnsafeBytes(bytes, Platform.BYTE_ARRAY_OFFSET, 8), hasher.hashLong(input));
+    }
+  }
+
+  @Test
+  public void testUnalignedInputs() {
+    Random rand = new Random(42);
+    byte[] bytes = new byte[300];
+    rand.nextBytes(bytes);
+    for (int length = 0; length <= 200; length++) {
+      for (int start = 1; start < 8; start++) {
+        byte[] copy = Arrays.copyOfRange(bytes, start, start + length);
+        Assertions.assertEquals(
+          hasher.hashUnsafeBytes(copy, Platform.BYTE_ARRAY_OFFSET, length),
+          hasher.hashUnsafeBytes(bytes, Platform.BYTE_ARRAY_OFFSET + start, length));
+      }
+    }
+  }
+
+  @Test
+  public void randomizedStressTestBytes() {
+    int size = 65536;
+    Random rand = new Random();
+
+    // A set used to track collision rate of the hashes truncated as hash tables do.
+    Set<Integer> hashcodes = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      int byteArrSize = rand.nextInt(100) * 8;
+      byte[] bytes = new byte[byteArrSize];
+      rand.nextBytes(bytes);
+
+      Assertions.assertEquals(
+        hasher.hashUnsafeWords(bytes, Platform.BYTE_ARRAY_OFFSET, byteArrSize),
+        hasher.hashUnsafeWords(bytes, Platform.BYTE_ARRAY_OFFSET, byteArrSize));
+
+      hashcodes.add((int) hasher.hashUnsafeWords(
+        bytes, Platform.BYTE_ARRAY_OFFSET, byteArrSize));
+    }
+
+    // A very loose bound.
+    Assertions.assertTrue(hashcodes.size() > size * 0.95);
+  }
+
+  @Test
+  public void randomizedStressTestPaddedStrings() {
+    int size = 64000;
+    // A set used to track collision rate of the hashes truncated as hash tables do.
+    Set<Integer> hashcodes = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      int byteArrSize = 8;
+      byte[] strBytes = String.valueOf(i).getBytes(StandardCharsets.UTF_8);
+      byte[] paddedBytes = new byte[byteArrSize];
+      System.arraycopy(strBytes, 0, paddedBytes, 0, strBytes.length);
+
+      Assertions.assertEquals(
+        hasher.hashUnsafeWords(paddedBytes, Platform.BYTE_ARRAY_OFFSET, byteArrSize),
+        hasher.hashUnsafeWords(paddedBytes, Platform.BYTE_ARRAY_OFFSET, byteArrSize));
+
+      hashcodes.add((int) hasher.hashUnsafeWords(
+        paddedBytes, Platform.BYTE_ARRAY_OFFSET, byteArrSize));
+    }
+
+    // A very loose bound.
+    Assertions.assertTrue(hashcodes.size() > size * 0.95);
+  }
+}
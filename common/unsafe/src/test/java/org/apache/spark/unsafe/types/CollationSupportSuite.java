@@ -23,7 +23,9 @@ import org.apache.spark.sql.catalyst.util.CollationSupport;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.apache.spark.sql.catalyst.util.CollationNames.*;
@@ -2435,6 +2437,61 @@ public class CollationSupportSuite {
     assertStringLocate("asd", "", 100, UNICODE_CI, 0);
   }
 
+  /**
+   * Verify the ASCII fast path of the UTF8_LCASE string search against lowercased Java strings.
+   */
+
+  @Test
+  public void testLowercaseAsciiSearch() throws SparkException {
+    // Letters of both cases and the ASCII characters next to the uppercase and lowercase letters.
+    String alphabet = "aAbBzZ@[`{xX";
+    Random random = new Random(42);
+    for (int n = 0; n < 5000; n++) {
+      String target = randomString(random, alphabet, random.nextInt(40));
+      String pattern = randomString(random, alphabet, 1 + random.nextInt(random.nextBoolean() ?
+        3 : 12));
+      if (random.nextInt(4) == 0 && target.length() >= pattern.length()) {
+        // Make sure that some patterns match, possibly with a different case.
+        int from = random.nextInt(target.length() - pattern.length() + 1);
+        pattern = swapCase(target.substring(from, from + pattern.length()));
+      }
+      String lowercaseTarget = target.toLowerCase(Locale.ROOT);
+      String lowercasePattern = pattern.toLowerCase(Locale.ROOT);
+      assertContains(target, pattern, UTF8_LCASE, lowercaseTarget.contains(lowercasePattern));
+      assertStartsWith(target, pattern, UTF8_LCASE,
+        lowercaseTarget.startsWith(lowercasePattern));
+      assertEndsWith(target, pattern, UTF8_LCASE, lowercaseTarget.endsWith(lowercasePattern));
+      int start = random.nextInt(target.length() + 3) - 1;
+      assertStringLocate(pattern, target, start + 1, UTF8_LCASE,
+        lowercaseTarget.indexOf(lowercasePattern, Math.max(start, 0)) + 1);
+      StringBuilder replaced = new StringBuilder();
+      int from = 0;
+      for (int i = lowercaseTarget.indexOf(lowercasePattern); i >= 0;
+           i = lowercaseTarget.indexOf(lowercasePattern, from)) {
+        replaced.append(target, from, i).append("_");
+        from = i + pattern.length();
+      }
+      replaced.append(target.substring(from));
+      assertStringReplace(target, pattern, "_", UTF8_LCASE, replaced.toString());
+    }
+  }
+
+  private static String randomString(Random random, String alphabet, int length) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return sb.toString();
+  }
+
+  private static String swapCase(String s) {
+    StringBuilder sb = new StringBuilder();
+    for (char c : s.toCharArray()) {
+      sb.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+    }
+    return sb.toString();
+  }
+
   /**
    * Verify the behaviour of the `SubstringIndex` collation support class.
    */
@@ -281,6 +281,70 @@ public class UTF8StringSuite {
     assertEquals(3, fromString("数据砖头").indexOf(fromString("头"), 0));
   }
 
+  // Returns the position of the first occurrence of `sub` in `s` at or after `start`, by
+  // comparing at every position.
+  private static int naiveFind(UTF8String s, UTF8String sub, int start) {
+    for (int i = start; i <= s.numBytes() - sub.numBytes(); i++) {
+      if (s.matchAt(sub, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  public void searcher() {
+    UTF8StringSearcher searcher = new UTF8StringSearcher(fromString("砖头"));
+    assertTrue(searcher.containedIn(fromString("数据砖头")));
+    assertFalse(searcher.containedIn(fromString("数据砖")));
+    assertEquals(2, searcher.indexOf(fromString("数据砖头"), 0));
+    assertEquals(-1, searcher.indexOf(fromString("数据砖头"), 3));
+    assertEquals(6, searcher.find(fromString("数据砖头"), 0));
+    assertTrue(new UTF8StringSearcher(EMPTY_UTF8).containedIn(EMPTY_UTF8));
+    assertEquals(0, new UTF8StringSearcher(EMPTY_UTF8).indexOf(fromString("hello"), 3));
+
+    // Search random strings of a few letters for their substrings and for random patterns, so
+    // that there are many partial matches, with both short and long (Two-Way) patterns.
+    Random random = new Random(42);
+    String letters = "ab数";
+    for (int n = 0; n < 2000; n++) {
+      StringBuilder sb = new StringBuilder();
+      int length = random.nextInt(200);
+      for (int i = 0; i < length; i++) {
+        sb.append(letters.charAt(random.nextInt(random.nextBoolean() ? 2 : 3)));
+      }
+      UTF8String s = fromString(sb.toString());
+      String pattern;
+      if (length > 0 && random.nextBoolean()) {
+        int from = random.nextInt(length);
+        pattern = sb.substring(from, from + 1 + random.nextInt(Math.min(length - from, 60)));
+      } else {
+        StringBuilder pb = new StringBuilder();
+        int patternLength = 1 + random.nextInt(40);
+        for (int i = 0; i < patternLength; i++) {
+          pb.append(letters.charAt(random.nextInt(2)));
+        }
+        pattern = pb.toString();
+      }
+      UTF8String sub = fromString(pattern);
+      searcher = new UTF8StringSearcher(sub);
+      int start = random.nextInt(s.numBytes() + 1);
+      int expected = naiveFind(s, sub, start);
+      assertEquals(expected, searcher.find(s, start), s + " / " + sub);
+      assertEquals(expected, s.find(sub, start), s + " / " + sub);
+      assertEquals(naiveFind(s, sub, 0) >= 0, searcher.containedIn(s));
+      assertEquals(naiveFind(s, sub, 0) >= 0, s.contains(sub));
+      int charStart = random.nextInt(4);
+      int expectedIndex = sb.indexOf(pattern, sb.offsetByCodePoints(0,
+        Math.min(charStart, sb.codePointCount(0, sb.length()))));
+      if (expectedIndex >= 0) {
+        expectedIndex = sb.codePointCount(0, expectedIndex);
+      }
+      assertEquals(expectedIndex, searcher.indexOf(s, charStart));
+      assertEquals(expectedIndex, s.indexOf(sub, charStart));
+    }
+  }
+
   @Test
   public void substring_index() {
     assertEquals(fromString("www.apache.org"),
@@ -438,6 +502,51 @@ public class UTF8StringSuite {
       fromString("").split(fromString(""), 0));
   }
 
+  @Test
+  public void splitByLiteral() {
+    assertTrue(UTF8String.isLiteralRegex(fromString("ab,-_ 世")));
+    for (String metacharacter : new String[]{".", "$", "|", "(", ")", "[", "{", "^", "?", "*",
+        "+", "\\"}) {
+      assertFalse(UTF8String.isLiteralRegex(fromString("a" + metacharacter)));
+    }
+    String[] strings = new String[]{"", ",", ",,", "a", "ab,,c,", ",a,b", "a::b:::c::", "::",
+      "世界, 世界", "世,,界,", "a\u00e9b\u00e9"};
+    String[] delimiters = new String[]{",", "::", ", ", "界", "\u00e9", "xyz"};
+    for (String s : strings) {
+      for (String d : delimiters) {
+        for (int limit : new int[]{-1, 0, 1, 2, 3, 10}) {
+          String[] expected = s.split(java.util.regex.Pattern.quote(d), limit == 0 ? -1 : limit);
+          UTF8String[] expectedUTF8 = new UTF8String[expected.length];
+          for (int i = 0; i < expected.length; i++) {
+            expectedUTF8[i] = fromString(expected[i]);
+          }
+          assertArrayEquals(expectedUTF8, fromString(s).split(fromString(d), limit));
+          assertArrayEquals(expectedUTF8, fromString(s).splitSQL(fromString(d), limit));
+          assertArrayEquals(expectedUTF8,
+            fromString(s).split(java.util.regex.Pattern.compile(
+              java.util.regex.Pattern.quote(d)), limit));
+        }
+      }
+    }
+    // The parts reference the bytes of the split string.
+    UTF8String s = fromString("ab,cd");
+    UTF8String[] parts = s.split(fromString(","), -1);
+    assertSame(s.getBaseObject(), parts[1].getBaseObject());
+    assertEquals(s.getBaseOffset() + 3, parts[1].getBaseOffset());
+    // Invalid UTF-8 bytes are replaced as by splitting Java strings.
+    UTF8String invalid = fromBytes(new byte[]{'a', ',', (byte) 0xFF, ',', 'b'});
+    assertArrayEquals(
+      new UTF8String[]{fromString("a"), fromString("\uFFFD"), fromString("b")},
+      invalid.split(fromString(","), -1));
+    // Regexes are still split around by their matches.
+    assertArrayEquals(
+      new UTF8String[]{fromString("a"), fromString("b"), fromString("c")},
+      fromString("a1b22c").split(fromString("[0-9]+"), -1));
+    assertArrayEquals(
+      new UTF8String[]{fromString("a"), fromString("b"), fromString("c")},
+      fromString("a1b22c").split(java.util.regex.Pattern.compile("[0-9]+"), 0));
+  }
+
   @Test
   public void replace() {
     assertEquals(
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.types.variant;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.apache.spark.types.variant.VariantUtil.*;
+
+/**
+ * A path of object keys and array indices, prepared to extract the values at the path from many
+ * variants, e.g. the constant path of `variant_get` for all the rows of a task.
+ *
+ * The keys are resolved to ids of the metadata dictionary once, and the resolution is reused as
+ * long as the variants have the same metadata, which is usual for the rows of a table. The fields
+ * of objects are then found by their ids instead of decoding and comparing their keys, and the
+ * path is walked by positions in the value, without creating the intermediate variants.
+ */
+public final class CompiledVariantPath implements Serializable {
+  // The key of each object extraction, or null for an array extraction.
+  private final String[] keys;
+  private final byte[][] keyBytes;
+  // The index of each array extraction.
+  private final int[] indices;
+
+  // The resolution of the keys in the metadata of the last variant.
+  private transient Resolution resolution;
+
+  // The id of a key that is not in the metadata dictionary, so that no object contains it.
+  private static final int MISSING_ID = -1;
+  // The id of a key that occurs more than once in the metadata dictionary, which is then searched
+  // by key.
+  private static final int AMBIGUOUS_ID = -2;
+
+  // See `Variant.getFieldByKey`.
+  private static final int BINARY_SEARCH_THRESHOLD = 32;
+
+  /**
+   * @param keys the key of each object extraction of the path, or null for an array extraction
+   * @param indices the index of each array extraction of the path, ignored for object extractions
+   */
+  public CompiledVariantPath(String[] keys, int[] indices) {
+    if (keys.length != indices.length) {
+      throw new IllegalArgumentException("The path has " + keys.length + " keys but " +
+        indices.length + " indices");
+    }
+    this.keys = keys.clone();
+    this.indices = indices.clone();
+    this.keyBytes = new byte[keys.length][];
+    for (int i = 0; i < keys.length; ++i) {
+      if (keys[i] != null) {
+        keyBytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+      }
+    }
+  }
+
+  // Get the number of extractions of the path.
+  public int length() {
+    return keys.length;
+  }
+
+  /**
+   * Returns the value at the path, starting from the extraction at `from`, of the variant made of
+   * `value` and `metadata`, or null if the path does not exist in the variant, as successive calls
+   * of `Variant.getFieldByKey` and `Variant.getElementAtIndex` would.
+   */
+  public Variant extract(byte[] value, byte[] metadata, int from) {
+    Variant.checkBinaries(value, metadata);
+    int pos = 0;
+    Resolution r = null;
+    for (int i = from; i < keys.length; ++i) {
+      checkIndex(pos, value.length);
+      int basicType = value[pos] & BASIC_TYPE_MASK;
+      if (keys[i] != null) {
+        if (basicType != OBJECT) return null;
+        if (r == null) r = resolve(metadata);
+        int id = r.ids[i];
+        if (id == MISSING_ID) return null;
+        if (id == AMBIGUOUS_ID) {
+          Variant field = new Variant(value, metadata, pos).getFieldByKey(keys[i]);
+          if (field == null) return null;
+          pos = field.pos;
+        } else {
+          pos = findField(value, pos, r, id);
+        }
+      } else {
+        if (basicType != ARRAY) return null;
+        pos = findElement(value, pos, indices[i]);
+      }
+      if (pos < 0) return null;
+    }
+    return new Variant(value, metadata, pos);
+  }
+
+  // Find the position of the field with the dictionary id `id` in the object at `pos`, or -1.
+  private static int findField(byte[] value, int pos, Resolution r, int id) {
+    // See `VariantUtil.handleObject`.
+    int typeInfo = (value[pos] >> BASIC_TYPE_BITS) & TYPE_INFO_MASK;
+    boolean largeSize = ((typeInfo >> 4) & 0x1) != 0;
+    int sizeBytes = (largeSize ? U32_SIZE : 1);
+    int size = readUnsigned(value, pos + 1, sizeBytes);
+    int idSize = ((typeInfo >> 2) & 0x3) + 1;
+    int offsetSize = (typeInfo & 0x3) + 1;
+    int idStart = pos + 1 + sizeBytes;
+    int offsetStart = idStart + size * idSize;
+    int dataStart = offsetStart + (size + 1) * offsetSize;
+    int index = -1;
+    if (size < BINARY_SEARCH_THRESHOLD) {
+      for (int i = 0; i < size; ++i) {
+        if (readUnsigned(value, idStart + idSize * i, idSize) == id) {
+          index = i;
+          break;
+        }
+      }
+    } else {
+      // The fields are sorted by key, so they can be searched by the ranks of their keys.
+      int[] ranks = r.ranks();
+      int rank = ranks[id];
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int midId = readUnsigned(value, idStart + idSize * mid, idSize);
+        if (midId >= ranks.length) throw malformedVariant();
+        int cmp = Integer.compare(ranks[midId], rank);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          index = mid;
+          break;
+        }
+      }
+    }
+    if (index < 0) return -1;
+    return dataStart + readUnsigned(value, offsetStart + offsetSize * index, offsetSize);
+  }
+
+  // Find the position of the element at `index` in the array at `pos`, or -1.
+  private static int findElement(byte[] value, int pos, int index) {
+    // See `VariantUtil.handleArray`.
+    int typeInfo = (value[pos] >> BASIC_TYPE_BITS) & TYPE_INFO_MASK;
+    boolean largeSize = ((typeInfo >> 2) & 0x1) != 0;
+    int sizeBytes = (largeSize ? U32_SIZE : 1);
+    int size = readUnsigned(value, pos + 1, sizeBytes);
+    if (index < 0 || index >= size) return -1;
+    int offsetSize = (typeInfo & 0x3) + 1;
+    int offsetStart = pos + 1 + sizeBytes;
+    int dataStart = offsetStart + (size + 1) * offsetSize;
+    return dataStart + readUnsigned(value, offsetStart + offsetSize * index, offsetSize);
+  }
+
+  private Resolution resolve(byte[] metadata) {
+    Resolution r = resolution;
+    if (r == null || !Arrays.equals(r.metadata, metadata)) {
+      r = new Resolution(metadata.clone(), keyBytes);
+      resolution = r;
+    }
+    return r;
+  }
+
+  // The dictionary ids of the keys of a path in a metadata. It is immutable except for the lazily
+  // computed ranks, so that it can be shared.
+  private static final class Resolution {
+    // A copy of the metadata.
+    final byte[] metadata;
+    // The dictionary id of each key, `MISSING_ID` or `AMBIGUOUS_ID`.
+    final int[] ids;
+    // The rank of each dictionary key in the order of the keys, computed when needed.
+    private volatile int[] ranks;
+
+    Resolution(byte[] metadata, byte[][] keyBytes) {
+      this.metadata = metadata;
+      this.ids = new int[keyBytes.length];
+      Arrays.fill(ids, MISSING_ID);
+      // See `VariantUtil.getMetadataKey`.
+      int offsetSize = ((metadata[0] >> 6) & 0x3) + 1;
+      int dictSize = readUnsigned(metadata, 1, offsetSize);
+      int stringStart = 1 + (dictSize + 2) * offsetSize;
+      int offset = readUnsigned(metadata, 1 + offsetSize, offsetSize);
+      for (int id = 0; id < dictSize; ++id) {
+        int nextOffset = readUnsigned(metadata, 1 + (id + 2) * offsetSize, offsetSize);
+        if (offset > nextOffset) throw malformedVariant();
+        checkIndex(stringStart + nextOffset - 1, metadata.length);
+        for (int i = 0; i < keyBytes.length; ++i) {
+          if (keyBytes[i] != null && Arrays.equals(keyBytes[i], 0, keyBytes[i].length,
+              metadata, stringStart + offset, stringStart + nextOffset)) {
+            ids[i] = ids[i] == MISSING_ID ? id : AMBIGUOUS_ID;
+          }
+        }
+        offset = nextOffset;
+      }
+    }
+
+    int[] ranks() {
+      int[] result = ranks;
+      if (result == null) {
+        int offsetSize = ((metadata[0] >> 6) & 0x3) + 1;
+        int dictSize = readUnsigned(metadata, 1, offsetSize);
+        String[] dictionary = new String[dictSize];
+        Integer[] order = new Integer[dictSize];
+        for (int id = 0; id < dictSize; ++id) {
+          dictionary[id] = getMetadataKey(metadata, id);
+          order[id] = id;
+        }
+        Arrays.sort(order, Comparator.comparing(id -> dictionary[id]));
+        result = new int[dictSize];
+        for (int rank = 0; rank < dictSize; ++rank) {
+          result[order[rank]] = rank;
+        }
+        ranks = result;
+      }
+      return result;
+    }
+  }
+}
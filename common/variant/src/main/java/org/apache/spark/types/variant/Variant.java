@@ -57,6 +57,11 @@ public final class Variant {
     this.value = value;
     this.metadata = metadata;
     this.pos = pos;
+    checkBinaries(value, metadata);
+  }
+
+  // Check that `value` and `metadata` can make a variant, as the constructor does.
+  static void checkBinaries(byte[] value, byte[] metadata) {
     // There is currently only one allowed version.
     if (metadata.length < 1 || (metadata[0] & VERSION_MASK) != VERSION) {
       throw malformedVariant();
@@ -53,10 +53,7 @@ public class VariantBuilder {
    * @throws IOException if any JSON parsing error happens.
    */
   public static Variant parseJson(String json, boolean allowDuplicateKeys) throws IOException {
-    try (JsonParser parser = new JsonFactory().createParser(json)) {
-      parser.nextToken();
-      return parseJson(parser, allowDuplicateKeys);
-    }
+    return new VariantBuilder(allowDuplicateKeys).parse(json);
   }
 
   /**
@@ -64,18 +61,63 @@ public class VariantBuilder {
    */
   public static Variant parseJson(JsonParser parser, boolean allowDuplicateKeys)
       throws IOException {
-    VariantBuilder builder = new VariantBuilder(allowDuplicateKeys);
-    builder.buildJson(parser);
-    return builder.result();
+    return new VariantBuilder(allowDuplicateKeys).parse(parser);
+  }
+
+  /**
+   * Similar to {@link #parseJson(String, boolean)}, but builds the variant with this builder, which
+   * is reset first. The buffers of the builder are reused, so parsing many JSON strings with one
+   * builder allocates little more than the results.
+   */
+  public Variant parse(String json) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      parser.nextToken();
+      return parse(parser);
+    }
+  }
+
+  /**
+   * Similar to {@link #parse(String)}, but takes a JSON parser instead of string input.
+   */
+  public Variant parse(JsonParser parser) throws IOException {
+    reset();
+    buildJson(parser);
+    return result();
+  }
+
+  // Discard the value and the dictionary built so far, and keep the buffers to build a new
+  // variant.
+  public void reset() {
+    writePos = 0;
+    if (numKeys > 0) {
+      Arrays.fill(dictionaryKeys, 0, numKeys, null);
+      Arrays.fill(dictionaryKeyBytes, 0, numKeys, null);
+      if (keyTable.length > MAX_RETAINED_KEY_TABLE_SIZE) {
+        keyTable = new int[32];
+      } else {
+        // Only clear the slots of the keys, as the table may be much larger than their number.
+        int mask = keyTable.length - 1;
+        for (int id = 0; id < numKeys; ++id) {
+          int hash = keyHashes[id];
+          int slot = (hash ^ (hash >>> 16)) & mask;
+          while (keyTable[slot] != id + 1) {
+            slot = (slot + 1) & mask;
+          }
+          keyTable[slot] = 0;
+        }
+      }
+      numKeys = 0;
+    }
+    numFields = 0;
+    numElements = 0;
   }
 
   // Build the variant metadata from `dictionaryKeys` and return the variant result.
   public Variant result() {
-    int numKeys = dictionaryKeys.size();
     // Use long to avoid overflow in accumulating lengths.
     long dictionaryStringSize = 0;
-    for (byte[] key : dictionaryKeys) {
-      dictionaryStringSize += key.length;
+    for (int i = 0; i < numKeys; ++i) {
+      dictionaryStringSize += dictionaryKeyBytes[i].length;
     }
     // Determine the number of bytes required per offset entry.
     // The largest offset is the one-past-the-end value, which is total string size. It's very
@@ -101,7 +143,7 @@ public class VariantBuilder {
     int currentOffset = 0;
     for (int i = 0; i < numKeys; ++i) {
       writeLong(metadata, offsetStart + i * offsetSize, currentOffset, offsetSize);
-      byte[] key = dictionaryKeys.get(i);
+      byte[] key = dictionaryKeyBytes[i];
       System.arraycopy(key, 0, metadata, stringStart + currentOffset, key.length);
       currentOffset += key.length;
     }
@@ -257,13 +299,42 @@ public class VariantBuilder {
   // Add a key to the variant dictionary. If the key already exists, the dictionary is not modified.
   // In either case, return the id of the key.
   public int addKey(String key) {
-    int id;
-    if (dictionary.containsKey(key)) {
-      id = dictionary.get(key);
-    } else {
-      id = dictionaryKeys.size();
-      dictionary.put(key, id);
-      dictionaryKeys.add(key.getBytes(StandardCharsets.UTF_8));
+    int hash = key.hashCode();
+    int mask = keyTable.length - 1;
+    // Linear probing. An empty slot is 0, otherwise a slot is the id of its key plus 1.
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (keyTable[slot] != 0) {
+      int id = keyTable[slot] - 1;
+      if (keyHashes[id] == hash && dictionaryKeys[id].equals(key)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int id = numKeys;
+    if (id == dictionaryKeys.length) {
+      int newCapacity = id * 2;
+      dictionaryKeys = Arrays.copyOf(dictionaryKeys, newCapacity);
+      dictionaryKeyBytes = Arrays.copyOf(dictionaryKeyBytes, newCapacity);
+      keyHashes = Arrays.copyOf(keyHashes, newCapacity);
+    }
+    dictionaryKeys[id] = key;
+    dictionaryKeyBytes[id] = key.getBytes(StandardCharsets.UTF_8);
+    keyHashes[id] = hash;
+    keyTable[slot] = id + 1;
+    ++numKeys;
+    // Keep the load factor of the table at most 1/2.
+    if (numKeys * 2 > keyTable.length) {
+      int[] newTable = new int[keyTable.length * 2];
+      int newMask = newTable.length - 1;
+      for (int i = 0; i < numKeys; ++i) {
+        int h = keyHashes[i];
+        int s = (h ^ (h >>> 16)) & newMask;
+        while (newTable[s] != 0) {
+          s = (s + 1) & newMask;
+        }
+        newTable[s] = i + 1;
+      }
+      keyTable = newTable;
     }
     return id;
   }
@@ -331,56 +402,211 @@ public class VariantBuilder {
         maxId = Math.max(maxId, fields.get(i).id);
         String key = fields.get(i).key;
         if (key.equals(fields.get(i - 1).key)) {
-          @SuppressWarnings("unchecked")
-          Map<String, String> parameters = Map$.MODULE$.<String, String>empty().updated("key", key);
-          throw new SparkRuntimeException("VARIANT_DUPLICATE_KEY", parameters,
-              null, new QueryContext[]{}, "");
+          throw duplicateKey(key);
         }
       }
     }
+    int from = numFields;
+    for (int i = 0; i < size; ++i) {
+      pushField(fields.get(i).id, fields.get(i).offset);
+    }
+    writeObjectHeader(start, from, maxId);
+  }
+
+  // Finish writing a variant array after all of its elements have already been written. The process
+  // is similar to that of `finishWritingObject`.
+  public void finishWritingArray(int start, ArrayList<Integer> offsets) {
+    int from = numElements;
+    for (int offset : offsets) {
+      pushElement(offset);
+    }
+    finishWritingArray(start, from);
+  }
+
+  // Finish writing a variant array whose element offsets are on the element stack from `from`, and
+  // pop them.
+  private void finishWritingArray(int start, int from) {
     int dataSize = writePos - start;
+    int size = numElements - from;
     boolean largeSize = size > U8_MAX;
     int sizeBytes = largeSize ? U32_SIZE : 1;
-    int idSize = getIntegerSize(maxId);
     int offsetSize = getIntegerSize(dataSize);
-    // The space for header byte, object size, id list, and offset list.
-    int headerSize = 1 + sizeBytes + size * idSize + (size + 1) * offsetSize;
+    // The space for header byte, object size, and offset list.
+    int headerSize = 1 + sizeBytes + (size + 1) * offsetSize;
     checkCapacity(headerSize);
-    // Shift the just-written field data to make room for the object header section.
+    // Shift the just-written field data to make room for the header section.
     System.arraycopy(writeBuffer, start, writeBuffer, start + headerSize, dataSize);
     writePos += headerSize;
-    writeBuffer[start] = objectHeader(largeSize, idSize, offsetSize);
+    writeBuffer[start] = arrayHeader(largeSize, offsetSize);
     writeLong(writeBuffer, start + 1, size, sizeBytes);
-    int idStart = start + 1 + sizeBytes;
-    int offsetStart = idStart + size * idSize;
+    int offsetStart = start + 1 + sizeBytes;
     for (int i = 0; i < size; ++i) {
-      writeLong(writeBuffer, idStart + i * idSize, fields.get(i).id, idSize);
-      writeLong(writeBuffer, offsetStart + i * offsetSize, fields.get(i).offset, offsetSize);
+      writeLong(writeBuffer, offsetStart + i * offsetSize, elementOffsets[from + i], offsetSize);
     }
     writeLong(writeBuffer, offsetStart + size * offsetSize, dataSize, offsetSize);
+    numElements = from;
   }
 
-  // Finish writing a variant array after all of its elements have already been written. The process
-  // is similar to that of `finishWritingObject`.
-  public void finishWritingArray(int start, ArrayList<Integer> offsets) {
+  // Finish writing a variant object whose fields are on the field stack from `from`, in the order
+  // they were written, and pop them. It is the same as `finishWritingObject`, but keeps the fields
+  // in primitive arrays shared by all the objects being built instead of a list per object.
+  private void finishWritingObject(int start, int from) {
+    int to = numFields;
+    sortFields(from, to);
+    int maxId = 0;
+    boolean hasDuplicates = false;
+    for (int i = from; i < to; ++i) {
+      maxId = Math.max(maxId, fieldIds[i]);
+      if (i > from && fieldIds[i] == fieldIds[i - 1]) {
+        if (!allowDuplicateKeys) {
+          throw duplicateKey(dictionaryKeys[fieldIds[i]]);
+        }
+        hasDuplicates = true;
+      }
+    }
+    if (hasDuplicates) {
+      removeDuplicateFields(start, from);
+    }
+    writeObjectHeader(start, from, maxId);
+  }
+
+  // Write the header of a variant object whose fields, sorted by key, are on the field stack from
+  // `from`, and pop them. The field data is shifted to make room for the header.
+  private void writeObjectHeader(int start, int from, int maxId) {
+    int size = numFields - from;
     int dataSize = writePos - start;
-    int size = offsets.size();
     boolean largeSize = size > U8_MAX;
     int sizeBytes = largeSize ? U32_SIZE : 1;
+    int idSize = getIntegerSize(maxId);
     int offsetSize = getIntegerSize(dataSize);
-    // The space for header byte, object size, and offset list.
-    int headerSize = 1 + sizeBytes + (size + 1) * offsetSize;
+    // The space for header byte, object size, id list, and offset list.
+    int headerSize = 1 + sizeBytes + size * idSize + (size + 1) * offsetSize;
     checkCapacity(headerSize);
-    // Shift the just-written field data to make room for the header section.
+    // Shift the just-written field data to make room for the object header section.
     System.arraycopy(writeBuffer, start, writeBuffer, start + headerSize, dataSize);
     writePos += headerSize;
-    writeBuffer[start] = arrayHeader(largeSize, offsetSize);
+    writeBuffer[start] = objectHeader(largeSize, idSize, offsetSize);
     writeLong(writeBuffer, start + 1, size, sizeBytes);
-    int offsetStart = start + 1 + sizeBytes;
+    int idStart = start + 1 + sizeBytes;
+    int offsetStart = idStart + size * idSize;
     for (int i = 0; i < size; ++i) {
-      writeLong(writeBuffer, offsetStart + i * offsetSize, offsets.get(i), offsetSize);
+      writeLong(writeBuffer, idStart + i * idSize, fieldIds[from + i], idSize);
+      writeLong(writeBuffer, offsetStart + i * offsetSize, fieldOffsets[from + i], offsetSize);
     }
     writeLong(writeBuffer, offsetStart + size * offsetSize, dataSize, offsetSize);
+    numFields = from;
+  }
+
+  // Sort the fields on the field stack in `[from, to)` by key, and the fields of the same key by
+  // offset.
+  private void sortFields(int from, int to) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      for (int i = from + 1; i < to; ++i) {
+        int id = fieldIds[i];
+        int offset = fieldOffsets[i];
+        int j = i - 1;
+        while (j >= from && compareFields(fieldIds[j], fieldOffsets[j], id, offset) > 0) {
+          fieldIds[j + 1] = fieldIds[j];
+          fieldOffsets[j + 1] = fieldOffsets[j];
+          --j;
+        }
+        fieldIds[j + 1] = id;
+        fieldOffsets[j + 1] = offset;
+      }
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    sortFields(from, mid);
+    sortFields(mid, to);
+    if (compareFields(fieldIds[mid - 1], fieldOffsets[mid - 1], fieldIds[mid], fieldOffsets[mid])
+        <= 0) {
+      return;
+    }
+    // Merge the sorted halves through the scratch arrays.
+    int length = to - from;
+    if (scratchIds.length < length) {
+      scratchIds = new int[Math.max(length, scratchIds.length * 2)];
+      scratchOffsets = new int[scratchIds.length];
+    }
+    System.arraycopy(fieldIds, from, scratchIds, 0, length);
+    System.arraycopy(fieldOffsets, from, scratchOffsets, 0, length);
+    int left = 0;
+    int leftEnd = mid - from;
+    int right = leftEnd;
+    for (int i = from; i < to; ++i) {
+      if (right == length || (left < leftEnd && compareFields(scratchIds[left],
+          scratchOffsets[left], scratchIds[right], scratchOffsets[right]) <= 0)) {
+        fieldIds[i] = scratchIds[left];
+        fieldOffsets[i] = scratchOffsets[left++];
+      } else {
+        fieldIds[i] = scratchIds[right];
+        fieldOffsets[i] = scratchOffsets[right++];
+      }
+    }
+  }
+
+  private int compareFields(int id1, int offset1, int id2, int offset2) {
+    if (id1 == id2) {
+      return Integer.compare(offset1, offset2);
+    }
+    return dictionaryKeys[id1].compareTo(dictionaryKeys[id2]);
+  }
+
+  // Keep only the last appended field of each key among the sorted fields on the field stack from
+  // `from`, and move the value data of the kept fields to close the gaps of the removed ones. It
+  // is the same as what `finishWritingObject` does when `allowDuplicateKeys` is true.
+  private void removeDuplicateFields(int start, int from) {
+    int to = numFields;
+    int size = 0;
+    for (int i = from; i < to; ++i) {
+      // The fields of the same key are sorted by offset, so the last one is kept.
+      if (i + 1 < to && fieldIds[i + 1] == fieldIds[i]) continue;
+      fieldIds[from + size] = fieldIds[i];
+      fieldOffsets[from + size] = fieldOffsets[i];
+      ++size;
+    }
+    numFields = from + size;
+    // Move the value data in the order of the offsets so that we can move the value data of each
+    // field to the new offset without overwriting the fields after it.
+    int[] oldOffsets = Arrays.copyOfRange(fieldOffsets, from, from + size);
+    Arrays.sort(oldOffsets);
+    int[] newOffsets = new int[size];
+    int currentOffset = 0;
+    for (int i = 0; i < size; ++i) {
+      int fieldSize = VariantUtil.valueSize(writeBuffer, start + oldOffsets[i]);
+      System.arraycopy(writeBuffer, start + oldOffsets[i],
+          writeBuffer, start + currentOffset, fieldSize);
+      newOffsets[i] = currentOffset;
+      currentOffset += fieldSize;
+    }
+    writePos = start + currentOffset;
+    for (int i = from; i < from + size; ++i) {
+      fieldOffsets[i] = newOffsets[Arrays.binarySearch(oldOffsets, fieldOffsets[i])];
+    }
+  }
+
+  private void pushField(int id, int offset) {
+    if (numFields == fieldIds.length) {
+      fieldIds = Arrays.copyOf(fieldIds, numFields * 2);
+      fieldOffsets = Arrays.copyOf(fieldOffsets, numFields * 2);
+    }
+    fieldIds[numFields] = id;
+    fieldOffsets[numFields] = offset;
+    ++numFields;
+  }
+
+  private void pushElement(int offset) {
+    if (numElements == elementOffsets.length) {
+      elementOffsets = Arrays.copyOf(elementOffsets, numElements * 2);
+    }
+    elementOffsets[numElements++] = offset;
+  }
+
+  private static SparkRuntimeException duplicateKey(String key) {
+    @SuppressWarnings("unchecked")
+    Map<String, String> parameters = Map$.MODULE$.<String, String>empty().updated("key", key);
+    return new SparkRuntimeException("VARIANT_DUPLICATE_KEY", parameters,
+        null, new QueryContext[]{}, "");
   }
 
   // Append a variant value to the variant builder. We need to insert the keys in the input variant
@@ -491,26 +717,27 @@ public class VariantBuilder {
     }
     switch (token) {
       case START_OBJECT: {
-        ArrayList<FieldEntry> fields = new ArrayList<>();
+        // The fields of nested objects are pushed after the fields of this object and popped when
+        // the nested objects are finished.
+        int from = numFields;
         int start = writePos;
         while (parser.nextToken() != JsonToken.END_OBJECT) {
           String key = parser.currentName();
           parser.nextToken();
-          int id = addKey(key);
-          fields.add(new FieldEntry(key, id, writePos - start));
+          pushField(addKey(key), writePos - start);
           buildJson(parser);
         }
-        finishWritingObject(start, fields);
+        finishWritingObject(start, from);
         break;
       }
       case START_ARRAY: {
-        ArrayList<Integer> offsets = new ArrayList<>();
+        int from = numElements;
         int start = writePos;
         while (parser.nextToken() != JsonToken.END_ARRAY) {
-          offsets.add(writePos - start);
+          pushElement(writePos - start);
           buildJson(parser);
         }
-        finishWritingArray(start, offsets);
+        finishWritingArray(start, from);
         break;
       }
       case VALUE_STRING:
@@ -575,12 +802,32 @@ public class VariantBuilder {
     return false;
   }
 
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+  // The size of the key table above which `reset` replaces it with a small one, so that a variant
+  // with many keys does not keep a large table for the next ones.
+  private static final int MAX_RETAINED_KEY_TABLE_SIZE = 1 << 16;
+
   // The write buffer in building the variant value. Its first `writePos` bytes has been written.
   private byte[] writeBuffer = new byte[128];
   private int writePos = 0;
-  // Map keys to a monotonically increasing id.
-  private final HashMap<String, Integer> dictionary = new HashMap<>();
-  // Store all keys in `dictionary` in the order of id.
-  private final ArrayList<byte[]> dictionaryKeys = new ArrayList<>();
+  // The keys of the dictionary in the order of their monotonically increasing ids, with their
+  // UTF-8 bytes and hash codes. The first `numKeys` entries are used.
+  private String[] dictionaryKeys = new String[16];
+  private byte[][] dictionaryKeyBytes = new byte[16][];
+  private int[] keyHashes = new int[16];
+  private int numKeys = 0;
+  // An open addressing hash table from keys to their ids, see `addKey`.
+  private int[] keyTable = new int[32];
+  // The stack of the dictionary ids and offsets of the fields of the objects being written.
+  private int[] fieldIds = new int[16];
+  private int[] fieldOffsets = new int[16];
+  private int numFields = 0;
+  // The stack of the offsets of the elements of the arrays being written.
+  private int[] elementOffsets = new int[16];
+  private int numElements = 0;
+  // The scratch arrays to merge sorted fields, see `sortFields`.
+  private int[] scratchIds = new int[0];
+  private int[] scratchOffsets = new int[0];
   private final boolean allowDuplicateKeys;
 }
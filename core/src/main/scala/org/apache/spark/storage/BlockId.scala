@@ -45,7 +45,8 @@ sealed abstract class BlockId {
      isInstanceOf[ShuffleDataBlockId] || isInstanceOf[ShuffleIndexBlockId])
   }
   def isShuffleChunk: Boolean = isInstanceOf[ShuffleBlockChunkId]
-  def isBroadcast: Boolean = isInstanceOf[BroadcastBlockId]
+  def isBroadcast: Boolean =
+    isInstanceOf[BroadcastBlockId] || isInstanceOf[BroadcastRelationBlockId]
 
   override def toString: String = name
 }
@@ -185,6 +186,14 @@ private[spark] case class TempShuffleBlockId(id: UUID) extends BlockId {
   override def name: String = "temp_shuffle_" + id
 }
 
+/**
+ * Id of the block that maps the fingerprint of a broadcast relation of a SQL join to the broadcast
+ * that holds it, so that the queries that run on an executor share it.
+ */
+private[spark] case class BroadcastRelationBlockId(fingerprint: String) extends BlockId {
+  override def name: String = "broadcast_relation_" + fingerprint
+}
+
 // Intended only for testing purposes
 private[spark] case class TestBlockId(id: String) extends BlockId {
   override def name: String = "test_" + id
@@ -216,6 +225,7 @@ object BlockId {
     "shuffleMerged_([_A-Za-z0-9]*)_([0-9]+)_([0-9]+)_([0-9]+).meta".r
   val SHUFFLE_CHUNK = "shuffleChunk_([0-9]+)_([0-9]+)_([0-9]+)_([0-9]+)".r
   val BROADCAST = "broadcast_([0-9]+)([_A-Za-z0-9]*)".r
+  val BROADCAST_RELATION = "broadcast_relation_(.*)".r
   val TASKRESULT = "taskresult_([0-9]+)".r
   val STREAM = "input-([0-9]+)-([0-9]+)".r
   val PYTHON_STREAM = "python-stream-([0-9]+)-([0-9]+)".r
@@ -252,6 +262,8 @@ object BlockId {
         chunkId.toInt)
     case BROADCAST(broadcastId, field) =>
       BroadcastBlockId(broadcastId.toLong, field.stripPrefix("_"))
+    case BROADCAST_RELATION(fingerprint) =>
+      BroadcastRelationBlockId(fingerprint)
     case TASKRESULT(taskId) =>
       TaskResultBlockId(taskId.toLong)
     case STREAM(streamId, uniqueId) =>
@@ -166,6 +166,17 @@ class BlockIdSuite extends SparkFunSuite {
     assertSame(id, BlockId(id.toString))
   }
 
+  test("broadcast relation") {
+    val id = BroadcastRelationBlockId("0a1b")
+    assertSame(id, BroadcastRelationBlockId("0a1b"))
+    assertDifferent(id, BroadcastRelationBlockId("0a1c"))
+    assert(id.name === "broadcast_relation_0a1b")
+    assert(id.asRDDId === None)
+    assert(id.fingerprint === "0a1b")
+    assert(id.isBroadcast)
+    assertSame(id, BlockId(id.toString))
+  }
+
   test("taskresult") {
     val id = TaskResultBlockId(60)
     assertSame(id, TaskResultBlockId(60))
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.catalyst.expressions;
+
+import java.io.Serializable;
+
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter;
+import org.apache.spark.sql.catalyst.types.*;
+import org.apache.spark.sql.types.*;
+import org.apache.spark.unsafe.Platform;
+
+/**
+ * A compact format of the {@link UnsafeRow}s of a schema whose fields are all of fixed-width
+ * types, to move or store many of them, e.g. in a shuffle.
+ *
+ * Each row has two parts: [null-tracking bit set] [values]
+ *
+ * The null-tracking bit set stores one bit per field, rounded up to bytes, and is omitted when no
+ * field of the schema is nullable. The values are stored in the order of the fields, each in the
+ * width of its type instead of an 8-byte word: 1 byte for booleans and bytes, 2 for shorts, 4 for
+ * ints, floats, dates and year-month intervals, and 8 for longs, doubles, timestamps, day-time
+ * intervals and decimals that fit in a long. So all the rows of a schema have the same size,
+ * which is a fraction of the size of an UnsafeRow for narrow types.
+ *
+ * The rows are converted back with an {@link UnsafeRowWriter}, which yields the same bytes as the
+ * UnsafeRows of the schema made by an {@link UnsafeProjection}.
+ */
+public final class CompactUnsafeRowFormat implements Serializable {
+
+  private final int numFields;
+  // The width in bytes of the values of each field.
+  private final int[] widths;
+  // The size of the null-tracking bit set, 0 if no field is nullable.
+  private final int nullBitsSize;
+  private final int sizeInBytes;
+
+  private CompactUnsafeRowFormat(StructType schema) {
+    this.numFields = schema.length();
+    this.widths = new int[numFields];
+    boolean nullable = false;
+    int valuesSize = 0;
+    for (int i = 0; i < numFields; i++) {
+      StructField field = schema.fields()[i];
+      widths[i] = fieldWidth(field.dataType());
+      nullable |= field.nullable();
+      valuesSize += widths[i];
+    }
+    this.nullBitsSize = nullable ? (numFields + 7) / 8 : 0;
+    this.sizeInBytes = nullBitsSize + valuesSize;
+  }
+
+  /**
+   * Returns the width in bytes of the values of a field of type `dt` in the compact format, or -1
+   * if the type is not of fixed width.
+   */
+  private static int fieldWidth(DataType dt) {
+    if (dt instanceof UserDefinedType<?> udt) {
+      return fieldWidth(udt.sqlType());
+    }
+    PhysicalDataType pdt = PhysicalDataType.apply(dt);
+    if (pdt instanceof PhysicalBooleanType || pdt instanceof PhysicalByteType) {
+      return 1;
+    } else if (pdt instanceof PhysicalShortType) {
+      return 2;
+    } else if (pdt instanceof PhysicalIntegerType || pdt instanceof PhysicalFloatType) {
+      return 4;
+    } else if (pdt instanceof PhysicalLongType || pdt instanceof PhysicalDoubleType) {
+      return 8;
+    } else if (pdt instanceof PhysicalDecimalType) {
+      return ((DecimalType) dt).precision() <= Decimal.MAX_LONG_DIGITS() ? 8 : -1;
+    } else if (pdt instanceof PhysicalNullType) {
+      return 0;
+    } else {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns true if the rows of `schema` can be stored in the compact format, i.e. if it has
+   * fields and all of them are of fixed-width types.
+   */
+  public static boolean isSupported(StructType schema) {
+    if (schema.isEmpty()) {
+      return false;
+    }
+    for (StructField field : schema.fields()) {
+      if (fieldWidth(field.dataType()) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the compact format of the rows of `schema`, which must be supported, see
+   * {@link #isSupported(StructType)}.
+   */
+  public static CompactUnsafeRowFormat create(StructType schema) {
+    if (!isSupported(schema)) {
+      throw new IllegalArgumentException(
+        "The compact row format does not support the schema " + schema.simpleString());
+    }
+    return new CompactUnsafeRowFormat(schema);
+  }
+
+  public int numFields() {
+    return numFields;
+  }
+
+  /**
+   * Returns the size in bytes of every row in the compact format.
+   */
+  public int sizeInBytes() {
+    return sizeInBytes;
+  }
+
+  /**
+   * Writes `row` in the compact format to the {@link #sizeInBytes()} bytes at `offset` in `base`.
+   *
+   * @throws IllegalStateException if a field of `row` is null while no field of the schema is
+   *                               nullable, as the value would be read back as a zero.
+   */
+  public void compact(UnsafeRow row, Object base, long offset) {
+    assert row.numFields() == numFields;
+    if (nullBitsSize == 0 && row.anyNull()) {
+      throw new IllegalStateException(
+        "The compact row format cannot store a null value in a non-nullable field");
+    }
+    Object rowBase = row.getBaseObject();
+    long slot = row.getBaseOffset() + UnsafeRow.calculateBitSetWidthInBytes(numFields);
+    for (int i = 0; i < nullBitsSize; i++) {
+      int nullBits = 0;
+      for (int j = 0; j < 8 && 8 * i + j < numFields; j++) {
+        if (row.isNullAt(8 * i + j)) {
+          nullBits |= 1 << j;
+        }
+      }
+      Platform.putByte(base, offset + i, (byte) nullBits);
+    }
+    long cursor = offset + nullBitsSize;
+    for (int i = 0; i < numFields; i++) {
+      // The values are at the beginning of their words, see `UnsafeRowWriter`.
+      switch (widths[i]) {
+        case 1:
+          Platform.putByte(base, cursor, Platform.getByte(rowBase, slot));
+          break;
+        case 2:
+          Platform.putShort(base, cursor, Platform.getShort(rowBase, slot));
+          break;
+        case 4:
+          Platform.putInt(base, cursor, Platform.getInt(rowBase, slot));
+          break;
+        case 8:
+          Platform.putLong(base, cursor, Platform.getLong(rowBase, slot));
+          break;
+        default:
+          break;
+      }
+      cursor += widths[i];
+      slot += 8;
+    }
+  }
+
+  /**
+   * Converts the row in the compact format at `offset` in `base` back to an UnsafeRow with
+   * `writer`, which must be the outermost writer of a row of {@link #numFields()} fields. The
+   * returned row is the row of the writer.
+   */
+  public UnsafeRow expand(Object base, long offset, UnsafeRowWriter writer) {
+    writer.reset();
+    writer.zeroOutNullBytes();
+    long cursor = offset + nullBitsSize;
+    for (int i = 0; i < numFields; i++) {
+      if (nullBitsSize > 0 && (Platform.getByte(base, offset + (i >> 3)) & (1 << (i & 7))) != 0) {
+        writer.setNullAt(i);
+      } else {
+        switch (widths[i]) {
+          case 1:
+            writer.write(i, Platform.getByte(base, cursor));
+            break;
+          case 2:
+            writer.write(i, Platform.getShort(base, cursor));
+            break;
+          case 4:
+            writer.write(i, Platform.getInt(base, cursor));
+            break;
+          case 8:
+            writer.write(i, Platform.getLong(base, cursor));
+            break;
+          default:
+            writer.write(i, 0L);
+            break;
+        }
+      }
+      cursor += widths[i];
+    }
+    return writer.getRow();
+  }
+}
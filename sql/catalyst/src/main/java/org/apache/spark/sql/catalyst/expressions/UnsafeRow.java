@@ -37,6 +37,7 @@ import org.apache.spark.unsafe.Platform;
 import org.apache.spark.unsafe.array.ByteArrayMethods;
 import org.apache.spark.unsafe.bitset.BitSetMethods;
 import org.apache.spark.unsafe.hash.Murmur3_x86_32;
+import org.apache.spark.unsafe.hash.WyHash;
 import org.apache.spark.unsafe.types.CalendarInterval;
 import org.apache.spark.unsafe.types.UTF8String;
 import org.apache.spark.unsafe.types.VariantVal;
@@ -557,6 +558,15 @@ public final class UnsafeRow extends InternalRow implements Externalizable, Kryo
     return Murmur3_x86_32.hashUnsafeWords(baseObject, baseOffset, sizeInBytes, 42);
   }
 
+  /**
+   * Returns a hash code of this row computed with {@link WyHash}, which is faster than
+   * {@link #hashCode()} on all but the shortest rows. It is only meant for the in-memory hash
+   * tables of a task or a hashed relation, see `spark.sql.execution.hashTable.keyHashFunction`.
+   */
+  public int wyHashCode() {
+    return (int) WyHash.hashUnsafeWords(baseObject, baseOffset, sizeInBytes, 42);
+  }
+
   @Override
   public boolean equals(Object other) {
     if (other instanceof UnsafeRow o) {
@@ -64,6 +64,25 @@ public final class XXH64 {
     return fmix(hash);
   }
 
+  /**
+   * Hashes `values[i]` with `hashes[i]` as the seed into `hashes[i]`, as `hashInt` does, for each
+   * `i` in `[0, numValues)` where `isNull` is null or `isNull[i]` is false, see
+   * {@link org.apache.spark.unsafe.hash.Murmur3_x86_32#hashInts}.
+   */
+  public static void hashInts(int[] values, boolean[] isNull, long[] hashes, int numValues) {
+    if (isNull == null) {
+      for (int i = 0; i < numValues; i++) {
+        hashes[i] = hashInt(values[i], hashes[i]);
+      }
+    } else {
+      for (int i = 0; i < numValues; i++) {
+        if (!isNull[i]) {
+          hashes[i] = hashInt(values[i], hashes[i]);
+        }
+      }
+    }
+  }
+
   public long hashLong(long input) {
     return hashLong(input, seed);
   }
@@ -75,6 +94,24 @@ public final class XXH64 {
     return fmix(hash);
   }
 
+  /**
+   * Hashes `values[i]` with `hashes[i]` as the seed into `hashes[i]`, as `hashLong` does, see
+   * {@link #hashInts}.
+   */
+  public static void hashLongs(long[] values, boolean[] isNull, long[] hashes, int numValues) {
+    if (isNull == null) {
+      for (int i = 0; i < numValues; i++) {
+        hashes[i] = hashLong(values[i], hashes[i]);
+      }
+    } else {
+      for (int i = 0; i < numValues; i++) {
+        if (!isNull[i]) {
+          hashes[i] = hashLong(values[i], hashes[i]);
+        }
+      }
+    }
+  }
+
   public long hashUnsafeWords(Object base, long offset, int length) {
     return hashUnsafeWords(base, offset, length, seed);
   }
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.catalyst.expressions
+
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.codegen.{CodegenContext, CodeGenerator, ExprCode, JavaCode, TrueLiteral}
+import org.apache.spark.sql.catalyst.expressions.codegen.Block.BlockHelper
+import org.apache.spark.sql.catalyst.util.TypeUtils
+import org.apache.spark.sql.types._
+
+/**
+ * An internal scalar function that returns whether values of `valueExpression` might be join keys
+ * of the creation side of a runtime filter, as summarized by `summaryExpression`: a struct of the
+ * min and max keys, and of the array of distinct keys, which is null if there are too many.
+ * Like [[BloomFilterMightContain]], the function is "might contain", and `summaryExpression` is
+ * either a constant value or an uncorrelated scalar subquery.
+ *
+ * Unlike a Bloom filter, the summary translates to predicates on the bounds and the values that
+ * file scans push down once the subquery is executed, see [[pushableFilters]].
+ *
+ * @param summaryExpression the struct of min, max and values made by [[RangeMightContain.summary]].
+ * @param valueExpression the value to be tested.
+ */
+case class RangeMightContain(
+    summaryExpression: Expression,
+    valueExpression: Expression) extends BinaryExpression with Predicate {
+
+  override def nullable: Boolean = true
+  override def left: Expression = summaryExpression
+  override def right: Expression = valueExpression
+  override def prettyName: String = "range_might_contain"
+
+  override protected def withNewChildrenInternal(
+      newSummaryExpression: Expression,
+      newValueExpression: Expression): RangeMightContain =
+    copy(summaryExpression = newSummaryExpression, valueExpression = newValueExpression)
+
+  @transient private lazy val summary = summaryExpression.eval().asInstanceOf[InternalRow]
+
+  // The min and max values, which are null if the creation side has no keys.
+  @transient private lazy val min = summary.get(0, valueExpression.dataType)
+  @transient private lazy val max = summary.get(1, valueExpression.dataType)
+
+  @transient private lazy val values: Set[Any] = summary.getArray(2) match {
+    case null => null
+    case array => array.toSeq[Any](valueExpression.dataType).toSet
+  }
+
+  @transient private lazy val ordering = TypeUtils.getInterpretedOrdering(valueExpression.dataType)
+
+  /**
+   * Returns whether `value` is within the bounds and, if known, one of the values. This is called
+   * by generated code, and should be public.
+   */
+  def mightContain(value: Any): Boolean = {
+    ordering.gteq(value, min) && ordering.lteq(value, max) &&
+      (values == null || values.contains(value))
+  }
+
+  override def eval(input: InternalRow): Any = {
+    if (min == null) {
+      null
+    } else {
+      val value = valueExpression.eval(input)
+      if (value == null) null else mightContain(value)
+    }
+  }
+
+  override def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+    if (min == null) {
+      ev.copy(isNull = TrueLiteral, value = JavaCode.defaultLiteral(dataType))
+    } else {
+      val filter = ctx.addReferenceObj("rangeFilter", this)
+      val valueEval = valueExpression.genCode(ctx)
+      ev.copy(code = code"""
+      ${valueEval.code}
+      boolean ${ev.isNull} = ${valueEval.isNull};
+      ${CodeGenerator.javaType(dataType)} ${ev.value} = ${CodeGenerator.defaultValue(dataType)};
+      if (!${ev.isNull}) {
+        ${ev.value} = $filter.mightContain(${valueEval.value});
+      }""")
+    }
+  }
+
+  /**
+   * Returns the predicates on the bounds and the values that this filter implies, given the
+   * value of `summaryExpression` (e.g. once its subquery is executed), or Nil if unknown.
+   */
+  def pushableFilters: Seq[Expression] = summaryExpression match {
+    case Literal(row: InternalRow, _: StructType) =>
+      val dataType = valueExpression.dataType
+      if (row.isNullAt(0)) {
+        Nil
+      } else {
+        val bounds = Seq(
+          GreaterThanOrEqual(valueExpression, Literal(row.get(0, dataType), dataType)),
+          LessThanOrEqual(valueExpression, Literal(row.get(1, dataType), dataType)))
+        val values = Option(row.getArray(2)).map { array =>
+          InSet(valueExpression, array.toSeq[Any](dataType).toSet)
+        }
+        bounds ++ values
+      }
+    case _ => Nil
+  }
+}
+
+object RangeMightContain {
+
+  /**
+   * Returns whether the min/max filter supports keys of `dataType`: the types whose statistics
+   * data sources can filter by, excluding floating point types because of NaN, and strings with
+   * collations other than UTF8_BINARY.
+   */
+  def supportsDataType(dataType: DataType): Boolean = dataType match {
+    case _: IntegralType | DateType | TimestampType | TimestampNTZType | _: DecimalType => true
+    case st: StringType => st.isUTF8BinaryCollation
+    case _ => false
+  }
+
+  /**
+   * Returns the aggregate expression of the summary of the values of `key` that
+   * [[RangeMightContain]] filters by, with their distinct values if there are at most
+   * `maxInSetSize` of them.
+   */
+  def summary(key: Expression, maxInSetSize: Int): Expression = {
+    val arrayType = ArrayType(key.dataType, containsNull = false)
+    val values = if (maxInSetSize > 0) {
+      val set = aggregate.CollectSet(key).toAggregateExpression()
+      If(LessThanOrEqual(Size(set), Literal(maxInSetSize)), set, Literal(null, arrayType))
+    } else {
+      Literal(null, arrayType)
+    }
+    CreateNamedStruct(Seq(
+      Literal("min"), aggregate.Min(key).toAggregateExpression(),
+      Literal("max"), aggregate.Max(key).toAggregateExpression(),
+      Literal("values"), values))
+  }
+}
@@ -39,6 +39,7 @@ import org.apache.spark.sql.errors.QueryCompilationErrors
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.types._
 import org.apache.spark.sql.util.SchemaUtils
+import org.apache.spark.sql.vectorized.ColumnVector
 import org.apache.spark.unsafe.Platform
 import org.apache.spark.unsafe.hash.Murmur3_x86_32
 import org.apache.spark.unsafe.types.{CalendarInterval, UTF8String}
@@ -590,6 +591,95 @@ abstract class InterpretedHashFunction {
 
   protected def hashUnsafeBytes(base: AnyRef, offset: Long, length: Int, seed: Long): Long
 
+  /**
+   * Returns whether the values of `dataType` can be hashed a column at a time, see `hashColumn` of
+   * [[Murmur3HashFunction]] and [[XxHash64Function]]. Strings must have a collation with binary
+   * equality, which all the hash expressions hash as bytes.
+   */
+  def supportsColumnarHash(dataType: DataType): Boolean = dataType match {
+    case BooleanType | ByteType | ShortType | IntegerType | LongType | FloatType | DoubleType |
+         _: DecimalType | DateType | TimestampType | TimestampNTZType | BinaryType |
+         _: DayTimeIntervalType | _: YearMonthIntervalType => true
+    case st: StringType => st.supportsBinaryEquality
+    case _ => false
+  }
+
+  // Returns which of the first `numRows` rows of `vector` are null, or null if none is.
+  protected def nullMask(vector: ColumnVector, numRows: Int): Array[Boolean] = {
+    if (!vector.hasNull) {
+      null
+    } else {
+      val isNull = new Array[Boolean](numRows)
+      var i = 0
+      while (i < numRows) {
+        isNull(i) = vector.isNullAt(i)
+        i += 1
+      }
+      isNull
+    }
+  }
+
+  // Returns the ints of the first `numRows` rows of `vector`, with 0 for the null rows, whose
+  // values must not be read.
+  protected def intValues(vector: ColumnVector, numRows: Int, isNull: Array[Boolean])
+    : Array[Int] = {
+    if (isNull == null) {
+      vector.getInts(0, numRows)
+    } else {
+      val values = new Array[Int](numRows)
+      var i = 0
+      while (i < numRows) {
+        if (!isNull(i)) values(i) = vector.getInt(i)
+        i += 1
+      }
+      values
+    }
+  }
+
+  // Returns the longs of the first `numRows` rows of `vector`, see `intValues`.
+  protected def longValues(vector: ColumnVector, numRows: Int, isNull: Array[Boolean])
+    : Array[Long] = {
+    if (isNull == null) {
+      vector.getLongs(0, numRows)
+    } else {
+      val values = new Array[Long](numRows)
+      var i = 0
+      while (i < numRows) {
+        if (!isNull(i)) values(i) = vector.getLong(i)
+        i += 1
+      }
+      values
+    }
+  }
+
+  // Hashes the non-null value of row `rowId` of `vector`, as `hash` hashes the same value.
+  protected def hashColumnValue(
+      vector: ColumnVector,
+      rowId: Int,
+      dataType: DataType,
+      seed: Long): Long = dataType match {
+    case BooleanType => hashInt(if (vector.getBoolean(rowId)) 1 else 0, seed)
+    case ByteType => hashInt(vector.getByte(rowId), seed)
+    case ShortType => hashInt(vector.getShort(rowId), seed)
+    case IntegerType | DateType | _: YearMonthIntervalType => hashInt(vector.getInt(rowId), seed)
+    case LongType | TimestampType | TimestampNTZType | _: DayTimeIntervalType =>
+      hashLong(vector.getLong(rowId), seed)
+    case FloatType =>
+      val f = vector.getFloat(rowId)
+      hashInt(if (f == -0.0f) 0 else java.lang.Float.floatToIntBits(f), seed)
+    case DoubleType =>
+      val d = vector.getDouble(rowId)
+      hashLong(if (d == -0.0d) 0L else java.lang.Double.doubleToLongBits(d), seed)
+    case d: DecimalType =>
+      hash(vector.getDecimal(rowId, d.precision, d.scale), d, seed)
+    case BinaryType =>
+      val bytes = vector.getBinary(rowId)
+      hashUnsafeBytes(bytes, Platform.BYTE_ARRAY_OFFSET, bytes.length, seed)
+    case _: StringType =>
+      val s = vector.getUTF8String(rowId)
+      hashUnsafeBytes(s.getBaseObject, s.getBaseOffset, s.numBytes, seed)
+  }
+
   /**
    * This method is intended for callers using the old hash API and preserves compatibility for
    * supported data types. It must only be used for data types that do not include collated strings
@@ -786,6 +876,32 @@ object Murmur3HashFunction extends InterpretedHashFunction {
   override protected def hashUnsafeBytes(base: AnyRef, offset: Long, len: Int, seed: Long): Long = {
     Murmur3_x86_32.hashUnsafeBytes(base, offset, len, seed.toInt)
   }
+
+  /**
+   * Hashes the values of the first `numRows` rows of `vector`, of a type of
+   * `supportsColumnarHash`, with `hashes` as the seeds into `hashes`, as [[Murmur3Hash]] and
+   * [[CollationAwareMurmur3Hash]] hash the values of their children row by row. A null row keeps
+   * its seed, so hashing the columns of a multi-column key one after another into the same
+   * `hashes`, which start with the seed, gives the hashes of the keys.
+   */
+  def hashColumn(vector: ColumnVector, dataType: DataType, numRows: Int, hashes: Array[Int])
+    : Unit = {
+    val isNull = nullMask(vector, numRows)
+    dataType match {
+      case IntegerType | DateType | _: YearMonthIntervalType =>
+        Murmur3_x86_32.hashInts(intValues(vector, numRows, isNull), isNull, hashes, numRows)
+      case LongType | TimestampType | TimestampNTZType | _: DayTimeIntervalType =>
+        Murmur3_x86_32.hashLongs(longValues(vector, numRows, isNull), isNull, hashes, numRows)
+      case _ =>
+        var i = 0
+        while (i < numRows) {
+          if (isNull == null || !isNull(i)) {
+            hashes(i) = hashColumnValue(vector, i, dataType, hashes(i)).toInt
+          }
+          i += 1
+        }
+    }
+  }
 }
 
 case class CollationAwareMurmur3Hash(children: Seq[Expression], seed: Int)
@@ -851,6 +967,30 @@ object XxHash64Function extends InterpretedHashFunction {
   override protected def hashUnsafeBytes(base: AnyRef, offset: Long, len: Int, seed: Long): Long = {
     XXH64.hashUnsafeBytes(base, offset, len, seed)
   }
+
+  /**
+   * Hashes the values of the first `numRows` rows of `vector` with `hashes` as the seeds into
+   * `hashes`, as [[XxHash64]] hashes the values of its children row by row, see
+   * `Murmur3HashFunction.hashColumn`.
+   */
+  def hashColumn(vector: ColumnVector, dataType: DataType, numRows: Int, hashes: Array[Long])
+    : Unit = {
+    val isNull = nullMask(vector, numRows)
+    dataType match {
+      case IntegerType | DateType | _: YearMonthIntervalType =>
+        XXH64.hashInts(intValues(vector, numRows, isNull), isNull, hashes, numRows)
+      case LongType | TimestampType | TimestampNTZType | _: DayTimeIntervalType =>
+        XXH64.hashLongs(longValues(vector, numRows, isNull), isNull, hashes, numRows)
+      case _ =>
+        var i = 0
+        while (i < numRows) {
+          if (isNull == null || !isNull(i)) {
+            hashes(i) = hashColumnValue(vector, i, dataType, hashes(i))
+          }
+          i += 1
+        }
+    }
+  }
 }
 
 case class CollationAwareXxHash64(children: Seq[Expression], seed: Long)
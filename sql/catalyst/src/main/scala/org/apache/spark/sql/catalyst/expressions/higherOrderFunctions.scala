@@ -28,6 +28,8 @@ import org.apache.spark.sql.catalyst.analysis.{TypeCheckResult, TypeCoercion, Un
 import org.apache.spark.sql.catalyst.analysis.TypeCheckResult.DataTypeMismatch
 import org.apache.spark.sql.catalyst.expressions.Cast._
 import org.apache.spark.sql.catalyst.expressions.codegen._
+import org.apache.spark.sql.catalyst.expressions.codegen.Block._
+import org.apache.spark.sql.catalyst.expressions.objects.LambdaVariable
 import org.apache.spark.sql.catalyst.optimizer.NormalizeFloatingNumbers
 import org.apache.spark.sql.catalyst.trees.{BinaryLike, CurrentOrigin, QuaternaryLike, TernaryLike}
 import org.apache.spark.sql.catalyst.trees.TreePattern._
@@ -223,6 +225,73 @@ trait HigherOrderFunction extends Expression with ExpectsInputTypes {
       }
   }
 
+  /**
+   * Returns true if the function generates a loop over the code of its lambda functions, in which
+   * the lambda variables are unboxed Java variables, instead of falling back to interpreted mode.
+   * Functions that can do so override this with [[lambdaFunctionsSupportCodegen]] and the types
+   * they support.
+   */
+  def supportsLambdaCodegen: Boolean = false
+
+  /**
+   * Returns true if every expression of the lambda functions supports codegen, see
+   * [[HigherOrderFunction.supportsCodegen]].
+   */
+  protected def lambdaFunctionsSupportCodegen: Boolean = {
+    SQLConf.get.codegenHigherOrderFunctions && functions.forall(HigherOrderFunction.supportsCodegen)
+  }
+
+  /**
+   * Replaces the variables of the lambda function `function` with [[LambdaVariable]]s that are
+   * mutable states of `ctx`, and returns the code of the variables and the code of the function.
+   */
+  protected def genLambdaFunctionCode(
+      ctx: CodegenContext,
+      function: Expression): (Seq[ExprCode], ExprCode) = {
+    val LambdaFunction(body, arguments, _) = function
+    val variables = arguments.map { arg =>
+      arg.exprId -> LambdaVariable(ctx.freshName("lambda"), arg.dataType, arg.nullable)
+    }
+    val variableMap = variables.toMap
+    val boundBody = body.transformUp {
+      case variable: NamedLambdaVariable if variableMap.contains(variable.exprId) =>
+        variableMap(variable.exprId)
+    }
+    val variableCodes = variables.map { case (_, variable) =>
+      LambdaVariable.prepareLambdaVariable(ctx, variable)
+    }
+    (variableCodes, boundBody.genCode(ctx))
+  }
+
+  /**
+   * Returns the code of a function that is null if its argument is null, and is otherwise
+   * computed by `nullSafeCode` from the code of the argument `argumentGen`.
+   */
+  protected def genNullSafeArgumentCode(
+      ev: ExprCode,
+      argumentGen: ExprCode,
+      nullSafeCode: String): ExprCode = {
+    val javaType = CodeGenerator.javaType(dataType)
+    if (nullable) {
+      ev.copy(code =
+        code"""
+           |${argumentGen.code}
+           |boolean ${ev.isNull} = ${argumentGen.isNull};
+           |$javaType ${ev.value} = ${CodeGenerator.defaultValue(dataType)};
+           |if (!${ev.isNull}) {
+           |  $nullSafeCode
+           |}
+         """.stripMargin)
+    } else {
+      ev.copy(code =
+        code"""
+           |${argumentGen.code}
+           |$javaType ${ev.value} = ${CodeGenerator.defaultValue(dataType)};
+           |$nullSafeCode
+         """.stripMargin, isNull = FalseLiteral)
+    }
+  }
+
   override lazy val canonicalized: Expression = {
     var currExprId = -1
     val argumentMap = functions.flatMap(_.collect {
@@ -241,6 +310,57 @@ trait HigherOrderFunction extends Expression with ExpectsInputTypes {
   }
 }
 
+object HigherOrderFunction {
+
+  /**
+   * Returns true if the expression of a lambda function supports codegen: none of its expressions
+   * falls back to interpreted mode, except for the lambda variables, which are replaced in the
+   * generated code, and nested higher order functions that generate their own loops.
+   */
+  def supportsCodegen(e: Expression): Boolean = e match {
+    case LambdaFunction(function, _, _) => supportsCodegen(function)
+    case _: NamedLambdaVariable => true
+    case f: HigherOrderFunction => f.supportsLambdaCodegen && f.arguments.forall(supportsCodegen)
+    case _: CodegenFallback => false
+    case _ => e.children.forall(supportsCodegen)
+  }
+
+  /**
+   * Returns the code that sets the lambda variable `variable` to the element `i` of `array`.
+   */
+  def genReadElement(
+      variable: ExprCode,
+      array: String,
+      elementType: DataType,
+      i: String): String = {
+    val value = CodeGenerator.getValue(array, elementType, i)
+    if (variable.isNull == FalseLiteral) {
+      s"${variable.value} = $value;"
+    } else {
+      s"""
+         |${variable.isNull} = $array.isNullAt($i);
+         |if (!${variable.isNull}) {
+         |  ${variable.value} = $value;
+         |}
+       """.stripMargin
+    }
+  }
+
+  /**
+   * Returns the code that sets the lambda variable `variable` to the result `result` of a function.
+   */
+  def genAssign(variable: ExprCode, result: ExprCode): String = {
+    if (variable.isNull == FalseLiteral) {
+      s"${variable.value} = ${result.value};"
+    } else {
+      s"""
+         |${variable.isNull} = ${result.isNull};
+         |${variable.value} = ${result.value};
+       """.stripMargin
+    }
+  }
+}
+
 /**
  * Trait for functions having as input one argument and one function.
  */
@@ -354,6 +474,43 @@ case class ArrayTransform(
     result
   }
 
+  override def supportsLambdaCodegen: Boolean =
+    CodeGenerator.isPrimitiveType(function.dataType) && lambdaFunctionsSupportCodegen
+
+  override protected def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+    if (!supportsLambdaCodegen) {
+      return super.doGenCode(ctx, ev)
+    }
+    // The results are written straight into an `UnsafeArrayData`, without boxing them.
+    val ArrayType(elementType, _) = argument.dataType
+    val arrayGen = argument.genCode(ctx)
+    val (variables, functionGen) = genLambdaFunctionCode(ctx, function)
+    val numElements = ctx.freshName("numElements")
+    val arrayData = ctx.freshName("arrayData")
+    val i = ctx.freshName("i")
+
+    val initialization = CodeGenerator.createArrayData(
+      arrayData, function.dataType, numElements, s" $prettyName failed.")
+    val readElement = HigherOrderFunction.genReadElement(
+      variables.head, arrayGen.value.toString, elementType, i)
+    val setIndex = if (variables.length == 2) s"${variables(1).value} = $i;" else ""
+    val resultIsNull = if (function.nullable) Some(functionGen.isNull.toString) else None
+    val assignment = CodeGenerator.setArrayElement(
+      arrayData, function.dataType, i, functionGen.value.toString, resultIsNull)
+    genNullSafeArgumentCode(ev, arrayGen,
+      s"""
+         |int $numElements = ${arrayGen.value}.numElements();
+         |$initialization
+         |for (int $i = 0; $i < $numElements; $i++) {
+         |  $readElement
+         |  $setIndex
+         |  ${functionGen.code}
+         |  $assignment
+         |}
+         |${ev.value} = $arrayData;
+       """.stripMargin)
+  }
+
   override def nodeName: String = "transform"
 
   override protected def withNewChildrenInternal(
@@ -622,6 +779,61 @@ case class ArrayFilter(
     new GenericArrayData(buffer)
   }
 
+  override def supportsLambdaCodegen: Boolean =
+    CodeGenerator.isPrimitiveType(dataType.asInstanceOf[ArrayType].elementType) &&
+      lambdaFunctionsSupportCodegen
+
+  override protected def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+    if (!supportsLambdaCodegen) {
+      return super.doGenCode(ctx, ev)
+    }
+    // The indices of the selected elements are kept in a buffer reused across rows, and the
+    // selected elements are then copied into an `UnsafeArrayData` of the right size.
+    val ArrayType(elementType, containsNull) = argument.dataType
+    val arrayGen = argument.genCode(ctx)
+    val (variables, functionGen) = genLambdaFunctionCode(ctx, function)
+    val indices = ctx.addMutableState("int[]", "indices", v => s"$v = new int[16];")
+    val numElements = ctx.freshName("numElements")
+    val numSelected = ctx.freshName("numSelected")
+    val arrayData = ctx.freshName("arrayData")
+    val i = ctx.freshName("i")
+    val array = arrayGen.value.toString
+
+    val readElement = HigherOrderFunction.genReadElement(variables.head, array, elementType, i)
+    val setIndex = if (variables.length == 2) s"${variables(1).value} = $i;" else ""
+    val selected = if (function.nullable) {
+      s"!${functionGen.isNull} && ${functionGen.value}"
+    } else {
+      functionGen.value.toString
+    }
+    val initialization = CodeGenerator.createArrayData(
+      arrayData, elementType, numSelected, s" $prettyName failed.")
+    val assignment = CodeGenerator.setArrayElement(arrayData, elementType, i,
+      CodeGenerator.getValue(array, elementType, s"$indices[$i]"),
+      if (containsNull) Some(s"$array.isNullAt($indices[$i])") else None)
+    genNullSafeArgumentCode(ev, arrayGen,
+      s"""
+         |int $numElements = $array.numElements();
+         |if ($indices.length < $numElements) {
+         |  $indices = new int[$numElements];
+         |}
+         |int $numSelected = 0;
+         |for (int $i = 0; $i < $numElements; $i++) {
+         |  $readElement
+         |  $setIndex
+         |  ${functionGen.code}
+         |  if ($selected) {
+         |    $indices[$numSelected++] = $i;
+         |  }
+         |}
+         |$initialization
+         |for (int $i = 0; $i < $numSelected; $i++) {
+         |  $assignment
+         |}
+         |${ev.value} = $arrayData;
+       """.stripMargin)
+  }
+
   override def nodeName: String = "filter"
 
   override protected def withNewChildrenInternal(
@@ -886,6 +1098,42 @@ case class ArrayAggregate(
     }
   }
 
+  override def supportsLambdaCodegen: Boolean =
+    CodeGenerator.isPrimitiveType(zero.dataType) && lambdaFunctionsSupportCodegen
+
+  override protected def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+    if (!supportsLambdaCodegen) {
+      return super.doGenCode(ctx, ev)
+    }
+    // The accumulator is a primitive variable, which the merge function updates in place.
+    val ArrayType(elementType, _) = argument.dataType
+    val arrayGen = argument.genCode(ctx)
+    val zeroGen = zero.genCode(ctx)
+    val (Seq(accForMerge, element), mergeGen) = genLambdaFunctionCode(ctx, merge)
+    val (Seq(accForFinish), finishGen) = genLambdaFunctionCode(ctx, finish)
+    val numElements = ctx.freshName("numElements")
+    val i = ctx.freshName("i")
+    val array = arrayGen.value.toString
+
+    val readElement = HigherOrderFunction.genReadElement(element, array, elementType, i)
+    val setIsNull = if (nullable) s"${ev.isNull} = ${finishGen.isNull};" else ""
+    genNullSafeArgumentCode(ev, arrayGen,
+      s"""
+         |${zeroGen.code}
+         |${HigherOrderFunction.genAssign(accForMerge, zeroGen)}
+         |int $numElements = $array.numElements();
+         |for (int $i = 0; $i < $numElements; $i++) {
+         |  $readElement
+         |  ${mergeGen.code}
+         |  ${HigherOrderFunction.genAssign(accForMerge, mergeGen)}
+         |}
+         |${HigherOrderFunction.genAssign(accForFinish, accForMerge)}
+         |${finishGen.code}
+         |$setIsNull
+         |${ev.value} = ${finishGen.value};
+       """.stripMargin)
+  }
+
   override def nodeName: String = "aggregate"
 
   override def first: Expression = argument
@@ -1004,6 +1252,46 @@ case class TransformValues(
     new ArrayBasedMapData(map.keyArray(), resultValues)
   }
 
+  override def supportsLambdaCodegen: Boolean =
+    CodeGenerator.isPrimitiveType(function.dataType) && lambdaFunctionsSupportCodegen
+
+  override protected def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+    if (!supportsLambdaCodegen) {
+      return super.doGenCode(ctx, ev)
+    }
+    // The keys are kept, and the values are written straight into an `UnsafeArrayData`.
+    val mapGen = argument.genCode(ctx)
+    val (Seq(key, value), functionGen) = genLambdaFunctionCode(ctx, function)
+    val keys = ctx.freshName("keys")
+    val values = ctx.freshName("values")
+    val numElements = ctx.freshName("numElements")
+    val arrayData = ctx.freshName("arrayData")
+    val i = ctx.freshName("i")
+    val mapClass = classOf[ArrayBasedMapData].getName
+
+    val initialization = CodeGenerator.createArrayData(
+      arrayData, function.dataType, numElements, s" $prettyName failed.")
+    val readKey = HigherOrderFunction.genReadElement(key, keys, keyType, i)
+    val readValue = HigherOrderFunction.genReadElement(value, values, valueType, i)
+    val resultIsNull = if (function.nullable) Some(functionGen.isNull.toString) else None
+    val assignment = CodeGenerator.setArrayElement(
+      arrayData, function.dataType, i, functionGen.value.toString, resultIsNull)
+    genNullSafeArgumentCode(ev, mapGen,
+      s"""
+         |ArrayData $keys = ${mapGen.value}.keyArray();
+         |ArrayData $values = ${mapGen.value}.valueArray();
+         |int $numElements = ${mapGen.value}.numElements();
+         |$initialization
+         |for (int $i = 0; $i < $numElements; $i++) {
+         |  $readKey
+         |  $readValue
+         |  ${functionGen.code}
+         |  $assignment
+         |}
+         |${ev.value} = new $mapClass($keys, $arrayData);
+       """.stripMargin)
+  }
+
   override def nodeName: String = "transform_values"
 
   override protected def withNewChildrenInternal(
@@ -585,29 +585,57 @@ case class StringSplit(str: Expression, regex: Expression, limit: Expression)
 
   def this(exp: Expression, regex: Expression) = this(exp, regex, Literal(-1))
 
+  // The compiled pattern of a constant regex, which is split around without compiling it for
+  // each row. The empty and the literal regexes are split around without a `Pattern` anyway.
+  @transient private lazy val compiledPattern: Option[Pattern] = if (regex.foldable) {
+    Option(regex.eval().asInstanceOf[UTF8String]).map { r =>
+      CollationSupport.collationAwareRegex(r, collationId, legacySplitTruncate)
+    }.filter { p =>
+      p.numBytes() > 0 && !UTF8String.isLiteralRegex(p)
+    }.flatMap { p =>
+      // The invalid regexes fail for each row as before.
+      try Some(Pattern.compile(p.toString)) catch { case _: PatternSyntaxException => None }
+    }
+  } else {
+    None
+  }
+
   override def nullSafeEval(string: Any, regex: Any, limit: Any): Any = {
-    val pattern = CollationSupport.collationAwareRegex(
-      regex.asInstanceOf[UTF8String], collationId, legacySplitTruncate)
-    val strings = if (legacySplitTruncate) {
-      string.asInstanceOf[UTF8String].splitLegacyTruncate(pattern, limit.asInstanceOf[Int])
-    } else {
-      string.asInstanceOf[UTF8String].split(pattern, limit.asInstanceOf[Int])
+    val strings = compiledPattern match {
+      case Some(p) =>
+        string.asInstanceOf[UTF8String].split(p, limit.asInstanceOf[Int])
+      case None =>
+        val pattern = CollationSupport.collationAwareRegex(
+          regex.asInstanceOf[UTF8String], collationId, legacySplitTruncate)
+        if (legacySplitTruncate) {
+          string.asInstanceOf[UTF8String].splitLegacyTruncate(pattern, limit.asInstanceOf[Int])
+        } else {
+          string.asInstanceOf[UTF8String].split(pattern, limit.asInstanceOf[Int])
+        }
     }
     new GenericArrayData(strings.asInstanceOf[Array[Any]])
   }
 
   override def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
     val arrayClass = classOf[GenericArrayData].getName
-    val pattern = ctx.freshName("pattern")
-    nullSafeCodeGen(ctx, ev, (str, regex, limit) => {
-      // Array in java is covariant, so we don't need to cast UTF8String[] to Object[].
-      s"""
-         |UTF8String $pattern =
-         |  CollationSupport.collationAwareRegex($regex, $collationId, $legacySplitTruncate);
-         |${ev.value} = new $arrayClass($legacySplitTruncate ?
-         |  $str.splitLegacyTruncate($pattern, $limit) : $str.split($pattern, $limit));
-         |""".stripMargin
-    })
+    compiledPattern match {
+      case Some(p) =>
+        val patternRef = ctx.addReferenceObj("pattern", p, classOf[Pattern].getName)
+        nullSafeCodeGen(ctx, ev, (str, _, limit) => {
+          s"${ev.value} = new $arrayClass($str.split($patternRef, $limit));"
+        })
+      case None =>
+        val pattern = ctx.freshName("pattern")
+        nullSafeCodeGen(ctx, ev, (str, regex, limit) => {
+          // Array in java is covariant, so we don't need to cast UTF8String[] to Object[].
+          s"""
+             |UTF8String $pattern =
+             |  CollationSupport.collationAwareRegex($regex, $collationId, $legacySplitTruncate);
+             |${ev.value} = new $arrayClass($legacySplitTruncate ?
+             |  $str.splitLegacyTruncate($pattern, $limit) : $str.split($pattern, $limit));
+             |""".stripMargin
+        })
+    }
   }
 
   override def prettyName: String = "split"
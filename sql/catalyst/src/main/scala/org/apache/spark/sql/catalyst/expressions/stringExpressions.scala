@@ -43,7 +43,7 @@ import org.apache.spark.sql.internal.types.{AbstractArrayType,
 import org.apache.spark.sql.types._
 import org.apache.spark.unsafe.UTF8StringBuilder
 import org.apache.spark.unsafe.array.ByteArrayMethods
-import org.apache.spark.unsafe.types.{ByteArray, UTF8String}
+import org.apache.spark.unsafe.types.{ByteArray, UTF8String, UTF8StringSearcher}
 import org.apache.spark.util.ArrayImplicits._
 
 ////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -535,6 +535,20 @@ abstract class StringPredicate extends BinaryExpression
   override def toString: String = s"$nodeName($left, $right)"
 }
 
+/**
+ * Prepares the searcher of a constant substring of the UTF8_BINARY collation once, so that the
+ * string search functions do not start from scratch for every row.
+ */
+private[expressions] object ConstantSubstringSearcher {
+  def apply(substr: Expression, collationId: Int): Option[UTF8StringSearcher] = {
+    if (collationId == CollationFactory.UTF8_BINARY_COLLATION_ID && substr.foldable) {
+      Option(substr.eval().asInstanceOf[UTF8String]).map(new UTF8StringSearcher(_))
+    } else {
+      None
+    }
+  }
+}
+
 trait StringBinaryPredicateExpressionBuilderBase extends ExpressionBuilder {
   override def build(funcName: String, expressions: Seq[Expression]): Expression = {
     val numArgs = expressions.length
@@ -614,12 +628,22 @@ object ContainsExpressionBuilder extends StringBinaryPredicateExpressionBuilderB
 }
 
 case class Contains(left: Expression, right: Expression) extends StringPredicate {
+  @transient private lazy val searcher = ConstantSubstringSearcher(right, collationId)
+
   override def compare(l: UTF8String, r: UTF8String): Boolean = {
-    CollationSupport.Contains.exec(l, r, collationId)
+    if (searcher.isDefined) {
+      searcher.get.containedIn(l)
+    } else {
+      CollationSupport.Contains.exec(l, r, collationId)
+    }
   }
-  override def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
-    defineCodeGen(ctx, ev, (c1, c2) =>
-      CollationSupport.Contains.genCode(c1, c2, collationId))
+  override def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = searcher match {
+    case Some(s) =>
+      val searcherRef = ctx.addReferenceObj("searcher", s)
+      defineCodeGen(ctx, ev, (c1, _) => s"$searcherRef.containedIn($c1)")
+    case None =>
+      defineCodeGen(ctx, ev, (c1, c2) =>
+        CollationSupport.Contains.genCode(c1, c2, collationId))
   }
   override def inputTypes : Seq[AbstractDataType] =
     Seq(StringTypeNonCSAICollation(supportsTrimCollation = true),
@@ -1685,14 +1709,24 @@ case class StringInstr(str: Expression, substr: Expression)
 
   override def contextIndependentFoldable: Boolean = super.contextIndependentFoldable
 
+  @transient private lazy val searcher = ConstantSubstringSearcher(substr, collationId)
+
   override def nullSafeEval(string: Any, sub: Any): Any = {
-    CollationSupport.StringInstr.
-      exec(string.asInstanceOf[UTF8String], sub.asInstanceOf[UTF8String], collationId) + 1
+    if (searcher.isDefined) {
+      searcher.get.indexOf(string.asInstanceOf[UTF8String], 0) + 1
+    } else {
+      CollationSupport.StringInstr.
+        exec(string.asInstanceOf[UTF8String], sub.asInstanceOf[UTF8String], collationId) + 1
+    }
   }
 
   override def prettyName: String = "instr"
 
-  override def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+  override def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = searcher match {
+    case Some(s) =>
+      val searcherRef = ctx.addReferenceObj("searcher", s)
+      defineCodeGen(ctx, ev, (string, _) => s"$searcherRef.indexOf($string, 0) + 1")
+    case None =>
       defineCodeGen(ctx, ev, (string, substring) =>
         CollationSupport.StringInstr.genCode(string, substring, collationId) + " + 1")
   }
@@ -1800,6 +1834,8 @@ case class StringLocate(substr: Expression, str: Expression, start: Expression)
       IntegerType
     )
 
+  @transient private lazy val searcher = ConstantSubstringSearcher(substr, collationId)
+
   override def eval(input: InternalRow): Any = {
     val s = start.eval(input)
     if (s == null) {
@@ -1817,6 +1853,8 @@ case class StringLocate(substr: Expression, str: Expression, start: Expression)
           val sVal = s.asInstanceOf[Int]
           if (sVal < 1) {
             0
+          } else if (searcher.isDefined) {
+            searcher.get.indexOf(l.asInstanceOf[UTF8String], sVal - 1) + 1
           } else {
             CollationSupport.StringLocate.exec(l.asInstanceOf[UTF8String],
               r.asInstanceOf[UTF8String], s.asInstanceOf[Int] - 1, collationId) + 1;
@@ -1830,6 +1868,14 @@ case class StringLocate(substr: Expression, str: Expression, start: Expression)
     val substrGen = substr.genCode(ctx)
     val strGen = str.genCode(ctx)
     val startGen = start.genCode(ctx)
+    val locate = searcher match {
+      case Some(s) =>
+        val searcherRef = ctx.addReferenceObj("searcher", s)
+        s"$searcherRef.indexOf(${strGen.value}, ${startGen.value} - 1)"
+      case None =>
+        s"CollationSupport.StringLocate.exec(${strGen.value}, ${substrGen.value}, " +
+          s"${startGen.value} - 1, $collationId)"
+    }
     ev.copy(code = code"""
       int ${ev.value} = 0;
       boolean ${ev.isNull} = false;
@@ -1840,8 +1886,7 @@ case class StringLocate(substr: Expression, str: Expression, start: Expression)
           ${strGen.code}
           if (!${strGen.isNull}) {
             if (${startGen.value} > 0) {
-              ${ev.value} = CollationSupport.StringLocate.exec(${strGen.value},
-              ${substrGen.value}, ${startGen.value} - 1, $collationId) + 1;
+              ${ev.value} = $locate + 1;
             }
           } else {
             ${ev.isNull} = true;
@@ -35,6 +35,13 @@ object VariantExpressionEvalUtils {
       input: UTF8String,
       allowDuplicateKeys: Boolean = false,
       failOnError: Boolean = true): VariantVal = {
+    parseJson(new VariantBuilder(allowDuplicateKeys), input, failOnError)
+  }
+
+  private[variant] def parseJson(
+      builder: VariantBuilder,
+      input: UTF8String,
+      failOnError: Boolean): VariantVal = {
     def parseJsonFailure(exception: Throwable): VariantVal = {
       if (failOnError) {
         throw exception
@@ -43,7 +50,7 @@ object VariantExpressionEvalUtils {
       }
     }
     try {
-      val v = VariantBuilder.parseJson(input.toString, allowDuplicateKeys)
+      val v = builder.parse(input.toString)
       new VariantVal(v.getValue, v.getMetadata)
     } catch {
       case _: VariantSizeLimitException =>
@@ -151,3 +158,15 @@ object VariantExpressionEvalUtils {
     }
   }
 }
+
+/**
+ * The evaluator of `parse_json`, which parses the JSON strings of all the rows with one
+ * [[VariantBuilder]], so that its buffers and dictionary table are reused across the rows.
+ */
+case class ParseJsonEvaluator(allowDuplicateKeys: Boolean, failOnError: Boolean) {
+  @transient
+  private lazy val builder = new VariantBuilder(allowDuplicateKeys)
+
+  final def evaluate(input: UTF8String): VariantVal =
+    VariantExpressionEvalUtils.parseJson(builder, input, failOnError)
+}
@@ -29,7 +29,7 @@ import org.apache.spark.sql.catalyst.expressions._
 import org.apache.spark.sql.catalyst.expressions.aggregate.{ImperativeAggregate, TypedImperativeAggregate}
 import org.apache.spark.sql.catalyst.expressions.codegen._
 import org.apache.spark.sql.catalyst.expressions.codegen.Block._
-import org.apache.spark.sql.catalyst.expressions.objects.StaticInvoke
+import org.apache.spark.sql.catalyst.expressions.objects.{Invoke, StaticInvoke}
 import org.apache.spark.sql.catalyst.json.JsonInferSchema
 import org.apache.spark.sql.catalyst.plans.logical.{FunctionSignature, InputParameter}
 import org.apache.spark.sql.catalyst.trees.TreePattern.{TreePattern, VARIANT_GET}
@@ -55,15 +55,14 @@ import org.apache.spark.unsafe.types._
 case class ParseJson(child: Expression, failOnError: Boolean = true)
   extends UnaryExpression with ExpectsInputTypes with RuntimeReplaceable {
 
-  override lazy val replacement: Expression = StaticInvoke(
-    VariantExpressionEvalUtils.getClass,
+  override lazy val replacement: Expression = Invoke(
+    Literal.create(
+      ParseJsonEvaluator(SQLConf.get.getConf(SQLConf.VARIANT_ALLOW_DUPLICATE_KEYS), failOnError),
+      ObjectType(classOf[ParseJsonEvaluator])),
+    "evaluate",
     VariantType,
-    "parseJson",
-    Seq(
-      child,
-      Literal(SQLConf.get.getConf(SQLConf.VARIANT_ALLOW_DUPLICATE_KEYS), BooleanType),
-      Literal(failOnError, BooleanType)),
-    inputTypes :+ BooleanType :+ BooleanType,
+    Seq(child),
+    inputTypes,
     returnNullable = !failOnError)
 
   override def inputTypes: Seq[AbstractDataType] =
@@ -269,6 +268,10 @@ case class VariantGet(
     }
   }
 
+  // The constant path, compiled to resolve its keys once per variant metadata.
+  @transient private lazy val compiledPath: Option[CompiledVariantPath] =
+    parsedPath.map(VariantGet.compilePath)
+
   final override def nodePatternsInternal(): Seq[TreePattern] = Seq(VARIANT_GET)
 
   override def inputTypes: Seq[AbstractDataType] =
@@ -284,9 +287,9 @@ case class VariantGet(
     timeZoneId,
     zoneId)
 
-  protected override def nullSafeEval(input: Any, path: Any): Any = parsedPath match {
-    case Some(pp) =>
-      VariantGet.variantGet(input.asInstanceOf[VariantVal], pp, dataType, castArgs)
+  protected override def nullSafeEval(input: Any, path: Any): Any = compiledPath match {
+    case Some(cp) =>
+      VariantGet.variantGet(input.asInstanceOf[VariantVal], cp, dataType, castArgs)
     case _ =>
       VariantGet.variantGet(input.asInstanceOf[VariantVal], path.asInstanceOf[UTF8String], dataType,
         castArgs, prettyName)
@@ -303,7 +306,7 @@ case class VariantGet(
     } else {
       (
         new ExprCode(EmptyBlock, FalseLiteral, TrueLiteral),
-        ctx.addReferenceObj("parsedPath", parsedPath.get)
+        ctx.addReferenceObj("compiledPath", compiledPath.get)
       )
     }
     val code = code"""
@@ -370,6 +373,29 @@ case object VariantGet {
     }
   }
 
+  /** Compiles a parsed path to extract it from many variants. */
+  def compilePath(parsedPath: Array[VariantPathSegment]): CompiledVariantPath = {
+    val keys = parsedPath.map {
+      case ObjectExtraction(key) => key
+      case _ => null
+    }
+    val indices = parsedPath.map {
+      case ArrayExtraction(index) => index
+      case _ => 0
+    }
+    new CompiledVariantPath(keys, indices)
+  }
+
+  /** The implementation of the `VariantGet` expression with a constant path. */
+  def variantGet(
+      input: VariantVal,
+      compiledPath: CompiledVariantPath,
+      dataType: DataType,
+      castArgs: VariantCastArgs): Any = {
+    val v = compiledPath.extract(input.getValue, input.getMetadata, 0)
+    if (v == null) null else VariantGet.cast(v, dataType, castArgs)
+  }
+
   /** The actual implementation of the `VariantGet` expression. */
   def variantGet(
       input: VariantVal,
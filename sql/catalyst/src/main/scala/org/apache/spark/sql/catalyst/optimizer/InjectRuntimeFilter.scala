@@ -31,8 +31,9 @@ import org.apache.spark.sql.internal.SQLConf
  * Insert a runtime filter on one side of the join (we call this side the application side) if
  * we can extract a runtime filter from the other side (creation side). A simple case is that
  * the creation side is a table scan with a selective filter.
- * The runtime filter is logically an IN subquery with the join keys. Currently it's always
- * bloom filter but we may add other physical implementations in the future.
+ * The runtime filter is logically an IN subquery with the join keys. It is a bloom filter, and
+ * a filter on the min and max keys and on the set of keys if small, which file scans can push
+ * down to skip data by their statistics.
  */
 object InjectRuntimeFilter extends Rule[LogicalPlan] with PredicateHelper with JoinSelectionHelper {
 
@@ -41,23 +42,33 @@ object InjectRuntimeFilter extends Rule[LogicalPlan] with PredicateHelper with J
       filterApplicationSidePlan: LogicalPlan,
       filterCreationSideKey: Expression,
       filterCreationSidePlan: LogicalPlan): LogicalPlan = {
-    injectBloomFilter(
-      filterApplicationSideKey,
-      filterApplicationSidePlan,
-      filterCreationSideKey,
-      filterCreationSidePlan
-    )
-  }
-
-  private def injectBloomFilter(
-      filterApplicationSideKey: Expression,
-      filterApplicationSidePlan: LogicalPlan,
-      filterCreationSideKey: Expression,
-      filterCreationSidePlan: LogicalPlan): LogicalPlan = {
     // Skip if the filter creation side is too big
     if (filterCreationSidePlan.stats.sizeInBytes > conf.runtimeFilterCreationSideThreshold) {
       return filterApplicationSidePlan
     }
+    val filters = Seq(
+      if (conf.runtimeFilterBloomFilterEnabled) {
+        Some(bloomFilter(filterApplicationSideKey, filterCreationSideKey, filterCreationSidePlan))
+      } else {
+        None
+      },
+      if (conf.runtimeMinMaxFilterEnabled &&
+          RangeMightContain.supportsDataType(filterApplicationSideKey.dataType)) {
+        Some(rangeFilter(filterApplicationSideKey, filterCreationSideKey, filterCreationSidePlan))
+      } else {
+        None
+      }).flatten
+    if (filters.isEmpty) {
+      filterApplicationSidePlan
+    } else {
+      Filter(filters.reduce(And), filterApplicationSidePlan)
+    }
+  }
+
+  private def bloomFilter(
+      filterApplicationSideKey: Expression,
+      filterCreationSideKey: Expression,
+      filterCreationSidePlan: LogicalPlan): Expression = {
     val rowCount = filterCreationSidePlan.stats.rowCount
     val bloomFilterAgg =
       if (rowCount.isDefined && rowCount.get.longValue > 0L) {
@@ -70,9 +81,19 @@ object InjectRuntimeFilter extends Rule[LogicalPlan] with PredicateHelper with J
     val aggregate =
       ConstantFolding(ColumnPruning(Aggregate(Nil, Seq(alias), filterCreationSidePlan)))
     val bloomFilterSubquery = ScalarSubquery(aggregate, Nil)
-    val filter = BloomFilterMightContain(bloomFilterSubquery,
-      new XxHash64(Seq(filterApplicationSideKey)))
-    Filter(filter, filterApplicationSidePlan)
+    BloomFilterMightContain(bloomFilterSubquery, new XxHash64(Seq(filterApplicationSideKey)))
+  }
+
+  private def rangeFilter(
+      filterApplicationSideKey: Expression,
+      filterCreationSideKey: Expression,
+      filterCreationSidePlan: LogicalPlan): Expression = {
+    val summary = RangeMightContain.summary(
+      filterCreationSideKey, conf.runtimeMinMaxFilterMaxInSetSize)
+    val alias = Alias(summary, "rangeFilter")()
+    val aggregate =
+      ConstantFolding(ColumnPruning(Aggregate(Nil, Seq(alias), filterCreationSidePlan)))
+    RangeMightContain(ScalarSubquery(aggregate, Nil), filterApplicationSideKey)
   }
 
   /**
@@ -272,6 +293,7 @@ object InjectRuntimeFilter extends Rule[LogicalPlan] with PredicateHelper with J
         splitConjunctivePredicates(condition).exists {
           case BloomFilterMightContain(_, XxHash64(Seq(valueExpression), _))
             if valueExpression.fastEquals(key) => true
+          case RangeMightContain(_, valueExpression) if valueExpression.fastEquals(key) => true
           case _ => false
         }
       case _ => false
@@ -332,7 +354,7 @@ object InjectRuntimeFilter extends Rule[LogicalPlan] with PredicateHelper with J
 
   override def apply(plan: LogicalPlan): LogicalPlan = plan match {
     case s: Subquery if s.correlated => plan
-    case _ if !conf.runtimeFilterBloomFilterEnabled => plan
+    case _ if !conf.runtimeFilterBloomFilterEnabled && !conf.runtimeMinMaxFilterEnabled => plan
     case _ => tryInjectRuntimeFilter(plan)
   }
 
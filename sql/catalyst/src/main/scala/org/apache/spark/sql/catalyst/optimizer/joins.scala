@@ -533,10 +533,14 @@ trait JoinSelectionHelper extends Logging {
    * Matches a plan whose single partition should be small enough to build a hash table.
    *
    * Note: this assume that the number of partition is fixed, requires additional work if it's
-   * dynamic.
+   * dynamic. When shuffled hash joins can spill their hash tables, a partition may be as large as
+   * the number of partitions it is split into when it spills.
    */
   private def canBuildLocalHashMapBySize(plan: LogicalPlan, conf: SQLConf): Boolean = {
-    plan.stats.sizeInBytes < conf.autoBroadcastJoinThreshold * conf.numShufflePartitions
+    val spillFactor =
+      if (conf.shuffledHashJoinSpillEnabled) conf.shuffledHashJoinSpillNumPartitions else 1
+    plan.stats.sizeInBytes <
+      BigInt(conf.autoBroadcastJoinThreshold) * conf.numShufflePartitions * spillFactor
   }
 
   /**
@@ -27,6 +27,7 @@ import org.apache.spark.sql.catalyst.expressions.SpecializedGetters
 import org.apache.spark.sql.errors.ExecutionErrors
 import org.apache.spark.sql.types._
 import org.apache.spark.sql.util.ArrowUtils
+import org.apache.spark.sql.vectorized.{ColumnarBatch, ColumnVector}
 
 object ArrowWriter {
 
@@ -113,6 +114,31 @@ class ArrowWriter(val root: VectorSchemaRoot, fields: Array[ArrowFieldWriter]) {
     count += 1
   }
 
+  /**
+   * Writes the `numRows` rows of `batch` starting at `rowId`, one column at a time. Each column
+   * is first passed to `copyColumn` with its Arrow vector and the index of the first row to
+   * write in that vector. It returns true if it copied the rows of the column itself, otherwise
+   * they are written value by value.
+   */
+  def writeColumns(batch: ColumnarBatch, rowId: Int, numRows: Int)(
+      copyColumn: (ColumnVector, FieldVector, Int) => Boolean): Unit = {
+    var i = 0
+    while (i < fields.length) {
+      val field = fields(i)
+      if (copyColumn(batch.column(i), root.getVector(i), field.count)) {
+        field.count += numRows
+      } else {
+        var j = rowId
+        while (j < rowId + numRows) {
+          field.write(batch.getRow(j), i)
+          j += 1
+        }
+      }
+      i += 1
+    }
+    count += numRows
+  }
+
   def sizeInBytes(): Int = {
     var i = 0
     var bytes = 0
@@ -669,6 +669,26 @@ object SQLConf {
       .longConf
       .createWithDefault(67108864L)
 
+  val RUNTIME_MIN_MAX_FILTER_ENABLED =
+    buildConf("spark.sql.optimizer.runtime.minMaxFilter.enabled")
+      .doc("When true and if one side of a shuffle join has a selective predicate, we attempt " +
+        "to insert a filter on the min and max join key values of that side, and on the set of " +
+        "its join key values if it is small, in the other side. Once known at runtime, the " +
+        "bounds and the values are pushed down to file scans, so that Parquet row groups and " +
+        "pages can be skipped by their statistics.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
+  val RUNTIME_MIN_MAX_FILTER_MAX_IN_SET_SIZE =
+    buildConf("spark.sql.optimizer.runtime.minMaxFilter.maxInSetSize")
+      .doc("The maximum number of distinct join key values the runtime min/max filter also " +
+        "filters by. The filter is on the bounds only if there are more values, or if this is 0.")
+      .version("4.1.0")
+      .intConf
+      .checkValue(_ >= 0, "The maximum size must not be negative.")
+      .createWithDefault(100)
+
   val RUNTIME_ROW_LEVEL_OPERATION_GROUP_FILTER_ENABLED =
     buildConf("spark.sql.optimizer.runtime.rowLevelOperationGroupFilter.enabled")
       .doc("Enables runtime group filtering for group-based row-level operations. " +
@@ -759,6 +779,17 @@ object SQLConf {
       .booleanConf
       .createWithDefault(true)
 
+  val CACHE_ENCODED_VECTORS_ENABLED =
+    buildConf("spark.sql.inMemoryColumnarStorage.encodedVectors.enabled")
+      .internal()
+      .doc("When true, the vectorized reader for columnar caching reads values directly from " +
+        "the compressed cache buffers whose encoding supports random access, instead of " +
+        "decompressing every column into a new column vector. Int and long columns may then " +
+        "also be cached with a bit-packed frame of reference encoding.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val COLUMN_VECTOR_OFFHEAP_ENABLED =
     buildConf("spark.sql.columnVector.offheap.enabled")
       .internal()
@@ -766,6 +797,28 @@ object SQLConf {
       .version("2.3.0")
       .fallbackConf(MEMORY_OFFHEAP_ENABLED)
 
+  val COLUMN_VECTOR_POOL_ENABLED =
+    buildConf("spark.sql.columnVector.pool.enabled")
+      .internal()
+      .doc("When true, the vectorized Parquet reader borrows its column vectors from an " +
+        "executor-wide pool and gives them back when it is closed, so that later tasks reuse " +
+        "them instead of allocating new ones. The memory of borrowed vectors is accounted as " +
+        "execution memory of the task.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
+  val COLUMN_VECTOR_POOL_MAX_SIZE =
+    buildConf("spark.sql.columnVector.pool.maxSize")
+      .internal()
+      .doc("The maximum estimated size of the idle column vectors that an executor keeps for " +
+        s"reuse when ${COLUMN_VECTOR_POOL_ENABLED.key} is true. Vectors given back beyond this " +
+        "size are freed.")
+      .version("4.1.0")
+      .bytesConf(ByteUnit.BYTE)
+      .checkValue(_ >= 0, "The maximum size must not be negative.")
+      .createWithDefaultString("64MB")
+
   val PREFER_SORTMERGEJOIN = buildConf("spark.sql.join.preferSortMergeJoin")
     .internal()
     .doc("When true, prefer sort merge join over shuffled hash join. " +
@@ -776,6 +829,76 @@ object SQLConf {
     .booleanConf
     .createWithDefault(true)
 
+  val RADIX_PARTITIONED_HASH_JOIN_ENABLED =
+    buildConf("spark.sql.join.radixPartitionedHashJoin.enabled")
+      .internal()
+      .doc("When true, the build side of broadcast and shuffled hash joins is split by the hash " +
+        "of the join keys into hash tables of about " +
+        "spark.sql.join.radixPartitionedHashJoin.partitionSize bytes, and inner joins look up " +
+        "the streamed rows in batches grouped by partition, so that consecutive lookups hit the " +
+        "same cache-sized hash table. Such inner joins are not code generated, so this is only " +
+        "done if the build side rows of a task are estimated to take more than one partition.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
+  val RADIX_PARTITIONED_HASH_JOIN_PARTITION_SIZE =
+    buildConf("spark.sql.join.radixPartitionedHashJoin.partitionSize")
+      .internal()
+      .doc("The target size in bytes of the build side rows in a partition of a radix " +
+        "partitioned hash join, which should fit in the CPU caches.")
+      .version("4.1.0")
+      .bytesConf(ByteUnit.BYTE)
+      .checkValue(_ > 0, "The partition size must be positive.")
+      .createWithDefaultString("256KB")
+
+  val SHARED_BROADCAST_RELATION_ENABLED =
+    buildConf("spark.sql.join.sharedBroadcastRelation.enabled")
+      .internal()
+      .doc("When true, the relations of broadcast hash joins are registered on each executor " +
+        "under a fingerprint of the broadcast plan, of the files it reads, of the class of the " +
+        "relation and of the non-static SQL configurations, so that identical broadcasts of " +
+        "concurrent queries are deserialized once and shared read-only. Only " +
+        "deterministic plans without subqueries or user-defined functions that read files or " +
+        "ranges are shared.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
+  val SHARED_BROADCAST_RELATION_MAX_SIZE =
+    buildConf("spark.sql.join.sharedBroadcastRelation.maxSize")
+      .internal()
+      .doc("The maximum size in bytes of a shared broadcast relation. Larger relations are not " +
+        "shared. A shared relation stays in the broadcast block of the query that registered " +
+        "it, and is accounted and evicted with that block.")
+      .version("4.1.0")
+      .bytesConf(ByteUnit.BYTE)
+      .checkValue(_ >= 0, "The maximum size must not be negative.")
+      .createWithDefaultString("1g")
+
+  val SHUFFLED_HASH_JOIN_SPILL_ENABLED =
+    buildConf("spark.sql.join.shuffledHashJoin.spill.enabled")
+      .internal()
+      .doc("When true, a shuffled hash join whose build side does not fit in the memory of its " +
+        "task spills both sides to disk, split by the hash of the join keys into " +
+        "spark.sql.join.shuffledHashJoin.spill.numPartitions partitions, and joins the pairs of " +
+        "partitions recursively instead of failing. The planner then also picks shuffled hash " +
+        "joins for build sides up to that many times larger than with spilling disabled. Such " +
+        "joins are not code generated.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
+  val SHUFFLED_HASH_JOIN_SPILL_NUM_PARTITIONS =
+    buildConf("spark.sql.join.shuffledHashJoin.spill.numPartitions")
+      .internal()
+      .doc("The number of partitions each side of a shuffled hash join is split into when its " +
+        "build side does not fit in memory.")
+      .version("4.1.0")
+      .intConf
+      .checkValue(_ > 1, "The number of partitions must be greater than 1.")
+      .createWithDefault(16)
+
   val REQUIRE_ALL_CLUSTER_KEYS_FOR_CO_PARTITION =
     buildConf("spark.sql.requireAllClusterKeysForCoPartition")
       .internal()
@@ -815,6 +938,14 @@ object SQLConf {
     .booleanConf
     .createWithDefault(true)
 
+  val SORT_BY_COLLATION_KEYS_ENABLED = buildConf("spark.sql.sort.collationKeys.enabled")
+    .doc("When true, sorts by strings with an ICU collation convert each string once into its " +
+      "binary collation key and sort the rows by the keys, instead of comparing the strings " +
+      "with the collator for each comparison. The keys take additional memory in the sorter.")
+    .version("4.1.0")
+    .booleanConf
+    .createWithDefault(false)
+
   val AUTO_BROADCASTJOIN_THRESHOLD = buildConf("spark.sql.autoBroadcastJoinThreshold")
     .doc("Configures the maximum size in bytes for a table that will be broadcast to all worker " +
       "nodes when performing a join. By setting this value to -1 broadcasting can be disabled.")
@@ -1109,6 +1240,18 @@ object SQLConf {
       .bytesConf(ByteUnit.BYTE)
       .createWithDefaultString("256MB")
 
+  val ADAPTIVE_SHUFFLE_KEY_STATISTICS_ENABLED =
+    buildConf("spark.sql.adaptive.shuffleKeyStatistics.enabled")
+      .doc(s"When true and '${ADAPTIVE_EXECUTION_ENABLED.key}' is true, the map tasks of hash " +
+        "partitioned shuffles collect the number of rows of each shuffle partition, and the " +
+        "approximate number of distinct values and the number of nulls of each partitioning " +
+        "key. Adaptive query execution uses the distinct and null counts as column statistics " +
+        "of the query stages, and splits shuffle partitions with skewed numbers of rows in " +
+        "skewed joins. The task results grow by 8 bytes per shuffle partition.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val NON_EMPTY_PARTITION_RATIO_FOR_BROADCAST_JOIN =
     buildConf("spark.sql.adaptive.nonEmptyPartitionRatioForBroadcastJoin")
       .internal()
@@ -1619,6 +1762,17 @@ object SQLConf {
       .booleanConf
       .createWithDefault(true)
 
+  val ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED =
+    buildConf("spark.sql.orc.enableDirectDecodingVectorizedReader")
+      .internal()
+      .doc("When true, the vectorized orc reader decodes the batches of atomic columns read " +
+        "by ORC directly into Spark's writable column vectors, instead of wrapping ORC's " +
+        "column vectors. String and binary values are not copied, the vectors refer to the " +
+        "bytes read by ORC through a dictionary.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val ORC_FILTER_PUSHDOWN_ENABLED = buildConf("spark.sql.orc.filterPushdown")
     .doc("When true, enable filter pushdown for ORC files.")
     .version("1.4.0")
@@ -2318,6 +2472,18 @@ object SQLConf {
     .checkValue(threshold => threshold > 0, "The threshold must be a positive integer.")
     .createWithDefault(1024)
 
+  val CODEGEN_HIGHER_ORDER_FUNCTIONS_ENABLED =
+    buildConf("spark.sql.codegen.higherOrderFunctions.enabled")
+      .internal()
+      .doc("When true, the higher order functions `transform`, `filter`, `aggregate` and " +
+        "`transform_values` generate loops that pass the elements to their lambda functions " +
+        "without boxing them and write results of primitive types straight into unsafe arrays, " +
+        "if every expression of the lambda functions supports codegen. Otherwise they are " +
+        "evaluated in interpreted mode.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(true)
+
   val WHOLESTAGE_SPLIT_CONSUME_FUNC_BY_OPERATOR =
     buildConf("spark.sql.codegen.splitConsumeFuncByOperator")
       .internal()
@@ -2510,6 +2676,17 @@ object SQLConf {
       .intConf
       .createWithDefault(10)
 
+  val STATE_STORE_ACCESS_BATCH_SIZE =
+    buildConf("spark.sql.streaming.stateStore.accessBatchSize")
+      .doc("The number of keys that streaming aggregations look up and update in the state " +
+        "store at once. With a value greater than 1, the keys of the input rows are looked up " +
+        "with one multi-get, and the updated rows are put in batches, which state store " +
+        "providers such as RocksDB serve with one native call per batch instead of one per key.")
+      .version("4.1.0")
+      .intConf
+      .checkValue(_ > 0, "The batch size must be positive.")
+      .createWithDefault(1)
+
   val STATE_STORE_INSTANCE_METRICS_REPORT_LIMIT =
     buildConf("spark.sql.streaming.stateStore.numStateStoreInstanceMetricsToReport")
       .internal()
@@ -2656,6 +2833,16 @@ object SQLConf {
     .intConf
     .createWithDefault(2)
 
+  val STATE_STORE_COMPACT_HDFS_BACKED_MAP_ENABLED =
+    buildConf("spark.sql.streaming.stateStore.compactHDFSBackedMap.enabled")
+      .doc("When true, the HDFS-backed state store provider keeps each state entry in a single " +
+        "byte array of an open addressing hash table instead of two rows in a hash map, and the " +
+        "versions retained in memory share their unchanged entries. This does not apply to " +
+        "state stores that are prefix scanned.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val STREAMING_MAINTENANCE_INTERVAL =
     buildConf("spark.sql.streaming.stateStore.maintenanceInterval")
       .internal()
@@ -2933,6 +3120,17 @@ object SQLConf {
       .booleanConf
       .createWithDefault(true)
 
+  val STREAMING_PIPELINED_CHECKPOINT_WRITES_ENABLED =
+    buildConf("spark.sql.streaming.pipelinedCheckpointWrites.enabled")
+      .doc("When true, a micro-batch query writes the offset log entry of a batch while the " +
+        "batch is planned, and the commit log entry of a batch while the offsets of the next " +
+        "batch are fetched, instead of waiting for each write. The entries are still written " +
+        "in order, and a batch is executed only once its offset log entry is written. " +
+        "This does not apply to queries with async progress tracking.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val STREAMING_METADATA_CACHE_ENABLED =
     buildConf("spark.sql.streaming.metadataCache.enabled")
       .internal()
@@ -3183,6 +3381,20 @@ object SQLConf {
     .booleanConf
     .createWithDefault(true)
 
+  val HASH_TABLE_KEY_HASH_FUNCTION =
+    buildConf("spark.sql.execution.hashTable.keyHashFunction")
+      .internal()
+      .doc("The function to hash the keys of the in-memory hash tables of hash aggregates, " +
+        "object hash aggregates and shuffled or broadcast hash joins with. 'wyhash' hashes 8 " +
+        "bytes at a time, and is faster than 'murmur3' on all but the shortest keys. The hashes " +
+        "never leave the hash tables, so this does not change the partitioning of shuffles or " +
+        "the data written by queries. Supported functions: murmur3, wyhash.")
+      .version("4.1.0")
+      .stringConf
+      .transform(_.toLowerCase(Locale.ROOT))
+      .checkValues(Set("murmur3", "wyhash"))
+      .createWithDefault("murmur3")
+
   val JSON_GENERATOR_IGNORE_NULL_FIELDS =
     buildConf("spark.sql.jsonGenerator.ignoreNullFields")
       .doc("Whether to ignore null fields when generating JSON objects in JSON data source and " +
@@ -3903,6 +4115,17 @@ object SQLConf {
       .intConf
       .createWithDefault(10000)
 
+  val ARROW_EXECUTION_COLUMNAR_TRANSFER_ENABLED =
+    buildConf("spark.sql.execution.arrow.columnarTransfer.enabled")
+      .internal()
+      .doc("When true, and the plan of a Dataset collected as Arrow batches, e.g. by toPandas " +
+        "or collect in SparkR, produces columnar batches, convert those batches to Arrow " +
+        "directly instead of going through rows. Fixed-width columns stored off-heap are then " +
+        "copied to Arrow in bulk. The input of Python UDFs is still written row by row.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val ARROW_EXECUTION_USE_LARGE_VAR_TYPES =
     buildConf("spark.sql.execution.arrow.useLargeVarTypes")
       .doc("When using Apache Arrow, use large variable width vectors for string and binary " +
@@ -4471,6 +4694,58 @@ object SQLConf {
       .booleanConf
       .createWithDefault(true)
 
+  val COLUMNAR_SHUFFLE_ENABLED =
+    buildConf("spark.sql.execution.columnarShuffle.enabled")
+      .doc("When true, hash partitioned and single partition shuffles of columnar batches, " +
+        "e.g. of vectorized scans, whose columns are of atomic types, or arrays, maps and " +
+        "structs of them, stay columnar: the map tasks partition the batches without " +
+        "converting them to rows and write the rows of each shuffle partition as Arrow record " +
+        "batches whose buffers are compressed column by column, and the reduce tasks read them " +
+        "back as columnar batches.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
+  val COLUMNAR_SHUFFLE_MAX_RECORDS_PER_BATCH =
+    buildConf("spark.sql.execution.columnarShuffle.maxRecordsPerBatch")
+      .doc("The maximum number of rows of each record batch that a map task writes to a " +
+        s"shuffle partition when '${COLUMNAR_SHUFFLE_ENABLED.key}' is true.")
+      .version("4.1.0")
+      .intConf
+      .checkValue(_ > 0, "The maximum number of rows per batch must be positive.")
+      .createWithDefault(4096)
+
+  val COLUMNAR_SHUFFLE_BUFFER_SIZE =
+    buildConf("spark.sql.execution.columnarShuffle.bufferSize")
+      .doc("The amount of memory that a map task uses to buffer the rows of the shuffle " +
+        s"partitions when '${COLUMNAR_SHUFFLE_ENABLED.key}' is true. When the buffered rows " +
+        "exceed it, the partitions with the most rows are written as smaller batches.")
+      .version("4.1.0")
+      .bytesConf(ByteUnit.BYTE)
+      .checkValue(_ > 0, "The buffer size must be positive.")
+      .createWithDefaultString("64MB")
+
+  val COLUMNAR_SHUFFLE_COMPRESSION_CODEC =
+    buildConf("spark.sql.execution.columnarShuffle.compression.codec")
+      .doc("The codec to compress the buffers of each column of the record batches with when " +
+        s"'${COLUMNAR_SHUFFLE_ENABLED.key}' is true. Buffers that do not shrink are left " +
+        "uncompressed. Supported codecs: none, zstd.")
+      .version("4.1.0")
+      .stringConf
+      .transform(_.toLowerCase(Locale.ROOT))
+      .checkValues(Set("none", "zstd"))
+      .createWithDefault("zstd")
+
+  val COMPACT_ROW_SHUFFLE_ENABLED =
+    buildConf("spark.sql.execution.compactRowShuffle.enabled")
+      .doc("When true, the row shuffles of rows whose fields are all of fixed-width types, " +
+        "e.g. integers, dates and timestamps, write each row in a compact format: the null " +
+        "bits only for rows with nullable fields, and each field in its own width instead of " +
+        "8 bytes. The reduce tasks read them back as regular unsafe rows.")
+      .version("4.1.0")
+      .booleanConf
+      .createWithDefault(false)
+
   val NESTED_SCHEMA_PRUNING_ENABLED =
     buildConf("spark.sql.optimizer.nestedSchemaPruning.enabled")
       .internal()
@@ -6514,6 +6789,10 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
   def runtimeFilterCreationSideThreshold: Long =
     getConf(RUNTIME_BLOOM_FILTER_CREATION_SIDE_THRESHOLD)
 
+  def runtimeMinMaxFilterEnabled: Boolean = getConf(RUNTIME_MIN_MAX_FILTER_ENABLED)
+
+  def runtimeMinMaxFilterMaxInSetSize: Int = getConf(RUNTIME_MIN_MAX_FILTER_MAX_IN_SET_SIZE)
+
   def runtimeRowLevelOperationGroupFilterEnabled: Boolean =
     getConf(RUNTIME_ROW_LEVEL_OPERATION_GROUP_FILTER_ENABLED)
 
@@ -6533,6 +6812,8 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def stateStoreMinDeltasForSnapshot: Int = getConf(STATE_STORE_MIN_DELTAS_FOR_SNAPSHOT)
 
+  def stateStoreAccessBatchSize: Int = getConf(STATE_STORE_ACCESS_BATCH_SIZE)
+
   def stateStoreFormatValidationEnabled: Boolean = getConf(STATE_STORE_FORMAT_VALIDATION_ENABLED)
 
   def stateStoreSkipNullsForStreamStreamJoins: Boolean =
@@ -6588,6 +6869,9 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
   def streamingNoDataMicroBatchesEnabled: Boolean =
     getConf(STREAMING_NO_DATA_MICRO_BATCHES_ENABLED)
 
+  def streamingPipelinedCheckpointWritesEnabled: Boolean =
+    getConf(STREAMING_PIPELINED_CHECKPOINT_WRITES_ENABLED)
+
   def streamingMetricsEnabled: Boolean = getConf(STREAMING_METRICS_ENABLED)
 
   def streamingProgressRetention: Int = getConf(STREAMING_PROGRESS_RETENTION)
@@ -6621,6 +6905,9 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
   def orcVectorizedReaderNestedColumnEnabled: Boolean =
     getConf(ORC_VECTORIZED_READER_NESTED_COLUMN_ENABLED)
 
+  def orcVectorizedReaderDirectDecodingEnabled: Boolean =
+    getConf(ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED)
+
   def parquetCompressionCodec: String = getConf(PARQUET_COMPRESSION)
 
   def parquetVectorizedReaderEnabled: Boolean = getConf(PARQUET_VECTORIZED_READER_ENABLED)
@@ -6663,6 +6950,9 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def adaptiveExecutionLogLevel: Level = getConf(ADAPTIVE_EXECUTION_LOG_LEVEL)
 
+  def adaptiveShuffleKeyStatisticsEnabled: Boolean =
+    getConf(ADAPTIVE_SHUFFLE_KEY_STATISTICS_ENABLED)
+
   def fetchShuffleBlocksInBatch: Boolean = getConf(FETCH_SHUFFLE_BLOCKS_IN_BATCH)
 
   def nonEmptyPartitionRatioForBroadcastJoin: Double =
@@ -6676,6 +6966,9 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def maxBatchesToRetainInMemory: Int = getConf(MAX_BATCHES_TO_RETAIN_IN_MEMORY)
 
+  def stateStoreCompactHDFSBackedMapEnabled: Boolean =
+    getConf(STATE_STORE_COMPACT_HDFS_BACKED_MAP_ENABLED)
+
   def stateStoreUnloadOnCommit: Boolean = getConf(STATE_STORE_UNLOAD_ON_COMMIT)
 
   def stateStoreCommitValidationEnabled: Boolean = getConf(STATE_STORE_COMMIT_VALIDATION_ENABLED)
@@ -6762,6 +7055,8 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def methodSplitThreshold: Int = getConf(CODEGEN_METHOD_SPLIT_THRESHOLD)
 
+  def codegenHigherOrderFunctions: Boolean = getConf(CODEGEN_HIGHER_ORDER_FUNCTIONS_ENABLED)
+
   def wholeStageSplitConsumeFuncByOperator: Boolean =
     getConf(WHOLESTAGE_SPLIT_CONSUME_FUNC_BY_OPERATOR)
 
@@ -6795,6 +7090,16 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def sortBeforeRepartition: Boolean = getConf(SORT_BEFORE_REPARTITION)
 
+  def columnarShuffleEnabled: Boolean = getConf(COLUMNAR_SHUFFLE_ENABLED)
+
+  def columnarShuffleMaxRecordsPerBatch: Int = getConf(COLUMNAR_SHUFFLE_MAX_RECORDS_PER_BATCH)
+
+  def columnarShuffleBufferSize: Long = getConf(COLUMNAR_SHUFFLE_BUFFER_SIZE)
+
+  def columnarShuffleCompressionCodec: String = getConf(COLUMNAR_SHUFFLE_COMPRESSION_CODEC)
+
+  def compactRowShuffleEnabled: Boolean = getConf(COMPACT_ROW_SHUFFLE_ENABLED)
+
   def topKSortFallbackThreshold: Int = getConf(TOP_K_SORT_FALLBACK_THRESHOLD)
 
   def fastHashAggregateRowMaxCapacityBit: Int = getConf(FAST_HASH_AGGREGATE_MAX_ROWS_CAPACITY_BIT)
@@ -6878,8 +7183,23 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def preferSortMergeJoin: Boolean = getConf(PREFER_SORTMERGEJOIN)
 
+  def radixPartitionedHashJoinEnabled: Boolean = getConf(RADIX_PARTITIONED_HASH_JOIN_ENABLED)
+
+  def radixPartitionedHashJoinPartitionSize: Long =
+    getConf(RADIX_PARTITIONED_HASH_JOIN_PARTITION_SIZE)
+
+  def sharedBroadcastRelationEnabled: Boolean = getConf(SHARED_BROADCAST_RELATION_ENABLED)
+
+  def sharedBroadcastRelationMaxSize: Long = getConf(SHARED_BROADCAST_RELATION_MAX_SIZE)
+
+  def shuffledHashJoinSpillEnabled: Boolean = getConf(SHUFFLED_HASH_JOIN_SPILL_ENABLED)
+
+  def shuffledHashJoinSpillNumPartitions: Int = getConf(SHUFFLED_HASH_JOIN_SPILL_NUM_PARTITIONS)
+
   def enableRadixSort: Boolean = getConf(RADIX_SORT_ENABLED)
 
+  def sortByCollationKeysEnabled: Boolean = getConf(SORT_BY_COLLATION_KEYS_ENABLED)
+
   def isParquetSchemaMergingEnabled: Boolean = getConf(PARQUET_SCHEMA_MERGING_ENABLED)
 
   def isParquetSchemaRespectSummaries: Boolean = getConf(PARQUET_SCHEMA_RESPECT_SUMMARIES)
@@ -6901,8 +7221,14 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def inMemoryTableScanStatisticsEnabled: Boolean = getConf(IN_MEMORY_TABLE_SCAN_STATISTICS_ENABLED)
 
+  def cacheEncodedVectorsEnabled: Boolean = getConf(CACHE_ENCODED_VECTORS_ENABLED)
+
   def offHeapColumnVectorEnabled: Boolean = getConf(COLUMN_VECTOR_OFFHEAP_ENABLED)
 
+  def columnVectorPoolEnabled: Boolean = getConf(COLUMN_VECTOR_POOL_ENABLED)
+
+  def columnVectorPoolMaxSize: Long = getConf(COLUMN_VECTOR_POOL_MAX_SIZE)
+
   def columnNameOfCorruptRecord: String = getConf(COLUMN_NAME_OF_CORRUPT_RECORD)
 
   def broadcastTimeout: Long = {
@@ -6970,6 +7296,8 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def useObjectHashAggregation: Boolean = getConf(USE_OBJECT_HASH_AGG)
 
+  def useWyHashForHashTableKeys: Boolean = getConf(HASH_TABLE_KEY_HASH_FUNCTION) == "wyhash"
+
   def objectAggSortBasedFallbackThreshold: Int = getConf(OBJECT_AGG_SORT_BASED_FALLBACK_THRESHOLD)
 
   def variableSubstituteEnabled: Boolean = getConf(VARIABLE_SUBSTITUTE_ENABLED)
@@ -7137,6 +7465,8 @@ class SQLConf extends Serializable with Logging with SqlApiConf {
 
   def arrowUseLargeVarTypes: Boolean = getConf(ARROW_EXECUTION_USE_LARGE_VAR_TYPES)
 
+  def arrowColumnarTransferEnabled: Boolean = getConf(ARROW_EXECUTION_COLUMNAR_TRANSFER_ENABLED)
+
   def pandasUDFBufferSize: Int = getConf(PANDAS_UDF_BUFFER_SIZE)
 
   def pandasStructHandlingMode: String = getConf(PANDAS_STRUCT_HANDLING_MODE)
@@ -18,6 +18,7 @@
 package org.apache.spark.sql.catalyst.expressions;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
@@ -62,6 +63,36 @@ public class XXH64Suite {
     Assertions.assertEquals(0x9C44B77FBCC302C5L, XXH64.hashLong(TEST_LONG, PRIME));
   }
 
+  @Test
+  public void testBatchInputs() {
+    Random rand = new Random(42);
+    int size = 1000;
+    int[] ints = new int[size];
+    long[] longs = new long[size];
+    boolean[] isNull = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      ints[i] = rand.nextInt();
+      longs[i] = rand.nextLong();
+      isNull[i] = rand.nextInt(4) == 0;
+    }
+    for (boolean[] nulls : new boolean[][] { null, isNull }) {
+      long[] hashes = new long[size];
+      Arrays.fill(hashes, PRIME);
+      XXH64.hashInts(ints, nulls, hashes, size);
+      XXH64.hashLongs(longs, nulls, hashes, size - 1);
+      for (int i = 0; i < size; i++) {
+        long expected = PRIME;
+        if (nulls == null || !nulls[i]) {
+          expected = XXH64.hashInt(ints[i], expected);
+          if (i < size - 1) {
+            expected = XXH64.hashLong(longs[i], expected);
+          }
+        }
+        Assertions.assertEquals(expected, hashes[i]);
+      }
+    }
+  }
+
   @Test
   public void testKnownByteArrayInputs() {
     Assertions.assertEquals(0xEF46DB3751D8E999L,
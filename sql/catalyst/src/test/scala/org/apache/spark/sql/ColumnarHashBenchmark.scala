@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql
+
+import scala.jdk.CollectionConverters._
+
+import org.apache.spark.benchmark.{Benchmark, BenchmarkBase}
+import org.apache.spark.sql.catalyst.encoders.ExpressionEncoder
+import org.apache.spark.sql.catalyst.expressions._
+import org.apache.spark.sql.catalyst.types.DataTypeUtils
+import org.apache.spark.sql.execution.arrow.ArrowWriter
+import org.apache.spark.sql.types._
+import org.apache.spark.sql.vectorized.{ArrowColumnVector, ColumnarBatch, ColumnVector}
+
+/**
+ * Benchmark for hashing the rows of columnar batches with the codegened hash expressions
+ * (Murmur3Hash/xxHash64) vs hashing their columns a column at a time.
+ * To run this benchmark:
+ * {{{
+ *   1. without sbt:
+ *      bin/spark-submit --class <this class> --jars <spark core test jar> <spark catalyst test jar>
+ *   2. build/sbt "catalyst/Test/runMain <this class>"
+ *   3. generate result:
+ *      SPARK_GENERATE_BENCHMARK_FILES=1 build/sbt "catalyst/Test/runMain <this class>"
+ *      Results will be written to "benchmarks/ColumnarHashBenchmark-results.txt".
+ * }}}
+ */
+object ColumnarHashBenchmark extends BenchmarkBase {
+
+  def test(name: String, schema: StructType, numRows: Int, iters: Int): Unit = {
+    runBenchmark(name) {
+      val generator = RandomDataGenerator.forType(schema, nullable = false).get
+      val toRow = ExpressionEncoder(schema).createSerializer()
+      val writer = ArrowWriter.create(schema, "UTC")
+      (1 to numRows).foreach(_ => writer.write(toRow(generator().asInstanceOf[Row])))
+      writer.finish()
+      val vectors: Array[ColumnVector] =
+        writer.root.getFieldVectors.asScala.map(new ArrowColumnVector(_)).toArray
+      val batch = new ColumnarBatch(vectors, numRows)
+      val attrs = DataTypeUtils.toAttributes(schema)
+      val dataTypes = schema.map(_.dataType).toArray
+
+      val benchmark = new Benchmark("Hash For " + name, iters * numRows.toLong, output = output)
+      val getHashCode = UnsafeProjection.create(new Murmur3Hash(attrs) :: Nil, attrs)
+      benchmark.addCase("codegen version") { _: Int =>
+        var sum = 0
+        for (_ <- 0L until iters) {
+          var i = 0
+          while (i < numRows) {
+            sum += getHashCode(batch.getRow(i)).getInt(0)
+            i += 1
+          }
+        }
+      }
+
+      benchmark.addCase("columnar version") { _: Int =>
+        var sum = 0
+        val hashes = new Array[Int](numRows)
+        for (_ <- 0L until iters) {
+          java.util.Arrays.fill(hashes, 42)
+          var c = 0
+          while (c < vectors.length) {
+            Murmur3HashFunction.hashColumn(vectors(c), dataTypes(c), numRows, hashes)
+            c += 1
+          }
+          sum += hashes(numRows - 1)
+        }
+      }
+
+      val getHashCode64b = UnsafeProjection.create(new XxHash64(attrs) :: Nil, attrs)
+      benchmark.addCase("codegen version 64-bit") { _: Int =>
+        var sum = 0L
+        for (_ <- 0L until iters) {
+          var i = 0
+          while (i < numRows) {
+            sum += getHashCode64b(batch.getRow(i)).getLong(0)
+            i += 1
+          }
+        }
+      }
+
+      benchmark.addCase("columnar version 64-bit") { _: Int =>
+        var sum = 0L
+        val hashes = new Array[Long](numRows)
+        for (_ <- 0L until iters) {
+          java.util.Arrays.fill(hashes, 42L)
+          var c = 0
+          while (c < vectors.length) {
+            XxHash64Function.hashColumn(vectors(c), dataTypes(c), numRows, hashes)
+            c += 1
+          }
+          sum += hashes(numRows - 1)
+        }
+      }
+
+      benchmark.run()
+      writer.root.close()
+    }
+  }
+
+  override def runBenchmarkSuite(mainArgs: Array[String]): Unit = {
+    val singleInt = new StructType().add("i", IntegerType)
+    test("single ints", singleInt, 1 << 12, 1 << 12)
+
+    val singleLong = new StructType().add("i", LongType)
+    test("single longs", singleLong, 1 << 12, 1 << 12)
+
+    val keys = new StructType()
+      .add("int", IntegerType)
+      .add("long", LongType)
+      .add("double", DoubleType)
+      .add("smallDecimal", DecimalType.USER_DEFAULT)
+      .add("date", DateType)
+      .add("timestamp", TimestampType)
+    test("keys", keys, 1 << 12, 1 << 10)
+  }
+}
@@ -22,10 +22,10 @@ import java.util.Random
 import org.apache.spark.benchmark.{Benchmark, BenchmarkBase}
 import org.apache.spark.sql.catalyst.expressions.{HiveHasher, XXH64}
 import org.apache.spark.unsafe.Platform
-import org.apache.spark.unsafe.hash.Murmur3_x86_32
+import org.apache.spark.unsafe.hash.{Murmur3_x86_32, WyHash}
 
 /**
- * Synthetic benchmark for MurMurHash 3 and xxHash64.
+ * Synthetic benchmark for MurMurHash 3, xxHash64 and wyhash.
  * To run this benchmark:
  * {{{
  *   1. without sbt:
@@ -69,6 +69,17 @@ object HashByteArrayBenchmark extends BenchmarkBase {
       }
     }
 
+    benchmark.addCase("wyhash") { _: Int =>
+      var sum = 0L
+      for (_ <- 0L until iters) {
+        var i = 0
+        while (i < numArrays) {
+          sum += WyHash.hashUnsafeBytes(arrays(i), Platform.BYTE_ARRAY_OFFSET, length, 42)
+          i += 1
+        }
+      }
+    }
+
     benchmark.addCase("HiveHasher") { _: Int =>
       var sum = 0L
       for (_ <- 0L until iters) {
@@ -89,7 +100,9 @@ object HashByteArrayBenchmark extends BenchmarkBase {
       test(16, 42L, 1 << 10, 1 << 11)
       test(24, 42L, 1 << 10, 1 << 11)
       test(31, 42L, 1 << 10, 1 << 11)
+      test(32, 42L, 1 << 10, 1 << 11)
       test(64 + 31, 42L, 1 << 10, 1 << 11)
+      test(200, 42L, 1 << 10, 1 << 11)
       test(256 + 31, 42L, 1 << 10, 1 << 11)
       test(1024 + 31, 42L, 1 << 10, 1 << 11)
       test(2048 + 31, 42L, 1 << 10, 1 << 11)
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.catalyst.expressions
+
+import scala.util.Random
+
+import org.apache.spark.SparkFunSuite
+import org.apache.spark.sql.{RandomDataGenerator, Row}
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.encoders.ExpressionEncoder
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter
+import org.apache.spark.sql.types._
+import org.apache.spark.unsafe.Platform
+
+class CompactUnsafeRowFormatSuite extends SparkFunSuite {
+
+  private val fixedWidthTypes = Seq(BooleanType, ByteType, ShortType, IntegerType, LongType,
+    FloatType, DoubleType, DecimalType(10, 2), DecimalType(18, 0), DateType, TimestampType,
+    TimestampNTZType, YearMonthIntervalType(), DayTimeIntervalType())
+
+  private def checkRoundTrip(schema: StructType, expectedSize: Int): Unit = {
+    val format = CompactUnsafeRowFormat.create(schema)
+    assert(format.sizeInBytes === expectedSize)
+    val generator = RandomDataGenerator.forType(schema, nullable = false, new Random(42)).get
+    val toRow = ExpressionEncoder(schema).createSerializer()
+    val toUnsafe = UnsafeProjection.create(schema)
+    val buffer = new Array[Byte](format.sizeInBytes + 3)
+    val writer = new UnsafeRowWriter(schema.length)
+    (1 to 100).foreach { _ =>
+      val row = toUnsafe(toRow(generator().asInstanceOf[Row]))
+      format.compact(row, buffer, Platform.BYTE_ARRAY_OFFSET + 3)
+      val expanded = format.expand(buffer, Platform.BYTE_ARRAY_OFFSET + 3, writer)
+      // The rows must have the same bytes, to be compared or hashed as bytes.
+      assert(expanded === row)
+    }
+  }
+
+  test("compact rows of non-nullable fields") {
+    val schema = StructType(fixedWidthTypes.zipWithIndex.map { case (dt, i) =>
+      StructField(s"c$i", dt, nullable = false)
+    })
+    checkRoundTrip(schema, 1 + 1 + 2 + 4 + 8 + 4 + 8 + 8 + 8 + 4 + 8 + 8 + 4 + 8)
+    checkRoundTrip(new StructType().add("i", IntegerType, nullable = false), 4)
+    checkRoundTrip(
+      new StructType().add("b", ByteType, nullable = false).add("s", ShortType, nullable = false),
+      3)
+  }
+
+  test("compact rows of nullable fields") {
+    val schema = StructType(fixedWidthTypes.zipWithIndex.map { case (dt, i) =>
+      StructField(s"c$i", dt)
+    })
+    checkRoundTrip(schema, 2 + 1 + 1 + 2 + 4 + 8 + 4 + 8 + 8 + 8 + 4 + 8 + 8 + 4 + 8)
+    val withNullType = new StructType().add("i", IntegerType).add("n", NullType)
+    checkRoundTrip(withNullType, 1 + 4)
+    val wide = StructType((0 until 70).map(i => StructField(s"c$i", IntegerType)))
+    checkRoundTrip(wide, 9 + 4 * 70)
+  }
+
+  test("null values in non-nullable fields are not compacted") {
+    val schema = new StructType()
+      .add("i", IntegerType, nullable = false)
+      .add("l", LongType, nullable = false)
+    val format = CompactUnsafeRowFormat.create(schema)
+    // A row of the same fields, with a null value.
+    val row = UnsafeProjection.create(schema.asNullable)(InternalRow(1, null))
+    val e = intercept[IllegalStateException] {
+      format.compact(row, new Array[Byte](format.sizeInBytes), Platform.BYTE_ARRAY_OFFSET)
+    }
+    assert(e.getMessage.contains("non-nullable"))
+  }
+
+  test("schemas of the compact format") {
+    assert(CompactUnsafeRowFormat.isSupported(new StructType().add("i", IntegerType)))
+    assert(!CompactUnsafeRowFormat.isSupported(new StructType()))
+    assert(!CompactUnsafeRowFormat.isSupported(new StructType().add("s", StringType)))
+    assert(!CompactUnsafeRowFormat.isSupported(new StructType().add("d", DecimalType(20, 2))))
+    assert(!CompactUnsafeRowFormat.isSupported(
+      new StructType().add("i", IntegerType).add("a", ArrayType(IntegerType))))
+    intercept[IllegalArgumentException] {
+      CompactUnsafeRowFormat.create(new StructType().add("s", StringType))
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.nio.charset.StandardCharsets
 import java.time.{Duration, LocalTime, Period, ZoneId, ZoneOffset}
 
 import scala.collection.mutable.ArrayBuffer
+import scala.jdk.CollectionConverters._
 import scala.language.implicitConversions
 
 import org.apache.commons.codec.digest.DigestUtils
@@ -32,8 +33,10 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.encoders.{ExamplePointUDT, ExpressionEncoder}
 import org.apache.spark.sql.catalyst.expressions.codegen.GenerateMutableProjection
 import org.apache.spark.sql.catalyst.util.{ArrayBasedMapData, CollationFactory, DateTimeUtils, GenericArrayData, IntervalUtils}
+import org.apache.spark.sql.execution.arrow.ArrowWriter
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.types.{ArrayType, StructType, _}
+import org.apache.spark.sql.vectorized.ArrowColumnVector
 import org.apache.spark.unsafe.types.UTF8String
 import org.apache.spark.util.ArrayImplicits._
 
@@ -884,6 +887,52 @@ class HashExpressionsSuite extends SparkFunSuite with ExpressionEvalHelper {
     checkEvaluation(HiveHash(Seq(time)), -1567775210)
   }
 
+  test("Hash the columns of multi-column keys a column at a time") {
+    val schema = new StructType()
+      .add("boolean", BooleanType)
+      .add("byte", ByteType)
+      .add("short", ShortType)
+      .add("int", IntegerType)
+      .add("long", LongType)
+      .add("float", FloatType)
+      .add("double", DoubleType)
+      .add("bigDecimal", DecimalType.SYSTEM_DEFAULT)
+      .add("smallDecimal", DecimalType.USER_DEFAULT)
+      .add("string", StringType)
+      .add("binary", BinaryType)
+      .add("date", DateType)
+      .add("timestamp", TimestampType)
+      .add("dayTime", DayTimeIntervalType())
+      .add("yearMonth", YearMonthIntervalType())
+    assert(schema.forall(f => Murmur3HashFunction.supportsColumnarHash(f.dataType)))
+    assert(!Murmur3HashFunction.supportsColumnarHash(StringType("UTF8_LCASE")))
+    assert(!Murmur3HashFunction.supportsColumnarHash(ArrayType(IntegerType)))
+
+    val numRows = 100
+    val generator = RandomDataGenerator.forType(schema, nullable = false).get
+    val toRow = ExpressionEncoder(schema).createSerializer()
+    val rows = Seq.fill(numRows)(toRow(generator().asInstanceOf[Row]).copy())
+    val writer = ArrowWriter.create(schema, "UTC")
+    try {
+      rows.foreach(writer.write)
+      writer.finish()
+      val vectors = writer.root.getFieldVectors.asScala.map(new ArrowColumnVector(_)).toSeq
+      val exprs = schema.zipWithIndex.map { case (f, i) => BoundReference(i, f.dataType, true) }
+      val murmur3Hashes = Array.fill(numRows)(42)
+      val xxHash64Hashes = Array.fill(numRows)(42L)
+      schema.zip(vectors).foreach { case (f, vector) =>
+        Murmur3HashFunction.hashColumn(vector, f.dataType, numRows, murmur3Hashes)
+        XxHash64Function.hashColumn(vector, f.dataType, numRows, xxHash64Hashes)
+      }
+      rows.zipWithIndex.foreach { case (row, i) =>
+        assert(murmur3Hashes(i) == Murmur3Hash(exprs, 42).eval(row))
+        assert(xxHash64Hashes(i) == XxHash64(exprs, 42).eval(row))
+      }
+    } finally {
+      writer.root.close()
+    }
+  }
+
   private def testHash(inputSchema: StructType): Unit = {
     val inputGenerator = RandomDataGenerator.forType(inputSchema, nullable = false).get
     val toRow = ExpressionEncoder(inputSchema).createSerializer()
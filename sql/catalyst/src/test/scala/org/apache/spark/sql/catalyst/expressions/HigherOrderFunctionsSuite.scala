@@ -21,6 +21,7 @@ import org.apache.spark.{SparkException, SparkFunSuite, SparkRuntimeException}
 import org.apache.spark.sql.catalyst.analysis.TypeCheckResult
 import org.apache.spark.sql.catalyst.analysis.TypeCheckResult.DataTypeMismatch
 import org.apache.spark.sql.catalyst.expressions.Cast._
+import org.apache.spark.sql.catalyst.expressions.codegen.GenerateMutableProjection
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.types._
 
@@ -447,6 +448,64 @@ class HigherOrderFunctionsSuite extends SparkFunSuite with ExpressionEvalHelper
       15)
   }
 
+  test("Higher order functions write the results of primitive types into unsafe arrays") {
+    val ad0 = Literal.create(Seq(1.0, 2.0, 3.0), ArrayType(DoubleType, containsNull = false))
+    val ad1 = Literal.create(Seq(1.0, null, 3.0), ArrayType(DoubleType, containsNull = true))
+    val md1 = Literal.create(Map(1 -> 1.0, 2 -> null, 3 -> 3.0),
+      MapType(IntegerType, DoubleType, valueContainsNull = true))
+
+    def checkUnsafeResult(expr: Expression, expected: Any): Unit = {
+      assert(expr.asInstanceOf[HigherOrderFunction].supportsLambdaCodegen)
+      checkEvaluation(expr, expected)
+      val result = GenerateMutableProjection.generate(expr :: Nil).apply(null)
+      val array = expr.dataType match {
+        case _: ArrayType => result.getArray(0)
+        case _: MapType => result.getMap(0).valueArray()
+      }
+      assert(array.isInstanceOf[UnsafeArrayData])
+    }
+
+    checkUnsafeResult(transform(ad0, x => x * 2.0), Seq(2.0, 4.0, 6.0))
+    checkUnsafeResult(transform(ad1, (x, i) => x + Cast(i, DoubleType)), Seq(1.0, null, 5.0))
+    checkUnsafeResult(filter(ad1, x => x.isNull || x > 1.0), Seq(null, 3.0))
+    checkUnsafeResult(filter(ad0, (_, i) => i > 3), Seq.empty)
+    val kd: Expression => Expression = k => Cast(k, DoubleType)
+    checkUnsafeResult(transformValues(md1, (k, v) => v * kd(k)), Map(1 -> 1.0, 2 -> null, 3 -> 9.0))
+    checkUnsafeResult(transformValues(md1, (k, v) => coalesce(v, kd(k) + 0.5)),
+      Map(1 -> 1.0, 2 -> 2.5, 3 -> 3.0))
+
+    val sum = aggregate(ad1, 0.0, (acc, x) => acc + coalesce(x, 0.0))
+    assert(sum.asInstanceOf[HigherOrderFunction].supportsLambdaCodegen)
+    checkEvaluation(sum, 4.0)
+    checkEvaluation(aggregate(ad1, 0.0, (acc, x) => acc + x), null)
+    checkEvaluation(aggregate(ad0, 0L, (acc, x) => acc + 1L, acc => Cast(acc, StringType)), "3")
+
+    // Nested functions use the variables of the functions they are nested in.
+    checkUnsafeResult(transform(ad0, x => aggregate(ad0, 0.0, (acc, y) => acc + x * y)),
+      Seq(6.0, 12.0, 18.0))
+    checkUnsafeResult(
+      transform(ad0, x => aggregate(filter(ad1, y => y > x), 0.0, (acc, y) => acc + y)),
+      Seq(3.0, 3.0, 0.0))
+
+    // The functions fall back to interpreted mode for the results of other types, or if an
+    // expression of the lambda functions does not support codegen.
+    val ai0 = Literal.create(Seq(1, 2, 3), ArrayType(IntegerType, containsNull = false))
+    Seq(
+      transform(ai0, x => Cast(x, StringType)),
+      transform(ai0, x => CodegenFallbackExpression(x)),
+      transform(ad0, x => aggregate(ad0, 0.0, (acc, y) => CodegenFallbackExpression(acc + x)))
+    ).foreach { expr =>
+      assert(!expr.asInstanceOf[HigherOrderFunction].supportsLambdaCodegen)
+    }
+    checkEvaluation(transform(ai0, x => Cast(x, StringType)), Seq("1", "2", "3"))
+
+    withSQLConf(SQLConf.CODEGEN_HIGHER_ORDER_FUNCTIONS_ENABLED.key -> "false") {
+      val expr = transform(ad1, x => x * 2.0)
+      assert(!expr.asInstanceOf[HigherOrderFunction].supportsLambdaCodegen)
+      checkEvaluation(expr, Seq(2.0, null, 6.0))
+    }
+  }
+
   test("TransformKeys") {
     val ai0 = Literal.create(
       create_map(1 -> 1, 2 -> 2, 3 -> 3, 4 -> 4),
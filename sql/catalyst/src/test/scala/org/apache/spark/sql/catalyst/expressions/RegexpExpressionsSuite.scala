@@ -577,6 +577,24 @@ class RegexpExpressionsSuite extends SparkFunSuite with ExpressionEvalHelper {
       StringSplit(Literal("\"quote"), Literal("\"quote"), Literal(-1)) :: Nil)
   }
 
+  test("SPLIT by literal delimiters and constant regexes") {
+    val s = $"s".string.at(0)
+    val row = create_row("a.b..c.")
+    // A literal delimiter, split around without regex.
+    checkEvaluation(StringSplit(s, Literal(".b."), -1), Seq("a", ".c."), row)
+    checkEvaluation(StringSplit(Literal(".a,,b,"), Literal(","), -1), Seq(".a", "", "b", ""))
+    checkEvaluation(StringSplit(Literal(".a,,b,"), Literal(","), 2), Seq(".a", ",b,"))
+    // A constant regex, compiled once.
+    checkEvaluation(StringSplit(s, Literal("\\.+"), -1), Seq("a", "b", "c", ""), row)
+    checkEvaluation(StringSplit(s, Literal("\\.+"), 2), Seq("a", "b..c."), row)
+    checkEvaluation(StringSplit(s, Literal("[.]"), 0), Seq("a", "b", "", "c", ""), row)
+    checkEvaluation(StringSplit(s, Literal.create(null, StringType), -1), null, row)
+    withSQLConf(SQLConf.LEGACY_TRUNCATE_FOR_EMPTY_REGEX_SPLIT.key -> "true") {
+      checkEvaluation(StringSplit(s, Literal("\\.+"), -1), Seq("a", "b", "c", ""), row)
+      checkEvaluation(StringSplit(s, Literal("."), -1), Seq("a", "b", "", "c", ""), row)
+    }
+  }
+
   test("SPARK-30759: cache initialization for literal patterns") {
     val expr = "A" like Literal.create("a", StringType)
     expr.eval()
@@ -1011,6 +1011,21 @@ class StringExpressionsSuite extends SparkFunSuite with ExpressionEvalHelper {
     checkEvaluation(new StringLocate(s2, s1, Literal.create(null, IntegerType)), 0, row4)
   }
 
+  test("search for constant substrings") {
+    val s = $"a".string.at(0)
+    val short = "ab"
+    val long = "ab" * 20 + "c"
+    val row = create_row("x" + "ab" * 30 + "c" + "ab")
+    Seq(short -> 2, long -> 22, "abd" -> 0, "" -> 1).foreach { case (substr, pos) =>
+      checkEvaluation(Contains(s, Literal(substr)), pos > 0, row)
+      checkEvaluation(StringInstr(s, Literal(substr)), pos, row)
+      checkEvaluation(new StringLocate(Literal(substr), s), pos, row)
+    }
+    checkEvaluation(StringLocate(Literal(short), s, Literal(3)), 4, row)
+    checkEvaluation(StringLocate(Literal(long), s, Literal(23)), 0, row)
+    checkEvaluation(StringInstr(s, Literal.create(null, StringType)), null, row)
+  }
+
   test("LPAD/RPAD") {
     val s1 = $"a".string.at(0)
     val s2 = $"b".int.at(1)
@@ -24,6 +24,7 @@ import scala.reflect.runtime.universe.TypeTag
 
 import org.apache.spark.{SparkFunSuite, SparkRuntimeException}
 import org.apache.spark.sql.Row
+import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.analysis.ResolveTimeZone
 import org.apache.spark.sql.catalyst.expressions._
 import org.apache.spark.sql.catalyst.util.DateTimeConstants._
@@ -547,6 +548,34 @@ class VariantExpressionSuite extends SparkFunSuite with ExpressionEvalHelper {
     testVariantGet(json, "$." + numKeys, IntegerType, null)
   }
 
+  test("variant_get constant path over variants of different metadata") {
+    // The same expression extracts from rows whose metadata differ, in key order, in size, and in
+    // whether they contain the keys of the path, so the resolution of the keys must follow them.
+    val inputs = Seq(
+      """{"a": {"b": [1, {"c": 2}]}}""",
+      """{"c": 0, "a": {"x": 1, "b": [3, {"c": 4}]}}""",
+      """{"a": {"b": [5, {"c": 6}]}}""",
+      """{"b": 1}""",
+      """{"a": [1, 2]}""",
+      """{"a": {"b": [7]}}""",
+      (0 until 64).map(i => s""""k$i": $i""").mkString("{", ",", ""","a": {"b": [8, {"c": 9}]}}"""),
+      """{"a": {"b": [10, {"c": 11}]}}""",
+      "null")
+    val expected = Seq(2, 4, 6, null, null, null, 9, 11, null)
+    for (path <- Seq("$.a.b[1].c", "$['a']['b'][1]['c']")) {
+      val expr = VariantGet(BoundReference(0, VariantType, nullable = true), Literal(path),
+        IntegerType, failOnError = true, timeZoneId = Some("UTC"))
+      val interpreted = inputs.map(i => expr.eval(InternalRow(parseJson(i))))
+      assert(interpreted == expected)
+      val projection = UnsafeProjection.create(Seq(expr))
+      val generated = inputs.map { i =>
+        val row = projection(InternalRow(parseJson(i)))
+        if (row.isNullAt(0)) null else row.getInt(0)
+      }
+      assert(generated == expected)
+    }
+  }
+
   test("variant_get timestamp") {
     DateTimeTestUtils.outstandingZoneIds.foreach { zid =>
       withSQLConf(SQLConf.SESSION_LOCAL_TIMEZONE.key -> zid.getId) {
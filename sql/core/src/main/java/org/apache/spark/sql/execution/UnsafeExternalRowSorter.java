@@ -29,6 +29,7 @@ import org.apache.spark.SparkEnv;
 import org.apache.spark.TaskContext;
 import org.apache.spark.internal.config.package$;
 import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.catalyst.expressions.UnsafeProjection;
 import org.apache.spark.sql.catalyst.expressions.UnsafeRow;
 import org.apache.spark.sql.types.StructType;
 import org.apache.spark.unsafe.Platform;
@@ -51,6 +52,11 @@ public final class UnsafeExternalRowSorter {
   private final UnsafeExternalRowSorter.PrefixComputer prefixComputer;
   private final UnsafeExternalSorter sorter;
 
+  // The projections of the inserted rows to the sorted rows, e.g. to append the keys to sort by,
+  // and of the sorted rows back to the returned rows, or null if the rows are sorted as is.
+  private final UnsafeProjection inputProjection;
+  private final UnsafeProjection outputProjection;
+
   // This flag makes sure the cleanupResource() has been called. After the cleanup work,
   // iterator.next should always return false. Downstream operator triggers the resource
   // cleanup while they found there's no need to keep the iterator any more.
@@ -82,7 +88,7 @@ public final class UnsafeExternalRowSorter {
       long pageSizeBytes,
       boolean canUseRadixSort) throws IOException {
     return new UnsafeExternalRowSorter(schema, recordComparatorSupplier, prefixComparator,
-      prefixComputer, pageSizeBytes, canUseRadixSort);
+      prefixComputer, null, null, pageSizeBytes, canUseRadixSort);
   }
 
   public static UnsafeExternalRowSorter create(
@@ -95,7 +101,28 @@ public final class UnsafeExternalRowSorter {
     Supplier<RecordComparator> recordComparatorSupplier =
       () -> new RowComparator(ordering, schema.length());
     return new UnsafeExternalRowSorter(schema, recordComparatorSupplier, prefixComparator,
-      prefixComputer, pageSizeBytes, canUseRadixSort);
+      prefixComputer, null, null, pageSizeBytes, canUseRadixSort);
+  }
+
+  /**
+   * Creates a sorter that projects each inserted row with `inputProjection` into a row of
+   * `schema`, which `ordering` and `prefixComputer` sort, and projects each sorted row back with
+   * `outputProjection`. This computes the values to sort by once per row, e.g. the collation
+   * keys of strings, instead of once per comparison.
+   */
+  public static UnsafeExternalRowSorter createWithProjections(
+      StructType schema,
+      Ordering<InternalRow> ordering,
+      PrefixComparator prefixComparator,
+      UnsafeExternalRowSorter.PrefixComputer prefixComputer,
+      UnsafeProjection inputProjection,
+      UnsafeProjection outputProjection,
+      long pageSizeBytes,
+      boolean canUseRadixSort) throws IOException {
+    Supplier<RecordComparator> recordComparatorSupplier =
+      () -> new RowComparator(ordering, schema.length());
+    return new UnsafeExternalRowSorter(schema, recordComparatorSupplier, prefixComparator,
+      prefixComputer, inputProjection, outputProjection, pageSizeBytes, canUseRadixSort);
   }
 
   private UnsafeExternalRowSorter(
@@ -103,10 +130,14 @@ public final class UnsafeExternalRowSorter {
       Supplier<RecordComparator> recordComparatorSupplier,
       PrefixComparator prefixComparator,
       UnsafeExternalRowSorter.PrefixComputer prefixComputer,
+      UnsafeProjection inputProjection,
+      UnsafeProjection outputProjection,
       long pageSizeBytes,
       boolean canUseRadixSort) {
     this.schema = schema;
     this.prefixComputer = prefixComputer;
+    this.inputProjection = inputProjection;
+    this.outputProjection = outputProjection;
     final SparkEnv sparkEnv = SparkEnv.get();
     final TaskContext taskContext = TaskContext.get();
     sorter = UnsafeExternalSorter.create(
@@ -136,6 +167,9 @@ public final class UnsafeExternalRowSorter {
   }
 
   public void insertRow(UnsafeRow row) throws IOException {
+    if (inputProjection != null) {
+      row = inputProjection.apply(row);
+    }
     final PrefixComputer.Prefix prefix = prefixComputer.computePrefix(row);
     sorter.insertRecord(
       row.getBaseObject(),
@@ -181,6 +215,7 @@ public final class UnsafeExternalRowSorter {
 
         private final int numFields = schema.length();
         private UnsafeRow row = new UnsafeRow(numFields);
+        private UnsafeRow outputRow = null;
 
         @Override
         public boolean advanceNext() {
@@ -199,9 +234,13 @@ public final class UnsafeExternalRowSorter {
                 row = row.copy(); // so that we don't have dangling pointers to freed page
                 cleanupResources();
               }
+              if (outputProjection != null) {
+                outputRow = outputProjection.apply(row);
+              }
               return true;
             } else {
               row = null; // so that we don't keep references to the base object
+              outputRow = null;
               return false;
             }
           } catch (IOException e) {
@@ -214,7 +253,7 @@ public final class UnsafeExternalRowSorter {
         }
 
         @Override
-        public UnsafeRow getRow() { return row; }
+        public UnsafeRow getRow() { return outputProjection == null ? row : outputRow; }
 
       }.toScala();
     } catch (IOException e) {
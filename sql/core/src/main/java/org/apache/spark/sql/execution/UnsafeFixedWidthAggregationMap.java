@@ -63,6 +63,12 @@ public final class UnsafeFixedWidthAggregationMap {
    */
   private final UnsafeRow currentAggregationBuffer;
 
+  /**
+   * Whether the keys are hashed with {@link UnsafeRow#wyHashCode()} instead of
+   * {@link UnsafeRow#hashCode()}.
+   */
+  private final boolean wyHashKeys;
+
   /**
    * @return true if UnsafeFixedWidthAggregationMap supports aggregation buffers with the given
    *         schema, false otherwise.
@@ -88,6 +94,30 @@ public final class UnsafeFixedWidthAggregationMap {
       TaskContext taskContext,
       int initialCapacity,
       long pageSizeBytes) {
+    this(emptyAggregationBuffer, aggregationBufferSchema, groupingKeySchema, taskContext,
+      initialCapacity, pageSizeBytes, false);
+  }
+
+  /**
+   * Create a new UnsafeFixedWidthAggregationMap.
+   *
+   * @param emptyAggregationBuffer the default value for new keys (a "zero" of the agg. function)
+   * @param aggregationBufferSchema the schema of the aggregation buffer, used for row conversion.
+   * @param groupingKeySchema the schema of the grouping key, used for row conversion.
+   * @param taskContext the current task context.
+   * @param initialCapacity the initial capacity of the map (a sizing hint to avoid re-hashing).
+   * @param pageSizeBytes the data page size, in bytes; limits the maximum record size.
+   * @param wyHashKeys whether to hash the keys with wyhash, see {@link #hashKey(UnsafeRow)}.
+   */
+  public UnsafeFixedWidthAggregationMap(
+      InternalRow emptyAggregationBuffer,
+      StructType aggregationBufferSchema,
+      StructType groupingKeySchema,
+      TaskContext taskContext,
+      int initialCapacity,
+      long pageSizeBytes,
+      boolean wyHashKeys) {
+    this.wyHashKeys = wyHashKeys;
     this.aggregationBufferSchema = aggregationBufferSchema;
     this.currentAggregationBuffer = new UnsafeRow(aggregationBufferSchema.length());
     this.groupingKeyProjection = UnsafeProjection.create(groupingKeySchema);
@@ -118,8 +148,16 @@ public final class UnsafeFixedWidthAggregationMap {
     return getAggregationBufferFromUnsafeRow(unsafeGroupingKeyRow);
   }
 
+  /**
+   * Returns the hash of `key` that {@link #getAggregationBufferFromUnsafeRow(UnsafeRow, int)}
+   * expects.
+   */
+  public int hashKey(UnsafeRow key) {
+    return wyHashKeys ? key.wyHashCode() : key.hashCode();
+  }
+
   public UnsafeRow getAggregationBufferFromUnsafeRow(UnsafeRow key) {
-    return getAggregationBufferFromUnsafeRow(key, key.hashCode());
+    return getAggregationBufferFromUnsafeRow(key, hashKey(key));
   }
 
   public UnsafeRow getAggregationBufferFromUnsafeRow(UnsafeRow key, int hash) {
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.datasources.orc;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+
+import org.apache.spark.SparkUnsupportedOperationException;
+import org.apache.spark.sql.execution.vectorized.Dictionary;
+import org.apache.spark.unsafe.types.UTF8String;
+
+/**
+ * A {@link Dictionary} over the values of an ORC {@link BytesColumnVector}, where the ID of a
+ * value is its row in the current batch. It lets a Spark column vector refer to the bytes read
+ * by ORC, which usually all point into the dictionary or data stream of the stripe, instead of
+ * copying them.
+ */
+final class OrcBytesDictionary implements Dictionary {
+  private final BytesColumnVector bytes;
+
+  OrcBytesDictionary(BytesColumnVector bytes) {
+    this.bytes = bytes;
+  }
+
+  @Override
+  public int decodeToInt(int id) {
+    throw SparkUnsupportedOperationException.apply();
+  }
+
+  @Override
+  public long decodeToLong(int id) {
+    throw SparkUnsupportedOperationException.apply();
+  }
+
+  @Override
+  public float decodeToFloat(int id) {
+    throw SparkUnsupportedOperationException.apply();
+  }
+
+  @Override
+  public double decodeToDouble(int id) {
+    throw SparkUnsupportedOperationException.apply();
+  }
+
+  @Override
+  public byte[] decodeToBinary(int id) {
+    int index = bytes.isRepeating ? 0 : id;
+    int start = bytes.start[index];
+    return Arrays.copyOfRange(bytes.vector[index], start, start + bytes.length[index]);
+  }
+
+  @Override
+  public UTF8String decodeToUTF8String(int id) {
+    int index = bytes.isRepeating ? 0 : id;
+    return UTF8String.fromBytes(bytes.vector[index], bytes.start[index], bytes.length[index]);
+  }
+}
@@ -75,12 +75,23 @@ public class OrcColumnarBatchReader extends RecordReader<Void, ColumnarBatch> {
 
   private final MemoryMode memoryMode;
 
+  // Whether the atomic columns are decoded into Spark column vectors instead of being wrapped.
+  private final boolean directDecoding;
+
   // The wrapped ORC column vectors.
   private org.apache.spark.sql.vectorized.ColumnVector[] orcVectorWrappers;
 
+  // The updaters of the columns decoded into Spark column vectors, null for the other columns.
+  private OrcVectorUpdater[] updaters;
+
   public OrcColumnarBatchReader(int capacity, MemoryMode memoryMode) {
+    this(capacity, memoryMode, false);
+  }
+
+  public OrcColumnarBatchReader(int capacity, MemoryMode memoryMode, boolean directDecoding) {
     this.capacity = capacity;
     this.memoryMode = memoryMode;
+    this.directDecoding = directDecoding;
   }
 
 
@@ -174,8 +185,10 @@ public class OrcColumnarBatchReader extends RecordReader<Void, ColumnarBatch> {
 
     StructType resultSchema = new StructType(requiredFields);
 
-    // Just wrap the ORC column vector instead of copying it to Spark column vector.
+    // Just wrap the ORC column vector instead of copying it to Spark column vector, unless it
+    // can be decoded directly into a Spark column vector.
     orcVectorWrappers = new org.apache.spark.sql.vectorized.ColumnVector[resultSchema.length()];
+    updaters = new OrcVectorUpdater[resultSchema.length()];
 
     StructType requiredSchema = new StructType(requiredFields);
     for (int i = 0; i < requiredFields.length; i++) {
@@ -186,14 +199,13 @@ public class OrcColumnarBatchReader extends RecordReader<Void, ColumnarBatch> {
         orcVectorWrappers[i] = partitionCol;
       } else {
         int colId = requestedDataColIds[i];
+        OrcVectorUpdater updater = null;
+        if (colId != -1 && directDecoding) {
+          updater = OrcVectorUpdaterFactory.getUpdater(dt, wrap.batch().cols[colId]);
+        }
         // Initialize the missing columns once.
         if (colId == -1) {
-          final WritableColumnVector missingCol;
-          if (memoryMode == MemoryMode.OFF_HEAP) {
-            missingCol = new OffHeapColumnVector(capacity, dt);
-          } else {
-            missingCol = new OnHeapColumnVector(capacity, dt);
-          }
+          final WritableColumnVector missingCol = allocateColumn(dt);
           // Check if the missing column has an associated default value in the schema metadata.
           // If so, fill the corresponding column vector with the value.
           Object defaultValue = ResolveDefaultColumns.existenceDefaultValues(requiredSchema)[i];
@@ -206,6 +218,11 @@ public class OrcColumnarBatchReader extends RecordReader<Void, ColumnarBatch> {
           }
           missingCol.setIsConstant();
           orcVectorWrappers[i] = missingCol;
+        } else if (updater != null) {
+          WritableColumnVector decodedCol = allocateColumn(dt);
+          updater.init(capacity, wrap.batch().cols[colId], decodedCol);
+          updaters[i] = updater;
+          orcVectorWrappers[i] = decodedCol;
         } else {
           orcVectorWrappers[i] = OrcColumnVectorUtils.toOrcColumnVector(
             dt, wrap.batch().cols[colId]);
@@ -216,6 +233,14 @@ public class OrcColumnarBatchReader extends RecordReader<Void, ColumnarBatch> {
     columnarBatch = new ColumnarBatch(orcVectorWrappers);
   }
 
+  private WritableColumnVector allocateColumn(DataType dt) {
+    if (memoryMode == MemoryMode.OFF_HEAP) {
+      return new OffHeapColumnVector(capacity, dt);
+    } else {
+      return new OnHeapColumnVector(capacity, dt);
+    }
+  }
+
   /**
    * Return true if there exists more data in the next batch. If exists, prepare the next batch
    * by copying from ORC VectorizedRowBatch columns to Spark ColumnarBatch columns.
@@ -229,10 +254,40 @@ public class OrcColumnarBatchReader extends RecordReader<Void, ColumnarBatch> {
     columnarBatch.setNumRows(batchSize);
 
     for (int i = 0; i < requiredFields.length; i++) {
-      if (requestedDataColIds[i] != -1) {
+      if (updaters[i] != null) {
+        decodeColumn(
+          batchSize, wrap.batch().cols[requestedDataColIds[i]],
+          (WritableColumnVector) orcVectorWrappers[i], updaters[i]);
+      } else if (requestedDataColIds[i] != -1) {
         ((OrcColumnVector) orcVectorWrappers[i]).setBatchSize(batchSize);
       }
     }
     return true;
   }
+
+  /**
+   * Decodes the first `total` rows of the ORC column vector `source` into `values`.
+   */
+  private static void decodeColumn(
+      int total,
+      org.apache.hadoop.hive.ql.exec.vector.ColumnVector source,
+      WritableColumnVector values,
+      OrcVectorUpdater updater) {
+    values.reset();
+    if (source.isRepeating) {
+      if (!source.noNulls && source.isNull[0]) {
+        values.putNulls(0, total);
+      } else {
+        updater.readRepeatedValue(total, source, values);
+      }
+    } else {
+      updater.readValues(total, source, values);
+      if (!source.noNulls) {
+        boolean[] isNull = source.isNull;
+        for (int i = 0; i < total; i++) {
+          if (isNull[i]) values.putNull(i);
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.datasources.orc;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+
+import org.apache.spark.sql.execution.vectorized.WritableColumnVector;
+
+/**
+ * Decodes the values of an ORC {@link ColumnVector} read by ORC's record reader directly into a
+ * Spark {@link WritableColumnVector}. Null slots are handled by the caller.
+ */
+interface OrcVectorUpdater {
+  /**
+   * Prepares `values` before the first batch of `source` is decoded into it.
+   *
+   * @param capacity capacity of `values`
+   * @param source the ORC column vector that is decoded for every batch
+   * @param values destination values vector
+   */
+  default void init(int capacity, ColumnVector source, WritableColumnVector values) {
+  }
+
+  /**
+   * Decodes the first `total` values of `source`, which is not repeating, into `values`.
+   *
+   * @param total total number of values to decode
+   * @param source the ORC column vector to decode
+   * @param values destination values vector
+   */
+  void readValues(int total, ColumnVector source, WritableColumnVector values);
+
+  /**
+   * Decodes the single value of `source`, which is repeating, into the first `total` slots of
+   * `values`.
+   *
+   * @param total total number of slots to fill
+   * @param source the ORC column vector to decode
+   * @param values destination values vector
+   */
+  void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values);
+}
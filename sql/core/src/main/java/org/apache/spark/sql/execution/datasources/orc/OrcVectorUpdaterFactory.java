@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.datasources.orc;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+
+import org.apache.spark.sql.catalyst.util.RebaseDateTime;
+import org.apache.spark.sql.execution.vectorized.WritableColumnVector;
+import org.apache.spark.sql.types.*;
+
+/**
+ * Creates the {@link OrcVectorUpdater}s of the atomic types whose ORC column vectors can be
+ * decoded directly into a Spark {@link WritableColumnVector}.
+ */
+class OrcVectorUpdaterFactory {
+
+  /**
+   * Returns the updater decoding `source` as values of `type`, or null if `source` has to be
+   * wrapped by an {@link OrcColumnVector} instead.
+   */
+  static OrcVectorUpdater getUpdater(DataType type, ColumnVector source) {
+    if (source instanceof LongColumnVector) {
+      if (type instanceof BooleanType) {
+        return new BooleanUpdater();
+      } else if (type instanceof ByteType) {
+        return new ByteUpdater();
+      } else if (type instanceof ShortType) {
+        return new ShortUpdater();
+      } else if (type instanceof IntegerType || type instanceof YearMonthIntervalType) {
+        return new IntegerUpdater();
+      } else if (type instanceof DateType) {
+        return new DateUpdater();
+      } else if (type instanceof LongType || type instanceof DayTimeIntervalType ||
+          type instanceof TimestampNTZType) {
+        return new LongUpdater();
+      }
+    } else if (source instanceof DoubleColumnVector) {
+      if (type instanceof FloatType) {
+        return new FloatUpdater();
+      } else if (type instanceof DoubleType) {
+        return new DoubleUpdater();
+      }
+    } else if (source instanceof BytesColumnVector) {
+      if (type instanceof StringType || type instanceof BinaryType) {
+        return new BytesUpdater();
+      }
+    }
+    return null;
+  }
+
+  private static class BooleanUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      long[] vector = ((LongColumnVector) source).vector;
+      for (int i = 0; i < total; i++) {
+        values.putBoolean(i, vector[i] == 1);
+      }
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putBooleans(0, total, ((LongColumnVector) source).vector[0] == 1);
+    }
+  }
+
+  private static class ByteUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      long[] vector = ((LongColumnVector) source).vector;
+      for (int i = 0; i < total; i++) {
+        values.putByte(i, (byte) vector[i]);
+      }
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putBytes(0, total, (byte) ((LongColumnVector) source).vector[0]);
+    }
+  }
+
+  private static class ShortUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      long[] vector = ((LongColumnVector) source).vector;
+      for (int i = 0; i < total; i++) {
+        values.putShort(i, (short) vector[i]);
+      }
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putShorts(0, total, (short) ((LongColumnVector) source).vector[0]);
+    }
+  }
+
+  private static class IntegerUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      long[] vector = ((LongColumnVector) source).vector;
+      for (int i = 0; i < total; i++) {
+        values.putInt(i, (int) vector[i]);
+      }
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putInts(0, total, (int) ((LongColumnVector) source).vector[0]);
+    }
+  }
+
+  private static class DateUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      long[] vector = ((LongColumnVector) source).vector;
+      for (int i = 0; i < total; i++) {
+        values.putInt(i, RebaseDateTime.rebaseJulianToGregorianDays((int) vector[i]));
+      }
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      int days = (int) ((LongColumnVector) source).vector[0];
+      values.putInts(0, total, RebaseDateTime.rebaseJulianToGregorianDays(days));
+    }
+  }
+
+  private static class LongUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      values.putLongs(0, total, ((LongColumnVector) source).vector, 0);
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putLongs(0, total, ((LongColumnVector) source).vector[0]);
+    }
+  }
+
+  private static class FloatUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      double[] vector = ((DoubleColumnVector) source).vector;
+      for (int i = 0; i < total; i++) {
+        values.putFloat(i, (float) vector[i]);
+      }
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putFloats(0, total, (float) ((DoubleColumnVector) source).vector[0]);
+    }
+  }
+
+  private static class DoubleUpdater implements OrcVectorUpdater {
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+      values.putDoubles(0, total, ((DoubleColumnVector) source).vector, 0);
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+      values.putDoubles(0, total, ((DoubleColumnVector) source).vector[0]);
+    }
+  }
+
+  /**
+   * Passes the bytes read by ORC through an {@link OrcBytesDictionary}, so that neither the
+   * values nor their dictionary IDs, which are the row numbers, are written for each batch.
+   */
+  private static class BytesUpdater implements OrcVectorUpdater {
+    @Override
+    public void init(int capacity, ColumnVector source, WritableColumnVector values) {
+      values.setDictionary(new OrcBytesDictionary((BytesColumnVector) source));
+      WritableColumnVector dictionaryIds = values.reserveDictionaryIds(capacity);
+      for (int i = 0; i < capacity; i++) {
+        dictionaryIds.putInt(i, i);
+      }
+    }
+
+    @Override
+    public void readValues(int total, ColumnVector source, WritableColumnVector values) {
+    }
+
+    @Override
+    public void readRepeatedValue(int total, ColumnVector source, WritableColumnVector values) {
+    }
+  }
+}
@@ -291,21 +291,37 @@ public class VectorizedDeltaBinaryPackedReader extends VectorizedReaderBase {
   }
 
   /**
-   * mini block has a size of 8*n, unpack 32 value each time
+   * mini block has a size of 8*n, unpack 32 value each time and then 8 values each time for the
+   * remainder. The whole mini block is sliced from the input once.
    *
    * see org.apache.parquet.column.values.delta.DeltaBinaryPackingValuesReader#unpackMiniBlock
    */
   private void unpackMiniBlock() throws IOException {
-    Arrays.fill(this.unpackedValuesBuffer, 0);
-    BytePackerForLong packer = Packer.LITTLE_ENDIAN.newBytePackerForLong(
-        bitWidths[currentMiniBlock]);
-    for (int j = 0; j < miniBlockSizeInValues; j += 8) {
-      ByteBuffer buffer = in.slice(packer.getBitWidth());
+    int bitWidth = bitWidths[currentMiniBlock];
+    if (bitWidth == 0) {
+      // All deltas of the mini block are equal to the min delta, nothing to unpack.
+      Arrays.fill(this.unpackedValuesBuffer, 0);
+    } else {
+      BytePackerForLong packer = Packer.LITTLE_ENDIAN.newBytePackerForLong(bitWidth);
+      ByteBuffer buffer = in.slice(miniBlockSizeInValues / 8 * bitWidth);
+      int j = 0;
       if (buffer.hasArray()) {
-        packer.unpack8Values(buffer.array(),
-          buffer.arrayOffset() + buffer.position(), unpackedValuesBuffer, j);
+        byte[] array = buffer.array();
+        int inPos = buffer.arrayOffset() + buffer.position();
+        for (; j + 32 <= miniBlockSizeInValues; j += 32, inPos += bitWidth * 4) {
+          packer.unpack32Values(array, inPos, unpackedValuesBuffer, j);
+        }
+        for (; j < miniBlockSizeInValues; j += 8, inPos += bitWidth) {
+          packer.unpack8Values(array, inPos, unpackedValuesBuffer, j);
+        }
       } else {
-        packer.unpack8Values(buffer, buffer.position(), unpackedValuesBuffer, j);
+        int inPos = buffer.position();
+        for (; j + 32 <= miniBlockSizeInValues; j += 32, inPos += bitWidth * 4) {
+          packer.unpack32Values(buffer, inPos, unpackedValuesBuffer, j);
+        }
+        for (; j < miniBlockSizeInValues; j += 8, inPos += bitWidth) {
+          packer.unpack8Values(buffer, inPos, unpackedValuesBuffer, j);
+        }
       }
     }
     remainingInMiniBlock = miniBlockSizeInValues;
@@ -43,11 +43,13 @@ import org.apache.spark.SparkUnsupportedOperationException;
 import org.apache.spark.memory.MemoryMode;
 import org.apache.spark.sql.catalyst.util.ResolveDefaultColumns;
 import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.execution.vectorized.ColumnVectorPool;
 import org.apache.spark.sql.execution.vectorized.ColumnVectorUtils;
 import org.apache.spark.sql.execution.vectorized.ConstantColumnVector;
 import org.apache.spark.sql.execution.vectorized.OffHeapColumnVector;
 import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector;
 import org.apache.spark.sql.execution.vectorized.WritableColumnVector;
+import org.apache.spark.sql.internal.SQLConf;
 import org.apache.spark.sql.vectorized.ColumnVector;
 import org.apache.spark.sql.vectorized.ColumnarBatch;
 import org.apache.spark.sql.types.StructField;
@@ -134,6 +136,13 @@ public class VectorizedParquetRecordReader extends SpecificParquetRecordReaderBa
    */
   private ColumnarBatch columnarBatch;
 
+  /**
+   * The lease the first `numBorrowedColumns` columns of `columnarBatch` are borrowed from, or null
+   * if all the columns are allocated by this reader.
+   */
+  private ColumnVectorPool.Lease vectorLease;
+  private int numBorrowedColumns;
+
   /**
    * If true, this class returns batches instead of rows.
    */
@@ -225,7 +234,18 @@ public class VectorizedParquetRecordReader extends SpecificParquetRecordReaderBa
   @Override
   public void close() throws IOException {
     if (columnarBatch != null) {
-      columnarBatch.close();
+      if (vectorLease != null) {
+        for (int i = 0; i < columnarBatch.numCols(); i++) {
+          if (i < numBorrowedColumns) {
+            vectorLease.release((WritableColumnVector) columnarBatch.column(i));
+          } else {
+            columnarBatch.column(i).close();
+          }
+        }
+        vectorLease = null;
+      } else {
+        columnarBatch.close();
+      }
       columnarBatch = null;
     }
     super.close();
@@ -455,7 +475,8 @@ public class VectorizedParquetRecordReader extends SpecificParquetRecordReaderBa
    * This method allocates columns to store elements of each field of the schema,
    * the data columns use `OffHeapColumnVector` when `useOffHeap` is true and
    * use `OnHeapColumnVector` when `useOffHeap` is false, the constant columns
-   * always use `ConstantColumnVector`.
+   * always use `ConstantColumnVector`. The data columns are borrowed from the
+   * `ColumnVectorPool` when it is enabled.
    *
    * Capacity is the initial capacity of the vector, and it will grow as necessary.
    * Capacity is in number of elements, not number of bytes.
@@ -465,7 +486,16 @@ public class VectorizedParquetRecordReader extends SpecificParquetRecordReaderBa
     StructField[] fields = schema.fields();
     int fieldsLength = fields.length;
     ColumnVector[] vectors = new ColumnVector[fieldsLength];
-    if (useOffHeap) {
+    if (SQLConf.get().columnVectorPoolEnabled()) {
+      vectorLease = ColumnVectorPool.get().lease();
+    }
+    if (vectorLease != null) {
+      MemoryMode mode = useOffHeap ? MemoryMode.OFF_HEAP : MemoryMode.ON_HEAP;
+      for (int i = 0; i < fieldsLength - constantColumnLength; i++) {
+        vectors[i] = vectorLease.borrow(mode, capacity, fields[i].dataType());
+      }
+      numBorrowedColumns = fieldsLength - constantColumnLength;
+    } else if (useOffHeap) {
       for (int i = 0; i < fieldsLength - constantColumnLength; i++) {
         vectors[i] = new OffHeapColumnVector(capacity, fields[i].dataType());
       }
@@ -57,10 +57,21 @@ public final class VectorizedRleValuesReader extends ValuesReader
   // Encoded data.
   private ByteBufferInputStream in;
 
+  // Bytes left unpacked by the vectorized unpacker at the end of a bit-packed run, so that its
+  // 512-bit loads never read past the end of the run.
+  private static final int VECTOR_UNPACK_TAIL_BYTES = 64;
+
+  // Whether Parquet's Java Vector API unpackers are usable in this JVM. They are only present
+  // when the `parquet-encoding-vector` plugin is on the classpath and the `jdk.incubator.vector`
+  // module is enabled.
+  private static final boolean VECTOR_UNPACK_AVAILABLE = isVectorUnpackAvailable();
+
   // bit/byte width of decoded data and utility to batch unpack them.
   private int bitWidth;
   private int bytesWidth;
   private BytePacker packer;
+  // Vector API based packer for `bitWidth`, or null if not available.
+  private BytePacker vectorPacker;
 
   // Current decoding mode and values
   private MODE mode;
@@ -126,6 +137,19 @@ public final class VectorizedRleValuesReader extends ValuesReader
     this.bitWidth = bitWidth;
     this.bytesWidth = BytesUtils.paddedByteCountFromBits(bitWidth);
     this.packer = Packer.LITTLE_ENDIAN.newBytePacker(bitWidth);
+    this.vectorPacker = VECTOR_UNPACK_AVAILABLE && bitWidth > 0 ?
+      Packer.LITTLE_ENDIAN.newBytePackerVector(bitWidth) : null;
+  }
+
+  private static boolean isVectorUnpackAvailable() {
+    try {
+      BytePacker probe = Packer.LITTLE_ENDIAN.newBytePackerVector(1);
+      probe.unpackValuesUsingVector(
+        new byte[VECTOR_UNPACK_TAIL_BYTES * 2], 0, new int[probe.getUnpackCount()], 0);
+      return true;
+    } catch (RuntimeException | LinkageError e) {
+      return false;
+    }
   }
 
   @Override
@@ -246,13 +270,18 @@ public final class VectorizedRleValuesReader extends ValuesReader
             state.valueOffset += n;
           }
           case PACKED -> {
-            for (int i = 0; i < n; ++i) {
-              int currentValue = currentBuffer[currentBufferIdx++];
+            int i = 0;
+            while (i < n) {
+              int currentValue = currentBuffer[currentBufferIdx];
+              int runLength = packedRunLength(n - i);
               if (currentValue == state.maxDefinitionLevel) {
-                updater.readValue(state.valueOffset++, values, valueReader);
+                updater.readValues(runLength, state.valueOffset, values, valueReader);
               } else {
-                nulls.putNull(state.valueOffset++);
+                nulls.putNulls(state.valueOffset, runLength);
               }
+              state.valueOffset += runLength;
+              currentBufferIdx += runLength;
+              i += runLength;
             }
           }
         }
@@ -637,19 +666,40 @@ public final class VectorizedRleValuesReader extends ValuesReader
         defLevels.putInts(state.levelOffset, n, currentValue);
       }
       case PACKED -> {
-        for (int i = 0; i < n; ++i) {
-          int currentValue = currentBuffer[currentBufferIdx++];
+        int i = 0;
+        while (i < n) {
+          int currentValue = currentBuffer[currentBufferIdx];
+          int runLength = packedRunLength(n - i);
           if (currentValue == state.maxDefinitionLevel) {
-            updater.readValue(state.valueOffset++, values, valueReader);
+            updater.readValues(runLength, state.valueOffset, values, valueReader);
           } else {
-            nulls.putNull(state.valueOffset++);
+            nulls.putNulls(state.valueOffset, runLength);
           }
-          defLevels.putInt(state.levelOffset + i, currentValue);
+          defLevels.putInts(state.levelOffset + i, runLength, currentValue);
+          state.valueOffset += runLength;
+          currentBufferIdx += runLength;
+          i += runLength;
         }
       }
     }
   }
 
+  /**
+   * Returns the number of consecutive values in the current PACKED group, starting from
+   * 'currentBufferIdx' and looking at most 'limit' values ahead, that are equal to the value at
+   * 'currentBufferIdx'. This lets callers read a run of non-null values, or put a run of nulls,
+   * with a single call instead of one call per value.
+   */
+  private int packedRunLength(int limit) {
+    int value = currentBuffer[currentBufferIdx];
+    int end = currentBufferIdx + limit;
+    int i = currentBufferIdx + 1;
+    while (i < end && currentBuffer[i] == value) {
+      i++;
+    }
+    return i - currentBufferIdx;
+  }
+
   /**
    * Skip the next `n` values (either null or non-null) from this definition level reader and
    * `valueReader`.
@@ -919,13 +969,9 @@ public final class VectorizedRleValuesReader extends ValuesReader
             this.currentBuffer = new int[this.currentCount];
           }
           currentBufferIdx = 0;
-          int valueIndex = 0;
-          while (valueIndex < this.currentCount) {
-            // values are bit packed 8 at a time, so reading bitWidth will always work
-            ByteBuffer buffer = in.slice(bitWidth);
-            this.packer.unpack8Values(buffer, buffer.position(), this.currentBuffer, valueIndex);
-            valueIndex += 8;
-          }
+          // values are bit packed 8 at a time, so the run takes exactly `numGroups * bitWidth`
+          // bytes. Slice it once and unpack it in as few calls as possible.
+          unpackRun(in.slice(numGroups * bitWidth), this.currentCount);
         }
       }
     } catch (IOException e) {
@@ -935,6 +981,37 @@ public final class VectorizedRleValuesReader extends ValuesReader
     return true;
   }
 
+  /**
+   * Unpacks `count` bit-packed values, a multiple of 8, from `buffer` into `currentBuffer`.
+   * The Vector API unpacker is used if available, otherwise values are unpacked 32 at a time and
+   * then 8 at a time. Both produce identical results.
+   */
+  private void unpackRun(ByteBuffer buffer, int count) {
+    int inPos = buffer.position();
+    int inEnd = inPos + count / 8 * bitWidth;
+    int valueIndex = 0;
+    if (vectorPacker != null) {
+      int valuesPerCall = vectorPacker.getUnpackCount();
+      int bytesPerCall = valuesPerCall / 8 * bitWidth;
+      while (inEnd - inPos >= bytesPerCall + VECTOR_UNPACK_TAIL_BYTES) {
+        vectorPacker.unpackValuesUsingVector(buffer, inPos, currentBuffer, valueIndex);
+        inPos += bytesPerCall;
+        valueIndex += valuesPerCall;
+      }
+    }
+    int bytesPer32 = bitWidth * 4;
+    while (inEnd - inPos >= bytesPer32) {
+      packer.unpack32Values(buffer, inPos, currentBuffer, valueIndex);
+      inPos += bytesPer32;
+      valueIndex += 32;
+    }
+    while (inPos < inEnd) {
+      packer.unpack8Values(buffer, inPos, currentBuffer, valueIndex);
+      inPos += bitWidth;
+      valueIndex += 8;
+    }
+  }
+
   /**
    * Skip `n` values from the current reader.
    */
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.spark.sql.execution.vectorized;
+
+import java.nio.ByteOrder;
+
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+
+import org.apache.spark.sql.types.*;
+import org.apache.spark.sql.vectorized.ColumnVector;
+import org.apache.spark.unsafe.Platform;
+
+/**
+ * Bulk transfer of fixed-width values and nulls from {@link OffHeapColumnVector}s into Arrow
+ * {@link FieldVector}s.
+ *
+ * Both sides store fixed-width values contiguously in little-endian order, so values are copied
+ * with a single {@link Platform#copyMemory} per buffer. Nulls need a conversion: Spark stores one
+ * null byte per row while Arrow stores one validity bit per row. They are packed eight rows at a
+ * time. Booleans are converted the same way, as Spark stores one byte per value and Arrow one bit.
+ */
+public final class ArrowVectorTransfer {
+
+  private static final boolean bigEndianPlatform =
+    ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+
+  // Gathers the lowest bit of each of the 8 bytes of a word into the highest byte.
+  private static final long PACK_MAGIC = 0x0102040810204080L;
+  private static final long LOW_BITS = 0x0101010101010101L;
+
+  private ArrowVectorTransfer() {}
+
+  /**
+   * Returns the size in bytes of a value of `dt` if Spark and Arrow use the same fixed-width
+   * layout for it, 0 for booleans, which are bit-packed in Arrow, and -1 otherwise.
+   */
+  private static int valueWidth(DataType dt) {
+    if (dt instanceof BooleanType) {
+      return 0;
+    } else if (dt instanceof ByteType) {
+      return 1;
+    } else if (dt instanceof ShortType) {
+      return 2;
+    } else if (dt instanceof IntegerType || dt instanceof DateType ||
+        dt instanceof YearMonthIntervalType || dt instanceof FloatType) {
+      return 4;
+    } else if (dt instanceof LongType || dt instanceof TimestampType ||
+        dt instanceof TimestampNTZType || dt instanceof DayTimeIntervalType ||
+        dt instanceof DoubleType) {
+      return 8;
+    } else {
+      return -1;
+    }
+  }
+
+  private static boolean isCompatible(int width, FieldVector arrowVector) {
+    if (width == 0) {
+      return arrowVector instanceof BitVector;
+    } else {
+      return width > 0 && !(arrowVector instanceof BitVector) &&
+        arrowVector instanceof BaseFixedWidthVector fixedWidth &&
+        fixedWidth.getTypeWidth() == width;
+    }
+  }
+
+  /**
+   * Returns true if `vector` can be copied into `arrowVector` with
+   * {@link #copyToArrow(OffHeapColumnVector, int, int, FieldVector, int)}.
+   */
+  public static boolean canCopyToArrow(ColumnVector vector, FieldVector arrowVector) {
+    return !bigEndianPlatform &&
+      vector instanceof OffHeapColumnVector offHeap &&
+      !offHeap.hasDictionary() && !offHeap.isAllNull() &&
+      isCompatible(valueWidth(offHeap.dataType()), arrowVector);
+  }
+
+  /**
+   * Copies `numRows` values and nulls of `src` starting at `srcRowId` into `dst` starting at
+   * `dstRowId`, growing `dst` as needed. The value count of `dst` is not updated, so that the
+   * caller can append several ranges before setting it once.
+   */
+  public static void copyToArrow(
+      OffHeapColumnVector src,
+      int srcRowId,
+      int numRows,
+      FieldVector dst,
+      int dstRowId) {
+    if (numRows == 0) return;
+    while (dst.getValueCapacity() < dstRowId + numRows) {
+      dst.reAlloc();
+    }
+
+    int width = valueWidth(src.dataType());
+    if (width == 0) {
+      packBytesToBits(src.valuesNativeAddress() + srcRowId, dst.getDataBufferAddress(),
+        dstRowId, numRows, false);
+    } else {
+      Platform.copyMemory(null, src.valuesNativeAddress() + (long) srcRowId * width,
+        null, dst.getDataBufferAddress() + (long) dstRowId * width, (long) numRows * width);
+    }
+
+    if (src.hasNull()) {
+      // Spark null bytes are the inverse of Arrow validity bits.
+      packBytesToBits(src.nullsNativeAddress() + srcRowId, dst.getValidityBufferAddress(),
+        dstRowId, numRows, true);
+    } else {
+      setBits(dst.getValidityBufferAddress(), dstRowId, numRows);
+    }
+  }
+
+  /**
+   * Packs the lowest bits of `numRows` bytes at `srcAddress` into bits starting at bit
+   * `dstBitOffset` of the bitmap at `dstAddress`, optionally inverting them. Whole bytes of the
+   * bitmap are produced from one 8-byte word each.
+   */
+  static void packBytesToBits(
+      long srcAddress,
+      long dstAddress,
+      int dstBitOffset,
+      int numRows,
+      boolean invert) {
+    int i = 0;
+    // Set bits one at a time until the destination is byte aligned.
+    for (; i < numRows && ((dstBitOffset + i) & 7) != 0; i++) {
+      setBit(dstAddress, dstBitOffset + i, (Platform.getByte(null, srcAddress + i) != 0) ^ invert);
+    }
+    long dstByte = dstAddress + ((dstBitOffset + i) >> 3);
+    for (; i + 8 <= numRows; i += 8, dstByte++) {
+      // Only the lowest bit of each byte is kept: the values of null rows are not initialized,
+      // and any other bit would carry into the bits of the other rows.
+      long bits = ((Platform.getLong(null, srcAddress + i) & LOW_BITS) * PACK_MAGIC) >>> 56;
+      Platform.putByte(null, dstByte, (byte) (invert ? ~bits : bits));
+    }
+    for (; i < numRows; i++) {
+      setBit(dstAddress, dstBitOffset + i, (Platform.getByte(null, srcAddress + i) != 0) ^ invert);
+    }
+  }
+
+  private static void setBits(long address, int bitOffset, int numBits) {
+    int i = 0;
+    for (; i < numBits && ((bitOffset + i) & 7) != 0; i++) {
+      setBit(address, bitOffset + i, true);
+    }
+    int numBytes = (numBits - i) >> 3;
+    Platform.setMemory(address + ((bitOffset + i) >> 3), (byte) 0xFF, numBytes);
+    for (i += numBytes << 3; i < numBits; i++) {
+      setBit(address, bitOffset + i, true);
+    }
+  }
+
+  private static void setBit(long address, int index, boolean value) {
+    long byteAddress = address + (index >> 3);
+    int mask = 1 << (index & 7);
+    byte b = Platform.getByte(null, byteAddress);
+    Platform.putByte(null, byteAddress, (byte) (value ? (b | mask) : (b & ~mask)));
+  }
+}
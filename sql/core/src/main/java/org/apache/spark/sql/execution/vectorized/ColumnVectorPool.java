@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.spark.sql.execution.vectorized;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.spark.TaskContext;
+import org.apache.spark.memory.MemoryConsumer;
+import org.apache.spark.memory.MemoryMode;
+import org.apache.spark.memory.TaskMemoryManager;
+import org.apache.spark.sql.internal.SQLConf;
+import org.apache.spark.sql.types.DataType;
+
+/**
+ * An executor-wide pool of {@link WritableColumnVector}s, so that the vectorized readers of short
+ * tasks reuse the column vectors of earlier tasks instead of allocating and freeing a new set for
+ * every file.
+ *
+ * Vectors are borrowed through the {@link Lease} of the current task. While borrowed, their memory
+ * is accounted as execution memory of the task in its {@link TaskMemoryManager}, so vectors that
+ * are never returned are reported as a managed memory leak when the task completes. Returned
+ * vectors are reset and kept for later tasks as long as the idle vectors of the pool do not exceed
+ * {@link SQLConf#columnVectorPoolMaxSize()}; otherwise they are closed.
+ */
+public final class ColumnVectorPool {
+
+  private static final ColumnVectorPool INSTANCE = new ColumnVectorPool();
+
+  public static ColumnVectorPool get() {
+    return INSTANCE;
+  }
+
+  private record Key(MemoryMode mode, int capacity, DataType dataType) {}
+
+  // Idle vectors by memory mode, default capacity and data type. Guarded by `this`.
+  private final Map<Key, ArrayDeque<WritableColumnVector>> idleVectors = new HashMap<>();
+
+  // Total estimated size of the idle vectors. Guarded by `this`.
+  private long idleBytes = 0;
+
+  // Leases of the running tasks, by task attempt ID.
+  private final ConcurrentHashMap<Long, Lease> leases = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  ColumnVectorPool() {}
+
+  /**
+   * Returns the lease of the current task, creating it on first use, or null if this is not
+   * called from a task.
+   */
+  public Lease lease() {
+    TaskContext taskContext = TaskContext.get();
+    if (taskContext == null) return null;
+    return leases.computeIfAbsent(taskContext.taskAttemptId(), id -> {
+      Lease lease = new Lease(taskContext.taskMemoryManager());
+      // Vectors still borrowed at this point are not necessarily leaked: the readers of the task
+      // may be closed by listeners that run later. They are only dropped from the pool here,
+      // leaks are reported by the task memory manager through the memory still acquired.
+      taskContext.addTaskCompletionListener(context -> { leases.remove(id); });
+      return lease;
+    });
+  }
+
+  /**
+   * Returns the estimated size in bytes of the memory held by `vector`.
+   */
+  static long estimatedSize(WritableColumnVector vector) {
+    // One null byte per row, plus the values.
+    return (long) vector.capacity * (vector.dataType().defaultSize() + 1);
+  }
+
+  private synchronized WritableColumnVector poll(Key key) {
+    ArrayDeque<WritableColumnVector> vectors = idleVectors.get(key);
+    WritableColumnVector vector = vectors == null ? null : vectors.pollFirst();
+    if (vector != null) {
+      idleBytes -= estimatedSize(vector);
+    }
+    return vector;
+  }
+
+  private synchronized boolean offer(Key key, WritableColumnVector vector, long maxIdleBytes) {
+    long size = estimatedSize(vector);
+    if (idleBytes + size > maxIdleBytes) return false;
+    idleVectors.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(vector);
+    idleBytes += size;
+    return true;
+  }
+
+  @VisibleForTesting
+  synchronized long idleBytes() {
+    return idleBytes;
+  }
+
+  /**
+   * Closes all the idle vectors of the pool.
+   */
+  public synchronized void clear() {
+    for (ArrayDeque<WritableColumnVector> vectors : idleVectors.values()) {
+      for (WritableColumnVector vector : vectors) {
+        vector.close();
+      }
+    }
+    idleVectors.clear();
+    idleBytes = 0;
+  }
+
+  /**
+   * The column vectors borrowed by one task, with their memory accounted to the task.
+   */
+  public final class Lease {
+    private final TaskMemoryManager taskMemoryManager;
+    private final Map<MemoryMode, VectorMemoryConsumer> consumers = new HashMap<>();
+    // Borrowed vectors and the memory acquired for them.
+    private final IdentityHashMap<WritableColumnVector, Long> borrowed = new IdentityHashMap<>();
+
+    private Lease(TaskMemoryManager taskMemoryManager) {
+      this.taskMemoryManager = taskMemoryManager;
+    }
+
+    /**
+     * Borrows a reset vector of `dataType` with room for at least `capacity` rows. It must be
+     * given back with {@link #release(WritableColumnVector)} instead of being closed.
+     */
+    public synchronized WritableColumnVector borrow(
+        MemoryMode mode,
+        int capacity,
+        DataType dataType) {
+      WritableColumnVector vector = poll(new Key(mode, capacity, dataType));
+      if (vector == null) {
+        vector = mode == MemoryMode.OFF_HEAP ?
+          new OffHeapColumnVector(capacity, dataType) : new OnHeapColumnVector(capacity, dataType);
+      }
+      VectorMemoryConsumer consumer =
+        consumers.computeIfAbsent(mode, m -> new VectorMemoryConsumer(taskMemoryManager, m));
+      // The vectors are not backed by pages of the memory manager, so the memory that is granted
+      // is only accounted, and the vector is used even if less than its size is granted.
+      borrowed.put(vector, consumer.acquireMemory(estimatedSize(vector)));
+      return vector;
+    }
+
+    /**
+     * Gives back a vector borrowed from this lease, and keeps it for reuse if possible. The vector
+     * must no longer be used by the caller.
+     */
+    public synchronized void release(WritableColumnVector vector) {
+      Long granted = borrowed.remove(vector);
+      if (granted == null) {
+        throw new IllegalStateException("The column vector was not borrowed from this lease.");
+      }
+      MemoryMode mode = vector instanceof OffHeapColumnVector ?
+        MemoryMode.OFF_HEAP : MemoryMode.ON_HEAP;
+      consumers.get(mode).freeMemory(granted);
+
+      Key key = new Key(mode, vector.defaultCapacity, vector.dataType());
+      if (!vector.resetForReuse() ||
+          !offer(key, vector, SQLConf.get().columnVectorPoolMaxSize())) {
+        vector.close();
+      }
+    }
+
+    @VisibleForTesting
+    synchronized int numBorrowed() {
+      return borrowed.size();
+    }
+  }
+
+  private static final class VectorMemoryConsumer extends MemoryConsumer {
+    VectorMemoryConsumer(TaskMemoryManager taskMemoryManager, MemoryMode mode) {
+      super(taskMemoryManager, mode);
+    }
+
+    @Override
+    public long spill(long size, MemoryConsumer trigger) {
+      // Borrowed vectors are in use by a reader and cannot be spilled.
+      return 0L;
+    }
+  }
+}
@@ -17,6 +17,8 @@
 
 package org.apache.spark.sql.execution.vectorized;
 
+import org.apache.spark.unsafe.types.UTF8String;
+
 /**
  * The interface for dictionary in ColumnVector to decode dictionary encoded values.
  */
@@ -31,4 +33,12 @@ public interface Dictionary {
   double decodeToDouble(int id);
 
   byte[] decodeToBinary(int id);
+
+  /**
+   * Decodes `id` to a UTF8String. Dictionaries that keep their values in byte arrays can override
+   * this to point to the value instead of copying it.
+   */
+  default UTF8String decodeToUTF8String(int id) {
+    return UTF8String.fromBytes(decodeToBinary(id));
+  }
 }
@@ -84,6 +84,13 @@ public final class OffHeapColumnVector extends WritableColumnVector {
     return data;
   }
 
+  /**
+   * Returns the off heap pointer for the nulls buffer, which holds one byte per row.
+   */
+  public long nullsNativeAddress() {
+    return nulls;
+  }
+
   protected void releaseMemory() {
     Platform.freeMemory(nulls);
     Platform.freeMemory(data);
@@ -79,6 +79,27 @@ public abstract class WritableColumnVector extends ColumnVector {
     }
   }
 
+  /**
+   * Resets this column so that it can be handed out again by {@link ColumnVectorPool}, dropping
+   * any dictionary. Returns false if this column or one of its children was marked as constant or
+   * all null, in which case it cannot be reused.
+   */
+  boolean resetForReuse() {
+    if (isConstant || isAllNull) return false;
+    if (childColumns != null) {
+      for (WritableColumnVector c : childColumns) {
+        if (!c.resetForReuse()) return false;
+      }
+    }
+    if (dictionaryIds != null) {
+      dictionaryIds.close();
+      dictionaryIds = null;
+    }
+    dictionary = null;
+    reset();
+    return true;
+  }
+
   @Override
   public void close() {
     if (childColumns != null) {
@@ -447,8 +468,7 @@ public abstract class WritableColumnVector extends ColumnVector {
     if (dictionary == null) {
       return arrayData().getBytesAsUTF8String(getArrayOffset(rowId), getArrayLength(rowId));
     } else {
-      byte[] bytes = dictionary.decodeToBinary(dictionaryIds.getDictId(rowId));
-      return UTF8String.fromBytes(bytes);
+      return dictionary.decodeToUTF8String(dictionaryIds.getDictId(rowId));
     }
   }
 
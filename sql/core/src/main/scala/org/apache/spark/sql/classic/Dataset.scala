@@ -56,6 +56,7 @@ import org.apache.spark.sql.classic.ClassicConversions._
 import org.apache.spark.sql.classic.TypedAggUtils.withInputType
 import org.apache.spark.sql.errors.{QueryCompilationErrors, QueryExecutionErrors}
 import org.apache.spark.sql.execution._
+import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanExec
 import org.apache.spark.sql.execution.aggregate.TypedAggregateExpression
 import org.apache.spark.sql.execution.arrow.{ArrowBatchStreamWriter, ArrowConverters}
 import org.apache.spark.sql.execution.command._
@@ -2344,16 +2345,42 @@ class Dataset[T] private[sql](
       sparkSession.sessionState.conf.pandasStructHandlingMode == "legacy"
     val largeVarTypes =
       sparkSession.sessionState.conf.arrowUseLargeVarTypes
-    plan.execute().mapPartitionsInternal { iter =>
-      val context = TaskContext.get()
-      ArrowConverters.toBatchIterator(
-        iter,
-        schemaCaptured,
-        maxRecordsPerBatch,
-        timeZoneId,
-        errorOnDuplicatedFieldNames,
-        largeVarTypes,
-        context)
+    val finalPlan = plan match {
+      case adaptive: AdaptiveSparkPlanExec => adaptive.finalPhysicalPlan
+      case other => other
+    }
+    val columnarChild = finalPlan match {
+      case _ if !sparkSession.sessionState.conf.arrowColumnarTransferEnabled => None
+      case WholeStageCodegenExec(ColumnarToRowExec(child)) => Some(child)
+      case ColumnarToRowExec(child) => Some(child)
+      case _ => None
+    }
+    columnarChild match {
+      case Some(child) =>
+        // Skip the conversion to rows and convert the columnar batches to Arrow directly.
+        child.executeColumnar().mapPartitionsInternal { iter =>
+          val context = TaskContext.get()
+          ArrowConverters.toBatchIteratorFromColumnar(
+            iter,
+            schemaCaptured,
+            maxRecordsPerBatch,
+            timeZoneId,
+            errorOnDuplicatedFieldNames,
+            largeVarTypes,
+            context)
+        }
+      case None =>
+        plan.execute().mapPartitionsInternal { iter =>
+          val context = TaskContext.get()
+          ArrowConverters.toBatchIterator(
+            iter,
+            schemaCaptured,
+            maxRecordsPerBatch,
+            timeZoneId,
+            errorOnDuplicatedFieldNames,
+            largeVarTypes,
+            context)
+        }
     }
   }
 
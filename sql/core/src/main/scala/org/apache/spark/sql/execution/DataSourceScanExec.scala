@@ -482,11 +482,18 @@ trait FileSourceScanLike extends DataSourceScanExec with SessionStateHelper {
   private def translateToV1Filters(
       dataFilters: Seq[Expression],
       scalarSubqueryToLiteral: execution.ScalarSubquery => Literal): Seq[Filter] = {
-    val scalarSubqueryReplaced = dataFilters.map(_.transform {
+    val scalarSubqueryReplaced = dataFilters.map(_.transformUp {
       // Replace scalar subquery to literal so that `DataSourceStrategy.translateFilter` can
       // support translating it.
       case scalarSubquery: execution.ScalarSubquery => scalarSubqueryToLiteral(scalarSubquery)
-    })
+      // Merged scalar subqueries are referred to by the fields of their struct.
+      case field @ GetStructField(Literal(_, _: StructType), _, _) =>
+        Literal.create(field.eval(), field.dataType)
+    }).flatMap {
+      // Runtime min/max filters translate to filters on their bounds and values.
+      case rangeFilter: RangeMightContain => rangeFilter.pushableFilters
+      case filter => Seq(filter)
+    }
 
     val supportNestedPredicatePushdown = DataSourceUtils.supportNestedPredicatePushdown(relation)
     // `dataFilters` should not include any constant metadata col filters
@@ -26,8 +26,11 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions._
 import org.apache.spark.sql.catalyst.expressions.codegen.{CodegenContext, CodeGenerator, ExprCode}
 import org.apache.spark.sql.catalyst.plans.physical._
+import org.apache.spark.sql.catalyst.types.DataTypeUtils
+import org.apache.spark.sql.catalyst.util.CollationFactory
 import org.apache.spark.sql.catalyst.util.DateTimeConstants.NANOS_PER_MILLIS
 import org.apache.spark.sql.execution.metric.SQLMetrics
+import org.apache.spark.sql.types.{BinaryType, StringType}
 
 /**
  * Performs (external) sorting.
@@ -57,6 +60,23 @@ case class SortExec(
 
   private val enableRadixSort = conf.enableRadixSort
 
+  // The positions of the sort orders by strings with an ICU collation, which are sorted by the
+  // collation keys of the strings. The keys are appended to the rows inserted into the sorter
+  // and removed from the sorted rows, so that each string is converted once instead of being
+  // compared with the collator for each comparison.
+  private val collationKeyOrders: Seq[Int] = if (conf.sortByCollationKeysEnabled) {
+    sortOrder.indices.filter { i =>
+      sortOrder(i).dataType match {
+        case st: StringType =>
+          CollationFactory.fetchCollation(st.collationId).provider ==
+            CollationFactory.PROVIDER_ICU
+        case _ => false
+      }
+    }
+  } else {
+    Nil
+  }
+
   override lazy val metrics = Map(
     "sortTime" -> SQLMetrics.createTimingMetric(sparkContext, "sort time"),
     "peakMemory" -> SQLMetrics.createSizeMetric(sparkContext, "peak memory"),
@@ -75,10 +95,21 @@ case class SortExec(
   def createSorter(): UnsafeExternalRowSorter = {
     rowSorter = new ThreadLocal[UnsafeExternalRowSorter]()
 
-    val ordering = RowOrdering.create(sortOrder, output)
+    val collationKeys = collationKeyOrders.map { i =>
+      AttributeReference(s"collationKey$i", BinaryType, sortOrder(i).nullable)()
+    }
+    val sortedOutput = output ++ collationKeys
+    val sortedOrder = sortOrder.indices.map { i =>
+      collationKeyOrders.indexOf(i) match {
+        case -1 => sortOrder(i)
+        case k => sortOrder(i).copy(child = collationKeys(k), sameOrderExpressions = Seq.empty)
+      }
+    }
+
+    val ordering = RowOrdering.create(sortedOrder, sortedOutput)
 
     // The comparator for comparing prefix
-    val boundSortExpression = BindReferences.bindReference(sortOrder.head, output)
+    val boundSortExpression = BindReferences.bindReference(sortedOrder.head, sortedOutput)
     val prefixComparator = SortPrefixUtils.getPrefixComparator(boundSortExpression)
 
     val canUseRadixSort = enableRadixSort && sortOrder.length == 1 &&
@@ -99,8 +130,17 @@ case class SortExec(
     }
 
     val pageSize = SparkEnv.get.memoryManager.pageSizeBytes
-    val newRowSorter = UnsafeExternalRowSorter.create(
-      schema, ordering, prefixComparator, prefixComputer, pageSize, canUseRadixSort)
+    val newRowSorter = if (collationKeys.isEmpty) {
+      UnsafeExternalRowSorter.create(
+        schema, ordering, prefixComparator, prefixComputer, pageSize, canUseRadixSort)
+    } else {
+      val appendCollationKeys = UnsafeProjection.create(
+        output ++ collationKeyOrders.map(i => CollationKey(sortOrder(i).child)), output)
+      val removeCollationKeys = UnsafeProjection.create(output, sortedOutput)
+      UnsafeExternalRowSorter.createWithProjections(
+        DataTypeUtils.fromAttributes(sortedOutput), ordering, prefixComparator, prefixComputer,
+        appendCollationKeys, removeCollationKeys, pageSize, canUseRadixSort)
+    }
 
     if (testSpillFrequency > 0) {
       newRowSorter.setTestSpillFrequency(testSpillFrequency)
@@ -27,7 +27,7 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions._
 import org.apache.spark.sql.catalyst.plans.QueryPlan
 import org.apache.spark.sql.errors.QueryExecutionErrors
-import org.apache.spark.sql.execution.joins.{HashedRelation, HashJoin, LongHashedRelation}
+import org.apache.spark.sql.execution.joins.{HashedRelation, HashJoin, LongHashedRelation, RadixPartitionedHashedRelation}
 import org.apache.spark.sql.execution.metric.SQLMetrics
 import org.apache.spark.sql.internal.{SQLConf, StaticSQLConf}
 import org.apache.spark.util.ThreadUtils
@@ -86,7 +86,12 @@ case class SubqueryBroadcastExec(
         val beforeCollect = System.nanoTime()
 
         val broadcastRelation = child.executeBroadcast[HashedRelation]().value
-        val exprs = if (broadcastRelation.isInstanceOf[LongHashedRelation]) {
+        val isLongKey = broadcastRelation match {
+          case _: LongHashedRelation => true
+          case r: RadixPartitionedHashedRelation => r.isLongKey
+          case _ => false
+        }
+        val exprs = if (isLongKey) {
           indices.map { idx => HashJoin.extractKeyExprAt(buildKeys, idx) }
         } else {
           indices.map { idx =>
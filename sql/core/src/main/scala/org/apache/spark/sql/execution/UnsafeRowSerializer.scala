@@ -24,7 +24,8 @@ import scala.reflect.ClassTag
 
 import org.apache.spark.SparkUnsupportedOperationException
 import org.apache.spark.serializer.{DeserializationStream, SerializationStream, Serializer, SerializerInstance}
-import org.apache.spark.sql.catalyst.expressions.UnsafeRow
+import org.apache.spark.sql.catalyst.expressions.{CompactUnsafeRowFormat, UnsafeRow}
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter
 import org.apache.spark.sql.execution.metric.SQLMetric
 import org.apache.spark.unsafe.Platform
 import org.apache.spark.util.Utils
@@ -39,23 +40,42 @@ import org.apache.spark.util.Utils
  * shuffle, so certain [[SerializerInstance]] methods will throw SparkUnsupportedOperationException.
  *
  * @param numFields the number of fields in the row being serialized.
+ * @param dataSize if not null, the metric of the size of the rows written, as UnsafeRows.
+ * @param compactFormat if not null, the rows are written in this compact format, and read back as
+ *                      UnsafeRows, see [[CompactUnsafeRowFormat]].
+ * @param compactDataSize if not null, the metric of the size of the rows written in the compact
+ *                        format.
  */
 class UnsafeRowSerializer(
     numFields: Int,
-    dataSize: SQLMetric = null) extends Serializer with Serializable {
+    dataSize: SQLMetric = null,
+    compactFormat: CompactUnsafeRowFormat = null,
+    compactDataSize: SQLMetric = null) extends Serializer with Serializable {
   override def newInstance(): SerializerInstance =
-    new UnsafeRowSerializerInstance(numFields, dataSize)
+    new UnsafeRowSerializerInstance(numFields, dataSize, compactFormat, compactDataSize)
   override def supportsRelocationOfSerializedObjects: Boolean = true
 }
 
 private class UnsafeRowSerializerInstance(
     numFields: Int,
-    dataSize: SQLMetric) extends SerializerInstance {
+    dataSize: SQLMetric,
+    compactFormat: CompactUnsafeRowFormat,
+    compactDataSize: SQLMetric) extends SerializerInstance {
   /**
    * Serializes a stream of UnsafeRows. Within the stream, each record consists of a record
    * length (stored as a 4-byte integer, written high byte first), followed by the record's bytes.
+   * In the compact format, the records all have the same size, so they are only made of the bytes
+   * of the rows in the compact format.
    */
-  override def serializeStream(out: OutputStream): SerializationStream = new SerializationStream {
+  override def serializeStream(out: OutputStream): SerializationStream = {
+    if (compactFormat != null) {
+      new CompactUnsafeRowSerializationStream(out, compactFormat, dataSize, compactDataSize)
+    } else {
+      rowSerializeStream(out)
+    }
+  }
+
+  private def rowSerializeStream(out: OutputStream): SerializationStream = new SerializationStream {
     private[this] var writeBuffer: Array[Byte] = new Array[Byte](4096)
     private[this] val dOut: DataOutputStream =
       new DataOutputStream(new BufferedOutputStream(out))
@@ -98,6 +118,14 @@ private class UnsafeRowSerializerInstance(
   }
 
   override def deserializeStream(in: InputStream): DeserializationStream = {
+    if (compactFormat != null) {
+      new CompactUnsafeRowDeserializationStream(in, compactFormat)
+    } else {
+      rowDeserializeStream(in)
+    }
+  }
+
+  private def rowDeserializeStream(in: InputStream): DeserializationStream = {
     new DeserializationStream {
       private[this] val dIn: DataInputStream = new DataInputStream(new BufferedInputStream(in))
       // 1024 is a default buffer size; this buffer will grow to accommodate larger rows
@@ -182,3 +210,132 @@ private class UnsafeRowSerializerInstance(
   override def deserialize[T: ClassTag](bytes: ByteBuffer, loader: ClassLoader): T =
     throw SparkUnsupportedOperationException()
 }
+
+/**
+ * Serializes a stream of UnsafeRows in a compact format: each record is made of the bytes of a row
+ * in the format.
+ */
+private class CompactUnsafeRowSerializationStream(
+    out: OutputStream,
+    format: CompactUnsafeRowFormat,
+    dataSize: SQLMetric,
+    compactDataSize: SQLMetric) extends SerializationStream {
+  private[this] val rowBuffer: Array[Byte] = new Array[Byte](format.sizeInBytes)
+  private[this] val bOut: BufferedOutputStream = new BufferedOutputStream(out)
+
+  override def writeValue[T: ClassTag](value: T): SerializationStream = {
+    val row = value.asInstanceOf[UnsafeRow]
+    format.compact(row, rowBuffer, Platform.BYTE_ARRAY_OFFSET)
+    // The data size is the size of the rows in memory, which AQE plans with.
+    if (dataSize != null) {
+      dataSize.add(row.getSizeInBytes)
+    }
+    if (compactDataSize != null) {
+      compactDataSize.add(rowBuffer.length)
+    }
+    bOut.write(rowBuffer)
+    this
+  }
+
+  override def writeKey[T: ClassTag](key: T): SerializationStream = {
+    // The key is only needed on the map side when computing partition ids. It does not need to
+    // be shuffled.
+    assert(null == key || key.isInstanceOf[Int])
+    this
+  }
+
+  override def writeAll[T: ClassTag](iter: Iterator[T]): SerializationStream = {
+    // This method is never called by shuffle code.
+    throw SparkUnsupportedOperationException()
+  }
+
+  override def writeObject[T: ClassTag](t: T): SerializationStream = {
+    // This method is never called by shuffle code.
+    throw SparkUnsupportedOperationException()
+  }
+
+  override def flush(): Unit = {
+    bOut.flush()
+  }
+
+  override def close(): Unit = {
+    bOut.close()
+  }
+}
+
+/**
+ * Deserializes a stream of UnsafeRows in a compact format. Like [[UnsafeRowSerializerInstance]],
+ * it mutates and returns a single UnsafeRow instance, which is written by an [[UnsafeRowWriter]].
+ */
+private class CompactUnsafeRowDeserializationStream(
+    in: InputStream,
+    format: CompactUnsafeRowFormat) extends DeserializationStream {
+  private[this] val bIn: BufferedInputStream = new BufferedInputStream(in)
+  private[this] val rowBuffer: Array[Byte] = new Array[Byte](format.sizeInBytes)
+  private[this] val rowWriter: UnsafeRowWriter = new UnsafeRowWriter(format.numFields)
+
+  // Reads the next record to `rowBuffer`, or returns false at the end of the stream.
+  private def readRecord(): Boolean = {
+    val firstByte = bIn.read()
+    if (firstByte < 0) {
+      false
+    } else {
+      rowBuffer(0) = firstByte.toByte
+      Utils.readFully(bIn, rowBuffer, 1, rowBuffer.length - 1)
+      true
+    }
+  }
+
+  private def nextRow(): UnsafeRow =
+    format.expand(rowBuffer, Platform.BYTE_ARRAY_OFFSET, rowWriter)
+
+  override def asKeyValueIterator: Iterator[(Int, UnsafeRow)] = {
+    new Iterator[(Int, UnsafeRow)] {
+      private[this] var _hasNext: Boolean = readRecord()
+      private[this] val rowTuple: (Int, UnsafeRow) = (0, rowWriter.getRow)
+
+      if (!_hasNext) {
+        bIn.close()
+      }
+
+      override def hasNext: Boolean = _hasNext
+
+      override def next(): (Int, UnsafeRow) = {
+        if (!_hasNext) {
+          throw new NoSuchElementException
+        }
+        nextRow()
+        _hasNext = readRecord()
+        if (!_hasNext) {
+          bIn.close()
+        }
+        rowTuple
+      }
+    }
+  }
+
+  override def asIterator: Iterator[Any] = {
+    // This method is never called by shuffle code.
+    throw SparkUnsupportedOperationException()
+  }
+
+  override def readKey[T: ClassTag](): T = {
+    // We skipped serialization of the key in writeKey(), so just return a dummy value since
+    // this is going to be discarded anyways.
+    null.asInstanceOf[T]
+  }
+
+  override def readValue[T: ClassTag](): T = {
+    Utils.readFully(bIn, rowBuffer, 0, rowBuffer.length)
+    nextRow().asInstanceOf[T]
+  }
+
+  override def readObject[T: ClassTag](): T = {
+    // This method is never called by shuffle code.
+    throw SparkUnsupportedOperationException()
+  }
+
+  override def close(): Unit = {
+    bIn.close()
+  }
+}
@@ -81,6 +81,42 @@ case class OptimizeSkewedJoin(ensureRequirements: EnsureRequirements)
     }
   }
 
+  /**
+   * Returns the target size to split each partition of `stage` into, or 0 if the partition is not
+   * skewed. Besides the partitions larger than `skewThreshold`, if the shuffle collected the number
+   * of rows of each partition, a partition larger than the advisory partition size is skewed if its
+   * number of rows is larger than the median number of rows * SKEW_JOIN_SKEWED_PARTITION_FACTOR.
+   * Such a partition is split into parts of about the average number of rows of the partitions
+   * whose numbers of rows are not skewed.
+   */
+  private def skewedTargetSizes(
+      stage: ShuffleQueryStageExec,
+      sizes: Array[Long],
+      skewThreshold: Long): Array[Long] = {
+    val target = targetSize(sizes, skewThreshold)
+    val targetSizes = sizes.map(size => if (size > skewThreshold) target else 0L)
+    stage.shuffle.keyStatistics.map(_.value.recordsByPartitionId)
+      .filter(_.length == sizes.length)
+      .foreach { records =>
+        val advisorySize = conf.getConf(SQLConf.ADVISORY_PARTITION_SIZE_IN_BYTES)
+        val recordsThreshold = (Utils.median(records, false) *
+          conf.getConf(SQLConf.SKEW_JOIN_SKEWED_PARTITION_FACTOR)).toLong
+        val nonSkewRecords = records.filter(_ <= recordsThreshold)
+        if (nonSkewRecords.nonEmpty) {
+          val targetRecords = math.max(1L, nonSkewRecords.sum / nonSkewRecords.length)
+          for (i <- sizes.indices if records(i) > recordsThreshold && sizes(i) > advisorySize) {
+            val recordsTarget = math.max(1L, (BigInt(sizes(i)) * targetRecords / records(i)).toLong)
+            targetSizes(i) = if (targetSizes(i) > 0) {
+              math.min(targetSizes(i), recordsTarget)
+            } else {
+              recordsTarget
+            }
+          }
+        }
+      }
+    targetSizes
+  }
+
   private def canSplitLeftSide(joinType: JoinType) = {
     joinType == Inner || joinType == Cross || joinType == LeftSemi ||
       joinType == LeftAnti || joinType == LeftOuter
@@ -131,10 +167,8 @@ case class OptimizeSkewedJoin(ensureRequirements: EnsureRequirements)
          |${getSizeInfo(rightMedSize, rightSizes)}
       """.stripMargin)
 
-    val leftSkewThreshold = getSkewThreshold(leftMedSize)
-    val rightSkewThreshold = getSkewThreshold(rightMedSize)
-    val leftTargetSize = targetSize(leftSizes, leftSkewThreshold)
-    val rightTargetSize = targetSize(rightSizes, rightSkewThreshold)
+    val leftTargetSizes = skewedTargetSizes(left, leftSizes, getSkewThreshold(leftMedSize))
+    val rightTargetSizes = skewedTargetSizes(right, rightSizes, getSkewThreshold(rightMedSize))
 
     val leftSidePartitions = mutable.ArrayBuffer.empty[ShufflePartitionSpec]
     val rightSidePartitions = mutable.ArrayBuffer.empty[ShufflePartitionSpec]
@@ -142,9 +176,9 @@ case class OptimizeSkewedJoin(ensureRequirements: EnsureRequirements)
     var numSkewedRight = 0
     for (partitionIndex <- 0 until numPartitions) {
       val leftSize = leftSizes(partitionIndex)
-      val isLeftSkew = canSplitLeft && leftSize > leftSkewThreshold
+      val isLeftSkew = canSplitLeft && leftTargetSizes(partitionIndex) > 0
       val rightSize = rightSizes(partitionIndex)
-      val isRightSkew = canSplitRight && rightSize > rightSkewThreshold
+      val isRightSkew = canSplitRight && rightTargetSizes(partitionIndex) > 0
       val leftNoSkewPartitionSpec =
         Seq(CoalescedPartitionSpec(partitionIndex, partitionIndex + 1, leftSize))
       val rightNoSkewPartitionSpec =
@@ -152,7 +186,7 @@ case class OptimizeSkewedJoin(ensureRequirements: EnsureRequirements)
 
       val leftParts = if (isLeftSkew) {
         val skewSpecs = ShufflePartitionsUtil.createSkewPartitionSpecs(
-          left.mapStats.get.shuffleId, partitionIndex, leftTargetSize)
+          left.mapStats.get.shuffleId, partitionIndex, leftTargetSizes(partitionIndex))
         if (skewSpecs.isDefined) {
           logDebug(s"Left side partition $partitionIndex " +
             s"(${Utils.bytesToString(leftSize)}) is skewed, " +
@@ -166,7 +200,7 @@ case class OptimizeSkewedJoin(ensureRequirements: EnsureRequirements)
 
       val rightParts = if (isRightSkew) {
         val skewSpecs = ShufflePartitionsUtil.createSkewPartitionSpecs(
-          right.mapStats.get.shuffleId, partitionIndex, rightTargetSize)
+          right.mapStats.get.shuffleId, partitionIndex, rightTargetSizes(partitionIndex))
         if (skewSpecs.isDefined) {
           logDebug(s"Right side partition $partitionIndex " +
             s"(${Utils.bytesToString(rightSize)}) is skewed, " +
@@ -170,7 +170,8 @@ case class HashAggregateExec(
       groupingKeySchema,
       TaskContext.get(),
       1024 * 16, // initial capacity
-      TaskContext.get().taskMemoryManager().pageSizeBytes
+      TaskContext.get().taskMemoryManager().pageSizeBytes,
+      conf.useWyHashForHashTableKeys
     )
   }
 
@@ -660,7 +661,7 @@ case class HashAggregateExec(
       s"""
          |// generate grouping key
          |${unsafeRowKeyCode.code}
-         |int $unsafeRowKeyHash = ${unsafeRowKeyCode.value}.hashCode();
+         |int $unsafeRowKeyHash = $hashMapTerm.hashKey(${unsafeRowKeyCode.value});
          |if ($checkFallbackForBytesToBytesMap) {
          |  // try to get the buffer from hash map
          |  $unsafeRowBuffer =
@@ -32,25 +32,57 @@ import org.apache.spark.sql.execution.UnsafeKVExternalSorter
  * we can support storing arbitrary Java objects as aggregate function states in the aggregation
  * buffers. This class is only used together with [[ObjectHashAggregateExec]].
  */
-class ObjectAggregationMap() {
-  private[this] val hashMap = new ju.LinkedHashMap[UnsafeRow, InternalRow]
+class ObjectAggregationMap(wyHashKeys: Boolean) {
+  import ObjectAggregationMap.GroupingKey
+
+  def this() = this(false)
+
+  private[this] val hashMap =
+    if (wyHashKeys) null else new ju.LinkedHashMap[UnsafeRow, InternalRow]
+
+  // The grouping keys hashed with wyhash are wrapped with their hash, as the hash code of an
+  // UnsafeRow is its murmur3 hash.
+  private[this] val wyHashMap =
+    if (wyHashKeys) new ju.LinkedHashMap[GroupingKey, InternalRow] else null
+
+  // Re-used to look up the grouping keys in `wyHashMap`.
+  private[this] val lookupKey = new GroupingKey(null, 0)
 
   def getAggregationBuffer(groupingKey: UnsafeRow): InternalRow = {
-    hashMap.get(groupingKey)
+    if (wyHashKeys) {
+      lookupKey.row = groupingKey
+      lookupKey.hash = groupingKey.wyHashCode()
+      wyHashMap.get(lookupKey)
+    } else {
+      hashMap.get(groupingKey)
+    }
   }
 
   def putAggregationBuffer(groupingKey: UnsafeRow, aggBuffer: InternalRow): Unit = {
-    hashMap.put(groupingKey, aggBuffer)
+    if (wyHashKeys) {
+      wyHashMap.put(new GroupingKey(groupingKey, groupingKey.wyHashCode()), aggBuffer)
+    } else {
+      hashMap.put(groupingKey, aggBuffer)
+    }
   }
 
-  def size: Int = hashMap.size()
+  def size: Int = if (wyHashKeys) wyHashMap.size() else hashMap.size()
 
   /**
    * Returns a destructive iterator of AggregationBufferEntry.
    * Notice: it is illegal to call any method after `destructiveIterator()` has been called.
    */
   def destructiveIterator(): Iterator[AggregationBufferEntry] = {
-    val iter = hashMap.entrySet().iterator()
+    if (wyHashKeys) {
+      destructiveIterator(wyHashMap)(_.row)
+    } else {
+      destructiveIterator(hashMap)(identity)
+    }
+  }
+
+  private def destructiveIterator[K](map: ju.LinkedHashMap[K, InternalRow])(
+      groupingKey: K => UnsafeRow): Iterator[AggregationBufferEntry] = {
+    val iter = map.entrySet().iterator()
     new Iterator[AggregationBufferEntry] {
 
       override def hasNext: Boolean = {
@@ -59,7 +91,7 @@ class ObjectAggregationMap() {
       override def next(): AggregationBufferEntry = {
         val entry = iter.next()
         iter.remove()
-        new AggregationBufferEntry(entry.getKey, entry.getValue)
+        new AggregationBufferEntry(groupingKey(entry.getKey), entry.getValue)
       }
     }
   }
@@ -101,12 +133,25 @@ class ObjectAggregationMap() {
       )
     }
 
-    hashMap.clear()
+    clear()
     sorter
   }
 
   def clear(): Unit = {
-    hashMap.clear()
+    if (wyHashKeys) wyHashMap.clear() else hashMap.clear()
+  }
+}
+
+object ObjectAggregationMap {
+
+  // A grouping key with its wyhash, which the map computes once per key.
+  private[aggregate] final class GroupingKey(var row: UnsafeRow, var hash: Int) {
+    override def hashCode(): Int = hash
+
+    override def equals(other: Any): Boolean = other match {
+      case key: GroupingKey => hash == key.hash && row.equals(key.row)
+      case _ => false
+    }
   }
 }
 
@@ -37,6 +37,7 @@ import org.apache.spark.sql.catalyst.expressions.{UnsafeProjection, UnsafeRow}
 import org.apache.spark.sql.catalyst.plans.logical.LocalRelation
 import org.apache.spark.sql.catalyst.types.DataTypeUtils.toAttributes
 import org.apache.spark.sql.classic.{DataFrame, Dataset, SparkSession}
+import org.apache.spark.sql.execution.vectorized.{ArrowVectorTransfer, OffHeapColumnVector}
 import org.apache.spark.sql.types._
 import org.apache.spark.sql.util.ArrowUtils
 import org.apache.spark.sql.vectorized.{ArrowColumnVector, ColumnarBatch, ColumnVector}
@@ -205,6 +206,80 @@ private[sql] object ArrowConverters extends Logging {
     }
   }
 
+  /**
+   * Maps Iterator from ColumnarBatch to serialized ArrowRecordBatches. It produces the same
+   * record batches as [[ArrowBatchIterator]] does for the rows of the input batches, but copies
+   * fixed-width columns backed by [[OffHeapColumnVector]] into Arrow in bulk, including their
+   * nulls, with [[ArrowVectorTransfer]]. Other columns are written value by value.
+   */
+  private[sql] class ColumnarArrowBatchIterator(
+      batchIter: Iterator[ColumnarBatch],
+      schema: StructType,
+      maxRecordsPerBatch: Long,
+      timeZoneId: String,
+      errorOnDuplicatedFieldNames: Boolean,
+      largeVarTypes: Boolean,
+      context: TaskContext)
+    extends ArrowBatchIterator(
+      Iterator.empty,
+      schema,
+      maxRecordsPerBatch,
+      timeZoneId,
+      errorOnDuplicatedFieldNames,
+      largeVarTypes,
+      context) {
+
+    private var currentBatch: ColumnarBatch = null
+    private var rowIdInBatch = 0
+
+    private def hasNextRow: Boolean = {
+      while ((currentBatch == null || rowIdInBatch >= currentBatch.numRows()) &&
+          batchIter.hasNext) {
+        currentBatch = batchIter.next()
+        rowIdInBatch = 0
+      }
+      currentBatch != null && rowIdInBatch < currentBatch.numRows()
+    }
+
+    override def hasNext: Boolean = hasNextRow || {
+      close()
+      false
+    }
+
+    override def next(): Array[Byte] = {
+      val out = new ByteArrayOutputStream()
+      val writeChannel = new WriteChannel(Channels.newChannel(out))
+
+      Utils.tryWithSafeFinally {
+        var rowCount = 0L
+        while (hasNextRow && (maxRecordsPerBatch <= 0 || rowCount < maxRecordsPerBatch)) {
+          var numRows = currentBatch.numRows() - rowIdInBatch
+          if (maxRecordsPerBatch > 0) {
+            numRows = math.min(numRows.toLong, maxRecordsPerBatch - rowCount).toInt
+          }
+          val srcRowId = rowIdInBatch
+          arrowWriter.writeColumns(currentBatch, srcRowId, numRows) {
+            case (vector: OffHeapColumnVector, arrowVector, dstRowId)
+                if ArrowVectorTransfer.canCopyToArrow(vector, arrowVector) =>
+              ArrowVectorTransfer.copyToArrow(vector, srcRowId, numRows, arrowVector, dstRowId)
+              true
+            case _ => false
+          }
+          rowIdInBatch += numRows
+          rowCount += numRows
+        }
+        arrowWriter.finish()
+        val batch = unloader.getRecordBatch()
+        MessageSerializer.serialize(writeChannel, batch)
+        batch.close()
+      } {
+        arrowWriter.reset()
+      }
+
+      out.toByteArray
+    }
+  }
+
   /**
    * Maps Iterator from InternalRow to serialized ArrowRecordBatches. Limit ArrowRecordBatch size
    * in a batch by setting maxRecordsPerBatch or use 0 to fully consume rowIter.
@@ -227,6 +302,28 @@ private[sql] object ArrowConverters extends Logging {
       context)
   }
 
+  /**
+   * Maps Iterator from ColumnarBatch to serialized ArrowRecordBatches, the same way
+   * [[toBatchIterator]] does for rows.
+   */
+  private[sql] def toBatchIteratorFromColumnar(
+      batchIter: Iterator[ColumnarBatch],
+      schema: StructType,
+      maxRecordsPerBatch: Long,
+      timeZoneId: String,
+      errorOnDuplicatedFieldNames: Boolean,
+      largeVarTypes: Boolean,
+      context: TaskContext): ColumnarArrowBatchIterator = {
+    new ColumnarArrowBatchIterator(
+      batchIter,
+      schema,
+      maxRecordsPerBatch,
+      timeZoneId,
+      errorOnDuplicatedFieldNames,
+      largeVarTypes,
+      context)
+  }
+
   /**
    * Convert the input rows into fully contained arrow batches.
    * Different from [[toBatchIterator]], each output arrow batch starts with the schema.
@@ -28,6 +28,7 @@ import org.apache.spark.sql.errors.QueryExecutionErrors
 import org.apache.spark.sql.execution.columnar.compression.CompressibleColumnAccessor
 import org.apache.spark.sql.execution.vectorized.WritableColumnVector
 import org.apache.spark.sql.types._
+import org.apache.spark.sql.vectorized.ColumnVector
 import org.apache.spark.unsafe.types.{CalendarInterval, VariantVal}
 
 /**
@@ -181,4 +182,17 @@ private[sql] object ColumnAccessor {
     val columnAccessor = ColumnAccessor(dataType, byteBuffer)
     decompress(columnAccessor, columnVector, numRows)
   }
+
+  /**
+   * Returns a [[ColumnVector]] that reads the values of the cached column `array` without
+   * decompressing them, or `None` if its encoding or type does not support random access.
+   */
+  def encodedColumnVector(array: Array[Byte], dataType: DataType, numRows: Int)
+      : Option[ColumnVector] = {
+    ColumnAccessor(dataType, ByteBuffer.wrap(array)) match {
+      case nativeAccessor: NativeColumnAccessor[_] =>
+        nativeAccessor.encodedColumnVector(dataType, numRows)
+      case _ => None
+    }
+  }
 }
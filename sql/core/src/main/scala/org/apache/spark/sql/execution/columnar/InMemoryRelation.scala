@@ -33,6 +33,7 @@ import org.apache.spark.sql.catalyst.util.truncatedString
 import org.apache.spark.sql.columnar.{CachedBatch, CachedBatchSerializer, SimpleMetricsCachedBatch, SimpleMetricsCachedBatchSerializer}
 import org.apache.spark.sql.execution._
 import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanExec
+import org.apache.spark.sql.execution.columnar.compression.EncodedColumnVector
 import org.apache.spark.sql.execution.vectorized.{OffHeapColumnVector, OnHeapColumnVector, WritableColumnVector}
 import org.apache.spark.sql.internal.{SQLConf, StaticSQLConf}
 import org.apache.spark.sql.types._
@@ -182,7 +183,9 @@ class DefaultCachedBatchSerializer extends SimpleMetricsCachedBatchSerializer {
 
   override def vectorTypes(attributes: Seq[Attribute], conf: SQLConf): Option[Seq[String]] =
     Option(Seq.fill(attributes.length)(
-      if (!conf.offHeapColumnVectorEnabled) {
+      if (conf.cacheEncodedVectorsEnabled) {
+        classOf[EncodedColumnVector].getName
+      } else if (!conf.offHeapColumnVectorEnabled) {
         classOf[OnHeapColumnVector].getName
       } else {
         classOf[OffHeapColumnVector].getName
@@ -195,10 +198,35 @@ class DefaultCachedBatchSerializer extends SimpleMetricsCachedBatchSerializer {
       selectedAttributes: Seq[Attribute],
       conf: SQLConf): RDD[ColumnarBatch] = {
     val offHeapColumnVectorEnabled = conf.offHeapColumnVectorEnabled
+    val encodedVectorsEnabled = conf.cacheEncodedVectorsEnabled
     val outputSchema = DataTypeUtils.fromAttributes(selectedAttributes)
     val columnIndices =
       selectedAttributes.map(a => cacheAttributes.map(o => o.exprId).indexOf(a.exprId)).toArray
 
+    def createEncodedColumns(cb: CachedBatch): ColumnarBatch = {
+      val cachedColumnarBatch = cb.asInstanceOf[DefaultCachedBatch]
+      val rowCount = cachedColumnarBatch.numRows
+      val taskContext = Option(TaskContext.get())
+      val columnVectors = selectedAttributes.indices.map { i =>
+        val buffer = cachedColumnarBatch.buffers(columnIndices(i))
+        val dataType = outputSchema.fields(i).dataType
+        ColumnAccessor.encodedColumnVector(buffer, dataType, rowCount).getOrElse {
+          // The encoding of this column cannot be read in place, so decompress it.
+          val vector = if (!offHeapColumnVectorEnabled || taskContext.isEmpty) {
+            new OnHeapColumnVector(rowCount, dataType)
+          } else {
+            new OffHeapColumnVector(rowCount, dataType)
+          }
+          ColumnAccessor.decompress(buffer, vector, dataType, rowCount)
+          EncodedColumnVector.decompressed(vector)
+        }
+      }
+      val columnarBatch = new ColumnarBatch(columnVectors.toArray)
+      columnarBatch.setNumRows(rowCount)
+      taskContext.foreach(_.addTaskCompletionListener[Unit](_ => columnarBatch.close()))
+      columnarBatch
+    }
+
     def createAndDecompressColumn(cb: CachedBatch): ColumnarBatch = {
       val cachedColumnarBatch = cb.asInstanceOf[DefaultCachedBatch]
       val rowCount = cachedColumnarBatch.numRows
@@ -221,7 +249,11 @@ class DefaultCachedBatchSerializer extends SimpleMetricsCachedBatchSerializer {
       columnarBatch
     }
 
-    input.map(createAndDecompressColumn)
+    if (encodedVectorsEnabled) {
+      input.map(createEncodedColumns)
+    } else {
+      input.map(createAndDecompressColumn)
+    }
   }
 
   override def convertCachedBatchToInternalRow(
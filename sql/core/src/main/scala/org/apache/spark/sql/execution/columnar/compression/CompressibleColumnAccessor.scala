@@ -21,6 +21,8 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.types.PhysicalDataType
 import org.apache.spark.sql.execution.columnar.{ColumnAccessor, NativeColumnAccessor}
 import org.apache.spark.sql.execution.vectorized.WritableColumnVector
+import org.apache.spark.sql.types.DataType
+import org.apache.spark.sql.vectorized.ColumnVector
 
 private[columnar] trait CompressibleColumnAccessor[T <: PhysicalDataType] extends ColumnAccessor {
   this: NativeColumnAccessor[T] =>
@@ -40,4 +42,7 @@ private[columnar] trait CompressibleColumnAccessor[T <: PhysicalDataType] extend
 
   def decompress(columnVector: WritableColumnVector, capacity: Int): Unit =
     decoder.decompress(columnVector, capacity)
+
+  def encodedColumnVector(dataType: DataType, numRows: Int): Option[ColumnVector] =
+    decoder.encodedColumnVector(dataType, numRows)
 }
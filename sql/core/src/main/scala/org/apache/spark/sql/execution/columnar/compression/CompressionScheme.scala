@@ -24,6 +24,9 @@ import org.apache.spark.sql.catalyst.types.PhysicalDataType
 import org.apache.spark.sql.errors.QueryExecutionErrors
 import org.apache.spark.sql.execution.columnar.{ColumnType, NativeColumnType}
 import org.apache.spark.sql.execution.vectorized.WritableColumnVector
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.types.DataType
+import org.apache.spark.sql.vectorized.ColumnVector
 
 private[columnar] trait Encoder[T <: PhysicalDataType] {
   def gatherCompressibilityStats(row: InternalRow, ordinal: Int): Unit = {}
@@ -45,6 +48,13 @@ private[columnar] trait Decoder[T <: PhysicalDataType] {
   def hasNext: Boolean
 
   def decompress(columnVector: WritableColumnVector, capacity: Int): Unit
+
+  /**
+   * Returns a [[ColumnVector]] of `numRows` rows that reads the values directly from the encoded
+   * buffer, or `None` if values of this scheme and type can only be decompressed. Must be called
+   * before any value is read with `next`.
+   */
+  def encodedColumnVector(dataType: DataType, numRows: Int): Option[ColumnVector] = None
 }
 
 private[columnar] trait CompressionScheme {
@@ -64,12 +74,19 @@ private[columnar] trait WithCompressionSchemes {
 }
 
 private[columnar] trait AllCompressionSchemes extends WithCompressionSchemes {
-  override val schemes: Seq[CompressionScheme] = CompressionScheme.all
+  override val schemes: Seq[CompressionScheme] = if (SQLConf.get.cacheEncodedVectorsEnabled) {
+    CompressionScheme.all
+  } else {
+    CompressionScheme.all.filterNot(_ == BitPackedFrameOfReference)
+  }
 }
 
 private[columnar] object CompressionScheme {
+  // BitPackedFrameOfReference can always be decoded, but is only used to encode columns when
+  // spark.sql.inMemoryColumnarStorage.encodedVectors.enabled is true.
   val all: Seq[CompressionScheme] =
-    Seq(PassThrough, RunLengthEncoding, DictionaryEncoding, BooleanBitSet, IntDelta, LongDelta)
+    Seq(PassThrough, RunLengthEncoding, DictionaryEncoding, BooleanBitSet, IntDelta, LongDelta,
+      BitPackedFrameOfReference)
 
   private val typeIdToScheme = all.map(scheme => scheme.typeId -> scheme).toMap
 
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.columnar.compression
+
+import java.nio.ByteBuffer
+
+import scala.annotation.switch
+
+import org.apache.spark.SparkException
+import org.apache.spark.sql.types.{DataType, Decimal}
+import org.apache.spark.sql.vectorized.{ColumnarArray, ColumnarMap, ColumnVector}
+import org.apache.spark.unsafe.types.UTF8String
+
+/**
+ * A read-only [[ColumnVector]] that reads values straight from the compressed buffer of a cached
+ * column, instead of decompressing them into a `WritableColumnVector` first.
+ *
+ * The encoding of a column may differ from one cached batch to the next, so every encoding is
+ * read by this single final class, switching on `encoding`, rather than by one subclass each:
+ * generated code can then be given a concrete vector class. Columns whose encoding cannot be read
+ * in place are decompressed and wrapped, see [[EncodedColumnVector.decompressed]].
+ *
+ * `buffer` is the whole column buffer, starting with the null count and null positions. The null
+ * positions are turned into a bitmap with per-word null counts, so that the position of the value
+ * of a row among the non-null values can be computed in constant time.
+ */
+private[columnar] final class EncodedColumnVector private (
+    dataType: DataType,
+    encoding: Int,
+    buffer: ByteBuffer,
+    numRows: Int,
+    dataStart: Int,
+    intDictionary: Array[Int],
+    longDictionary: Array[Long],
+    frameOfReference: BitPackedFrameOfReference.Decoder[_],
+    decompressed: ColumnVector) extends ColumnVector(dataType) {
+  import EncodedColumnVector._
+
+  private val nullCount = if (buffer != null) buffer.getInt(0) else 0
+
+  // Bit `i % 64` of word `i / 64` is set if row `i` is null.
+  private val nulls: Array[Long] =
+    if (nullCount > 0) new Array[Long]((numRows + 63) / 64) else null
+
+  // Number of nulls in all the words before each word of `nulls`.
+  private val nullsBefore: Array[Int] = if (nullCount > 0) new Array[Int](nulls.length) else null
+
+  if (nullCount > 0) {
+    var i = 0
+    while (i < nullCount) {
+      val rowId = buffer.getInt(4 + 4 * i)
+      nulls(rowId >>> 6) |= 1L << rowId
+      i += 1
+    }
+    var count = 0
+    i = 0
+    while (i < nulls.length) {
+      nullsBefore(i) = count
+      count += java.lang.Long.bitCount(nulls(i))
+      i += 1
+    }
+  }
+
+  /** Returns the position of the value of the non-null row `rowId` among the non-null values. */
+  private def valueIndex(rowId: Int): Int = if (nullCount == 0) {
+    rowId
+  } else {
+    val word = rowId >>> 6
+    rowId - nullsBefore(word) - java.lang.Long.bitCount(nulls(word) & ((1L << rowId) - 1))
+  }
+
+  private def dictionaryId(rowId: Int): Int = buffer.getShort(dataStart + 2 * valueIndex(rowId))
+
+  override def close(): Unit = if (decompressed != null) decompressed.close()
+
+  override def hasNull: Boolean =
+    if (decompressed != null) decompressed.hasNull else nullCount > 0
+
+  override def numNulls: Int = if (decompressed != null) decompressed.numNulls else nullCount
+
+  override def isNullAt(rowId: Int): Boolean = if (decompressed != null) {
+    decompressed.isNullAt(rowId)
+  } else {
+    nullCount > 0 && (nulls(rowId >>> 6) & (1L << rowId)) != 0
+  }
+
+  private def unsupported(): Nothing = {
+    throw SparkException.internalError(
+      s"Unsupported access to ${getClass.getSimpleName} of type $dataType.")
+  }
+
+  private def decompressedVector: ColumnVector =
+    if (decompressed != null) decompressed else unsupported()
+
+  override def getBoolean(rowId: Int): Boolean = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.get(dataStart + valueIndex(rowId)) != 0
+    case DECOMPRESSED => decompressed.getBoolean(rowId)
+    case _ => unsupported()
+  }
+
+  override def getByte(rowId: Int): Byte = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.get(dataStart + valueIndex(rowId))
+    case DECOMPRESSED => decompressed.getByte(rowId)
+    case _ => unsupported()
+  }
+
+  override def getShort(rowId: Int): Short = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.getShort(dataStart + 2 * valueIndex(rowId))
+    case DECOMPRESSED => decompressed.getShort(rowId)
+    case _ => unsupported()
+  }
+
+  override def getInt(rowId: Int): Int = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.getInt(dataStart + 4 * valueIndex(rowId))
+    case DICTIONARY => intDictionary(dictionaryId(rowId))
+    case FRAME_OF_REFERENCE => frameOfReference.get(valueIndex(rowId)).toInt
+    case DECOMPRESSED => decompressed.getInt(rowId)
+    case _ => unsupported()
+  }
+
+  override def getLong(rowId: Int): Long = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.getLong(dataStart + 8 * valueIndex(rowId))
+    case DICTIONARY => longDictionary(dictionaryId(rowId))
+    case FRAME_OF_REFERENCE => frameOfReference.get(valueIndex(rowId))
+    case DECOMPRESSED => decompressed.getLong(rowId)
+    case _ => unsupported()
+  }
+
+  override def getFloat(rowId: Int): Float = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.getFloat(dataStart + 4 * valueIndex(rowId))
+    case DECOMPRESSED => decompressed.getFloat(rowId)
+    case _ => unsupported()
+  }
+
+  override def getDouble(rowId: Int): Double = (encoding: @switch) match {
+    case PASS_THROUGH => buffer.getDouble(dataStart + 8 * valueIndex(rowId))
+    case DECOMPRESSED => decompressed.getDouble(rowId)
+    case _ => unsupported()
+  }
+
+  override def getArray(rowId: Int): ColumnarArray = decompressedVector.getArray(rowId)
+
+  override def getMap(ordinal: Int): ColumnarMap = decompressedVector.getMap(ordinal)
+
+  override def getDecimal(rowId: Int, precision: Int, scale: Int): Decimal =
+    decompressedVector.getDecimal(rowId, precision, scale)
+
+  override def getUTF8String(rowId: Int): UTF8String = decompressedVector.getUTF8String(rowId)
+
+  override def getBinary(rowId: Int): Array[Byte] = decompressedVector.getBinary(rowId)
+
+  override def getChild(ordinal: Int): ColumnVector = decompressedVector.getChild(ordinal)
+}
+
+private[columnar] object EncodedColumnVector {
+  private final val PASS_THROUGH = 0
+  private final val DICTIONARY = 1
+  private final val FRAME_OF_REFERENCE = 2
+  private final val DECOMPRESSED = 3
+
+  /**
+   * Reads fixed-width values stored uncompressed by [[PassThrough]], starting at `dataStart`.
+   */
+  def passThrough(
+      dataType: DataType,
+      buffer: ByteBuffer,
+      numRows: Int,
+      dataStart: Int): EncodedColumnVector = {
+    new EncodedColumnVector(
+      dataType, PASS_THROUGH, buffer, numRows, dataStart, null, null, null, null)
+  }
+
+  /**
+   * Reads values encoded by [[DictionaryEncoding]]: 2-byte dictionary IDs starting at `idsStart`
+   * that point into a dictionary of ints or longs, only one of which is set.
+   */
+  def dictionary(
+      dataType: DataType,
+      buffer: ByteBuffer,
+      numRows: Int,
+      idsStart: Int,
+      intDictionary: Array[Int],
+      longDictionary: Array[Long]): EncodedColumnVector = {
+    new EncodedColumnVector(
+      dataType, DICTIONARY, buffer, numRows, idsStart, intDictionary, longDictionary, null, null)
+  }
+
+  /**
+   * Reads values encoded by [[BitPackedFrameOfReference]].
+   */
+  def frameOfReference(
+      dataType: DataType,
+      buffer: ByteBuffer,
+      numRows: Int,
+      decoder: BitPackedFrameOfReference.Decoder[_]): EncodedColumnVector = {
+    new EncodedColumnVector(
+      dataType, FRAME_OF_REFERENCE, buffer, numRows, 0, null, null, decoder, null)
+  }
+
+  /**
+   * Wraps a column that had to be decompressed because its encoding cannot be read in place.
+   */
+  def decompressed(vector: ColumnVector): EncodedColumnVector = {
+    new EncodedColumnVector(
+      vector.dataType, DECOMPRESSED, null, 0, 0, null, null, null, vector)
+  }
+}
@@ -28,6 +28,8 @@ import org.apache.spark.sql.catalyst.types.{PhysicalBooleanType, PhysicalByteTyp
 import org.apache.spark.sql.errors.QueryExecutionErrors
 import org.apache.spark.sql.execution.columnar._
 import org.apache.spark.sql.execution.vectorized.WritableColumnVector
+import org.apache.spark.sql.types.DataType
+import org.apache.spark.sql.vectorized.ColumnVector
 
 
 private[columnar] case object PassThrough extends CompressionScheme {
@@ -60,10 +62,22 @@ private[columnar] case object PassThrough extends CompressionScheme {
   class Decoder[T <: PhysicalDataType](buffer: ByteBuffer, columnType: NativeColumnType[T])
     extends compression.Decoder[T] {
 
+    private val dataStart = buffer.position()
+
     override def next(row: InternalRow, ordinal: Int): Unit = {
       columnType.extract(buffer, row, ordinal)
     }
 
+    override def encodedColumnVector(dataType: DataType, numRows: Int): Option[ColumnVector] = {
+      columnType.dataType match {
+        case _: PhysicalBooleanType | _: PhysicalByteType | _: PhysicalShortType |
+             _: PhysicalIntegerType | _: PhysicalLongType | _: PhysicalFloatType |
+             _: PhysicalDoubleType =>
+          Some(EncodedColumnVector.passThrough(dataType, buffer, numRows, dataStart))
+        case _ => None
+      }
+    }
+
     override def hasNext: Boolean = buffer.hasRemaining
 
     private def putBooleans(
@@ -479,10 +493,21 @@ private[columnar] case object DictionaryEncoding extends CompressionScheme {
         }
     }
 
+    private val idsStart = buffer.position()
+
     override def next(row: InternalRow, ordinal: Int): Unit = {
       columnType.setField(row, ordinal, dictionary(buffer.getShort()).asInstanceOf[T#InternalType])
     }
 
+    override def encodedColumnVector(dataType: DataType, numRows: Int): Option[ColumnVector] = {
+      if (intDictionary != null || longDictionary != null) {
+        Some(EncodedColumnVector.dictionary(
+          dataType, buffer, numRows, idsStart, intDictionary, longDictionary))
+      } else {
+        None
+      }
+    }
+
     override def hasNext: Boolean = buffer.hasRemaining
 
     override def decompress(columnVector: WritableColumnVector, capacity: Int): Unit = {
@@ -862,3 +887,164 @@ private[columnar] case object LongDelta extends CompressionScheme {
     }
   }
 }
+
+/**
+ * Frame-of-reference encoding for integral columns: every value is stored as its unsigned
+ * difference from the minimum value of the column, bit-packed with the smallest bit width that
+ * fits the largest difference. Unlike [[IntDelta]] and [[LongDelta]], any value can be read
+ * directly from its position, so the encoded buffer can back a [[ColumnVector]] as is.
+ *
+ * Layout after the scheme ID: minimum value (8 bytes), bit width (4 bytes), value count
+ * (4 bytes), then the differences packed into 8-byte words, starting from the lowest bits.
+ */
+private[columnar] case object BitPackedFrameOfReference extends CompressionScheme {
+  override val typeId = 6
+
+  override def decoder[T <: PhysicalDataType](buffer: ByteBuffer, columnType: NativeColumnType[T])
+    : Decoder[T] = {
+    new this.Decoder(buffer, columnType)
+  }
+
+  override def encoder[T <: PhysicalDataType](columnType: NativeColumnType[T]): Encoder[T] = {
+    new this.Encoder[T](columnType)
+  }
+
+  override def supports(columnType: ColumnType[_]): Boolean = columnType match {
+    case INT | LONG => true
+    case _ => false
+  }
+
+  // Minimum value, bit width and value count.
+  private val HEADER_SIZE = 8 + 4 + 4
+
+  private def bitWidth(maxDelta: Long): Int = 64 - java.lang.Long.numberOfLeadingZeros(maxDelta)
+
+  private def numWords(count: Int, bitWidth: Int): Int = ((count.toLong * bitWidth + 63) / 64).toInt
+
+  class Encoder[T <: PhysicalDataType](columnType: NativeColumnType[T])
+      extends compression.Encoder[T] {
+    private val isInt = columnType.dataType.isInstanceOf[PhysicalIntegerType]
+
+    private var count = 0
+    private var min = Long.MaxValue
+    private var max = Long.MinValue
+
+    override def gatherCompressibilityStats(row: InternalRow, ordinal: Int): Unit = {
+      val value = if (isInt) row.getInt(ordinal).toLong else row.getLong(ordinal)
+      min = math.min(min, value)
+      max = math.max(max, value)
+      count += 1
+    }
+
+    override def uncompressedSize: Int = count * columnType.defaultSize
+
+    override def compressedSize: Int = if (count == 0) {
+      HEADER_SIZE
+    } else {
+      HEADER_SIZE + numWords(count, bitWidth(max - min)) * 8
+    }
+
+    override def compress(from: ByteBuffer, to: ByteBuffer): ByteBuffer = {
+      val frameOfReference = if (count == 0) 0L else min
+      val width = if (count == 0) 0 else bitWidth(max - min)
+      to.putInt(BitPackedFrameOfReference.typeId)
+        .putLong(frameOfReference)
+        .putInt(width)
+        .putInt(count)
+
+      if (width > 0) {
+        var word = 0L
+        var bitPos = 0
+        while (from.hasRemaining) {
+          val value = if (isInt) from.getInt().toLong else from.getLong()
+          val delta = value - frameOfReference
+          word |= delta << bitPos
+          bitPos += width
+          if (bitPos >= 64) {
+            to.putLong(word)
+            bitPos -= 64
+            // The high bits of `delta` that did not fit into the word just written.
+            word = if (bitPos == 0) 0L else delta >>> (width - bitPos)
+          }
+        }
+        if (bitPos > 0) {
+          to.putLong(word)
+        }
+      }
+
+      to.rewind()
+      to
+    }
+  }
+
+  class Decoder[T <: PhysicalDataType](buffer: ByteBuffer, columnType: NativeColumnType[T])
+      extends compression.Decoder[T] {
+    private val isInt = columnType.dataType.isInstanceOf[PhysicalIntegerType]
+
+    private val frameOfReference = ByteBufferHelper.getLong(buffer)
+    private val width = ByteBufferHelper.getInt(buffer)
+    private val count = ByteBufferHelper.getInt(buffer)
+    private val mask = if (width == 64) -1L else (1L << width) - 1
+    private val wordsStart = buffer.position()
+
+    // Values are read by position, so consume the whole body at once.
+    buffer.position(wordsStart + numWords(count, width) * 8)
+
+    private var visited = 0
+
+    /** Returns the value at position `index` among the non-null values. */
+    def get(index: Int): Long = if (width == 0) {
+      frameOfReference
+    } else {
+      val bitOffset = index.toLong * width
+      val wordOffset = wordsStart + (bitOffset >>> 6).toInt * 8
+      val shift = (bitOffset & 63).toInt
+      var delta = buffer.getLong(wordOffset) >>> shift
+      if (shift + width > 64) {
+        delta |= buffer.getLong(wordOffset + 8) << (64 - shift)
+      }
+      frameOfReference + (delta & mask)
+    }
+
+    override def next(row: InternalRow, ordinal: Int): Unit = {
+      if (isInt) {
+        row.setInt(ordinal, get(visited).toInt)
+      } else {
+        row.setLong(ordinal, get(visited))
+      }
+      visited += 1
+    }
+
+    override def hasNext: Boolean = visited < count
+
+    override def decompress(columnVector: WritableColumnVector, capacity: Int): Unit = {
+      val nullsBuffer = buffer.duplicate().order(ByteOrder.nativeOrder())
+      nullsBuffer.rewind()
+      val nullCount = ByteBufferHelper.getInt(nullsBuffer)
+      var nextNullIndex = if (nullCount > 0) ByteBufferHelper.getInt(nullsBuffer) else -1
+      var pos = 0
+      var seenNulls = 0
+
+      while (pos < capacity) {
+        if (pos != nextNullIndex) {
+          if (isInt) {
+            columnVector.putInt(pos, get(pos - seenNulls).toInt)
+          } else {
+            columnVector.putLong(pos, get(pos - seenNulls))
+          }
+        } else {
+          seenNulls += 1
+          if (seenNulls < nullCount) {
+            nextNullIndex = ByteBufferHelper.getInt(nullsBuffer)
+          }
+          columnVector.putNull(pos)
+        }
+        pos += 1
+      }
+    }
+
+    override def encodedColumnVector(dataType: DataType, numRows: Int): Option[ColumnVector] = {
+      Some(EncodedColumnVector.frameOfReference(dataType, buffer, numRows, this))
+    }
+  }
+}
@@ -141,6 +141,7 @@ class OrcFileFormat
     val resultSchema = StructType(requiredSchema.fields ++ partitionSchema.fields)
     val sqlConf = getSqlConf(sparkSession)
     val capacity = sqlConf.orcVectorizedReaderBatchSize
+    val directDecoding = sqlConf.orcVectorizedReaderDirectDecodingEnabled
 
     // Should always be set by FileSourceScanExec creating this.
     // Check conf before checking option, to allow working around an issue by changing conf.
@@ -206,7 +207,7 @@ class OrcFileFormat
         val taskAttemptContext = new TaskAttemptContextImpl(taskConf, attemptId)
 
         if (enableVectorizedReader) {
-          val batchReader = new OrcColumnarBatchReader(capacity, memoryMode)
+          val batchReader = new OrcColumnarBatchReader(capacity, memoryMode, directDecoding)
           // SPARK-23399 Register a task completion listener first to call `close()` in all cases.
           // There is a possibility that `initialize` and `initBatch` hit some errors (like OOM)
           // after opening a file.
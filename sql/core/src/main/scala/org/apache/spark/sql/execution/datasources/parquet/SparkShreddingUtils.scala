@@ -75,7 +75,12 @@ case class SchemaPathSegment(
 
 // Represent a single field in a variant struct (see `VariantMetadata` for definition), that is, a
 // single requested field that the scan should produce by extracting from the variant column.
-case class FieldToExtract(path: Array[SchemaPathSegment], reader: ParquetVariantReader)
+// `compiledPath` is the compiled raw path, which extracts the part of the path that is not in
+// `typed_value` from `value`.
+case class FieldToExtract(
+    path: Array[SchemaPathSegment],
+    compiledPath: CompiledVariantPath,
+    reader: ParquetVariantReader)
 
 // A helper class to cast from scalar `typed_value` into a scalar `dataType`. Need a custom
 // expression because it has different error reporting code than `Cast`.
@@ -747,7 +752,7 @@ case object SparkShreddingUtils {
             Some(metadata.timeZoneId),
             DateTimeUtils.getZoneId(metadata.timeZoneId)),
             isTopLevelUnshredded = schemaPath.isEmpty && inputSchema.isUnshredded)
-          FieldToExtract(schemaPath, reader)
+          FieldToExtract(schemaPath, VariantGet.compilePath(rawPath), reader)
         }
       case _ =>
         throw QueryExecutionErrors.unreachableError(s"Invalid target type: `${targetType.sql}`")
@@ -760,6 +765,7 @@ case object SparkShreddingUtils {
       topLevelMetadata: Array[Byte],
       inputSchema: VariantSchema,
       pathList: Array[SchemaPathSegment],
+      compiledPath: CompiledVariantPath,
       reader: ParquetVariantReader): Any = {
     var pathIdx = 0
     val pathLen = pathList.length
@@ -773,16 +779,8 @@ case object SparkShreddingUtils {
         // path in `value`.
         val variantIdx = schema.variantIdx
         if (variantIdx < 0 || row.isNullAt(variantIdx)) return null
-        var v = new Variant(row.getBinary(variantIdx), topLevelMetadata)
-        while (pathIdx < pathLen) {
-          v = pathList(pathIdx).rawPath match {
-            case ObjectExtraction(key) if v.getType == Type.OBJECT => v.getFieldByKey(key)
-            case ArrayExtraction(index) if v.getType == Type.ARRAY => v.getElementAtIndex(index)
-            case _ => null
-          }
-          if (v == null) return null
-          pathIdx += 1
-        }
+        val v = compiledPath.extract(row.getBinary(variantIdx), topLevelMetadata, pathIdx)
+        if (v == null) return null
         return VariantGet.cast(v, reader.targetType, reader.castArgs)
       }
 
@@ -832,7 +830,7 @@ case object SparkShreddingUtils {
     var fieldIdx = 0
     while (fieldIdx < numFields) {
       resultRow.update(fieldIdx, extractField(inputRow, topLevelMetadata, schema,
-        fields(fieldIdx).path, fields(fieldIdx).reader))
+        fields(fieldIdx).path, fields(fieldIdx).compiledPath, fields(fieldIdx).reader))
       fieldIdx += 1
     }
     resultRow
@@ -64,6 +64,7 @@ case class OrcPartitionReaderFactory(
   private val resultSchema = StructType(readDataSchema.fields ++ partitionSchema.fields)
   private val isCaseSensitive = sqlConf.caseSensitiveAnalysis
   private val capacity = sqlConf.orcVectorizedReaderBatchSize
+  private val directDecoding = sqlConf.orcVectorizedReaderDirectDecodingEnabled
   private val orcFilterPushDown = sqlConf.orcFilterPushDown
 
   override def supportColumnarReads(partition: InputPartition): Boolean = {
@@ -149,7 +150,7 @@ case class OrcPartitionReaderFactory(
       val attemptId = new TaskAttemptID(new TaskID(new JobID(), TaskType.MAP, 0), 0)
       val taskAttemptContext = new TaskAttemptContextImpl(taskConf, attemptId)
 
-      val batchReader = new OrcColumnarBatchReader(capacity, memoryMode)
+      val batchReader = new OrcColumnarBatchReader(capacity, memoryMode, directDecoding)
       batchReader.initialize(fileSplit, taskAttemptContext, readerOptions.getOrcTail)
       val requestedPartitionColIds =
         Array.fill(readDataSchema.length)(-1) ++ Range(0, partitionSchema.length)
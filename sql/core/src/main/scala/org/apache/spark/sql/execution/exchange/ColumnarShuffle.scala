@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.exchange
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream}
+import java.nio.channels.Channels
+
+import scala.jdk.CollectionConverters._
+
+import com.github.luben.zstd.Zstd
+import org.apache.arrow.memory.{ArrowBuf, BufferAllocator}
+import org.apache.arrow.vector.{VectorLoader, VectorSchemaRoot, VectorUnloader}
+import org.apache.arrow.vector.compression.{AbstractCompressionCodec, CompressionCodec, CompressionUtil, NoCompressionCodec}
+import org.apache.arrow.vector.compression.CompressionUtil.CodecType
+import org.apache.arrow.vector.ipc.{ReadChannel, WriteChannel}
+import org.apache.arrow.vector.ipc.message.MessageSerializer
+import org.apache.arrow.vector.types.pojo.Schema
+
+import org.apache.spark.{PartitionIdPassthrough, ShuffleDependency, SparkEnv, SparkException, TaskContext}
+import org.apache.spark.internal.config.IO_COMPRESSION_ZSTD_LEVEL
+import org.apache.spark.rdd.RDD
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{Attribute, CollationAwareMurmur3Hash, Literal, Murmur3HashFunction, Pmod, UnsafeProjection}
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter
+import org.apache.spark.sql.catalyst.plans.physical.{HashPartitioning, Partitioning, SinglePartition}
+import org.apache.spark.sql.catalyst.types.DataTypeUtils
+import org.apache.spark.sql.execution.UnsafeRowSerializer
+import org.apache.spark.sql.execution.arrow.ArrowWriter
+import org.apache.spark.sql.execution.metric.SQLMetric
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.types._
+import org.apache.spark.sql.util.ArrowUtils
+import org.apache.spark.sql.vectorized.{ArrowColumnVector, ColumnarBatch, ColumnVector}
+
+/**
+ * The columnar shuffle of [[ShuffleExchangeExec]], see `spark.sql.execution.columnarShuffle.*`.
+ *
+ * The map tasks buffer the rows of their input batches by shuffle partition in Arrow vectors. The
+ * rows of a partition are written as a serialized Arrow record batch, whose buffers are compressed
+ * one by one, once the partition has `maxRecordsPerBatch` rows, when the buffered rows take more
+ * than `bufferSize` bytes, or at the end of the input. Each batch is the single binary field of an
+ * [[UnsafeRow]], so that the batches go through the same shuffle, partition specs and adaptive
+ * optimizations as rows do. The reduce tasks load the batches into [[ArrowColumnVector]]s.
+ */
+private[exchange] object ColumnarShuffle {
+
+  // The initial number of rows of the vectors of a partition, which grow as rows are buffered.
+  private val INITIAL_CAPACITY = 64
+
+  /** Returns whether a shuffle with `partitioning` of rows of `schema` can be columnar. */
+  def supports(partitioning: Partitioning, schema: StructType): Boolean = {
+    val supportsPartitioning = partitioning match {
+      case _: HashPartitioning | SinglePartition => true
+      case _ => false
+    }
+    supportsPartitioning && schema.nonEmpty && schema.forall(f => supportsDataType(f.dataType))
+  }
+
+  private def supportsDataType(dataType: DataType): Boolean = dataType match {
+    case BooleanType | ByteType | ShortType | IntegerType | LongType | FloatType | DoubleType |
+         _: StringType | BinaryType | _: DecimalType | DateType | TimestampType |
+         TimestampNTZType => true
+    case ArrayType(elementType, _) => supportsDataType(elementType)
+    case MapType(keyType, valueType, _) => supportsDataType(keyType) && supportsDataType(valueType)
+    case StructType(fields) => fields.forall(f => supportsDataType(f.dataType))
+    case _ => false
+  }
+
+  private def arrowSchema(output: Seq[Attribute], timeZoneId: String): Schema = {
+    ArrowUtils.toArrowSchema(DataTypeUtils.fromAttributes(output), timeZoneId,
+      errorOnDuplicatedFieldNames = false, largeVarTypes = false)
+  }
+
+  /**
+   * Returns a [[ShuffleDependency]] that partitions the rows of the batches of `rdd` by
+   * `partitioning` into serialized record batches.
+   */
+  def prepareShuffleDependency(
+      rdd: RDD[ColumnarBatch],
+      output: Seq[Attribute],
+      partitioning: Partitioning,
+      writeMetrics: Map[String, SQLMetric],
+      dataSize: SQLMetric,
+      numRows: SQLMetric,
+      keyStatistics: Option[ShuffleKeyStatistics],
+      conf: SQLConf): ShuffleDependency[Int, InternalRow, InternalRow] = {
+    val timeZoneId = conf.sessionLocalTimeZone
+    val maxRecordsPerBatch = conf.columnarShuffleMaxRecordsPerBatch
+    val bufferSize = conf.columnarShuffleBufferSize
+    val codecType = conf.columnarShuffleCompressionCodec match {
+      case "zstd" => CodecType.ZSTD
+      case _ => CodecType.NO_COMPRESSION
+    }
+    val rddWithPartitionIds = rdd.mapPartitionsInternal { iter =>
+      val getPartitionIds: ColumnarBatch => Array[Int] = partitioning match {
+        case h: HashPartitioning =>
+          val getHashPartitionIds: ColumnarBatch => Array[Int] = columnarHashKeys(h, output) match {
+            case Some((seed, ordinals)) =>
+              val dataTypes = ordinals.map(output(_).dataType)
+              batch => hashPartitionIds(batch, seed, ordinals, dataTypes, h.numPartitions)
+            case None =>
+              val projection = UnsafeProjection.create(h.partitionIdExpression :: Nil, output)
+              batch => {
+                val partitionIds = new Array[Int](batch.numRows())
+                var rowId = 0
+                while (rowId < partitionIds.length) {
+                  partitionIds(rowId) = projection(batch.getRow(rowId)).getInt(0)
+                  rowId += 1
+                }
+                partitionIds
+              }
+          }
+          keyStatistics match {
+            case Some(stats) =>
+              val keyProjection = UnsafeProjection.create(h.expressions, output)
+              batch => {
+                val partitionIds = getHashPartitionIds(batch)
+                var rowId = 0
+                while (rowId < partitionIds.length) {
+                  stats.update(partitionIds(rowId), keyProjection(batch.getRow(rowId)))
+                  rowId += 1
+                }
+                partitionIds
+              }
+            case None =>
+              getHashPartitionIds
+          }
+        case _ => batch => new Array[Int](batch.numRows())
+      }
+      val level = SparkEnv.get.conf.get(IO_COMPRESSION_ZSTD_LEVEL)
+      new BatchPartitioner(iter, arrowSchema(output, timeZoneId), partitioning.numPartitions,
+        getPartitionIds, maxRecordsPerBatch, bufferSize, CodecFactory.createCodec(codecType, level),
+        dataSize, numRows)
+    }
+    new ShuffleDependency[Int, InternalRow, InternalRow](
+      rddWithPartitionIds,
+      new PartitionIdPassthrough(partitioning.numPartitions),
+      new UnsafeRowSerializer(1),
+      shuffleWriterProcessor = ShuffleExchangeExec.createShuffleWriteProcessor(writeMetrics))
+  }
+
+  /**
+   * Returns the seed of the hash of the partition IDs of `partitioning` and the ordinals of its
+   * keys in `output`, if the keys are columns that can be hashed a column at a time.
+   */
+  private def columnarHashKeys(
+      partitioning: HashPartitioning,
+      output: Seq[Attribute]): Option[(Int, Array[Int])] = {
+    partitioning.partitionIdExpression match {
+      case Pmod(hash: CollationAwareMurmur3Hash, Literal(partitioning.numPartitions, _), _) =>
+        val ordinals = hash.children.map {
+          case a: Attribute if Murmur3HashFunction.supportsColumnarHash(a.dataType) =>
+            output.indexWhere(_.exprId == a.exprId)
+          case _ => -1
+        }
+        if (ordinals.forall(_ >= 0)) Some((hash.seed, ordinals.toArray)) else None
+      case _ => None
+    }
+  }
+
+  /**
+   * Returns the partition IDs of the rows of `batch`, as `HashPartitioning.partitionIdExpression`
+   * of its columns at `ordinals` evaluates to, with the keys hashed a column at a time.
+   */
+  private def hashPartitionIds(
+      batch: ColumnarBatch,
+      seed: Int,
+      ordinals: Array[Int],
+      dataTypes: Array[DataType],
+      numPartitions: Int): Array[Int] = {
+    val numRowsInBatch = batch.numRows()
+    val hashes = new Array[Int](numRowsInBatch)
+    java.util.Arrays.fill(hashes, seed)
+    var i = 0
+    while (i < ordinals.length) {
+      Murmur3HashFunction.hashColumn(batch.column(ordinals(i)), dataTypes(i), numRowsInBatch,
+        hashes)
+      i += 1
+    }
+    // The positive modulo of `Pmod`.
+    var rowId = 0
+    while (rowId < numRowsInBatch) {
+      val r = hashes(rowId) % numPartitions
+      hashes(rowId) = if (r < 0) (r + numPartitions) % numPartitions else r
+      rowId += 1
+    }
+    hashes
+  }
+
+  /** Returns the batches of the serialized record batches read by `rdd`. */
+  def readBatches(
+      rdd: RDD[InternalRow],
+      output: Seq[Attribute],
+      conf: SQLConf): RDD[ColumnarBatch] = {
+    val timeZoneId = conf.sessionLocalTimeZone
+    rdd.mapPartitionsInternal { iter =>
+      new BatchReader(iter, arrowSchema(output, timeZoneId))
+    }
+  }
+
+  /**
+   * Partitions the rows of `input` into serialized record batches, returned with their partition
+   * IDs.
+   */
+  private class BatchPartitioner(
+      input: Iterator[ColumnarBatch],
+      schema: Schema,
+      numPartitions: Int,
+      getPartitionIds: ColumnarBatch => Array[Int],
+      maxRecordsPerBatch: Int,
+      bufferSize: Long,
+      codec: CompressionCodec,
+      dataSize: SQLMetric,
+      numRows: SQLMetric) extends Iterator[Product2[Int, InternalRow]] {
+
+    private val allocator =
+      ArrowUtils.rootAllocator.newChildAllocator("columnarShuffleWriter", 0, Long.MaxValue)
+    // The writers of the partitions with buffered rows, created on demand.
+    private val writers = new Array[ArrowWriter](numPartitions)
+    private val numBufferedRows = new Array[Int](numPartitions)
+    private val batches = new java.util.ArrayDeque[(Int, InternalRow)]
+    private var finished = false
+
+    TaskContext.get().addTaskCompletionListener[Unit] { _ =>
+      writers.foreach(w => if (w != null) w.root.close())
+      allocator.close()
+    }
+
+    override def hasNext: Boolean = {
+      while (batches.isEmpty && !finished) {
+        if (input.hasNext) {
+          partition(input.next())
+        } else {
+          writers.indices.foreach(i => if (writers(i) != null) flush(i))
+          finished = true
+        }
+      }
+      !batches.isEmpty
+    }
+
+    override def next(): Product2[Int, InternalRow] = {
+      if (!hasNext) {
+        throw new NoSuchElementException
+      }
+      batches.poll()
+    }
+
+    private def partition(batch: ColumnarBatch): Unit = {
+      val numRowsInBatch = batch.numRows()
+      val partitionIds = getPartitionIds(batch)
+      var rowId = 0
+      while (rowId < numRowsInBatch) {
+        val row = batch.getRow(rowId)
+        val partitionId = partitionIds(rowId)
+        var writer = writers(partitionId)
+        if (writer == null) {
+          val root = VectorSchemaRoot.create(schema, allocator)
+          root.getFieldVectors.asScala.foreach(_.setInitialCapacity(INITIAL_CAPACITY))
+          writer = ArrowWriter.create(root)
+          writers(partitionId) = writer
+        }
+        writer.write(row)
+        numBufferedRows(partitionId) += 1
+        if (numBufferedRows(partitionId) >= maxRecordsPerBatch) {
+          flush(partitionId)
+        }
+        rowId += 1
+      }
+      numRows += numRowsInBatch
+      while (allocator.getAllocatedMemory > bufferSize && numBufferedRows.exists(_ > 0)) {
+        flush(numBufferedRows.indices.maxBy(numBufferedRows))
+      }
+    }
+
+    // Serializes the buffered rows of a partition, and frees their vectors.
+    private def flush(partitionId: Int): Unit = {
+      val writer = writers(partitionId)
+      writers(partitionId) = null
+      numBufferedRows(partitionId) = 0
+      try {
+        dataSize += writer.sizeInBytes()
+        writer.finish()
+        val out = new ByteArrayOutputStream()
+        val recordBatch = new VectorUnloader(writer.root, true, codec, true).getRecordBatch
+        try {
+          MessageSerializer.serialize(new WriteChannel(Channels.newChannel(out)), recordBatch)
+        } finally {
+          recordBatch.close()
+        }
+        val bytes = out.toByteArray
+        val rowWriter = new UnsafeRowWriter(1, bytes.length)
+        rowWriter.resetRowWriter()
+        rowWriter.write(0, bytes)
+        batches.add((partitionId, rowWriter.getRow))
+      } finally {
+        writer.root.close()
+      }
+    }
+  }
+
+  /**
+   * Loads the serialized record batches of `input` into columnar batches, one at a time. Like
+   * other batches of Arrow vectors, each batch is closed by its consumer, so that the vectors of
+   * a batch are only valid until the next batch is returned.
+   */
+  private class BatchReader(input: Iterator[InternalRow], schema: Schema)
+    extends Iterator[ColumnarBatch] {
+
+    private val allocator =
+      ArrowUtils.rootAllocator.newChildAllocator("columnarShuffleReader", 0, Long.MaxValue)
+    private var root: VectorSchemaRoot = _
+
+    TaskContext.get().addTaskCompletionListener[Unit] { _ =>
+      if (root != null) root.close()
+      allocator.close()
+    }
+
+    override def hasNext: Boolean = input.hasNext
+
+    override def next(): ColumnarBatch = {
+      val in = Channels.newChannel(new ByteArrayInputStream(input.next().getBinary(0)))
+      val recordBatch = MessageSerializer.deserializeRecordBatch(new ReadChannel(in), allocator)
+      if (root != null) root.close()
+      root = VectorSchemaRoot.create(schema, allocator)
+      try {
+        new VectorLoader(root, CodecFactory).load(recordBatch)
+      } finally {
+        recordBatch.close()
+      }
+      val columns = root.getFieldVectors.asScala.map { vector =>
+        new ArrowColumnVector(vector).asInstanceOf[ColumnVector]
+      }
+      val batch = new ColumnarBatch(columns.toArray)
+      batch.setNumRows(root.getRowCount)
+      batch
+    }
+  }
+
+  /** Creates the codecs of the record batches. */
+  private object CodecFactory extends CompressionCodec.Factory {
+    override def createCodec(codecType: CodecType): CompressionCodec = {
+      createCodec(codecType, Zstd.defaultCompressionLevel())
+    }
+
+    override def createCodec(codecType: CodecType, level: Int): CompressionCodec = {
+      codecType match {
+        case CodecType.NO_COMPRESSION => NoCompressionCodec.INSTANCE
+        case CodecType.ZSTD => new ZstdCodec(level)
+        case _ => throw SparkException.internalError(s"Unsupported Arrow codec: $codecType")
+      }
+    }
+  }
+
+  /**
+   * Compresses Arrow buffers with zstd, in the format of the ZSTD codec of the Arrow IPC format:
+   * the uncompressed length followed by a zstd frame. Buffers that do not shrink are left
+   * uncompressed by [[AbstractCompressionCodec]].
+   */
+  private class ZstdCodec(level: Int) extends AbstractCompressionCodec {
+    override def getCodecType: CodecType = CodecType.ZSTD
+
+    override protected def doCompress(
+        allocator: BufferAllocator,
+        uncompressedBuffer: ArrowBuf): ArrowBuf = {
+      val maxSize = Zstd.compressBound(uncompressedBuffer.writerIndex())
+      val compressedBuffer =
+        allocator.buffer(CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH + maxSize)
+      val compressedSize = Zstd.compressUnsafe(
+        compressedBuffer.memoryAddress() + CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH, maxSize,
+        uncompressedBuffer.memoryAddress(), uncompressedBuffer.writerIndex(), level)
+      if (Zstd.isError(compressedSize)) {
+        compressedBuffer.close()
+        throw SparkException.internalError(
+          s"Error compressing an Arrow buffer: ${Zstd.getErrorName(compressedSize)}")
+      }
+      compressedBuffer.writerIndex(CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH + compressedSize)
+      compressedBuffer
+    }
+
+    override protected def doDecompress(
+        allocator: BufferAllocator,
+        compressedBuffer: ArrowBuf): ArrowBuf = {
+      val uncompressedLength = readUncompressedLength(compressedBuffer)
+      val uncompressedBuffer = allocator.buffer(uncompressedLength)
+      val uncompressedSize = Zstd.decompressUnsafe(
+        uncompressedBuffer.memoryAddress(), uncompressedLength,
+        compressedBuffer.memoryAddress() + CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH,
+        compressedBuffer.writerIndex() - CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH)
+      if (Zstd.isError(uncompressedSize) || uncompressedSize != uncompressedLength) {
+        uncompressedBuffer.close()
+        throw SparkException.internalError(
+          s"Error decompressing an Arrow buffer of $uncompressedLength bytes")
+      }
+      uncompressedBuffer.writerIndex(uncompressedLength)
+      uncompressedBuffer
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.function.Supplier
 
 import scala.collection.mutable
 import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.jdk.CollectionConverters._
 
 import org.apache.spark._
 import org.apache.spark.internal.config
@@ -30,7 +31,7 @@ import org.apache.spark.serializer.Serializer
 import org.apache.spark.shuffle.{ShuffleWriteMetricsReporter, ShuffleWriteProcessor}
 import org.apache.spark.shuffle.sort.SortShuffleManager
 import org.apache.spark.sql.catalyst.InternalRow
-import org.apache.spark.sql.catalyst.expressions.{Attribute, BoundReference, UnsafeProjection, UnsafeRow, UnsafeRowChecksum}
+import org.apache.spark.sql.catalyst.expressions.{Attribute, AttributeMap, BoundReference, CompactUnsafeRowFormat, UnsafeProjection, UnsafeRow, UnsafeRowChecksum}
 import org.apache.spark.sql.catalyst.expressions.BindReferences.bindReferences
 import org.apache.spark.sql.catalyst.expressions.codegen.LazilyGeneratedOrdering
 import org.apache.spark.sql.catalyst.plans.logical.Statistics
@@ -39,6 +40,7 @@ import org.apache.spark.sql.catalyst.types.DataTypeUtils
 import org.apache.spark.sql.execution._
 import org.apache.spark.sql.execution.metric.{SQLMetric, SQLMetrics, SQLShuffleReadMetricsReporter, SQLShuffleWriteMetricsReporter}
 import org.apache.spark.sql.internal.{SQLConf, StaticSQLConf}
+import org.apache.spark.sql.vectorized.ColumnarBatch
 import org.apache.spark.util.{MutablePair, ThreadUtils}
 import org.apache.spark.util.collection.unsafe.sort.{PrefixComparators, RecordComparator}
 import org.apache.spark.util.random.XORShiftRandom
@@ -143,6 +145,11 @@ trait ShuffleExchangeLike extends Exchange {
    */
   def runtimeStatistics: Statistics
 
+  /**
+   * Returns the statistics of the partitioning keys collected by the map tasks, if any.
+   */
+  def keyStatistics: Option[ShuffleKeyStatistics] = None
+
   /**
    * The shuffle ID.
    */
@@ -199,19 +206,59 @@ case class ShuffleExchangeExec(
   override lazy val metrics = Map(
     "dataSize" -> SQLMetrics.createSizeMetric(sparkContext, "data size"),
     "numPartitions" -> SQLMetrics.createMetric(sparkContext, "number of partitions")
-  ) ++ readMetrics ++ writeMetrics
+  ) ++ readMetrics ++ writeMetrics ++ (if (supportsColumnar) {
+    // The records written by a columnar shuffle are batches of rows.
+    Map("numRows" -> SQLMetrics.createMetric(sparkContext, "number of rows"))
+  } else if (compactFormat != null) {
+    Map("compactDataSize" -> SQLMetrics.createSizeMetric(sparkContext, "compact data size"))
+  } else {
+    Map.empty
+  })
 
   override def nodeName: String = "Exchange"
 
-  private lazy val serializer: Serializer =
-    new UnsafeRowSerializer(child.output.size, longMetric("dataSize"))
+  /**
+   * Whether the batches of a columnar child are shuffled as Arrow record batches, which are read
+   * as batches, see [[ColumnarShuffle]]. The rows of a row-based child are shuffled as rows.
+   */
+  override lazy val supportsColumnar: Boolean = conf.columnarShuffleEnabled &&
+    child.supportsColumnar && ColumnarShuffle.supports(outputPartitioning, schema)
+
+  /**
+   * The rows of schemas whose fields are all of fixed-width types are shuffled in a compact format
+   * when enabled, see [[CompactUnsafeRowFormat]].
+   */
+  private lazy val compactFormat: CompactUnsafeRowFormat = {
+    if (!supportsColumnar && conf.compactRowShuffleEnabled &&
+        CompactUnsafeRowFormat.isSupported(schema)) {
+      CompactUnsafeRowFormat.create(schema)
+    } else {
+      null
+    }
+  }
+
+  private lazy val serializer: Serializer = {
+    if (compactFormat != null) {
+      new UnsafeRowSerializer(child.output.size, longMetric("dataSize"), compactFormat,
+        longMetric("compactDataSize"))
+    } else {
+      new UnsafeRowSerializer(child.output.size, longMetric("dataSize"))
+    }
+  }
 
   @transient lazy val inputRDD: RDD[InternalRow] = child.execute()
 
+  @transient lazy val inputColumnarRDD: RDD[ColumnarBatch] = child.executeColumnar()
+
   // 'mapOutputStatisticsFuture' is only needed when enable AQE.
   @transient
   override lazy val mapOutputStatisticsFuture: Future[MapOutputStatistics] = {
-    if (inputRDD.getNumPartitions == 0) {
+    val numInputPartitions = if (supportsColumnar) {
+      inputColumnarRDD.getNumPartitions
+    } else {
+      inputRDD.getNumPartitions
+    }
+    if (numInputPartitions == 0) {
       Future.successful(null)
     } else {
       sparkContext.submitMapStage(shuffleDependency)
@@ -222,14 +269,30 @@ case class ShuffleExchangeExec(
 
   override def numPartitions: Int = shuffleDependency.partitioner.numPartitions
 
-  override def getShuffleRDD(partitionSpecs: Array[ShufflePartitionSpec]): RDD[InternalRow] = {
-    new ShuffledRowRDD(shuffleDependency, readMetrics, partitionSpecs)
+  override def getShuffleRDD(partitionSpecs: Array[ShufflePartitionSpec]): RDD[_] = {
+    val rdd = new ShuffledRowRDD(shuffleDependency, readMetrics, partitionSpecs)
+    if (supportsColumnar) ColumnarShuffle.readBatches(rdd, output, conf) else rdd
   }
 
   override def runtimeStatistics: Statistics = {
     val dataSize = metrics("dataSize").value
-    val rowCount = metrics(SQLShuffleWriteMetricsReporter.SHUFFLE_RECORDS_WRITTEN).value
-    Statistics(dataSize, Some(rowCount))
+    val rowCount = if (supportsColumnar) {
+      metrics("numRows").value
+    } else {
+      metrics(SQLShuffleWriteMetricsReporter.SHUFFLE_RECORDS_WRITTEN).value
+    }
+    val attributeStats = keyStatistics.map(_.attributeStats).getOrElse(AttributeMap.empty)
+    Statistics(dataSize, Some(rowCount), attributeStats)
+  }
+
+  @transient
+  override lazy val keyStatistics: Option[ShuffleKeyStatistics] = outputPartitioning match {
+    case HashPartitioning(expressions, n) if conf.adaptiveExecutionEnabled &&
+        conf.adaptiveShuffleKeyStatisticsEnabled =>
+      val stats = new ShuffleKeyStatistics(expressions, n)
+      sparkContext.register(stats)
+      Some(stats)
+    case _ => None
   }
 
   override def shuffleId: Int = shuffleDependency.shuffleId
@@ -241,12 +304,25 @@ case class ShuffleExchangeExec(
    */
   @transient
   lazy val shuffleDependency : ShuffleDependency[Int, InternalRow, InternalRow] = {
-    val dep = ShuffleExchangeExec.prepareShuffleDependency(
-      inputRDD,
-      child.output,
-      outputPartitioning,
-      serializer,
-      writeMetrics)
+    val dep = if (supportsColumnar) {
+      ColumnarShuffle.prepareShuffleDependency(
+        inputColumnarRDD,
+        child.output,
+        outputPartitioning,
+        writeMetrics,
+        longMetric("dataSize"),
+        longMetric("numRows"),
+        keyStatistics,
+        conf)
+    } else {
+      ShuffleExchangeExec.prepareShuffleDependency(
+        inputRDD,
+        child.output,
+        outputPartitioning,
+        serializer,
+        writeMetrics,
+        keyStatistics)
+    }
     metrics("numPartitions").set(dep.partitioner.numPartitions)
     val executionId = sparkContext.getLocalProperty(SQLExecution.EXECUTION_ID_KEY)
     SQLMetrics.postDriverMetricUpdates(
@@ -255,9 +331,20 @@ case class ShuffleExchangeExec(
   }
 
   protected override def doExecute(): RDD[InternalRow] = {
-    // The ShuffleRowRDD will be cached in SparkPlan.executeRDD and reused if this plan is used by
-    // multiple plans.
-    new ShuffledRowRDD(shuffleDependency, readMetrics)
+    if (supportsColumnar) {
+      executeColumnar().mapPartitionsInternal { batches =>
+        val toUnsafe = UnsafeProjection.create(output, output)
+        batches.flatMap(_.rowIterator().asScala).map(toUnsafe)
+      }
+    } else {
+      // The ShuffleRowRDD will be cached in SparkPlan.executeRDD and reused if this plan is used
+      // by multiple plans.
+      new ShuffledRowRDD(shuffleDependency, readMetrics)
+    }
+  }
+
+  protected override def doExecuteColumnar(): RDD[ColumnarBatch] = {
+    ColumnarShuffle.readBatches(new ShuffledRowRDD(shuffleDependency, readMetrics), output, conf)
   }
 
   override protected def withNewChildInternal(newChild: SparkPlan): ShuffleExchangeExec =
@@ -336,7 +423,8 @@ object ShuffleExchangeExec {
       outputAttributes: Seq[Attribute],
       newPartitioning: Partitioning,
       serializer: Serializer,
-      writeMetrics: Map[String, SQLMetric])
+      writeMetrics: Map[String, SQLMetric],
+      keyStatistics: Option[ShuffleKeyStatistics] = None)
     : ShuffleDependency[Int, InternalRow, InternalRow] = {
     val part: Partitioner = newPartitioning match {
       case RoundRobinPartitioning(numPartitions) => new HashPartitioner(numPartitions)
@@ -396,7 +484,17 @@ object ShuffleExchangeExec {
         }
       case h: HashPartitioning =>
         val projection = UnsafeProjection.create(h.partitionIdExpression :: Nil, outputAttributes)
-        row => projection(row).getInt(0)
+        keyStatistics match {
+          case Some(stats) =>
+            val keyProjection = UnsafeProjection.create(h.expressions, outputAttributes)
+            row => {
+              val partitionId = projection(row).getInt(0)
+              stats.update(partitionId, keyProjection(row))
+              partitionId
+            }
+          case None =>
+            row => projection(row).getInt(0)
+        }
       case RangePartitioning(sortingExpressions, _) =>
         val projection = UnsafeProjection.create(sortingExpressions.map(_.child), outputAttributes)
         row => projection(row)
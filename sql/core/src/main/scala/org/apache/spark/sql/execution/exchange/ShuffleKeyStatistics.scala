@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.exchange
+
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{Attribute, AttributeMap, Expression, SpecificInternalRow}
+import org.apache.spark.sql.catalyst.plans.logical.ColumnStat
+import org.apache.spark.sql.catalyst.util.HyperLogLogPlusPlusHelper
+import org.apache.spark.sql.types.LongType
+import org.apache.spark.util.AccumulatorV2
+
+/**
+ * Statistics of the rows that the map tasks of a hash partitioned shuffle write: the number of
+ * rows of each shuffle partition, and the approximate number of distinct values and the number of
+ * nulls of each partitioning key. Each map task updates its copy of the accumulator with the
+ * partition ID and the keys of its rows, and the driver merges the copies of the successful tasks
+ * before the shuffle map stage completes.
+ *
+ * The statistics are approximate: the rows of retried stages may be counted more than once.
+ */
+class ShuffleKeyStatistics(val keys: Seq[Expression], numPartitions: Int)
+  extends AccumulatorV2[(Int, InternalRow), ShuffleKeyStatistics.Summary] {
+
+  import ShuffleKeyStatistics._
+
+  @transient private lazy val hllppHelper = new HyperLogLogPlusPlusHelper(RELATIVE_SD)
+  @transient private lazy val keyTypes = keys.map(_.dataType).toArray
+
+  // Allocated by the first update, so that empty copies are cheap to serialize.
+  private var recordsByPartitionId: Array[Long] = _
+  private var nullCounts: Array[Long] = _
+  // The HyperLogLog++ registers of the keys, `hllppHelper.numWords` words per key.
+  private var registers: InternalRow = _
+
+  private def init(): Unit = {
+    recordsByPartitionId = new Array[Long](numPartitions)
+    nullCounts = new Array[Long](keys.length)
+    registers = new SpecificInternalRow(Seq.fill(keys.length * hllppHelper.numWords)(LongType))
+  }
+
+  override def isZero: Boolean = recordsByPartitionId == null
+
+  override def copy(): ShuffleKeyStatistics = {
+    val newAcc = new ShuffleKeyStatistics(keys, numPartitions)
+    newAcc.merge(this)
+    newAcc
+  }
+
+  override def reset(): Unit = {
+    recordsByPartitionId = null
+    nullCounts = null
+    registers = null
+  }
+
+  override def add(v: (Int, InternalRow)): Unit = update(v._1, v._2)
+
+  /** Counts a row written to partition `partitionId`, whose partitioning keys are `keyRow`. */
+  def update(partitionId: Int, keyRow: InternalRow): Unit = {
+    if (recordsByPartitionId == null) {
+      init()
+    }
+    recordsByPartitionId(partitionId) += 1
+    var i = 0
+    while (i < nullCounts.length) {
+      if (keyRow.isNullAt(i)) {
+        nullCounts(i) += 1
+      } else {
+        val dataType = keyTypes(i)
+        hllppHelper.update(registers, i * hllppHelper.numWords, keyRow.get(i, dataType), dataType)
+      }
+      i += 1
+    }
+  }
+
+  override def merge(other: AccumulatorV2[(Int, InternalRow), Summary]): Unit = other match {
+    case o: ShuffleKeyStatistics =>
+      if (!o.isZero) {
+        if (recordsByPartitionId == null) {
+          init()
+        }
+        var i = 0
+        while (i < numPartitions) {
+          recordsByPartitionId(i) += o.recordsByPartitionId(i)
+          i += 1
+        }
+        i = 0
+        while (i < nullCounts.length) {
+          nullCounts(i) += o.nullCounts(i)
+          val offset = i * hllppHelper.numWords
+          hllppHelper.merge(registers, o.registers, offset, offset)
+          i += 1
+        }
+      }
+    case _ =>
+      throw new UnsupportedOperationException(
+        s"Cannot merge ${this.getClass.getName} with ${other.getClass.getName}")
+  }
+
+  override def value: Summary = {
+    if (isZero) {
+      Summary(new Array[Long](numPartitions), Array.fill(keys.length)(0L),
+        Array.fill(keys.length)(0L))
+    } else {
+      val distinctCounts = Array.tabulate(keys.length) { i =>
+        hllppHelper.query(registers, i * hllppHelper.numWords)
+      }
+      Summary(recordsByPartitionId.clone(), distinctCounts, nullCounts.clone())
+    }
+  }
+
+  /**
+   * Returns the column statistics of the keys that are attributes, with their distinct and null
+   * counts.
+   */
+  def attributeStats: AttributeMap[ColumnStat] = {
+    val summary = value
+    val numRows = summary.recordsByPartitionId.sum
+    AttributeMap(keys.zipWithIndex.collect { case (a: Attribute, i) =>
+      // The estimated distinct count may exceed the number of non-null values.
+      val distinctCount = math.min(summary.distinctCounts(i), numRows - summary.nullCounts(i))
+      a -> ColumnStat(
+        distinctCount = Some(BigInt(distinctCount)),
+        nullCount = Some(BigInt(summary.nullCounts(i))))
+    })
+  }
+}
+
+object ShuffleKeyStatistics {
+
+  /** The relative standard deviation of the distinct counts, as in `approx_count_distinct`. */
+  val RELATIVE_SD = 0.05
+
+  /**
+   * The number of rows of each shuffle partition, and the approximate number of distinct values
+   * and the number of nulls of each partitioning key.
+   */
+  case class Summary(
+      recordsByPartitionId: Array[Long],
+      distinctCounts: Array[Long],
+      nullCounts: Array[Long])
+}
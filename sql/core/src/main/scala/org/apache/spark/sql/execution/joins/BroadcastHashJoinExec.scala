@@ -123,10 +123,11 @@ case class BroadcastHashJoinExec(
   protected override def doExecute(): RDD[InternalRow] = {
     val numOutputRows = longMetric("numOutputRows")
 
-    val broadcastRelation = buildPlan.executeBroadcast[HashedRelation]()
+    val broadcastRelation =
+      SharedBroadcastRelation(buildPlan, buildPlan.executeBroadcast[HashedRelation]())
     if (isNullAwareAntiJoin) {
       streamedPlan.execute().mapPartitionsInternal { streamedIter =>
-        val hashed = broadcastRelation.value.asReadOnlyCopy()
+        val hashed = broadcastRelation.acquire()
         TaskContext.get().taskMetrics().incPeakExecutionMemory(hashed.estimatedSize)
         if (hashed == EmptyHashedRelation) {
           streamedIter
@@ -150,13 +151,20 @@ case class BroadcastHashJoinExec(
       }
     } else {
       streamedPlan.execute().mapPartitions { streamedIter =>
-        val hashed = broadcastRelation.value.asReadOnlyCopy()
+        val hashed = broadcastRelation.acquire()
         TaskContext.get().taskMetrics().incPeakExecutionMemory(hashed.estimatedSize)
         join(streamedIter, hashed, numOutputRows)
       }
     }
   }
 
+  // Inner joins on a radix partitioned relation look up the streamed rows in batches, which is
+  // not code generated, so they are only interpreted if the build side is estimated to take more
+  // than one partition. Otherwise the generated code looks up each row in its partition.
+  override def supportCodegen: Boolean =
+    !(joinType.isInstanceOf[InnerLike] && conf.radixPartitionedHashJoinEnabled &&
+      estimatedBuildSize.exists(_ > conf.radixPartitionedHashJoinPartitionSize))
+
   override def inputRDDs(): Seq[RDD[InternalRow]] = {
     streamedPlan.asInstanceOf[CodegenSupport].inputRDDs()
   }
@@ -184,13 +192,14 @@ case class BroadcastHashJoinExec(
   private def prepareBroadcast(ctx: CodegenContext): (Broadcast[HashedRelation], String) = {
     // create a name for HashedRelation
     val broadcastRelation = buildPlan.executeBroadcast[HashedRelation]()
-    val broadcast = ctx.addReferenceObj("broadcast", broadcastRelation)
+    val broadcast = ctx.addReferenceObj("broadcast",
+      SharedBroadcastRelation(buildPlan, broadcastRelation))
     val clsName = broadcastRelation.value.getClass.getName
 
     // Inline mutable state since not many join operations in a task
     val relationTerm = ctx.addMutableState(clsName, "relation",
       v => s"""
-         | $v = (($clsName) $broadcast.value()).asReadOnlyCopy();
+         | $v = (($clsName) $broadcast.acquire());
          | incPeakExecutionMemory($v.estimatedSize());
        """.stripMargin, forceInline = true)
     (broadcastRelation, relationTerm)
@@ -27,6 +27,7 @@ import org.apache.spark.sql.catalyst.plans._
 import org.apache.spark.sql.catalyst.plans.physical.Partitioning
 import org.apache.spark.sql.errors.QueryExecutionErrors
 import org.apache.spark.sql.execution.{CodegenSupport, ExplainUtils, RowIterator}
+import org.apache.spark.sql.execution.adaptive.{AQEShuffleReadExec, QueryStageExec}
 import org.apache.spark.sql.execution.metric.SQLMetric
 import org.apache.spark.sql.types.{BooleanType, DataType, IntegralType, LongType}
 
@@ -148,6 +149,21 @@ trait HashJoin extends JoinCodegenSupport {
     (r: InternalRow) => true
   }
 
+  /**
+   * Returns the estimated size in bytes of the build side: the runtime statistics of a
+   * materialized query stage, or else the statistics of the logical plan.
+   */
+  protected def estimatedBuildSize: Option[BigInt] = {
+    val stage = buildPlan match {
+      case stage: QueryStageExec => Some(stage)
+      case AQEShuffleReadExec(stage: QueryStageExec, _) => Some(stage)
+      case _ => None
+    }
+    stage.flatMap(_.computeStats())
+      .orElse(buildPlan.logicalLink.map(_.stats))
+      .map(_.sizeInBytes)
+  }
+
   protected def createResultProjection(): (InternalRow) => InternalRow = joinType match {
     case LeftExistence(_) =>
       UnsafeProjection.create(output, output)
@@ -166,6 +182,17 @@ trait HashJoin extends JoinCodegenSupport {
 
     if (hashedRelation == EmptyHashedRelation) {
       Iterator.empty
+    } else if (hashedRelation.isInstanceOf[RadixPartitionedHashedRelation]) {
+      hashedRelation.asInstanceOf[RadixPartitionedHashedRelation].probeInBatches(
+        streamIter, joinKeys, RadixPartitionedHashedRelation.PROBE_BATCH_SIZE).flatMap {
+        case (srow, matches) =>
+          joinRow.withLeft(srow)
+          if (matches != null) {
+            matches.map(joinRow.withRight).filter(boundCondition)
+          } else {
+            Iterator.empty
+          }
+      }
     } else if (hashedRelation.keyIsUnique) {
       streamIter.flatMap { srow =>
         joinRow.withLeft(srow)
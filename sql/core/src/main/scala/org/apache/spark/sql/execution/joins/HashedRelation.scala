@@ -29,8 +29,10 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions._
 import org.apache.spark.sql.catalyst.plans.physical.BroadcastMode
 import org.apache.spark.sql.errors.QueryExecutionErrors
+import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.types.LongType
 import org.apache.spark.unsafe.Platform
+import org.apache.spark.unsafe.hash.{Murmur3_x86_32, WyHash}
 import org.apache.spark.unsafe.map.BytesToBytesMap
 import org.apache.spark.util.{KnownSizeEstimation, Utils}
 
@@ -139,15 +141,7 @@ private[execution] object HashedRelation {
       isNullAware: Boolean = false,
       allowsNullKey: Boolean = false,
       ignoresDuplicatedKey: Boolean = false): HashedRelation = {
-    val mm = Option(taskMemoryManager).getOrElse {
-      new TaskMemoryManager(
-        new UnifiedMemoryManager(
-          new SparkConf().set(MEMORY_OFFHEAP_ENABLED.key, "false"),
-          Long.MaxValue,
-          Long.MaxValue / 2,
-          1),
-        0)
-    }
+    val mm = Option(taskMemoryManager).getOrElse(unlimitedTaskMemoryManager())
 
     if (!input.hasNext && !allowsNullKey) {
       EmptyHashedRelation
@@ -159,6 +153,16 @@ private[execution] object HashedRelation {
         ignoresDuplicatedKey)
     }
   }
+
+  private[joins] def unlimitedTaskMemoryManager(): TaskMemoryManager = {
+    new TaskMemoryManager(
+      new UnifiedMemoryManager(
+        new SparkConf().set(MEMORY_OFFHEAP_ENABLED.key, "false"),
+        Long.MaxValue,
+        Long.MaxValue / 2,
+        1),
+      0)
+  }
 }
 
 /**
@@ -198,24 +202,34 @@ private[execution] class ValueRowWithKeyIndex {
 }
 
 /**
- * A HashedRelation for UnsafeRow, which is backed BytesToBytesMap.
+ * A HashedRelation for UnsafeRow, which is backed BytesToBytesMap. The keys are hashed in the map
+ * with wyhash if `wyHashKeys` is true, or with Murmur3 otherwise, see
+ * [[UnsafeHashedRelation.keyHash]].
  *
  * It's serialized in the following format:
- *  [number of keys] [number of fields]
+ *  [number of keys] [number of fields] [1 if the keys are hashed with wyhash, 0 otherwise]
  *  [size of key] [size of value] [key bytes] [bytes for value]
  */
 private[joins] class UnsafeHashedRelation(
     private var numKeys: Int,
     private var numFields: Int,
-    private var binaryMap: BytesToBytesMap)
+    private var binaryMap: BytesToBytesMap,
+    private var wyHashKeys: Boolean)
   extends HashedRelation with Externalizable with KryoSerializable {
 
+  private[joins] def this(numKeys: Int, numFields: Int, binaryMap: BytesToBytesMap) =
+    this(numKeys, numFields, binaryMap, false)
+
   private[joins] def this() = this(0, 0, null)  // Needed for serialization
 
   override def keyIsUnique: Boolean = binaryMap.numKeys() == binaryMap.numValues()
 
   override def asReadOnlyCopy(): UnsafeHashedRelation = {
-    new UnsafeHashedRelation(numKeys, numFields, binaryMap)
+    new UnsafeHashedRelation(numKeys, numFields, binaryMap, wyHashKeys)
+  }
+
+  private def keyHash(key: UnsafeRow): Int = {
+    if (wyHashKeys) key.wyHashCode() else key.hashCode()
   }
 
   override def estimatedSize: Long = binaryMap.getTotalMemoryConsumption
@@ -231,7 +245,7 @@ private[joins] class UnsafeHashedRelation(
     val map = binaryMap  // avoid the compiler error
     val loc = new map.Location  // this could be allocated in stack
     binaryMap.safeLookup(unsafeKey.getBaseObject, unsafeKey.getBaseOffset,
-      unsafeKey.getSizeInBytes, loc, unsafeKey.hashCode())
+      unsafeKey.getSizeInBytes, loc, keyHash(unsafeKey))
     if (loc.isDefined) {
       new Iterator[UnsafeRow] {
         private var _hasNext = true
@@ -252,7 +266,7 @@ private[joins] class UnsafeHashedRelation(
     val map = binaryMap  // avoid the compiler error
     val loc = new map.Location  // this could be allocated in stack
     binaryMap.safeLookup(unsafeKey.getBaseObject, unsafeKey.getBaseOffset,
-      unsafeKey.getSizeInBytes, loc, unsafeKey.hashCode())
+      unsafeKey.getSizeInBytes, loc, keyHash(unsafeKey))
     if (loc.isDefined) {
       resultRow.pointTo(loc.getValueBase, loc.getValueOffset, loc.getValueLength)
       resultRow
@@ -266,7 +280,7 @@ private[joins] class UnsafeHashedRelation(
     val map = binaryMap  // avoid the compiler error
     val loc = new map.Location  // this could be allocated in stack
     binaryMap.safeLookup(unsafeKey.getBaseObject, unsafeKey.getBaseOffset,
-      unsafeKey.getSizeInBytes, loc, unsafeKey.hashCode())
+      unsafeKey.getSizeInBytes, loc, keyHash(unsafeKey))
     if (loc.isDefined) {
       valueRowWithKeyIndex.withNewKeyIndex(loc.getKeyIndex)
       new Iterator[ValueRowWithKeyIndex] {
@@ -288,7 +302,7 @@ private[joins] class UnsafeHashedRelation(
     val map = binaryMap  // avoid the compiler error
     val loc = new map.Location  // this could be allocated in stack
     binaryMap.safeLookup(unsafeKey.getBaseObject, unsafeKey.getBaseOffset,
-      unsafeKey.getSizeInBytes, loc, unsafeKey.hashCode())
+      unsafeKey.getSizeInBytes, loc, keyHash(unsafeKey))
     if (loc.isDefined) {
       resultRow.pointTo(loc.getValueBase, loc.getValueOffset, loc.getValueLength)
       valueRowWithKeyIndex.update(loc.getKeyIndex, resultRow)
@@ -358,6 +372,7 @@ private[joins] class UnsafeHashedRelation(
       writeBuffer: (Array[Byte], Int, Int) => Unit) : Unit = {
     writeInt(numKeys)
     writeInt(numFields)
+    writeInt(if (wyHashKeys) 1 else 0)
     // TODO: move these into BytesToBytesMap
     writeLong(binaryMap.numKeys())
     writeLong(binaryMap.numValues())
@@ -386,12 +401,23 @@ private[joins] class UnsafeHashedRelation(
     read(() => in.readInt(), () => in.readLong(), in.readFully)
   }
 
+  /**
+   * Reads a relation written by [[writeExternal]] into pages of `pageSizeBytes`, for relations
+   * much smaller than the default page size.
+   */
+  private[joins] def readExternal(in: ObjectInput, pageSizeBytes: Long): Unit =
+    Utils.tryOrIOException {
+      read(() => in.readInt(), () => in.readLong(), in.readFully, Some(pageSizeBytes))
+    }
+
   private def read(
       readInt: () => Int,
       readLong: () => Long,
-      readBuffer: (Array[Byte], Int, Int) => Unit): Unit = {
+      readBuffer: (Array[Byte], Int, Int) => Unit,
+      pageSizeHint: Option[Long] = None): Unit = {
     numKeys = readInt()
     numFields = readInt()
+    wyHashKeys = readInt() != 0
     resultRow = new UnsafeRow(numFields)
     val nKeys = readLong()
     val nValues = readLong()
@@ -406,7 +432,8 @@ private[joins] class UnsafeHashedRelation(
         1),
       0)
 
-    val pageSizeBytes = Option(SparkEnv.get).map(_.memoryManager.pageSizeBytes)
+    val pageSizeBytes = pageSizeHint
+      .orElse(Option(SparkEnv.get).map(_.memoryManager.pageSizeBytes))
       .getOrElse(new SparkConf().get(BUFFER_PAGESIZE).getOrElse(16L * 1024 * 1024))
 
     // TODO(josh): We won't need this dummy memory manager after future refactorings; revisit
@@ -432,7 +459,8 @@ private[joins] class UnsafeHashedRelation(
       }
       readBuffer(valuesBuffer, 0, valuesSize)
 
-      val loc = binaryMap.lookup(keyBuffer, Platform.BYTE_ARRAY_OFFSET, keySize)
+      val loc = binaryMap.lookup(keyBuffer, Platform.BYTE_ARRAY_OFFSET, keySize,
+        UnsafeHashedRelation.keyHash(keyBuffer, Platform.BYTE_ARRAY_OFFSET, keySize, wyHashKeys))
       val putSucceeded = loc.append(keyBuffer, Platform.BYTE_ARRAY_OFFSET, keySize,
         valuesBuffer, Platform.BYTE_ARRAY_OFFSET, valuesSize)
       if (!putSucceeded) {
@@ -446,10 +474,26 @@ private[joins] class UnsafeHashedRelation(
   override def read(kryo: Kryo, in: Input): Unit = Utils.tryOrIOException {
     read(() => in.readInt(), () => in.readLong(), in.readBytes)
   }
+
+  private[joins] def read(in: Input, pageSizeBytes: Long): Unit = Utils.tryOrIOException {
+    read(() => in.readInt(), () => in.readLong(), in.readBytes, Some(pageSizeBytes))
+  }
 }
 
 private[joins] object UnsafeHashedRelation {
 
+  /**
+   * Returns the hash of the key of `length` bytes at `offset` in `base` in the map of a relation,
+   * which is the hash code of the key as an UnsafeRow.
+   */
+  def keyHash(base: AnyRef, offset: Long, length: Int, wyHashKeys: Boolean): Int = {
+    if (wyHashKeys) {
+      WyHash.hashUnsafeWords(base, offset, length, 42).toInt
+    } else {
+      Murmur3_x86_32.hashUnsafeWords(base, offset, length, 42)
+    }
+  }
+
   def apply(
       input: Iterator[InternalRow],
       key: Seq[Expression],
@@ -457,11 +501,13 @@ private[joins] object UnsafeHashedRelation {
       taskMemoryManager: TaskMemoryManager,
       isNullAware: Boolean = false,
       allowsNullKey: Boolean = false,
-      ignoresDuplicatedKey: Boolean = false): HashedRelation = {
+      ignoresDuplicatedKey: Boolean = false,
+      pageSizeHint: Option[Int] = None): HashedRelation = {
     require(!(isNullAware && allowsNullKey),
       "isNullAware and allowsNullKey cannot be enabled at same time")
 
-    val pageSizeBytes = Option(SparkEnv.get).map(_.memoryManager.pageSizeBytes)
+    val pageSizeBytes = pageSizeHint.map(_.toLong)
+      .orElse(Option(SparkEnv.get).map(_.memoryManager.pageSizeBytes))
       .getOrElse(new SparkConf().get(BUFFER_PAGESIZE).getOrElse(16L * 1024 * 1024))
     val binaryMap = new BytesToBytesMap(
       taskMemoryManager,
@@ -471,13 +517,15 @@ private[joins] object UnsafeHashedRelation {
 
     // Create a mapping of buildKeys -> rows
     val keyGenerator = UnsafeProjection.create(key)
+    val wyHashKeys = SQLConf.get.useWyHashForHashTableKeys
     var numFields = 0
     while (input.hasNext) {
       val row = input.next().asInstanceOf[UnsafeRow]
       numFields = row.numFields()
       val key = keyGenerator(row)
       if (!key.anyNull || allowsNullKey) {
-        val loc = binaryMap.lookup(key.getBaseObject, key.getBaseOffset, key.getSizeInBytes)
+        val loc = binaryMap.lookup(key.getBaseObject, key.getBaseOffset, key.getSizeInBytes,
+          if (wyHashKeys) key.wyHashCode() else key.hashCode())
         if (!(ignoresDuplicatedKey && loc.isDefined)) {
           val success = loc.append(
             key.getBaseObject, key.getBaseOffset, key.getSizeInBytes,
@@ -493,7 +541,7 @@ private[joins] object UnsafeHashedRelation {
       }
     }
 
-    new UnsafeHashedRelation(key.size, numFields, binaryMap)
+    new UnsafeHashedRelation(key.size, numFields, binaryMap, wyHashKeys)
   }
 }
 
@@ -534,7 +582,8 @@ private[joins] object UnsafeHashedRelation {
 private[execution] final class LongToUnsafeRowMap(
     val mm: TaskMemoryManager,
     capacity: Int,
-    ignoresDuplicatedKey: Boolean = false)
+    ignoresDuplicatedKey: Boolean = false,
+    initialPageSize: Int = 1 << 20)
   extends MemoryConsumer(mm, MemoryMode.ON_HEAP) with Externalizable with KryoSerializable {
 
   // Whether the keys are stored in dense mode or not.
@@ -597,10 +646,11 @@ private[execution] final class LongToUnsafeRowMap(
       require(capacity < 512000000, "Cannot broadcast 512 million or more rows")
       var n = 1
       while (n < capacity) n *= 2
-      ensureAcquireMemory(n * 2L * 8 + (1 << 20))
+      val pageWords = (initialPageSize + 7) / 8
+      ensureAcquireMemory(n * 2L * 8 + pageWords * 8L)
       array = new Array[Long](n * 2)
       mask = n * 2 - 2
-      page = new Array[Long](1 << 17)  // 1M bytes
+      page = new Array[Long](pageWords)
     }
   }
 
@@ -756,14 +806,49 @@ private[execution] final class LongToUnsafeRowMap(
    * Appends the key and row into this map.
    */
   def append(key: Long, row: UnsafeRow): Unit = {
+    append(key, row, size => { ensureAcquireMemory(size); true })
+  }
+
+  /**
+   * Appends the key and row into this map, unless the memory to do so cannot be acquired, in
+   * which case the map is left unchanged and false is returned.
+   */
+  def tryAppend(key: Long, row: UnsafeRow): Boolean = {
+    append(key, row, size => {
+      val got = acquireMemory(size)
+      if (got < size) freeMemory(got)
+      got >= size
+    })
+  }
+
+  // Acquires the memory with `acquire` before changing the map, and returns false if it fails.
+  private def append(key: Long, row: UnsafeRow, acquire: Long => Boolean): Boolean = {
     val sizeInBytes = row.getSizeInBytes
     if (sizeInBytes >= (1 << SIZE_BITS)) {
       throw QueryExecutionErrors.rowLargerThan256MUnsupportedError()
     }
 
-    val pos = findKeyPosition(key)
-    if (ignoresDuplicatedKey && array(pos + 1) != 0) {
-      return
+    var pos = findKeyPosition(key)
+    if (array(pos + 1) != 0) {
+      if (ignoresDuplicatedKey) {
+        return true
+      }
+    } else if ((numKeys + 1) * 4 > array.length) {
+      // reach half of the capacity
+      if (array.length < (1 << 30)) {
+        // Cannot allocate an array with 2G elements
+        if (!growArray(acquire)) {
+          return false
+        }
+        pos = findKeyPosition(key)
+      } else if (numKeys + 1 > array.length / 2 * 0.75) {
+        // The fill ratio should be less than 0.75
+        throw QueryExecutionErrors.cannotBuildHashedRelationWithUniqueKeysExceededError()
+      }
+    }
+
+    if (!grow(row.getSizeInBytes, acquire)) {
+      return false
     }
 
     if (key < minKey) {
@@ -773,8 +858,6 @@ private[execution] final class LongToUnsafeRowMap(
       maxKey = key
     }
 
-    grow(row.getSizeInBytes)
-
     // copy the bytes of UnsafeRow
     val offset = cursor
     Platform.copyMemory(row.getBaseObject, row.getBaseOffset, page, cursor, row.getSizeInBytes)
@@ -783,6 +866,7 @@ private[execution] final class LongToUnsafeRowMap(
     cursor += 8
     numValues += 1
     updateIndex(key, pos, toAddress(offset, row.getSizeInBytes))
+    true
   }
 
   private def findKeyPosition(key: Long): Int = {
@@ -803,16 +887,6 @@ private[execution] final class LongToUnsafeRowMap(
       array(pos) = key
       array(pos + 1) = address
       numKeys += 1
-      if (numKeys * 4 > array.length) {
-        // reach half of the capacity
-        if (array.length < (1 << 30)) {
-          // Cannot allocate an array with 2G elements
-          growArray()
-        } else if (numKeys > array.length / 2 * 0.75) {
-          // The fill ratio should be less than 0.75
-          throw QueryExecutionErrors.cannotBuildHashedRelationWithUniqueKeysExceededError()
-        }
-      }
     } else {
       // there are some values for this key, put the address in the front of them.
       val pointer = toOffset(address) + toSize(address)
@@ -821,7 +895,7 @@ private[execution] final class LongToUnsafeRowMap(
     }
   }
 
-  private def grow(inputRowSize: Int): Unit = {
+  private def grow(inputRowSize: Int, acquire: Long => Boolean): Boolean = {
     // There is 8 bytes for the pointer to next value
     val neededNumWords = (cursor - Platform.LONG_ARRAY_OFFSET + 8 + inputRowSize + 7) / 8
     if (neededNumWords > page.length) {
@@ -829,7 +903,9 @@ private[execution] final class LongToUnsafeRowMap(
         throw QueryExecutionErrors.cannotBuildHashedRelationLargerThan8GError()
       }
       val newNumWords = math.max(neededNumWords, math.min(page.length * 2, 1 << 30))
-      ensureAcquireMemory(newNumWords * 8L)
+      if (!acquire(newNumWords * 8L)) {
+        return false
+      }
       val newPage = new Array[Long](newNumWords.toInt)
       Platform.copyMemory(page, Platform.LONG_ARRAY_OFFSET, newPage, Platform.LONG_ARRAY_OFFSET,
         cursor - Platform.LONG_ARRAY_OFFSET)
@@ -837,13 +913,16 @@ private[execution] final class LongToUnsafeRowMap(
       page = newPage
       freeMemory(used * 8L)
     }
+    true
   }
 
-  private def growArray(): Unit = {
+  private def growArray(acquire: Long => Boolean): Boolean = {
     var old_array = array
     val n = array.length
+    if (!acquire(n * 2 * 8L)) {
+      return false
+    }
     numKeys = 0
-    ensureAcquireMemory(n * 2 * 8L)
     array = new Array[Long](n * 2)
     mask = n * 2 - 2
     var i = 0
@@ -856,6 +935,7 @@ private[execution] final class LongToUnsafeRowMap(
     }
     old_array = null  // release the reference to old array
     freeMemory(n * 8L)
+    true
   }
 
   /**
@@ -1069,9 +1149,12 @@ private[joins] object LongHashedRelation {
       sizeEstimate: Int,
       taskMemoryManager: TaskMemoryManager,
       isNullAware: Boolean = false,
-      ignoresDuplicatedKey: Boolean = false): HashedRelation = {
+      ignoresDuplicatedKey: Boolean = false,
+      pageSizeHint: Option[Int] = None): HashedRelation = {
 
-    val map = new LongToUnsafeRowMap(taskMemoryManager, sizeEstimate, ignoresDuplicatedKey)
+    val map = pageSizeHint.map { pageSize =>
+      new LongToUnsafeRowMap(taskMemoryManager, sizeEstimate, ignoresDuplicatedKey, pageSize)
+    }.getOrElse(new LongToUnsafeRowMap(taskMemoryManager, sizeEstimate, ignoresDuplicatedKey))
     val keyGenerator = UnsafeProjection.create(key)
 
     // Create a mapping of key -> rows
@@ -1093,6 +1176,329 @@ private[joins] object LongHashedRelation {
   }
 }
 
+/**
+ * A hashed relation whose rows are split by the top bits of the hash of their keys into
+ * `1 << radixBits` partitions, each one a [[HashedRelation]] small enough to fit in the CPU
+ * caches. Looking up a key goes to the partition of its hash, and [[probeInBatches]] groups the
+ * lookups of a batch of rows by partition, so that consecutive lookups hit the same hash table
+ * instead of missing the caches on almost every row of a large relation.
+ *
+ * Key indexes are not supported, so this cannot be used for full outer joins.
+ */
+class RadixPartitionedHashedRelation(
+    private var radixBits: Int,
+    private var longKeys: Boolean,
+    private var partitions: Array[HashedRelation])
+  extends HashedRelation with Externalizable with KryoSerializable {
+
+  // Needed for serialization (it is public to make Java serialization work)
+  def this() = this(0, false, null)
+
+  /**
+   * Returns true if the keys are a single long, so that [[keys]] returns rows of that long.
+   */
+  def isLongKey: Boolean = longKeys
+
+  private[joins] def numPartitions: Int = partitions.length
+
+  private def partitionOf(hash: Int): HashedRelation = partitions(hash >>> (32 - radixBits))
+
+  private def partitionOf(key: InternalRow): HashedRelation = partitionOf(
+    RadixPartitionedHashedRelation.keyHash(key.asInstanceOf[UnsafeRow], longKeys))
+
+  override def asReadOnlyCopy(): RadixPartitionedHashedRelation =
+    new RadixPartitionedHashedRelation(radixBits, longKeys, partitions.map(_.asReadOnlyCopy()))
+
+  override def estimatedSize: Long = partitions.map(_.estimatedSize).sum
+
+  override def get(key: InternalRow): Iterator[InternalRow] = partitionOf(key).get(key)
+
+  override def getValue(key: InternalRow): InternalRow = partitionOf(key).getValue(key)
+
+  override def get(key: Long): Iterator[InternalRow] =
+    partitionOf(Murmur3_x86_32.hashLong(key, 42)).get(key)
+
+  override def getValue(key: Long): InternalRow =
+    partitionOf(Murmur3_x86_32.hashLong(key, 42)).getValue(key)
+
+  override def keyIsUnique: Boolean = partitions.forall(_.keyIsUnique)
+
+  override def keys(): Iterator[InternalRow] = partitions.iterator.flatMap(_.keys())
+
+  override def close(): Unit = partitions.foreach(_.close())
+
+  /**
+   * Looks up the keys of `streamIter`, generated by `keyGenerator`, in batches of `batchSize`
+   * rows. The rows of a batch are returned grouped by partition, not in their input order, with
+   * their matches or null. The matches of a row must be consumed before moving to the next one.
+   */
+  def probeInBatches(
+      streamIter: Iterator[InternalRow],
+      keyGenerator: UnsafeProjection,
+      batchSize: Int): Iterator[(InternalRow, Iterator[InternalRow])] = {
+    val numPartitions = partitions.length
+    val keys = new Array[UnsafeRow](batchSize)
+    val partitionIds = new Array[Int](batchSize)
+    val order = new Array[Int](batchSize)
+    val starts = new Array[Int](numPartitions + 1)
+
+    streamIter.map(_.copy()).grouped(batchSize).flatMap { rows =>
+      // Counting sort of the rows of the batch by partition, leaving out the null keys that
+      // cannot match.
+      java.util.Arrays.fill(starts, 0)
+      var i = 0
+      while (i < rows.length) {
+        keys(i) = keyGenerator(rows(i)).copy()
+        if (keys(i).anyNull) {
+          partitionIds(i) = -1
+        } else {
+          partitionIds(i) =
+            RadixPartitionedHashedRelation.keyHash(keys(i), longKeys) >>> (32 - radixBits)
+          starts(partitionIds(i) + 1) += 1
+        }
+        i += 1
+      }
+      var p = 1
+      while (p <= numPartitions) {
+        starts(p) += starts(p - 1)
+        p += 1
+      }
+      val numMatchable = starts(numPartitions)
+      i = 0
+      while (i < rows.length) {
+        val partitionId = partitionIds(i)
+        if (partitionId >= 0) {
+          order(starts(partitionId)) = i
+          starts(partitionId) += 1
+        }
+        i += 1
+      }
+      Iterator.range(0, numMatchable).map { j =>
+        val row = order(j)
+        (rows(row), partitions(partitionIds(row)).get(keys(row)))
+      }
+    }
+  }
+
+  // The partitions backed by a BytesToBytesMap are written with the size of their pages, so that
+  // they are not read into pages of the default size, one per partition. The others are written
+  // as objects after a page size of -1.
+  private def pageSizeOf(partition: HashedRelation): Int = partition match {
+    case p: UnsafeHashedRelation => math.min(p.estimatedSize, 1 << 20).toInt
+    case _ => -1
+  }
+
+  override def writeExternal(out: ObjectOutput): Unit = Utils.tryOrIOException {
+    out.writeInt(radixBits)
+    out.writeBoolean(longKeys)
+    out.writeInt(partitions.length)
+    partitions.foreach { partition =>
+      val pageSize = pageSizeOf(partition)
+      out.writeInt(pageSize)
+      if (pageSize >= 0) partition.asInstanceOf[UnsafeHashedRelation].writeExternal(out)
+      else out.writeObject(partition)
+    }
+  }
+
+  override def readExternal(in: ObjectInput): Unit = Utils.tryOrIOException {
+    radixBits = in.readInt()
+    longKeys = in.readBoolean()
+    partitions = Array.fill(in.readInt()) {
+      val pageSize = in.readInt()
+      if (pageSize >= 0) {
+        val partition = new UnsafeHashedRelation()
+        partition.readExternal(in, pageSize)
+        partition
+      } else {
+        in.readObject().asInstanceOf[HashedRelation]
+      }
+    }
+  }
+
+  override def write(kryo: Kryo, out: Output): Unit = Utils.tryOrIOException {
+    out.writeInt(radixBits)
+    out.writeBoolean(longKeys)
+    out.writeInt(partitions.length)
+    partitions.foreach { partition =>
+      val pageSize = pageSizeOf(partition)
+      out.writeInt(pageSize)
+      if (pageSize >= 0) partition.asInstanceOf[UnsafeHashedRelation].write(kryo, out)
+      else kryo.writeClassAndObject(out, partition)
+    }
+  }
+
+  override def read(kryo: Kryo, in: Input): Unit = Utils.tryOrIOException {
+    radixBits = in.readInt()
+    longKeys = in.readBoolean()
+    partitions = Array.fill(in.readInt()) {
+      val pageSize = in.readInt()
+      if (pageSize >= 0) {
+        val partition = new UnsafeHashedRelation()
+        partition.read(in, pageSize)
+        partition
+      } else {
+        kryo.readClassAndObject(in).asInstanceOf[HashedRelation]
+      }
+    }
+  }
+}
+
+private[joins] object RadixPartitionedHashedRelation {
+
+  // The maximum number of bits of the hash used to choose the partition of a key.
+  val MAX_RADIX_BITS = 10
+
+  // The number of streamed rows looked up together by `probeInBatches`.
+  val PROBE_BATCH_SIZE = 1024
+
+  private[joins] def keyHash(key: UnsafeRow, longKeys: Boolean): Int = {
+    if (longKeys) {
+      Murmur3_x86_32.hashLong(key.getLong(0), 42)
+    } else {
+      key.hashCode()
+    }
+  }
+
+  /**
+   * Returns the number of bits of the hash needed to split `size` bytes of rows into partitions
+   * of about `partitionSize` bytes.
+   */
+  private[joins] def numRadixBits(size: Long, partitionSize: Long): Int = {
+    val numPartitions = (size + partitionSize - 1) / partitionSize
+    if (numPartitions <= 1) {
+      0
+    } else {
+      math.min(64 - java.lang.Long.numberOfLeadingZeros(numPartitions - 1), MAX_RADIX_BITS)
+    }
+  }
+
+  /**
+   * Creates a [[RadixPartitionedHashedRelation]] of `input`, or a plain [[HashedRelation]] if its
+   * rows fit in a single partition of `partitionSize` bytes. Null keys are not supported.
+   *
+   * The size of the rows is only known once they are all read, so they are first appended to a
+   * map in pages of the task memory. Its pages are then freed one by one while their rows are
+   * moved to the hash tables of their partitions, so the build side is not held twice.
+   */
+  def apply(
+      input: Iterator[InternalRow],
+      key: Seq[Expression],
+      partitionSize: Long,
+      taskMemoryManager: TaskMemoryManager,
+      sizeEstimate: Int = 64,
+      ignoresDuplicatedKey: Boolean = false): HashedRelation = {
+    val mm = Option(taskMemoryManager).getOrElse(HashedRelation.unlimitedTaskMemoryManager())
+    val keyGenerator = UnsafeProjection.create(key)
+    val longKeys = key.length == 1 && key.head.dataType == LongType
+    val wyHashKeys = SQLConf.get.useWyHashForHashTableKeys
+
+    // The number of rows and their size in the hash tables, which is the size of the rows and
+    // keys plus the lengths and the pointer to the next value that BytesToBytesMap stores with
+    // each of them, for each of the 2^MAX_RADIX_BITS smallest partitions.
+    val rowCounts = new Array[Int](1 << MAX_RADIX_BITS)
+    val rowSizes = new Array[Long](1 << MAX_RADIX_BITS)
+    var dataSize = 0L
+    var numFields = 0
+    val rows = new BytesToBytesMap(mm, (sizeEstimate * 1.5 + 1).toInt, mm.pageSizeBytes())
+    var longMaps: Array[LongToUnsafeRowMap] = null
+    var binaryMaps: Array[BytesToBytesMap] = null
+    try {
+      while (input.hasNext) {
+        val row = input.next().asInstanceOf[UnsafeRow]
+        numFields = row.numFields()
+        val rowKey = keyGenerator(row)
+        if (!rowKey.anyNull) {
+          val hash = keyHash(rowKey, longKeys)
+          val loc = rows.lookup(rowKey.getBaseObject, rowKey.getBaseOffset,
+            rowKey.getSizeInBytes, hash)
+          if (!(ignoresDuplicatedKey && loc.isDefined)) {
+            if (!loc.append(rowKey.getBaseObject, rowKey.getBaseOffset, rowKey.getSizeInBytes,
+                row.getBaseObject, row.getBaseOffset, row.getSizeInBytes)) {
+              throw QueryExecutionErrors.cannotAcquireMemoryToBuildUnsafeHashedRelationError()
+            }
+            val p = hash >>> (32 - MAX_RADIX_BITS)
+            rowCounts(p) += 1
+            rowSizes(p) += row.getSizeInBytes + rowKey.getSizeInBytes + 16
+            dataSize += row.getSizeInBytes
+          }
+        }
+      }
+      if (rows.numValues() == 0) {
+        return EmptyHashedRelation
+      }
+
+      val radixBits = numRadixBits(dataSize, partitionSize)
+      val numPartitions = 1 << radixBits
+      // The number of smallest partitions in each partition.
+      val shift = MAX_RADIX_BITS - radixBits
+      def sum[T](values: Array[T], p: Int)(implicit num: Numeric[T]): T =
+        values.slice(p << shift, (p + 1) << shift).sum
+      // The pages of a partition are sized to its rows, instead of allocating a full page for
+      // each of up to 2^MAX_RADIX_BITS partitions.
+      def pageSize(p: Int): Int = math.min(sum(rowSizes, p), 1 << 20).toInt
+      // Frees the array of the map before the hash tables of the partitions take its memory.
+      val iter = rows.destructiveIterator()
+      if (longKeys) {
+        longMaps = Array.tabulate(numPartitions) { p =>
+          val count = sum(rowCounts, p)
+          if (count == 0) null else new LongToUnsafeRowMap(
+            mm, math.max(count, 64), ignoresDuplicatedKey, pageSize(p))
+        }
+      } else {
+        binaryMaps = Array.tabulate(numPartitions) { p =>
+          val count = sum(rowCounts, p)
+          if (count == 0) null else new BytesToBytesMap(
+            mm, (math.max(count, 64) * 1.5 + 1).toInt, pageSize(p))
+        }
+      }
+
+      val keyRow = new UnsafeRow(key.length)
+      val valueRow = new UnsafeRow(numFields)
+      while (iter.hasNext) {
+        val loc = iter.next()
+        keyRow.pointTo(loc.getKeyBase, loc.getKeyOffset, loc.getKeyLength)
+        valueRow.pointTo(loc.getValueBase, loc.getValueOffset, loc.getValueLength)
+        val p = keyHash(keyRow, longKeys) >>> (32 - MAX_RADIX_BITS) >>> shift
+        if (longKeys) {
+          longMaps(p).append(keyRow.getLong(0), valueRow)
+        } else {
+          val partitionLoc = binaryMaps(p).lookup(keyRow.getBaseObject, keyRow.getBaseOffset,
+            keyRow.getSizeInBytes, if (wyHashKeys) keyRow.wyHashCode() else keyRow.hashCode())
+          if (!partitionLoc.append(
+              keyRow.getBaseObject, keyRow.getBaseOffset, keyRow.getSizeInBytes,
+              valueRow.getBaseObject, valueRow.getBaseOffset, valueRow.getSizeInBytes)) {
+            throw QueryExecutionErrors.cannotAcquireMemoryToBuildUnsafeHashedRelationError()
+          }
+        }
+      }
+
+      val partitions = Array.tabulate[HashedRelation](numPartitions) { p =>
+        if (longKeys) {
+          Option(longMaps(p)).map { map =>
+            map.optimize()
+            new LongHashedRelation(numFields, map)
+          }.getOrElse(EmptyHashedRelation)
+        } else {
+          Option(binaryMaps(p)).map { map =>
+            new UnsafeHashedRelation(key.size, numFields, map, wyHashKeys)
+          }.getOrElse(EmptyHashedRelation)
+        }
+      }
+      longMaps = null
+      binaryMaps = null
+      if (radixBits == 0) {
+        partitions(0)
+      } else {
+        new RadixPartitionedHashedRelation(radixBits, longKeys, partitions)
+      }
+    } finally {
+      rows.free()
+      if (longMaps != null) longMaps.filter(_ != null).foreach(_.free())
+      if (binaryMaps != null) binaryMaps.filter(_ != null).foreach(_.free())
+    }
+  }
+}
+
 /**
  * A special HashedRelation indicating that it's built from a empty input:Iterator[InternalRow].
  * get & getValue will return null just like
@@ -1157,6 +1563,13 @@ case class HashedRelationBroadcastMode(key: Seq[Expression], isNullAware: Boolea
   override def transform(
       rows: Iterator[InternalRow],
       sizeHint: Option[Long]): HashedRelation = {
+    val conf = SQLConf.get
+    if (conf.radixPartitionedHashJoinEnabled && !isNullAware) {
+      // Falls back to a plain relation if the rows fit in a single partition.
+      return RadixPartitionedHashedRelation(
+        rows, key, conf.radixPartitionedHashJoinPartitionSize, taskMemoryManager = null,
+        sizeEstimate = sizeHint.map(_.toInt).getOrElse(64))
+    }
     sizeHint match {
       case Some(numRows) =>
         HashedRelation(rows, key, numRows.toInt, isNullAware = isNullAware)
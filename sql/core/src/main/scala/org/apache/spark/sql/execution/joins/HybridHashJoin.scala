@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.joins
+
+import java.io.{BufferedInputStream, FileInputStream}
+import java.util.concurrent.TimeUnit.NANOSECONDS
+
+import scala.jdk.CollectionConverters._
+
+import org.apache.spark.{SparkEnv, TaskContext}
+import org.apache.spark.executor.ShuffleWriteMetrics
+import org.apache.spark.internal.{config, Logging, MDC}
+import org.apache.spark.internal.LogKeys.{MEMORY_SIZE, PATH}
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{Attribute, Expression, UnsafeProjection, UnsafeRow}
+import org.apache.spark.sql.errors.QueryExecutionErrors
+import org.apache.spark.sql.execution.UnsafeRowSerializer
+import org.apache.spark.sql.execution.metric.SQLMetric
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.types.LongType
+import org.apache.spark.unsafe.hash.Murmur3_x86_32
+import org.apache.spark.unsafe.map.BytesToBytesMap
+import org.apache.spark.util.{CompletionIterator, Utils}
+
+/**
+ * Joins a partition of a [[ShuffledHashJoinExec]] whose build side may not fit in memory.
+ *
+ * The build side is put into a [[LongHashedRelation]] or an [[UnsafeHashedRelation]], as
+ * [[HashedRelation]] does. If the task cannot acquire the
+ * memory to add a row, the rows added so far and the remaining rows of both sides are written to
+ * `numPartitions` files per side by the hash of their join keys, and each pair of files is joined
+ * the same way, with another hash, one after the other. As the rows with the same key end up in
+ * the same pair, `joinPartition` joins the pairs independently for any join type.
+ *
+ * A build side that still does not fit in memory after [[HybridHashJoin.MAX_LEVEL]] rounds of
+ * splitting, for example because most of its rows have the same key, fails the task.
+ */
+private[joins] class HybridHashJoin(
+    buildKeys: Seq[Expression],
+    streamedKeys: Seq[Expression],
+    buildOutput: Seq[Attribute],
+    streamedOutput: Seq[Attribute],
+    allowsNullKey: Boolean,
+    ignoresDuplicatedKey: Boolean,
+    numPartitions: Int,
+    buildTime: SQLMetric,
+    buildDataSize: SQLMetric,
+    spillSize: SQLMetric,
+    joinPartition: (Iterator[InternalRow], HashedRelation) => Iterator[InternalRow])
+  extends Logging {
+
+  private val context = TaskContext.get()
+  private val blockManager = SparkEnv.get.blockManager
+  private val fileBufferSize =
+    SparkEnv.get.conf.get(config.SHUFFLE_FILE_BUFFER_SIZE).toInt * 1024
+
+  private val buildKeyGenerator = UnsafeProjection.create(buildKeys)
+  private val wyHashKeys = SQLConf.get.useWyHashForHashTableKeys
+  private val streamedKeyGenerator = UnsafeProjection.create(streamedKeys)
+  private lazy val streamedToUnsafe = UnsafeProjection.create(streamedOutput, streamedOutput)
+
+  // Null keys are not supported by LongHashedRelation.
+  private val longKey =
+    buildKeys.length == 1 && buildKeys.head.dataType == LongType && !allowsNullKey
+
+  // The relation being joined, closed once its pair of partitions is joined, so that it is freed
+  // before the next pair is built, or when the task completes.
+  private var relation: HashedRelation = null
+  context.addTaskCompletionListener[Unit](_ => closeRelation())
+
+  def join(
+      streamIter: Iterator[InternalRow],
+      buildIter: Iterator[InternalRow]): Iterator[InternalRow] = {
+    join(streamIter, buildIter, level = 0)
+  }
+
+  private def join(
+      streamIter: Iterator[InternalRow],
+      buildIter: Iterator[InternalRow],
+      level: Int): Iterator[InternalRow] = {
+    build(buildIter, level) match {
+      case Left(built) =>
+        relation = built
+        CompletionIterator[InternalRow, Iterator[InternalRow]](
+          joinPartition(streamIter, built), closeRelation())
+      case Right(buildFiles) =>
+        val streamedRows = streamIter.map {
+          case row: UnsafeRow => row
+          case row => streamedToUnsafe(row)
+        }
+        val streamedFiles = spill(streamedRows, streamedKeyGenerator, streamedOutput.size, level)
+        Iterator.range(0, numPartitions).flatMap { i =>
+          join(streamedFiles(i).read(), buildFiles(i).read(), level + 1)
+        }
+    }
+  }
+
+  /**
+   * Returns the relation of the build side rows, or the files they are spilled to if they do not
+   * fit in memory.
+   */
+  private def build(
+      buildIter: Iterator[InternalRow],
+      level: Int): Either[HashedRelation, Array[SpillFile]] = {
+    val start = System.nanoTime()
+    val result = if (!buildIter.hasNext && !allowsNullKey) {
+      Left(EmptyHashedRelation)
+    } else if (longKey) {
+      buildLongHashedRelation(buildIter, level)
+    } else {
+      buildUnsafeHashedRelation(buildIter, level)
+    }
+    buildTime += NANOSECONDS.toMillis(System.nanoTime() - start)
+    result
+  }
+
+  private def buildLongHashedRelation(
+      buildIter: Iterator[InternalRow],
+      level: Int): Either[HashedRelation, Array[SpillFile]] = {
+    val taskMemoryManager = context.taskMemoryManager()
+    val map = new LongToUnsafeRowMap(taskMemoryManager, 64, ignoresDuplicatedKey,
+      math.min(taskMemoryManager.pageSizeBytes(), 1 << 20).toInt)
+    var spilled: Array[SpillFile] = null
+    while (spilled == null && buildIter.hasNext) {
+      val row = buildIter.next().asInstanceOf[UnsafeRow]
+      val key = buildKeyGenerator(row)
+      if (!key.isNullAt(0) && !map.tryAppend(key.getLong(0), row)) {
+        val resultRow = new UnsafeRow(buildOutput.size)
+        val rows = map.keys().flatMap(k => map.get(k.getLong(0), resultRow))
+        spilled = spillBuildSide(rows, map.getTotalMemoryConsumption, map.free(), row, buildIter,
+          level)
+      }
+    }
+    if (spilled == null) {
+      map.optimize()
+      val relation = new LongHashedRelation(buildOutput.size, map)
+      buildDataSize += relation.estimatedSize
+      Left(relation)
+    } else {
+      Right(spilled)
+    }
+  }
+
+  private def buildUnsafeHashedRelation(
+      buildIter: Iterator[InternalRow],
+      level: Int): Either[HashedRelation, Array[SpillFile]] = {
+    val binaryMap = new BytesToBytesMap(
+      context.taskMemoryManager(), 64, context.taskMemoryManager().pageSizeBytes())
+    var spilled: Array[SpillFile] = null
+    while (spilled == null && buildIter.hasNext) {
+      val row = buildIter.next().asInstanceOf[UnsafeRow]
+      val key = buildKeyGenerator(row)
+      if (!key.anyNull || allowsNullKey) {
+        val loc = binaryMap.lookup(key.getBaseObject, key.getBaseOffset, key.getSizeInBytes,
+          if (wyHashKeys) key.wyHashCode() else key.hashCode())
+        if (!(ignoresDuplicatedKey && loc.isDefined) && !loc.append(
+            key.getBaseObject, key.getBaseOffset, key.getSizeInBytes,
+            row.getBaseObject, row.getBaseOffset, row.getSizeInBytes)) {
+          val iter = binaryMap.iterator()
+          val resultRow = new UnsafeRow(buildOutput.size)
+          val rows = iter.asScala.map { loc =>
+            resultRow.pointTo(loc.getValueBase, loc.getValueOffset, loc.getValueLength)
+            resultRow
+          }
+          spilled = spillBuildSide(rows, binaryMap.getTotalMemoryConsumption, binaryMap.free(),
+            row, buildIter, level)
+        }
+      }
+    }
+    if (spilled == null) {
+      val relation =
+        new UnsafeHashedRelation(buildKeys.size, buildOutput.size, binaryMap, wyHashKeys)
+      buildDataSize += relation.estimatedSize
+      Left(relation)
+    } else {
+      Right(spilled)
+    }
+  }
+
+  /**
+   * Spills the build side rows in memory, which are freed by `free` once they are written, then
+   * `row`, which could not be added to them, and the remaining rows of `buildIter`.
+   */
+  private def spillBuildSide(
+      rowsInMemory: Iterator[UnsafeRow],
+      memoryUsed: Long,
+      free: => Unit,
+      row: UnsafeRow,
+      buildIter: Iterator[InternalRow],
+      level: Int): Array[SpillFile] = {
+    if (level >= HybridHashJoin.MAX_LEVEL) {
+      free
+      throw QueryExecutionErrors.cannotAcquireMemoryToBuildUnsafeHashedRelationError()
+    }
+    logInfo(log"Spilling the build side of a shuffled hash join with " +
+      log"${MDC(MEMORY_SIZE, Utils.bytesToString(memoryUsed))} in memory")
+    // `row` is written before `buildIter` moves on.
+    val rows = CompletionIterator[UnsafeRow, Iterator[UnsafeRow]](rowsInMemory, {
+      context.taskMetrics().incMemoryBytesSpilled(memoryUsed)
+      free
+    }) ++ Iterator.single(row) ++ buildIter.map(_.asInstanceOf[UnsafeRow])
+    spill(rows, buildKeyGenerator, buildOutput.size, level)
+  }
+
+  private def closeRelation(): Unit = {
+    if (relation != null) {
+      relation.close()
+      relation = null
+    }
+  }
+
+  // Writes `rows` to `numPartitions` files by the hash of their keys at `level`.
+  private def spill(
+      rows: Iterator[UnsafeRow],
+      keyGenerator: UnsafeProjection,
+      numFields: Int,
+      level: Int): Array[SpillFile] = {
+    val files = Array.fill(numPartitions)(new SpillFile(numFields))
+    try {
+      rows.foreach { row =>
+        val key = keyGenerator(row)
+        val hash = Murmur3_x86_32.hashUnsafeWords(
+          key.getBaseObject, key.getBaseOffset, key.getSizeInBytes, HybridHashJoin.SEED + level)
+        files(Utils.nonNegativeMod(hash, numPartitions)).write(row)
+      }
+      files.foreach(_.commit())
+    } catch {
+      case e: Throwable =>
+        files.foreach(_.delete())
+        throw e
+    }
+    files
+  }
+
+  /** A temporary file of spilled rows, deleted once read or at the end of the task. */
+  private class SpillFile(numFields: Int) {
+    private val (blockId, file) = blockManager.diskBlockManager.createTempLocalBlock()
+    private val serializer = new UnsafeRowSerializer(numFields)
+    private val writer = blockManager.getDiskWriter(
+      blockId, file, serializer.newInstance(), fileBufferSize, new ShuffleWriteMetrics)
+    private var length = 0L
+    private var deleted = false
+    context.addTaskCompletionListener[Unit](_ => delete())
+
+    def write(row: UnsafeRow): Unit = writer.write(null, row)
+
+    def commit(): Unit = {
+      length = writer.commitAndGet().length
+      writer.close()
+      spillSize += length
+      context.taskMetrics().incDiskBytesSpilled(length)
+    }
+
+    def read(): Iterator[InternalRow] = {
+      if (length == 0) {
+        delete()
+        Iterator.empty
+      } else {
+        val in = blockManager.serializerManager.wrapStream(
+          blockId, new BufferedInputStream(new FileInputStream(file), fileBufferSize))
+        val deserializeStream = serializer.newInstance().deserializeStream(in)
+        val rows = deserializeStream.asKeyValueIterator.map(_._2.asInstanceOf[InternalRow])
+        CompletionIterator[InternalRow, Iterator[InternalRow]](rows, {
+          deserializeStream.close()
+          delete()
+        })
+      }
+    }
+
+    def delete(): Unit = if (!deleted) {
+      deleted = true
+      writer.close()
+      if (file.exists() && !file.delete()) {
+        logWarning(log"Error deleting ${MDC(PATH, file.getPath)}")
+      }
+    }
+  }
+}
+
+private[joins] object HybridHashJoin {
+  /** The number of times a partition is split before the join gives up. */
+  val MAX_LEVEL = 3
+
+  // Differs from the seed of the shuffle, so that the rows of a task are split evenly.
+  private val SEED = 0x2f0a1b3c
+}
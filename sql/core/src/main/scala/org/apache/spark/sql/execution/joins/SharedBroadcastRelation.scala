@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.joins
+
+import org.apache.commons.codec.digest.DigestUtils
+
+import org.apache.spark.{SparkEnv, TaskContext}
+import org.apache.spark.broadcast.Broadcast
+import org.apache.spark.sql.catalyst.expressions.{PlanExpression, UserDefinedExpression}
+import org.apache.spark.sql.execution.{FileSourceScanExec, ObjectConsumerExec, ObjectProducerExec, RangeExec, SparkPlan}
+import org.apache.spark.sql.execution.adaptive.QueryStageExec
+import org.apache.spark.sql.execution.exchange.ReusedExchangeExec
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.storage.{BlockId, BroadcastBlockId, BroadcastRelationBlockId, StorageLevel}
+
+/**
+ * The broadcast [[HashedRelation]] of a broadcast hash join. If it has a `fingerprint`, executors
+ * share it with the identical broadcasts of other queries through the
+ * [[BroadcastRelationRegistry]], if it is not larger than `maxSharedSize` bytes. A shared relation
+ * is only used if it is of class `relationClass`, the class of the relation of `broadcast`, which
+ * the generated code of the join casts it to.
+ */
+private[execution] class SharedBroadcastRelation(
+    val fingerprint: Option[String],
+    relationClass: String,
+    maxSharedSize: Long,
+    broadcast: Broadcast[HashedRelation]) extends Serializable {
+
+  /**
+   * Returns a read-only copy of the relation. In a task, a shared relation is used until the task
+   * completes.
+   */
+  def acquire(): HashedRelation = {
+    val relation = fingerprint match {
+      case Some(f) if TaskContext.get() != null =>
+        BroadcastRelationRegistry.acquire(f, relationClass, maxSharedSize, broadcast)
+      case _ => broadcast.value
+    }
+    relation.asReadOnlyCopy()
+  }
+}
+
+private[execution] object SharedBroadcastRelation {
+
+  def apply(
+      buildPlan: SparkPlan,
+      broadcast: Broadcast[HashedRelation]): SharedBroadcastRelation = {
+    val conf = buildPlan.conf
+    val relation = broadcast.value
+    val fingerprint = if (conf.sharedBroadcastRelationEnabled) {
+      fingerprintOf(buildPlan, relation)
+    } else {
+      None
+    }
+    new SharedBroadcastRelation(fingerprint, relation.getClass.getName,
+      conf.sharedBroadcastRelationMaxSize, broadcast)
+  }
+
+  /**
+   * Returns a fingerprint of `relation`, the result of `plan`, or None if it cannot be told apart
+   * from the relations of other queries. The plan must be deterministic, without subqueries or
+   * user-defined functions, and only read files or ranges. The fingerprint covers the class of the
+   * relation and how it looks up keys, the canonicalized plan, the paths, sizes and modification
+   * times of the files it reads, and all the SQL configurations that are not static, as any of
+   * them may change the rows of the plan or the relation built from them.
+   */
+  private[joins] def fingerprintOf(plan: SparkPlan, relation: HashedRelation): Option[String] = {
+    val files = new StringBuilder
+    def collectFiles(p: SparkPlan): Boolean = p match {
+      case s: QueryStageExec => collectFiles(s.plan)
+      case r: ReusedExchangeExec => collectFiles(r.child)
+      case _: ObjectProducerExec | _: ObjectConsumerExec => false
+      case _ if p.expressions.exists(_.exists { e =>
+        !e.deterministic || e.isInstanceOf[PlanExpression[_]] ||
+          e.isInstanceOf[UserDefinedExpression]
+      }) => false
+      case scan: FileSourceScanExec =>
+        scan.selectedPartitions.filePartitionIterator.flatMap(_.files).map { file =>
+          s"${file.getPath}:${file.getLen}:${file.getModificationTime}"
+        }.toSeq.sorted.foreach(files.append(_).append('\n'))
+        true
+      case _: RangeExec => true
+      case _ => p.children.nonEmpty && p.children.forall(collectFiles)
+    }
+
+    if (collectFiles(plan)) {
+      val fingerprint = new StringBuilder
+      fingerprint.append(describe(relation)).append('\n')
+      plan.conf.getAllConfs.toSeq.filterNot(c => SQLConf.isStaticConfigKey(c._1)).sorted.foreach {
+        case (k, v) => fingerprint.append(k).append('=').append(v).append('\n')
+      }
+      plan.canonicalized.foreach { p =>
+        fingerprint.append(describe(p)).append('\n')
+      }
+      fingerprint.append(files)
+      Some(DigestUtils.sha256Hex(fingerprint.toString))
+    } else {
+      None
+    }
+  }
+
+  // Describes the class of a relation and how it looks up keys.
+  private def describe(relation: HashedRelation): String = relation match {
+    case radix: RadixPartitionedHashedRelation =>
+      s"${radix.getClass.getName}(${radix.numPartitions}, ${radix.isLongKey})"
+    case _ => relation.getClass.getName
+  }
+
+  // Describes a node of a canonicalized plan, without its children.
+  private def describe(plan: SparkPlan): String = plan match {
+    case scan: FileSourceScanExec =>
+      // The metadata in the string of a scan is abbreviated.
+      val relation = scan.relation
+      Seq(scan.nodeName, relation.fileFormat, relation.options.toSeq.sorted, relation.dataSchema,
+        relation.partitionSchema, relation.bucketSpec, scan.requiredSchema, scan.output,
+        scan.partitionFilters, scan.dataFilters, scan.optionalBucketSet,
+        scan.optionalNumCoalescedBuckets, scan.disableBucketedScan).mkString(", ")
+    case _ =>
+      // The IDs of exchanges differ between queries.
+      plan.simpleString(Int.MaxValue).replaceAll("""\[plan_id=\d+\]""", "")
+  }
+}
+
+/**
+ * A registry of the broadcast [[HashedRelation]]s of broadcast hash joins by fingerprint, so that
+ * identical broadcasts of concurrent queries on an executor are deserialized once and shared
+ * read-only.
+ *
+ * The registry maps a fingerprint to the broadcast whose relation is shared, with a small block of
+ * the block manager that holds the ID of the broadcast. The relation itself is only held by the
+ * block of its broadcast, so it is accounted once in the storage memory, is evicted with that
+ * block, and is removed when its broadcast is. A task holds a read lock on the block of the
+ * relation it uses until it completes, and a fingerprint whose broadcast block is gone is mapped
+ * to the next broadcast that registers it.
+ */
+private[joins] object BroadcastRelationRegistry {
+
+  /**
+   * Returns the relation of the broadcast registered under `fingerprint` if it is of class
+   * `relationClass`, or else the relation of `broadcast`, which is registered if it is not larger
+   * than `maxSize`. A shared relation is used by the current task until it completes.
+   */
+  def acquire(
+      fingerprint: String,
+      relationClass: String,
+      maxSize: Long,
+      broadcast: Broadcast[HashedRelation]): HashedRelation = {
+    val registryId = BroadcastRelationBlockId(fingerprint)
+    registeredBroadcast(registryId) match {
+      case Some(id) if id == broadcast.id => broadcast.value
+      case registered =>
+        registered.flatMap(id => lock(BroadcastBlockId(id), relationClass)).getOrElse {
+          val relation = broadcast.value
+          if (relation.estimatedSize <= maxSize) {
+            register(registryId, broadcast.id)
+          }
+          relation
+        }
+    }
+  }
+
+  // Returns the ID of the broadcast registered under `registryId`.
+  private def registeredBroadcast(registryId: BlockId): Option[Long] = {
+    // Reading the whole block releases its lock.
+    SparkEnv.get.blockManager.getLocalValues(registryId)
+      .map(_.data.toList.head.asInstanceOf[Long])
+  }
+
+  private def register(registryId: BlockId, broadcastId: Long): Unit = {
+    val blockManager = SparkEnv.get.blockManager
+    blockManager.removeBlock(registryId, tellMaster = false)
+    blockManager.putSingle(registryId, broadcastId, StorageLevel.MEMORY_ONLY, tellMaster = false)
+  }
+
+  // Returns the relation of the broadcast block `blockId` if it is of class `relationClass`,
+  // locked for reading until the current task completes.
+  private def lock(blockId: BlockId, relationClass: String): Option[HashedRelation] = {
+    val blockManager = SparkEnv.get.blockManager
+    blockManager.getLocalValues(blockId).flatMap { result =>
+      result.data.next() match {
+        case relation: HashedRelation if relation.getClass.getName == relationClass =>
+          // Released without the task context: a task is already marked completed when its
+          // listeners run, and releaseLock skips the locks of completed tasks.
+          TaskContext.get().addTaskCompletionListener[Unit] { _ =>
+            blockManager.releaseLock(blockId)
+          }
+          Some(relation)
+        case _ =>
+          blockManager.releaseLock(blockId)
+          None
+      }
+    }
+  }
+
+  private[joins] def isRegistered(fingerprint: String): Boolean =
+    SparkEnv.get.blockManager.getStatus(BroadcastRelationBlockId(fingerprint)).isDefined
+}
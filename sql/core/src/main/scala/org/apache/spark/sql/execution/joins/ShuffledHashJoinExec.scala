@@ -49,7 +49,8 @@ case class ShuffledHashJoinExec(
   override lazy val metrics = Map(
     "numOutputRows" -> SQLMetrics.createMetric(sparkContext, "number of output rows"),
     "buildDataSize" -> SQLMetrics.createSizeMetric(sparkContext, "data size of build side"),
-    "buildTime" -> SQLMetrics.createTimingMetric(sparkContext, "time to build hash map"))
+    "buildTime" -> SQLMetrics.createTimingMetric(sparkContext, "time to build hash map"),
+    "spillSize" -> SQLMetrics.createSizeMetric(sparkContext, "spill size"))
 
   override def output: Seq[Attribute] = super[ShuffledJoin].output
 
@@ -100,20 +101,31 @@ case class ShuffledHashJoinExec(
   /**
    * This is called by generated Java class, should be public.
    */
-  def buildHashedRelation(iter: Iterator[InternalRow]): HashedRelation = {
+  def buildHashedRelation(iter: Iterator[InternalRow]): HashedRelation =
+    buildHashedRelation(iter, radixPartitioned = false)
+
+  private def buildHashedRelation(
+      iter: Iterator[InternalRow],
+      radixPartitioned: Boolean): HashedRelation = {
     val buildDataSize = longMetric("buildDataSize")
     val buildTime = longMetric("buildTime")
     val start = System.nanoTime()
     val context = TaskContext.get()
-    val relation = HashedRelation(
-      iter,
-      buildBoundKeys,
-      taskMemoryManager = context.taskMemoryManager(),
-      // build-side or full outer join needs support for NULL key in HashedRelation.
-      allowsNullKey = joinType == FullOuter ||
-        (joinType == LeftOuter && buildSide == BuildLeft) ||
-        (joinType == RightOuter && buildSide == BuildRight),
-      ignoresDuplicatedKey = ignoreDuplicatedKey)
+    val relation = if (radixPartitioned) {
+      RadixPartitionedHashedRelation(
+        iter,
+        buildBoundKeys,
+        partitionSize,
+        context.taskMemoryManager(),
+        ignoresDuplicatedKey = ignoreDuplicatedKey)
+    } else {
+      HashedRelation(
+        iter,
+        buildBoundKeys,
+        taskMemoryManager = context.taskMemoryManager(),
+        allowsNullKey = allowsNullKey,
+        ignoresDuplicatedKey = ignoreDuplicatedKey)
+    }
     buildTime += NANOSECONDS.toMillis(System.nanoTime() - start)
     buildDataSize += relation.estimatedSize
     // This relation is usually used until the end of task.
@@ -121,22 +133,49 @@ case class ShuffledHashJoinExec(
     relation
   }
 
+  // build-side or full outer join needs support for NULL key in HashedRelation.
+  private def allowsNullKey: Boolean = joinType == FullOuter ||
+    (joinType == LeftOuter && buildSide == BuildLeft) ||
+    (joinType == RightOuter && buildSide == BuildRight)
+
   protected override def doExecute(): RDD[InternalRow] = {
     val numOutputRows = longMetric("numOutputRows")
+    val spillEnabled = conf.shuffledHashJoinSpillEnabled
+    val spillNumPartitions = conf.shuffledHashJoinSpillNumPartitions
+    val radixPartitioned = useRadixPartitionedRelation
     streamedPlan.execute().zipPartitions(buildPlan.execute()) { (streamIter, buildIter) =>
-      val hashed = buildHashedRelation(buildIter)
-      joinType match {
-        case FullOuter => buildSideOrFullOuterJoin(streamIter, hashed, numOutputRows,
-          isFullOuterJoin = true)
-        case LeftOuter if buildSide.equals(BuildLeft) =>
-          buildSideOrFullOuterJoin(streamIter, hashed, numOutputRows, isFullOuterJoin = false)
-        case RightOuter if buildSide.equals(BuildRight) =>
-          buildSideOrFullOuterJoin(streamIter, hashed, numOutputRows, isFullOuterJoin = false)
-        case _ => join(streamIter, hashed, numOutputRows)
+      if (spillEnabled) {
+        new HybridHashJoin(
+          buildBoundKeys,
+          streamedBoundKeys,
+          buildOutput,
+          streamedOutput,
+          allowsNullKey,
+          ignoreDuplicatedKey,
+          spillNumPartitions,
+          longMetric("buildTime"),
+          longMetric("buildDataSize"),
+          longMetric("spillSize"),
+          joinPartition(_, _, numOutputRows)).join(streamIter, buildIter)
+      } else {
+        joinPartition(streamIter, buildHashedRelation(buildIter, radixPartitioned), numOutputRows)
       }
     }
   }
 
+  private def joinPartition(
+      streamIter: Iterator[InternalRow],
+      hashed: HashedRelation,
+      numOutputRows: SQLMetric): Iterator[InternalRow] = joinType match {
+    case FullOuter => buildSideOrFullOuterJoin(streamIter, hashed, numOutputRows,
+      isFullOuterJoin = true)
+    case LeftOuter if buildSide.equals(BuildLeft) =>
+      buildSideOrFullOuterJoin(streamIter, hashed, numOutputRows, isFullOuterJoin = false)
+    case RightOuter if buildSide.equals(BuildRight) =>
+      buildSideOrFullOuterJoin(streamIter, hashed, numOutputRows, isFullOuterJoin = false)
+    case _ => join(streamIter, hashed, numOutputRows)
+  }
+
   private def buildSideOrFullOuterJoin(
       streamIter: Iterator[InternalRow],
       hashedRelation: HashedRelation,
@@ -359,7 +398,19 @@ case class ShuffledHashJoinExec(
     streamResultIter ++ buildResultIter
   }
 
+  private def partitionSize: Long = conf.radixPartitionedHashJoinPartitionSize
+
+  // Only inner joins, which are not code generated, look up the streamed rows in batches. This is
+  // decided on the driver, and only for build sides whose rows in a task are estimated to take
+  // more than one partition.
+  @transient private lazy val useRadixPartitionedRelation: Boolean =
+    joinType.isInstanceOf[InnerLike] && conf.radixPartitionedHashJoinEnabled &&
+      estimatedBuildSize.exists(_ / buildPlan.outputPartitioning.numPartitions > partitionSize)
+
   override def supportCodegen: Boolean = joinType match {
+    // The generated code joins a single hash table per partition, which cannot spill.
+    case _ if conf.shuffledHashJoinSpillEnabled => false
+    case _ if useRadixPartitionedRelation => false
     case FullOuter => conf.getConf(SQLConf.ENABLE_FULL_OUTER_SHUFFLED_HASH_JOIN_CODEGEN)
     case LeftOuter if buildSide == BuildLeft =>
       conf.getConf(SQLConf.ENABLE_BUILD_SIDE_OUTER_SHUFFLED_HASH_JOIN_CODEGEN)
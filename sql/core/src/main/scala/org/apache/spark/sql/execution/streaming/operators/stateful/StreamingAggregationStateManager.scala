@@ -44,6 +44,15 @@ sealed trait StreamingAggregationStateManager extends Serializable {
    */
   def put(store: StateStore, row: UnsafeRow): Unit
 
+  /**
+   * Get the current values of non-null keys from the target state store at once, in the order of
+   * the keys. The returned rows are not reused.
+   */
+  def multiGet(store: ReadStateStore, keys: Array[UnsafeRow]): Array[UnsafeRow]
+
+  /** Put new values for the keys of the input rows to the target state store at once. */
+  def putAll(store: StateStore, rows: Array[UnsafeRow]): Unit
+
   /**
    * Commit all the updates that have been made to the target state store, and return the
    * new version.
@@ -123,6 +132,14 @@ class StreamingAggregationStateManagerImplV1(
     store.put(getKey(row), row)
   }
 
+  override def multiGet(store: ReadStateStore, keys: Array[UnsafeRow]): Array[UnsafeRow] = {
+    store.multiGet(keys)
+  }
+
+  override def putAll(store: StateStore, rows: Array[UnsafeRow]): Unit = {
+    store.putAll(rows.map(getKey(_).copy()), rows)
+  }
+
   override def iterator(store: ReadStateStore): Iterator[UnsafeRowPair] = {
     store.iterator()
   }
@@ -184,6 +201,17 @@ class StreamingAggregationStateManagerImplV2(
     store.put(key, value)
   }
 
+  override def multiGet(store: ReadStateStore, keys: Array[UnsafeRow]): Array[UnsafeRow] = {
+    val savedStates = store.multiGet(keys)
+    keys.indices.map { i =>
+      if (savedStates(i) == null) null else restoreOriginalRow(keys(i), savedStates(i)).copy()
+    }.toArray
+  }
+
+  override def putAll(store: StateStore, rows: Array[UnsafeRow]): Unit = {
+    store.putAll(rows.map(keyProjector(_).copy()), rows.map(valueProjector(_).copy()))
+  }
+
   override def iterator(store: ReadStateStore): Iterator[UnsafeRowPair] = {
     store.iterator().map(rowPair => new UnsafeRowPair(rowPair.key, restoreOriginalRow(rowPair)))
   }
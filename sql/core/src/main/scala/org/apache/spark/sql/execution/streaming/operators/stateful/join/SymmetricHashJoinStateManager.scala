@@ -781,12 +781,29 @@ SnapshotOptions
         private val keyWithIndexAndValue = new KeyWithIndexAndValue()
         private var index: Long = 0L
 
+        // The values of the indices from `batchStart`, looked up `accessBatchSize` at a time.
+        private val batchSize = storeConf.accessBatchSize
+        private var batch: Array[UnsafeRow] = Array.empty
+        private var batchStart: Long = 0L
+
+        private def lookup(index: Long): UnsafeRow = {
+          if (batchSize > 1) {
+            if (index >= batchStart + batch.length) {
+              val numKeys = math.min(batchSize, numValues - index).toInt
+              val keys = Array.tabulate(numKeys)(i => keyWithIndexRow(key, index + i).copy())
+              batch = stateStore.multiGet(keys, colFamilyName)
+              batchStart = index
+            }
+            batch((index - batchStart).toInt)
+          } else {
+            stateStore.get(keyWithIndexRow(key, index), colFamilyName)
+          }
+        }
+
         private def hasMoreValues = index < numValues
         override protected def getNext(): KeyWithIndexAndValue = {
           while (hasMoreValues) {
-            val keyWithIndex = keyWithIndexRow(key, index)
-            val valuePair =
-              valueRowConverter.convertValue(stateStore.get(keyWithIndex, colFamilyName))
+            val valuePair = valueRowConverter.convertValue(lookup(index))
             if (valuePair == null && storeConf.skipNullsForStreamStreamJoins) {
               skippedNullValueCount.foreach(_ += 1L)
               index += 1
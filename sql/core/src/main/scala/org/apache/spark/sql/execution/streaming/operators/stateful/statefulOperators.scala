@@ -711,6 +711,7 @@ case class StateStoreRestoreExec(
 
   override protected def doExecute(): RDD[InternalRow] = {
     val numOutputRows = longMetric("numOutputRows")
+    val batchSize = conf.stateStoreAccessBatchSize
 
     child.execute().mapPartitionsWithReadStateStore(
       getStateInfo,
@@ -726,6 +727,16 @@ case class StateStoreRestoreExec(
         // restore the value, so that we don't overwrite our state with a 0 value, but rather
         // merge the 0 with existing state.
         store.iterator().map(_.value)
+      } else if (batchSize > 1) {
+        // Look up the keys of `batchSize` rows at once.
+        iter.map(_.asInstanceOf[UnsafeRow].copy()).grouped(batchSize).flatMap { rows =>
+          val keys = rows.map(stateManager.getKey(_).copy()).toArray
+          val restoredRows = stateManager.multiGet(store, keys)
+          numOutputRows += rows.size + restoredRows.count(_ != null)
+          rows.indices.iterator.flatMap { i =>
+            Option(restoredRows(i)).iterator ++ Iterator.single(rows(i))
+          }
+        }
       } else {
         iter.flatMap { row =>
           val key = stateManager.getKey(row.asInstanceOf[UnsafeRow])
@@ -787,6 +798,8 @@ case class StateStoreSaveExec(
     assert(outputMode.nonEmpty,
       "Incorrect planning in IncrementalExecution, outputMode has not been set")
 
+    val batchSize = conf.stateStoreAccessBatchSize
+
     child.execute().mapPartitionsWithStateStore(
       getStateInfo,
       keyExpressions.toStructType,
@@ -805,11 +818,7 @@ case class StateStoreSaveExec(
           // Update and output all rows in the StateStore.
           case Some(Complete) =>
             allUpdatesTimeMs += timeTakenMs {
-              while (iter.hasNext) {
-                val row = iter.next().asInstanceOf[UnsafeRow]
-                stateManager.put(store, row)
-                numUpdatedStateRows += 1
-              }
+              putAll(store, iter, batchSize, numUpdatedStateRows)
             }
 
             // SPARK-45582 - Ensure that store instance is not used after commit is called
@@ -850,11 +859,7 @@ case class StateStoreSaveExec(
             allUpdatesTimeMs += timeTakenMs {
               val filteredIter = applyRemovingRowsOlderThanWatermark(iter,
                 watermarkPredicateForDataForLateEvents.get)
-              while (filteredIter.hasNext) {
-                val row = filteredIter.next().asInstanceOf[UnsafeRow]
-                stateManager.put(store, row)
-                numUpdatedStateRows += 1
-              }
+              putAll(store, filteredIter, batchSize, numUpdatedStateRows)
             }
 
             val removalStartTimeNs = System.nanoTime
@@ -900,11 +905,18 @@ case class StateStoreSaveExec(
                 case None => iter
               }
               private val updatesStartTimeNs = System.nanoTime
+              // The copies of the rows to put `batchSize` at a time, if greater than 1.
+              private val pendingRows = new mutable.ArrayBuffer[UnsafeRow]
 
               override protected def getNext(): InternalRow = {
                 if (baseIterator.hasNext) {
                   val row = baseIterator.next().asInstanceOf[UnsafeRow]
-                  stateManager.put(store, row)
+                  if (batchSize > 1) {
+                    pendingRows += row.copy()
+                    if (pendingRows.size >= batchSize) putPendingRows()
+                  } else {
+                    stateManager.put(store, row)
+                  }
                   numOutputRows += 1
                   numUpdatedStateRows += 1
                   row
@@ -914,7 +926,13 @@ case class StateStoreSaveExec(
                 }
               }
 
+              private def putPendingRows(): Unit = {
+                stateManager.putAll(store, pendingRows.toArray)
+                pendingRows.clear()
+              }
+
               override protected def close(): Unit = {
+                if (pendingRows.nonEmpty) putPendingRows()
                 allUpdatesTimeMs += NANOSECONDS.toMillis(System.nanoTime - updatesStartTimeNs)
 
                 // Remove old aggregates if watermark specified
@@ -954,6 +972,26 @@ case class StateStoreSaveExec(
       newInputWatermark > eventTimeWatermarkForEviction.get
   }
 
+  // Puts the rows into the store, `batchSize` rows at a time if greater than 1.
+  private def putAll(
+      store: StateStore,
+      rows: Iterator[InternalRow],
+      batchSize: Int,
+      numUpdatedStateRows: SQLMetric): Unit = {
+    if (batchSize > 1) {
+      rows.map(_.asInstanceOf[UnsafeRow].copy()).grouped(batchSize).foreach { batch =>
+        stateManager.putAll(store, batch.toArray)
+        numUpdatedStateRows += batch.size
+      }
+    } else {
+      while (rows.hasNext) {
+        val row = rows.next().asInstanceOf[UnsafeRow]
+        stateManager.put(store, row)
+        numUpdatedStateRows += 1
+      }
+    }
+  }
+
   override protected def withNewChildInternal(newChild: SparkPlan): StateStoreSaveExec =
     copy(child = newChild)
 }
@@ -101,6 +101,9 @@ class AsyncProgressTrackingMicroBatchExecution(
 
   override lazy val commitLog: AsyncCommitLog = asyncCheckpointMetadata.commitLog
 
+  // The offsets and commits are already written asynchronously, see `markMicroBatchStart`.
+  override protected lazy val usePipelinedCheckpointWrites: Boolean = false
+
   // perform quick validation to fail faster
   validateAndGetTrigger()
 
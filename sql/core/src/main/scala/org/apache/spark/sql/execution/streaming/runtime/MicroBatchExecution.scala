@@ -19,6 +19,8 @@ package org.apache.spark.sql.execution.streaming.runtime
 
 import scala.collection.mutable.{Map => MutableMap}
 import scala.collection.mutable
+import scala.concurrent.{ExecutionContext, Future}
+import scala.concurrent.duration.Duration
 import scala.util.control.NonFatal
 
 import org.apache.hadoop.fs.Path
@@ -48,7 +50,7 @@ import org.apache.spark.sql.execution.streaming.sources.{ForeachBatchSink, Write
 import org.apache.spark.sql.execution.streaming.state.{StateSchemaBroadcast, StateStoreErrors}
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.streaming.Trigger
-import org.apache.spark.util.{Clock, Utils}
+import org.apache.spark.util.{Clock, SparkThreadUtils, ThreadUtils, Utils}
 
 class MicroBatchExecution(
     sparkSession: SparkSession,
@@ -151,6 +153,24 @@ class MicroBatchExecution(
   // into every subsequent batch's query plan.
   private val stateSchemaMetadatas = MutableMap[Long, StateSchemaBroadcast]()
 
+  /**
+   * Whether the offset log entry of a batch is written while the batch is planned, and the
+   * commit log entry while the offsets of the next batch are fetched. The entries are written by
+   * a single thread in order, so the offsets of a batch are never written before the previous
+   * batch is committed, and a failed write fails all the later ones.
+   */
+  protected lazy val usePipelinedCheckpointWrites: Boolean =
+    sparkSession.sessionState.conf.streamingPipelinedCheckpointWritesEnabled
+
+  private val checkpointWriteExecutor = ExecutionContext.fromExecutorService(
+    ThreadUtils.newDaemonSingleThreadExecutor("pipelined-checkpoint-write"))
+
+  // The last checkpoint log write in flight, only accessed by the stream execution thread.
+  private var pendingCheckpointWrite: Future[Unit] = Future.unit
+
+  // Whether the cleanup of the last executed batch waits for the offsets of the current batch.
+  private var cleanUpPending = false
+
   override lazy val logicalPlan: LogicalPlan = {
     assert(queryExecutionThread eq Thread.currentThread,
       "logicalPlan must be initialized in QueryExecutionThread " +
@@ -329,6 +349,7 @@ class MicroBatchExecution(
     asyncLogPurgeShutdown()
     logInfo(log"Async log purge executor pool for query " +
       log"${MDC(LogKeys.PRETTY_ID_STRING, prettyIdString)} has been shutdown")
+    ThreadUtils.shutdown(checkpointWriteExecutor)
   }
 
   private def initializeExecution(
@@ -360,6 +381,7 @@ class MicroBatchExecution(
       sparkSessionForStream.sessionState.conf.streamingNoDataMicroBatchesEnabled
 
     triggerExecutor.execute(executeOneBatch(_, sparkSessionForStream, noDataBatchesEnabled))
+    awaitCheckpointWrites()
   }
 
   private def executeOneBatch(
@@ -711,32 +733,72 @@ class MicroBatchExecution(
       execCtx.reportTimeTaken("walCommit") {
         markMicroBatchStart(execCtx)
 
-        // NOTE: The following code is correct because runStream() processes exactly one
-        // batch at a time. If we add pipeline parallelism (multiple batches in flight at
-        // the same time), this cleanup logic will need to change.
-
-        // Now that we've updated the scheduler's persistent checkpoint, it is safe for the
-        // sources to discard data from the previous batch.
-        cleanUpLastExecutedMicroBatch(execCtx)
-
-        // It is now safe to discard the metadata beyond the minimum number to retain.
-        // Note that purge is exclusive, i.e. it purges everything before the target ID.
-        if (minLogEntriesToMaintain < execCtx.batchId) {
-          if (useAsyncPurge) {
-            purgeAsync(execCtx.batchId)
-          } else {
-            purge(execCtx.batchId - minLogEntriesToMaintain)
-          }
+        if (usePipelinedCheckpointWrites) {
+          // The offsets may not be written yet, see `awaitOffsetsAndCleanUp`.
+          cleanUpPending = true
+        } else {
+          cleanUpAfterOffsetsWritten(execCtx)
         }
       }
       noNewData = false
     } else {
+      // Make sure the last batch is committed before anyone waiting for it is notified.
+      awaitCheckpointWrites()
       noNewData = true
       awaitProgressLockCondition.signalAll()
     }
     shouldConstructNextBatch
   }
 
+  private def cleanUpAfterOffsetsWritten(execCtx: MicroBatchExecutionContext): Unit = {
+    // NOTE: The following code is correct because runStream() processes exactly one
+    // batch at a time. If we add pipeline parallelism (multiple batches in flight at
+    // the same time), this cleanup logic will need to change.
+
+    // Now that we've updated the scheduler's persistent checkpoint, it is safe for the
+    // sources to discard data from the previous batch.
+    cleanUpLastExecutedMicroBatch(execCtx)
+
+    // It is now safe to discard the metadata beyond the minimum number to retain.
+    // Note that purge is exclusive, i.e. it purges everything before the target ID.
+    if (minLogEntriesToMaintain < execCtx.batchId) {
+      if (useAsyncPurge) {
+        purgeAsync(execCtx.batchId)
+      } else {
+        purge(execCtx.batchId - minLogEntriesToMaintain)
+      }
+    }
+  }
+
+  /**
+   * Waits for the offsets of the current batch to be written, once the batch is planned, and
+   * cleans up the last executed batch, which [[constructNextBatch]] leaves for after the write
+   * when the writes are pipelined. Nothing is executed before the offsets are in the log.
+   */
+  private def awaitOffsetsAndCleanUp(execCtx: MicroBatchExecutionContext): Unit = {
+    if (cleanUpPending) {
+      execCtx.reportTimeTaken("walCommit") {
+        awaitCheckpointWrites()
+        cleanUpPending = false
+        cleanUpAfterOffsetsWritten(execCtx)
+      }
+    }
+  }
+
+  // Writes a checkpoint log entry after the pending writes, or right away if not pipelined.
+  private def writeCheckpointLog(write: => Unit): Unit = {
+    if (usePipelinedCheckpointWrites) {
+      pendingCheckpointWrite = pendingCheckpointWrite.map(_ => write)(checkpointWriteExecutor)
+    } else {
+      write
+    }
+  }
+
+  // Waits for the pending checkpoint log writes, throwing the error of a failed one.
+  private def awaitCheckpointWrites(): Unit = {
+    SparkThreadUtils.awaitResultNoSparkExceptionConversion(pendingCheckpointWrite, Duration.Inf)
+  }
+
   protected def commitSources(offsetSeq: OffsetSeq): Unit = {
     offsetSeq.toStreamProgress(sources).foreach {
       case (src: Source, off: Offset) => src.commit(off)
@@ -918,6 +980,8 @@ class MicroBatchExecution(
         isTerminatingTrigger = trigger.isInstanceOf[AvailableNowTrigger.type])
       execCtx.executionPlan.executedPlan // Force the lazy generation of execution plan
     }
+    awaitOffsetsAndCleanUp(execCtx)
+
     // Set up StateStore commit tracking before execution begins
     setupStateStoreCommitTracking(execCtx)
 
@@ -966,13 +1030,17 @@ class MicroBatchExecution(
    * checkpointing to offset log and any microbatch startup tasks.
    */
   protected def markMicroBatchStart(execCtx: MicroBatchExecutionContext): Unit = {
-    if (!offsetLog.add(execCtx.batchId,
-      execCtx.endOffsets.toOffsetSeq(sources, execCtx.offsetSeqMetadata))) {
-      throw QueryExecutionErrors.concurrentStreamLogUpdate(execCtx.batchId)
-    }
+    val batchId = execCtx.batchId
+    val offsetSeqMetadata = execCtx.offsetSeqMetadata
+    val offsetSeq = execCtx.endOffsets.toOffsetSeq(sources, offsetSeqMetadata)
+    writeCheckpointLog {
+      if (!offsetLog.add(batchId, offsetSeq)) {
+        throw QueryExecutionErrors.concurrentStreamLogUpdate(batchId)
+      }
 
-    logInfo(log"Committed offsets for batch ${MDC(LogKeys.BATCH_ID, execCtx.batchId)}. " +
-      log"Metadata ${MDC(LogKeys.OFFSET_SEQUENCE_METADATA, execCtx.offsetSeqMetadata.toString)}")
+      logInfo(log"Committed offsets for batch ${MDC(LogKeys.BATCH_ID, batchId)}. " +
+        log"Metadata ${MDC(LogKeys.OFFSET_SEQUENCE_METADATA, offsetSeqMetadata.toString)}")
+    }
   }
 
   /**
@@ -1085,9 +1153,12 @@ class MicroBatchExecution(
       } else {
         None
       }
-      if (!commitLog.add(execCtx.batchId,
-        CommitMetadata(watermarkTracker.currentWatermark, stateStoreCkptId))) {
-        throw QueryExecutionErrors.concurrentStreamLogUpdate(execCtx.batchId)
+      val batchId = execCtx.batchId
+      val commitMetadata = CommitMetadata(watermarkTracker.currentWatermark, stateStoreCkptId)
+      writeCheckpointLog {
+        if (!commitLog.add(batchId, commitMetadata)) {
+          throw QueryExecutionErrors.concurrentStreamLogUpdate(batchId)
+        }
       }
     }
     committedOffsets ++= execCtx.endOffsets
@@ -23,6 +23,8 @@ import scala.jdk.CollectionConverters._
 import org.apache.spark.SparkUnsupportedOperationException
 import org.apache.spark.sql.catalyst.expressions.{BoundReference, UnsafeProjection, UnsafeRow}
 import org.apache.spark.sql.types.{StructField, StructType}
+import org.apache.spark.unsafe.Platform
+import org.apache.spark.unsafe.array.ByteArrayMethods
 
 trait HDFSBackedStateStoreMap {
   def size(): Int
@@ -49,6 +51,22 @@ object HDFSBackedStateStoreMap {
       new NoPrefixHDFSBackedStateStoreMap()
     }
   }
+
+  /**
+   * Creates a map as [[create]] does, or a [[CompactHDFSBackedStateStoreMap]] if `compact` is
+   * true and the map is not prefix scannable.
+   */
+  def create(
+      keySchema: StructType,
+      valueSchema: StructType,
+      numColsPrefixKey: Int,
+      compact: Boolean): HDFSBackedStateStoreMap = {
+    if (compact && numColsPrefixKey == 0) {
+      new CompactHDFSBackedStateStoreMap(keySchema.length, valueSchema.length)
+    } else {
+      create(keySchema, numColsPrefixKey)
+    }
+  }
 }
 
 class NoPrefixHDFSBackedStateStoreMap extends HDFSBackedStateStoreMap {
@@ -168,3 +186,203 @@ class PrefixScannableHDFSBackedStateStoreMap(
       .map { key => unsafeRowPair.withRows(key, map.get(key)) }
   }
 }
+
+/**
+ * A [[HDFSBackedStateStoreMap]] that keeps each entry in a single byte array, with the size of
+ * the key in the first 8 bytes, followed by the bytes of the key and of the value, instead of two
+ * [[UnsafeRow]]s and a hash map node. The entries are in an open addressing hash table with linear
+ * probing.
+ *
+ * Entries are never modified once added, and the table is copied on write: `putAll` into an empty
+ * map shares the table of the other map until either is modified, so that consecutive versions of
+ * a state store share their unchanged entries, and `iterator` iterates over the table as of its
+ * call, so that the map can be modified while being iterated.
+ *
+ * The map may be read concurrently, but it should be modified by one thread at a time.
+ */
+class CompactHDFSBackedStateStoreMap(keyNumFields: Int, valueNumFields: Int)
+  extends HDFSBackedStateStoreMap {
+
+  import CompactHDFSBackedStateStoreMap._
+
+  @volatile private var table = new Table(new Array[Int](INITIAL_CAPACITY),
+    new Array[Array[Byte]](INITIAL_CAPACITY), 0)
+  // Whether `table` is shared with another map or an iterator, and should be copied before it is
+  // modified.
+  @volatile private var shared = false
+
+  override def size(): Int = table.size
+
+  override def get(key: UnsafeRow): UnsafeRow = {
+    val t = table
+    val slot = find(t, key, key.hashCode())
+    if (t.entries(slot) == null) null else valueOf(t.entries(slot))
+  }
+
+  override def put(key: UnsafeRow, value: UnsafeRow): UnsafeRow = {
+    val keySize = key.getSizeInBytes
+    val valueSize = value.getSizeInBytes
+    val entry = new Array[Byte](ENTRY_HEADER_SIZE + keySize + valueSize)
+    Platform.putInt(entry, Platform.BYTE_ARRAY_OFFSET, keySize)
+    Platform.copyMemory(key.getBaseObject, key.getBaseOffset,
+      entry, Platform.BYTE_ARRAY_OFFSET + ENTRY_HEADER_SIZE, keySize)
+    Platform.copyMemory(value.getBaseObject, value.getBaseOffset,
+      entry, Platform.BYTE_ARRAY_OFFSET + ENTRY_HEADER_SIZE + keySize, valueSize)
+    putEntry(entry, key.hashCode())
+  }
+
+  // Adds or replaces `entry`, and returns the value it replaces.
+  private def putEntry(entry: Array[Byte], hash: Int): UnsafeRow = {
+    val t = writableTable()
+    val slot = find(t, keyOf(entry), hash)
+    val prev = t.entries(slot)
+    t.entries(slot) = entry
+    t.hashes(slot) = hash
+    if (prev == null) {
+      t.size += 1
+      if (t.size > t.entries.length * MAX_LOAD_FACTOR) {
+        table = grow(t)
+      }
+      null
+    } else {
+      valueOf(prev)
+    }
+  }
+
+  override def putAll(other: HDFSBackedStateStoreMap): Unit = other match {
+    case o: CompactHDFSBackedStateStoreMap if table.size == 0 =>
+      o.shared = true
+      shared = true
+      table = o.table
+    case o: CompactHDFSBackedStateStoreMap =>
+      val t = o.table
+      var i = 0
+      while (i < t.entries.length) {
+        if (t.entries(i) != null) {
+          putEntry(t.entries(i), t.hashes(i))
+        }
+        i += 1
+      }
+    case _ => other.iterator().foreach { pair => put(pair.key, pair.value) }
+  }
+
+  override def remove(key: UnsafeRow): UnsafeRow = {
+    val slot = find(table, key, key.hashCode())
+    if (table.entries(slot) == null) {
+      null
+    } else {
+      // The copy of a shared table has the entries in the same slots.
+      val t = writableTable()
+      val prev = t.entries(slot)
+      deleteSlot(t, slot)
+      t.size -= 1
+      valueOf(prev)
+    }
+  }
+
+  override def iterator(): Iterator[UnsafeRowPair] = {
+    shared = true
+    val entries = table.entries
+    val unsafeRowPair = new UnsafeRowPair()
+    entries.iterator.filter(_ != null).map { entry =>
+      unsafeRowPair.withRows(keyOf(entry), valueOf(entry))
+    }
+  }
+
+  override def prefixScan(prefixKey: UnsafeRow): Iterator[UnsafeRowPair] = {
+    throw SparkUnsupportedOperationException()
+  }
+
+  private def writableTable(): Table = {
+    if (shared) {
+      table = table.copy()
+      shared = false
+    }
+    table
+  }
+
+  private def keyOf(entry: Array[Byte]): UnsafeRow = {
+    val row = new UnsafeRow(keyNumFields)
+    row.pointTo(entry, Platform.BYTE_ARRAY_OFFSET + ENTRY_HEADER_SIZE, keySizeOf(entry))
+    row
+  }
+
+  private def valueOf(entry: Array[Byte]): UnsafeRow = {
+    val keySize = keySizeOf(entry)
+    val row = new UnsafeRow(valueNumFields)
+    row.pointTo(entry, Platform.BYTE_ARRAY_OFFSET + ENTRY_HEADER_SIZE + keySize,
+      entry.length - ENTRY_HEADER_SIZE - keySize)
+    row
+  }
+}
+
+object CompactHDFSBackedStateStoreMap {
+
+  private val INITIAL_CAPACITY = 16
+  private val MAX_LOAD_FACTOR = 0.75
+  // The size of the key, padded so that the key and the value are word aligned.
+  private val ENTRY_HEADER_SIZE = 8
+
+  /** The hash table of the entries and of the hashes of their keys, with null free slots. */
+  private class Table(val hashes: Array[Int], val entries: Array[Array[Byte]], var size: Int) {
+    def copy(): Table = new Table(hashes.clone(), entries.clone(), size)
+  }
+
+  private def keySizeOf(entry: Array[Byte]): Int = {
+    Platform.getInt(entry, Platform.BYTE_ARRAY_OFFSET)
+  }
+
+  private def keyEquals(entry: Array[Byte], key: UnsafeRow): Boolean = {
+    keySizeOf(entry) == key.getSizeInBytes && ByteArrayMethods.arrayEquals(
+      entry, Platform.BYTE_ARRAY_OFFSET + ENTRY_HEADER_SIZE,
+      key.getBaseObject, key.getBaseOffset, key.getSizeInBytes)
+  }
+
+  // Returns the slot of the entry of `key`, or of the free slot to add it to.
+  private def find(t: Table, key: UnsafeRow, hash: Int): Int = {
+    val mask = t.entries.length - 1
+    var slot = hash & mask
+    while (t.entries(slot) != null &&
+        !(t.hashes(slot) == hash && keyEquals(t.entries(slot), key))) {
+      slot = (slot + 1) & mask
+    }
+    slot
+  }
+
+  private def grow(t: Table): Table = {
+    val capacity = t.entries.length * 2
+    val newTable = new Table(new Array[Int](capacity), new Array[Array[Byte]](capacity), t.size)
+    val mask = capacity - 1
+    var i = 0
+    while (i < t.entries.length) {
+      if (t.entries(i) != null) {
+        var slot = t.hashes(i) & mask
+        while (newTable.entries(slot) != null) {
+          slot = (slot + 1) & mask
+        }
+        newTable.entries(slot) = t.entries(i)
+        newTable.hashes(slot) = t.hashes(i)
+      }
+      i += 1
+    }
+    newTable
+  }
+
+  // Frees `slot`, moving back the following entries of its probe sequence into the free slots.
+  private def deleteSlot(t: Table, slot: Int): Unit = {
+    val mask = t.entries.length - 1
+    var free = slot
+    var i = (slot + 1) & mask
+    while (t.entries(i) != null) {
+      // The entry at `i` can move to `free` if its home slot is not cyclically in (free, i].
+      if (((i - t.hashes(i)) & mask) >= ((i - free) & mask)) {
+        t.entries(free) = t.entries(i)
+        t.hashes(free) = t.hashes(i)
+        free = i
+      }
+      i = (i + 1) & mask
+    }
+    t.entries(free) = null
+    t.hashes(free) = 0
+  }
+}
@@ -315,7 +315,7 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
       if (version < 0) {
         throw QueryExecutionErrors.unexpectedStateStoreVersion(version)
       }
-      val newMap = HDFSBackedStateStoreMap.create(keySchema, numColsPrefixKey)
+      val newMap = createMap()
       if (version > 0) {
         newMap.putAll(loadMap(version))
       }
@@ -550,6 +550,11 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
     loadedMaps.put(newVersion, map)
   }
 
+  private def createMap(): HDFSBackedStateStoreMap = {
+    HDFSBackedStateStoreMap.create(
+      keySchema, valueSchema, numColsPrefixKey, storeConf.compactHDFSBackedMapEnabled)
+  }
+
   /** Load the required version of the map data from the backing files */
   private def loadMap(version: Long): HDFSBackedStateStoreMap = {
 
@@ -586,7 +591,7 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
 
         if (lastAvailableVersion <= 0) {
           // Use an empty map for versions 0 or less.
-          lastAvailableMap = Some(HDFSBackedStateStoreMap.create(keySchema, numColsPrefixKey))
+          lastAvailableMap = Some(createMap())
         } else {
           lastAvailableMap =
             synchronized { Option(loadedMaps.get(lastAvailableVersion)) }
@@ -596,7 +601,7 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
 
       // Load all the deltas from the version after the last available one up to the target version.
       // The last available version is the one with a full snapshot, so it doesn't need deltas.
-      val resultMap = HDFSBackedStateStoreMap.create(keySchema, numColsPrefixKey)
+      val resultMap = createMap()
       resultMap.putAll(lastAvailableMap.get)
       for (deltaVersion <- lastAvailableVersion + 1 to version) {
         updateFromDeltaFile(deltaVersion, resultMap)
@@ -765,7 +770,7 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
   */
   private def readSnapshotFile(version: Long): Option[HDFSBackedStateStoreMap] = {
     val fileToRead = snapshotFile(version)
-    val map = HDFSBackedStateStoreMap.create(keySchema, numColsPrefixKey)
+    val map = createMap()
     var input: DataInputStream = null
 
     try {
@@ -1041,7 +1046,7 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
         throw QueryExecutionErrors.unexpectedStateStoreVersion(endVersion)
       }
 
-      val newMap = HDFSBackedStateStoreMap.create(keySchema, numColsPrefixKey)
+      val newMap = createMap()
       newMap.putAll(constructMapFromSnapshot(snapshotVersion, endVersion))
 
       newMap
@@ -1069,7 +1074,7 @@ private[sql] class HDFSBackedStateStoreProvider extends StateStoreProvider with
       }
 
       // Load all the deltas from the version after the start version up to the end version.
-      val resultMap = HDFSBackedStateStoreMap.create(keySchema, numColsPrefixKey)
+      val resultMap = createMap()
       resultMap.putAll(startVersionMap.get)
       for (deltaVersion <- snapshotVersion + 1 to endVersion) {
         updateFromDeltaFile(deltaVersion, resultMap)
@@ -18,6 +18,7 @@
 package org.apache.spark.sql.execution.streaming.state
 
 import java.io.File
+import java.nio.{ByteBuffer, ByteOrder}
 import java.util.Locale
 import java.util.Set
 import java.util.UUID
@@ -25,7 +26,7 @@ import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedQueue}
 import java.util.concurrent.atomic.{AtomicBoolean, AtomicInteger, AtomicLong}
 
 import scala.collection.{mutable, Map}
-import scala.jdk.CollectionConverters.ConcurrentMapHasAsScala
+import scala.jdk.CollectionConverters.{ConcurrentMapHasAsScala, SeqHasAsJava}
 import scala.util.Try
 import scala.util.control.NonFatal
 
@@ -149,7 +150,8 @@ class RocksDB(
       localTempDir,
       hadoopConf,
       codecName,
-      loggingId = loggingId
+      loggingId = loggingId,
+      numFileTransferThreads = conf.numFileTransferThreads
     )
   }
 
@@ -905,6 +907,39 @@ class RocksDB(
     db.get(readOptions, keyWithPrefix)
   }
 
+  /**
+   * Get the values for the given keys, or nulls for the keys that are not present, with one
+   * native call.
+   * @note This will return the last written values even if they were uncommitted.
+   */
+  def multiGet(
+      keys: Array[Array[Byte]],
+      cfName: String = StateStore.DEFAULT_COL_FAMILY_NAME): Array[Array[Byte]] = {
+    updateMemoryUsageIfNeeded()
+    val keysWithPrefix = if (useColumnFamilies) {
+      keys.map(encodeStateRowWithPrefix(_, cfName))
+    } else {
+      keys
+    }
+    multiGetWithPrefix(keysWithPrefix)
+  }
+
+  // Looks up the keys in the order of their bytes, so that the lookups of adjacent keys share
+  // the data blocks they read.
+  private def multiGetWithPrefix(keysWithPrefix: Array[Array[Byte]]): Array[Array[Byte]] = {
+    val order = keysWithPrefix.indices.sortWith { (i, j) =>
+      java.util.Arrays.compareUnsigned(keysWithPrefix(i), keysWithPrefix(j)) < 0
+    }
+    val values = db.multiGetAsList(readOptions, order.map(keysWithPrefix(_)).asJava)
+    val result = new Array[Array[Byte]](keysWithPrefix.length)
+    var i = 0
+    while (i < order.length) {
+      result(order(i)) = values.get(i)
+      i += 1
+    }
+    result
+  }
+
   /**
    * Function to check if value exists for a key or not depending on the operation type.
    * @param oldValue - old value for the key
@@ -983,6 +1018,53 @@ class RocksDB(
     changelogWriter.foreach(_.put(keyWithPrefix, value))
   }
 
+  /**
+   * Put the given values for the given keys, as `put` does for each pair of them, with one write
+   * to RocksDB.
+   * @note These updates are not committed to disk until commit() is called.
+   */
+  def putAll(
+      keys: Array[Array[Byte]],
+      values: Array[Array[Byte]],
+      cfName: String = StateStore.DEFAULT_COL_FAMILY_NAME): Unit = {
+    updateMemoryUsageIfNeeded()
+    val keysWithPrefix = if (useColumnFamilies) {
+      keys.map(encodeStateRowWithPrefix(_, cfName))
+    } else {
+      keys
+    }
+
+    if (conf.trackTotalNumberOfRows) {
+      val oldValues = multiGetWithPrefix(keysWithPrefix)
+      // A key put more than once is new only once.
+      val newKeys = new java.util.HashSet[ByteBuffer]
+      var i = 0
+      while (i < keysWithPrefix.length) {
+        if (oldValues(i) == null) newKeys.add(ByteBuffer.wrap(keysWithPrefix(i)))
+        i += 1
+      }
+      if (useColumnFamilies && getColumnFamilyInfo(cfName).isInternal) {
+        numInternalKeysOnWritingVersion += newKeys.size
+      } else {
+        numKeysOnWritingVersion += newKeys.size
+      }
+    }
+
+    val writeBatch = new WriteBatch(RocksDB.serializeWriteBatch(keysWithPrefix, values))
+    try {
+      db.write(writeOptions, writeBatch)
+    } finally {
+      writeBatch.close()
+    }
+    changelogWriter.foreach { writer =>
+      var i = 0
+      while (i < keysWithPrefix.length) {
+        writer.put(keysWithPrefix(i), values(i))
+        i += 1
+      }
+    }
+  }
+
   /**
    * Merge the given value for the given key. This is equivalent to the Atomic
    * Read-Modify-Write operation in RocksDB, known as the "Merge" operation. The
@@ -1740,6 +1822,51 @@ object RocksDB extends Logging {
 
   /** Records the duration of running `body` for the next query progress update. */
   private def timeTakenMs(body: => Unit): Long = Utils.timeTakenMs(body)._2
+
+  // The type of the records of the puts in the default column family of a write batch.
+  private val WRITE_BATCH_VALUE_TYPE: Byte = 0x1
+
+  /**
+   * Serializes the puts of `values` for `keys` in the format of a RocksDB write batch: a header
+   * of the 8-byte sequence number and the 4-byte number of records, and a record per put of its
+   * type and of its key and value prefixed with their varint32 lengths. A write batch created
+   * from the serialized bytes is passed to RocksDB in one native call, unlike one that is built
+   * with a native call per put.
+   */
+  private[state] def serializeWriteBatch(
+      keys: Array[Array[Byte]],
+      values: Array[Array[Byte]]): Array[Byte] = {
+    require(keys.length == values.length, "The numbers of keys and values must be equal")
+    def varint32Size(n: Int): Int = (38 - Integer.numberOfLeadingZeros(n | 1)) / 7
+    def putVarint32(buffer: ByteBuffer, n: Int): Unit = {
+      var v = n
+      while ((v & ~0x7f) != 0) {
+        buffer.put(((v & 0x7f) | 0x80).toByte)
+        v >>>= 7
+      }
+      buffer.put(v.toByte)
+    }
+
+    var size = 12L
+    var i = 0
+    while (i < keys.length) {
+      size += 1 + varint32Size(keys(i).length) + keys(i).length +
+        varint32Size(values(i).length) + values(i).length
+      i += 1
+    }
+    val buffer = ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN)
+    buffer.putLong(0L).putInt(keys.length)
+    i = 0
+    while (i < keys.length) {
+      buffer.put(WRITE_BATCH_VALUE_TYPE)
+      putVarint32(buffer, keys(i).length)
+      buffer.put(keys(i))
+      putVarint32(buffer, values(i).length)
+      buffer.put(values(i))
+      i += 1
+    }
+    buffer.array()
+  }
 }
 
 // uniquely identifies a Snapshot. Multiple snapshots created for same version will
@@ -1953,7 +2080,8 @@ case class RocksDBConf(
     compressionCodec: String,
     allowFAllocate: Boolean,
     compression: String,
-    reportSnapshotUploadLag: Boolean)
+    reportSnapshotUploadLag: Boolean,
+    numFileTransferThreads: Int = 1)
 
 object RocksDBConf {
   /** Common prefix of all confs in SQLConf that affects RocksDB */
@@ -2054,6 +2182,13 @@ object RocksDBConf {
   val COMPRESSION_KEY = "compression"
   private val COMPRESSION_CONF = SQLConfEntry(COMPRESSION_KEY, "lz4")
 
+  // Number of threads that copy the SST and log files of a snapshot from and to DFS. Copying the
+  // files of large snapshots concurrently shortens uploads and the loads of state stores on new
+  // executors, e.g. after an executor is lost.
+  val NUM_FILE_TRANSFER_THREADS_CONF_KEY = "numFileTransferThreads"
+  private val NUM_FILE_TRANSFER_THREADS_CONF =
+    SQLConfEntry(NUM_FILE_TRANSFER_THREADS_CONF_KEY, "1")
+
   def apply(storeConf: StateStoreConf): RocksDBConf = {
     val sqlConfs = CaseInsensitiveMap[String](storeConf.sqlConfs)
     val extraConfs = CaseInsensitiveMap[String](storeConf.extraOptions)
@@ -2144,7 +2279,8 @@ object RocksDBConf {
       storeConf.compressionCodec,
       getBooleanConf(ALLOW_FALLOCATE_CONF),
       getStringConf(COMPRESSION_CONF),
-      storeConf.reportSnapshotUploadLag)
+      storeConf.reportSnapshotUploadLag,
+      getPositiveIntConf(NUM_FILE_TRANSFER_THREADS_CONF))
   }
 
   def apply(): RocksDBConf = apply(new StateStoreConf())
@@ -43,7 +43,7 @@ import org.apache.spark.io.CompressionCodec
 import org.apache.spark.sql.errors.QueryExecutionErrors
 import org.apache.spark.sql.execution.streaming.checkpointing.CheckpointFileManager
 import org.apache.spark.util.ArrayImplicits._
-import org.apache.spark.util.Utils
+import org.apache.spark.util.{ThreadUtils, Utils}
 
 /**
  * Class responsible for syncing RocksDB checkpoint files from local disk to DFS.
@@ -115,6 +115,7 @@ import org.apache.spark.util.Utils
  *   atomically update the [version].zip.
  * - Immutable files are identified uniquely based on their file name and file size.
  * - Immutable files can be reused only across adjacent checkpoints/versions.
+ * - Immutable files are copied from and to DFS by up to `numFileTransferThreads` threads.
  * - This class is thread-safe. Specifically, it is safe to concurrently delete old files from a
  *   different thread than the task thread saving files.
  *
@@ -122,13 +123,15 @@ import org.apache.spark.util.Utils
  * @param localTempDir Local directory for temporary work
  * @param hadoopConf   Hadoop configuration for talking to DFS
  * @param loggingId    Id that will be prepended in logs for isolating concurrent RocksDBs
+ * @param numFileTransferThreads Number of immutable files copied concurrently
  */
 class RocksDBFileManager(
     dfsRootDir: String,
     localTempDir: File,
     hadoopConf: Configuration,
     codecName: String = CompressionCodec.ZSTD,
-    loggingId: String = "")
+    loggingId: String = "",
+    numFileTransferThreads: Int = 1)
   extends Logging {
 
   import RocksDBImmutableFile._
@@ -712,36 +715,34 @@ class RocksDBFileManager(
     logInfo(log"Saving RocksDB files to DFS for version ${MDC(LogKeys.VERSION_NUM, version)} " +
       log"uniqueId: ${MDC(LogKeys.UUID, checkpointUniqueId.getOrElse(""))}")
 
-    var bytesCopied = 0L
-    var filesCopied = 0L
-    var filesReused = 0L
-
-    val immutableFiles = localFiles.map { localFile =>
+    val (reusedFiles, filesToCopy) = localFiles.partition { localFile =>
       val dfsFileMapping = fileMappings.get(localFile.getName)
       assert(dfsFileMapping.isDefined)
-      val dfsFile = dfsFileMapping.get.immutableFile
-      val existsInDfs = dfsFileMapping.get.isUploaded
-
-      if (existsInDfs) {
-        logInfo(log"reusing file ${MDC(LogKeys.DFS_FILE, dfsFile)} for " +
-          log"${MDC(LogKeys.FILE_NAME, localFile)}")
-        filesReused += 1
-      } else {
-        // Note: The implementation of copyFromLocalFile() closes the output stream when there is
-        // any exception while copying. So this may generate partial files on DFS. But that is
-        // okay because until the main [version].zip file is written, those partial files are
-        // not going to be used at all. Eventually these files should get cleared.
-        fs.copyFromLocalFile(
-          new Path(localFile.getAbsoluteFile.toURI), dfsFilePath(dfsFile.dfsFileName))
-        val localFileSize = localFile.length()
-        logInfo(log"Copied ${MDC(LogKeys.FILE_NAME, localFile)} to " +
-          log"${MDC(LogKeys.DFS_FILE, dfsFile)} - ${MDC(LogKeys.NUM_BYTES, localFileSize)} bytes")
-        filesCopied += 1
-        bytesCopied += localFileSize
-      }
-
-      dfsFile
+      dfsFileMapping.get.isUploaded
+    }
+    reusedFiles.foreach { localFile =>
+      val dfsFile = fileMappings(localFile.getName).immutableFile
+      logInfo(log"reusing file ${MDC(LogKeys.DFS_FILE, dfsFile)} for " +
+        log"${MDC(LogKeys.FILE_NAME, localFile)}")
     }
+    val copiedFileSizes = transferFiles(filesToCopy) { localFile =>
+      val dfsFile = fileMappings(localFile.getName).immutableFile
+      // Note: The implementation of copyFromLocalFile() closes the output stream when there is
+      // any exception while copying. So this may generate partial files on DFS. But that is
+      // okay because until the main [version].zip file is written, those partial files are
+      // not going to be used at all. Eventually these files should get cleared.
+      fs.copyFromLocalFile(
+        new Path(localFile.getAbsoluteFile.toURI), dfsFilePath(dfsFile.dfsFileName))
+      val localFileSize = localFile.length()
+      logInfo(log"Copied ${MDC(LogKeys.FILE_NAME, localFile)} to " +
+        log"${MDC(LogKeys.DFS_FILE, dfsFile)} - ${MDC(LogKeys.NUM_BYTES, localFileSize)} bytes")
+      localFileSize
+    }
+    val bytesCopied = copiedFileSizes.sum
+    val filesCopied = filesToCopy.size.toLong
+    val filesReused = reusedFiles.size.toLong
+
+    val immutableFiles = localFiles.map(localFile => fileMappings(localFile.getName).immutableFile)
     logInfo(log"Copied ${MDC(LogKeys.NUM_FILES_COPIED, filesCopied)} files " +
       log"(${MDC(LogKeys.NUM_BYTES, bytesCopied)} bytes) from local to" +
       log" DFS for version ${MDC(LogKeys.VERSION_NUM, version)}. " +
@@ -805,35 +806,36 @@ class RocksDBFileManager(
           log"incompatible with versionToLoad ${MDC(VERSION_NUM, version)}")
     }
 
-    var filesCopied = 0L
-    var bytesCopied = 0L
-    var filesReused = 0L
-    immutableFiles.foreach { file =>
-      val localFileName = file.localFileName
-      val localFile = localFilePath(localDir, localFileName)
-      if (!localFile.exists) {
-        val dfsFile = dfsFilePath(file.dfsFileName)
-        // Note: The implementation of copyToLocalFile() closes the output stream when there is
-        // any exception while copying. So this may generate partial files on DFS. But that is
-        // okay because until the main [version].zip file is written, those partial files are
-        // not going to be used at all. Eventually these files should get cleared.
-        fs.copyToLocalFile(dfsFile, new Path(localFile.getAbsoluteFile.toURI))
-        val localFileSize = localFile.length()
-        val expectedSize = file.sizeBytes
-        if (localFileSize != expectedSize) {
-          throw QueryExecutionErrors.unexpectedFileSize(dfsFile, localFile, expectedSize,
-            localFileSize)
-        }
-        filesCopied += 1
-        bytesCopied += localFileSize
-        rocksDBFileMapping.mapToDfsFile(localFileName, file, version)
-        logInfo(log"Copied ${MDC(LogKeys.DFS_FILE, dfsFile)} to " +
-          log"${MDC(LogKeys.FILE_NAME, localFile)} - " +
-          log"${MDC(LogKeys.NUM_BYTES, localFileSize)} bytes")
-      } else {
-        filesReused += 1
+    val (reusedFiles, filesToCopy) = immutableFiles.partition { file =>
+      localFilePath(localDir, file.localFileName).exists
+    }
+    val copiedFileSizes = transferFiles(filesToCopy) { file =>
+      val localFile = localFilePath(localDir, file.localFileName)
+      val dfsFile = dfsFilePath(file.dfsFileName)
+      // Note: The implementation of copyToLocalFile() closes the output stream when there is
+      // any exception while copying. So this may generate partial files on DFS. But that is
+      // okay because until the main [version].zip file is written, those partial files are
+      // not going to be used at all. Eventually these files should get cleared.
+      fs.copyToLocalFile(dfsFile, new Path(localFile.getAbsoluteFile.toURI))
+      val localFileSize = localFile.length()
+      val expectedSize = file.sizeBytes
+      if (localFileSize != expectedSize) {
+        throw QueryExecutionErrors.unexpectedFileSize(dfsFile, localFile, expectedSize,
+          localFileSize)
       }
+      logInfo(log"Copied ${MDC(LogKeys.DFS_FILE, dfsFile)} to " +
+        log"${MDC(LogKeys.FILE_NAME, localFile)} - " +
+        log"${MDC(LogKeys.NUM_BYTES, localFileSize)} bytes")
+      localFileSize
     }
+    // The files are mapped once all of them are copied, so that the partial files of a failed
+    // load are deleted by the next one.
+    filesToCopy.foreach { file =>
+      rocksDBFileMapping.mapToDfsFile(file.localFileName, file, version)
+    }
+    val filesCopied = filesToCopy.size.toLong
+    val bytesCopied = copiedFileSizes.sum
+    val filesReused = reusedFiles.size.toLong
     logInfo(log"Copied ${MDC(LogKeys.NUM_FILES_COPIED, filesCopied)} files " +
       log"(${MDC(LogKeys.NUM_BYTES, bytesCopied)} bytes) from DFS to local with " +
       log"${MDC(LogKeys.NUM_FILES_REUSED, filesReused)} files reused.")
@@ -844,6 +846,23 @@ class RocksDBFileManager(
       filesReused = filesReused)
   }
 
+  /**
+   * Applies `copy` to each of `files`, running up to `numFileTransferThreads` copies at a time,
+   * and returns the results in the order of `files`.
+   */
+  private def transferFiles[T, R](files: Seq[T])(copy: T => R): Seq[R] = {
+    if (numFileTransferThreads <= 1 || files.size <= 1) {
+      files.map(copy)
+    } else {
+      try {
+        ThreadUtils.parmap(files, "rocksdb-file-transfer", numFileTransferThreads)(copy)
+      } catch {
+        // Rethrow the error of the failed copy, as the sequential copy does.
+        case e: SparkException if e.getCause != null => throw e.getCause
+      }
+    }
+  }
+
   /** Get the SST files required for a version from the version zip file in DFS */
   private def getImmutableFilesFromVersionZip(
       version: Long, checkpointUniqueId: Option[String] = None): Seq[RocksDBImmutableFile] = {
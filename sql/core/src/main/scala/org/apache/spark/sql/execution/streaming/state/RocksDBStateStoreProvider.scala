@@ -251,6 +251,27 @@ private[sql] class RocksDBStateStoreProvider
       value
     }
 
+    override def multiGet(keys: Array[UnsafeRow], colFamilyName: String): Array[UnsafeRow] = {
+      validateAndTransitionState(UPDATE)
+      keys.foreach(key => verify(key != null, "Key cannot be null"))
+      verifyColFamilyOperations("multiGet", colFamilyName)
+
+      val kvEncoder = keyValueEncoderMap.get(colFamilyName)
+      val values = rocksDB.multiGet(keys.map(kvEncoder._1.encodeKey), colFamilyName).map { bytes =>
+        val value = kvEncoder._2.decodeValue(bytes)
+        if (value == null) null else value.copy()
+      }
+
+      if (!isValidated && !useColumnFamilies) {
+        keys.indices.find(values(_) != null).foreach { i =>
+          StateStoreProvider.validateStateRowFormat(
+            keys(i), keySchema, values(i), valueSchema, stateStoreId, storeConf)
+          isValidated = true
+        }
+      }
+      values
+    }
+
     /**
      * Provides an iterator containing all values of a non-null key.
      *
@@ -305,6 +326,22 @@ private[sql] class RocksDBStateStoreProvider
       rocksDB.put(kvEncoder._1.encodeKey(key), kvEncoder._2.encodeValue(value), colFamilyName)
     }
 
+    override def putAll(
+        keys: Array[UnsafeRow],
+        values: Array[UnsafeRow],
+        colFamilyName: String): Unit = {
+      validateAndTransitionState(UPDATE)
+      verify(state == UPDATING, "Cannot put after already committed or aborted")
+      require(keys.length == values.length, "The numbers of keys and values must be equal")
+      keys.foreach(key => verify(key != null, "Key cannot be null"))
+      values.foreach(value => require(value != null, "Cannot put a null value"))
+      verifyColFamilyOperations("putAll", colFamilyName)
+
+      val kvEncoder = keyValueEncoderMap.get(colFamilyName)
+      rocksDB.putAll(
+        keys.map(kvEncoder._1.encodeKey), values.map(kvEncoder._2.encodeValue), colFamilyName)
+    }
+
     override def remove(key: UnsafeRow, colFamilyName: String): Unit = {
       validateAndTransitionState(UPDATE)
       verify(state == UPDATING, "Cannot remove after already committed or aborted")
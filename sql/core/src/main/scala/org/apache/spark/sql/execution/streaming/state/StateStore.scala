@@ -114,6 +114,20 @@ trait ReadStateStore {
       key: UnsafeRow,
       colFamilyName: String = StateStore.DEFAULT_COL_FAMILY_NAME): UnsafeRow
 
+  /**
+   * Get the current values of non-null keys, in the order of the keys. Unlike the rows returned
+   * by `get`, the returned rows are not reused.
+   * @return the rows of the keys that exist in the store, and nulls for the other keys.
+   */
+  def multiGet(
+      keys: Array[UnsafeRow],
+      colFamilyName: String = StateStore.DEFAULT_COL_FAMILY_NAME): Array[UnsafeRow] = {
+    keys.map { key =>
+      val value = get(key, colFamilyName)
+      if (value == null) null else value.copy()
+    }
+  }
+
   /**
    * Provides an iterator containing all values of a non-null key. If key does not exist,
    * an empty iterator is returned. Implementations should make sure to return an empty
@@ -207,6 +221,22 @@ trait StateStore extends ReadStateStore {
       value: UnsafeRow,
       colFamilyName: String = StateStore.DEFAULT_COL_FAMILY_NAME): Unit
 
+  /**
+   * Put new non-null values for non-null keys, as `put` does for each pair of `keys` and
+   * `values`, which implementations may write at once.
+   */
+  def putAll(
+      keys: Array[UnsafeRow],
+      values: Array[UnsafeRow],
+      colFamilyName: String = StateStore.DEFAULT_COL_FAMILY_NAME): Unit = {
+    require(keys.length == values.length, "The numbers of keys and values must be equal")
+    var i = 0
+    while (i < keys.length) {
+      put(keys(i), values(i), colFamilyName)
+      i += 1
+    }
+  }
+
   /**
    * Remove a single non-null key.
    */
@@ -282,6 +312,9 @@ class WrappedReadStateStore(store: StateStore) extends ReadStateStore {
     colFamilyName: String = StateStore.DEFAULT_COL_FAMILY_NAME): UnsafeRow = store.get(key,
     colFamilyName)
 
+  override def multiGet(keys: Array[UnsafeRow], colFamilyName: String): Array[UnsafeRow] =
+    store.multiGet(keys, colFamilyName)
+
   override def iterator(colFamilyName: String = StateStore.DEFAULT_COL_FAMILY_NAME)
     : StateStoreIterator[UnsafeRowPair] = store.iterator(colFamilyName)
 
@@ -62,6 +62,9 @@ class StateStoreConf(
   /** Maximum count of versions a State Store implementation should retain in memory */
   val maxVersionsToRetainInMemory: Int = sqlConf.maxBatchesToRetainInMemory
 
+  /** Whether the HDFS-backed State Store keeps its entries in compact maps. */
+  val compactHDFSBackedMapEnabled: Boolean = sqlConf.stateStoreCompactHDFSBackedMapEnabled
+
   /**
    * Optional fully qualified name of the subclass of [[StateStoreProvider]]
    * managing state data. That is, the implementation of the State Store to use.
@@ -90,6 +93,9 @@ class StateStoreConf(
   /** Whether to skip null values for hash based stream-stream joins. */
   val skipNullsForStreamStreamJoins: Boolean = sqlConf.stateStoreSkipNullsForStreamStreamJoins
 
+  /** The number of keys that stateful operators look up or update at once. */
+  val accessBatchSize: Int = sqlConf.stateStoreAccessBatchSize
+
   /** The compression codec used to compress delta and snapshot files. */
   val compressionCodec: String = sqlConf.stateStoreCompressionCodec
 
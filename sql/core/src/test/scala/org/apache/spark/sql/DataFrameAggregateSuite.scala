@@ -3302,6 +3302,34 @@ class DataFrameAggregateSuite extends QueryTest
       .groupBy($"col1").agg(max("col1"))
     checkAnswer(df, Seq(Row(1, 1)))
   }
+
+  test("hash aggregate with keys hashed by wyhash spills and falls back to sort") {
+    val df = spark.range(0, 10000, 1, 2)
+      .select(($"id" % 1000).as("k"), concat(lit("key-"), $"id" % 1000).as("s"), $"id")
+    val expected = (0L until 1000L).map(k => Row(k, s"key-$k", 10L, 10L * k + 45000))
+    val configurations = Seq(
+      // The generated code of the hash aggregate.
+      Seq.empty[(String, String)],
+      // The generated code spills its map into sorters that are merged, then sorts.
+      Seq("spark.sql.TungstenAggregate.testFallbackStartsAt" -> "2, 3"),
+      // TungstenAggregationIterator switches to sort-based aggregation.
+      Seq(SQLConf.WHOLESTAGE_CODEGEN_ENABLED.key -> "false",
+        "spark.sql.TungstenAggregate.testFallbackStartsAt" -> "2, 3"))
+    withSQLConf(SQLConf.HASH_TABLE_KEY_HASH_FUNCTION.key -> "wyhash") {
+      configurations.foreach { conf =>
+        withSQLConf(conf: _*) {
+          val agg = df.groupBy($"k", $"s").agg(count($"id"), sum($"id"))
+          checkAnswer(agg, expected)
+          val aggregates = collect(agg.queryExecution.executedPlan) {
+            case h: HashAggregateExec => h
+          }
+          assert(aggregates.nonEmpty)
+          val numTasksFallBacked = aggregates.map(_.metrics("numTasksFallBacked").value).sum
+          assert((numTasksFallBacked > 0) === conf.nonEmpty)
+        }
+      }
+    }
+  }
 }
 
 case class B(c: Option[Double])
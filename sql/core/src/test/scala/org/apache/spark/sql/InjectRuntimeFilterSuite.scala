@@ -17,11 +17,11 @@
 
 package org.apache.spark.sql
 
-import org.apache.spark.sql.catalyst.expressions.{Alias, BloomFilterMightContain, Literal}
+import org.apache.spark.sql.catalyst.expressions.{Alias, BloomFilterMightContain, Literal, RangeMightContain}
 import org.apache.spark.sql.catalyst.expressions.aggregate.{AggregateExpression, BloomFilterAggregate}
 import org.apache.spark.sql.catalyst.optimizer.MergeScalarSubqueries
 import org.apache.spark.sql.catalyst.plans.logical.{Aggregate, Filter, LogicalPlan}
-import org.apache.spark.sql.execution.{ReusedSubqueryExec, SubqueryExec}
+import org.apache.spark.sql.execution.{FileSourceScanExec, FilterExec, ReusedSubqueryExec, SubqueryExec}
 import org.apache.spark.sql.execution.adaptive.{AdaptiveSparkPlanHelper, AQEPropagateEmptyRelation}
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.test.{SharedSparkSession, SQLTestUtils}
@@ -580,4 +580,42 @@ class InjectRuntimeFilterSuite extends QueryTest with SQLTestUtils with SharedSp
         "Missing or unexpected reused ReusedSubqueryExec in the plan")
     }
   }
+
+  test("Runtime min/max filter join: skip row groups and pages by statistics") {
+    withTempPath { dir =>
+      val path = dir.getCanonicalPath
+      spark.range(0, 200000, 1, 1).selectExpr("id AS k", "id % 7 AS v")
+        .write.option("parquet.block.size", 16 * 1024).parquet(s"$path/fact")
+      spark.range(0, 10000).selectExpr("id * 20 AS k2", "id AS d").write.parquet(s"$path/dim")
+      Seq(("10", "d < 100"), ("0", "d < 100"), ("10", "d IN (100, 5000)")).foreach {
+        case (maxInSetSize, condition) =>
+          withSQLConf(SQLConf.RUNTIME_BLOOM_FILTER_APPLICATION_SIDE_SCAN_SIZE_THRESHOLD.key -> "1KB",
+            SQLConf.AUTO_BROADCASTJOIN_THRESHOLD.key -> "-1",
+            SQLConf.RUNTIME_BLOOM_FILTER_ENABLED.key -> "false",
+            SQLConf.RUNTIME_MIN_MAX_FILTER_MAX_IN_SET_SIZE.key -> maxInSetSize) {
+            def scannedFactRows(enabled: Boolean): (Array[Row], Long) = {
+              withSQLConf(SQLConf.RUNTIME_MIN_MAX_FILTER_ENABLED.key -> enabled.toString) {
+                val fact = spark.read.parquet(s"$path/fact")
+                val dim = spark.read.parquet(s"$path/dim").where(condition)
+                val df = fact.join(dim, fact("k") === dim("k2"))
+                val rows = df.collect()
+                val plan = df.queryExecution.executedPlan
+                assert(collectWithSubqueries(plan) {
+                  case f: FilterExec => f.condition.collect { case r: RangeMightContain => r }
+                }.flatten.size == (if (enabled) 1 else 0))
+                val factRows = collect(plan) {
+                  case s: FileSourceScanExec if s.output.exists(_.name == "k") =>
+                    s.metrics("numOutputRows").value
+                }
+                (rows, factRows.sum)
+              }
+            }
+            val (expected, rowsScannedWithout) = scannedFactRows(enabled = false)
+            val (actual, rowsScannedWith) = scannedFactRows(enabled = true)
+            assert(actual.map(_.toString).sorted === expected.map(_.toString).sorted)
+            assert(rowsScannedWith < rowsScannedWithout / 5)
+          }
+      }
+    }
+  }
 }
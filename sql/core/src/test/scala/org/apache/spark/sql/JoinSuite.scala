@@ -1566,6 +1566,51 @@ class JoinSuite extends QueryTest with SharedSparkSession with AdaptiveSparkPlan
     }
   }
 
+  test("Radix partitioned broadcast and shuffled hash join") {
+    val df1 = spark.range(3000).selectExpr("id % 1000 AS k1", "CAST(id AS STRING) AS s1")
+    val df2 = spark.range(5000)
+      .selectExpr("id % 2000 AS k2", "CAST(id % 2000 AS STRING) AS s2", "id AS v2")
+    val joinExprs = Seq(
+      $"k1" === $"k2",
+      $"s1" === $"s2",
+      $"k1" === $"k2" && $"s1" =!= $"v2".cast("string"))
+    Seq(("BROADCAST", classOf[BroadcastHashJoinExec]),
+        ("SHUFFLE_HASH", classOf[ShuffledHashJoinExec])).foreach { case (hint, joinClass) =>
+      joinExprs.foreach { joinExpr =>
+        Seq("inner", "left", "left_semi", "left_anti").foreach { joinType =>
+          val expected = df1.join(df2.hint(hint), joinExpr, joinType).collect()
+          withSQLConf(
+            SQLConf.RADIX_PARTITIONED_HASH_JOIN_ENABLED.key -> "true",
+            SQLConf.RADIX_PARTITIONED_HASH_JOIN_PARTITION_SIZE.key -> "1KB") {
+            val df = df1.join(df2.hint(hint), joinExpr, joinType)
+            val plan = df.queryExecution.executedPlan
+            assert(collect(plan) {
+              case j if j.getClass == joinClass => j
+            }.size == 1)
+            checkAnswer(df, expected.toSeq)
+          }
+        }
+      }
+    }
+  }
+
+  test("Shuffled hash join with spill enabled") {
+    val df1 = spark.range(3000).selectExpr("id % 1000 AS k1", "CAST(id AS STRING) AS s1")
+      .union(spark.range(3).selectExpr("CAST(NULL AS BIGINT)", "'null'"))
+    val df2 = spark.range(5000).selectExpr("id % 2000 AS k2", "id AS v2")
+      .union(spark.range(3).selectExpr("CAST(NULL AS BIGINT)", "-1"))
+    Seq("inner", "left", "right", "full", "left_semi", "left_anti").foreach { joinType =>
+      val expected = df1.join(df2, $"k1" === $"k2", joinType).collect()
+      withSQLConf(SQLConf.SHUFFLED_HASH_JOIN_SPILL_ENABLED.key -> "true") {
+        val df = df1.join(df2.hint("SHUFFLE_HASH"), $"k1" === $"k2", joinType)
+        val plan = df.queryExecution.executedPlan
+        val joins = collect(plan) { case j: ShuffledHashJoinExec => j }
+        assert(joins.size == 1 && !joins.head.supportCodegen)
+        checkAnswer(df, expected.toSeq)
+      }
+    }
+  }
+
   test("SPARK-36794: Ignore duplicated key when building relation for semi/anti hash join") {
     withTable("t1", "t2") {
       spark.range(10).map(i => (i.toString, i + 1)).toDF("c1", "c2").write.saveAsTable("t1")
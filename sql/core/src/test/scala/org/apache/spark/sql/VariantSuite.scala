@@ -27,7 +27,7 @@ import scala.util.Random
 
 import org.apache.spark.SparkRuntimeException
 import org.apache.spark.sql.catalyst.expressions.{CodegenObjectFactoryMode, ExpressionEvalHelper, Literal}
-import org.apache.spark.sql.catalyst.expressions.variant.{VariantExpressionEvalUtils, VariantGet}
+import org.apache.spark.sql.catalyst.expressions.variant.{ParseJsonEvaluator, VariantExpressionEvalUtils, VariantGet}
 import org.apache.spark.sql.catalyst.util.{ArrayBasedMapData, DateTimeUtils, GenericArrayData}
 import org.apache.spark.sql.errors.QueryExecutionErrors.toSQLId
 import org.apache.spark.sql.execution.WholeStageCodegenExec
@@ -83,6 +83,34 @@ class VariantSuite extends QueryTest with SharedSparkSession with ExpressionEval
     assert(actual.getString(1) == """{"b":[{"c":"str2"}]}""")
   }
 
+  test("parse_json with a reused builder") {
+    // The variant with 40000 keys makes the builder replace its dictionary table on reset.
+    val inputs = Seq("""{"a": 1, "b": [true, {"c": "x"}]}""", null, """{"b": 2, "a": {"b": 3}}""",
+      """{"a": 1, "a": 2}""", "[", """[{"k": 1}, {"k": 2.5}]""",
+      (0 until 300).map(i => s""""k$i": [$i]""").mkString("{", ",", "}"),
+      (0 until 40000).map(i => s""""k$i": $i""").mkString("{", ",", "}"), """{"k1": 0}""")
+    def bytes(v: VariantVal): Option[(Seq[Byte], Seq[Byte])] =
+      Option(v).map(v => (v.getValue.toSeq, v.getMetadata.toSeq))
+    Seq(false, true).foreach { allowDuplicateKeys =>
+      val expected = inputs.map { input =>
+        if (input == null) {
+          null
+        } else {
+          VariantExpressionEvalUtils.parseJson(
+            UTF8String.fromString(input), allowDuplicateKeys, failOnError = false)
+        }
+      }
+      val evaluator = ParseJsonEvaluator(allowDuplicateKeys, failOnError = false)
+      // The second pass is parsed with the buffers and dictionary table left by the first one.
+      for (_ <- 0 until 2) {
+        val actual = inputs.map { input =>
+          if (input == null) null else evaluator.evaluate(UTF8String.fromString(input))
+        }
+        assert(actual.map(bytes) == expected.map(bytes))
+      }
+    }
+  }
+
   test("expression alias") {
     val df = Seq("""{ "a" : 1 }""", """{ "b" : 2 }""").toDF("json")
     val v = parse_json(col("json"))
@@ -20,7 +20,7 @@ package org.apache.spark.sql.execution
 import scala.util.Random
 
 import org.apache.spark.rdd.RDD
-import org.apache.spark.sql.{Dataset, Row}
+import org.apache.spark.sql.{DataFrame, Dataset, QueryTest, Row}
 import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions.{Alias, Literal}
 import org.apache.spark.sql.catalyst.plans.physical.{HashPartitioning, IdentityBroadcastMode, SinglePartition}
@@ -134,6 +134,82 @@ class ExchangeSuite extends SparkPlanTest with SharedSparkSession {
     assertThrows[RanColumnar](reused.executeColumnar())
   }
 
+  test("Shuffle columnar batches as Arrow record batches") {
+    withTempPath { path =>
+      spark.range(0, 10000, 1, 4).selectExpr("id % 100 AS k", "id AS v",
+        "IF(id % 7 = 0, NULL, CAST(id AS STRING)) AS s", "CAST(id AS DECIMAL(20, 2)) AS d",
+        "array(id, NULL) AS a", "map(CAST(id AS STRING), id) AS m",
+        "named_struct('x', id, 'y', DATE'2020-01-01') AS st")
+        .write.parquet(path.getCanonicalPath)
+      val queries = Seq[() => DataFrame](
+        () => spark.read.parquet(path.getCanonicalPath).repartition(5, $"k"),
+        () => spark.read.parquet(path.getCanonicalPath).repartition(1))
+      Seq("true", "false").foreach { aqe =>
+        Seq("zstd", "none").foreach { codec =>
+          withSQLConf(
+              SQLConf.ADAPTIVE_EXECUTION_ENABLED.key -> aqe,
+              SQLConf.COLUMNAR_SHUFFLE_MAX_RECORDS_PER_BATCH.key -> "100",
+              SQLConf.COLUMNAR_SHUFFLE_COMPRESSION_CODEC.key -> codec) {
+            queries.foreach { query =>
+              val expected = withSQLConf(SQLConf.COLUMNAR_SHUFFLE_ENABLED.key -> "false") {
+                query().collect()
+              }
+              withSQLConf(SQLConf.COLUMNAR_SHUFFLE_ENABLED.key -> "true") {
+                val df = query()
+                QueryTest.checkAnswer(df, expected.toSeq)
+                if (aqe == "false") {
+                  val plan = df.queryExecution.executedPlan
+                  val exchange = plan.collectFirst { case e: ShuffleExchangeExec => e }.get
+                  assert(exchange.supportsColumnar)
+                  assert(exchange.metrics("numRows").value == 10000)
+                  assert(plan.exists(_.isInstanceOf[ColumnarToRowExec]))
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  test("Shuffle the rows of row-based children as rows") {
+    withSQLConf(SQLConf.COLUMNAR_SHUFFLE_ENABLED.key -> "true",
+        SQLConf.ADAPTIVE_EXECUTION_ENABLED.key -> "false") {
+      val df = spark.range(0, 100).selectExpr("id % 10 AS k").groupBy("k").count()
+      QueryTest.checkAnswer(df, (0L until 10L).map(Row(_, 10L)))
+      val plan = df.queryExecution.executedPlan
+      assert(plan.collect { case e: ShuffleExchangeExec => e }.forall(!_.supportsColumnar))
+      assert(!plan.exists(_.isInstanceOf[RowToColumnarExec]))
+    }
+  }
+
+  test("Hash the keys of columnar shuffles to the partitions of the row shuffle") {
+    withTempPath { path =>
+      spark.range(0, 10000, 1, 4).selectExpr("id % 100 AS k",
+        "IF(id % 7 = 0, NULL, CAST(id AS STRING)) AS s", "CAST(id / 3 AS DECIMAL(20, 2)) AS d",
+        "IF(id % 5 = 0, -0.0D, id / 7D) AS x", "array(id) AS a")
+        .write.parquet(path.getCanonicalPath)
+      withSQLConf(SQLConf.ADAPTIVE_EXECUTION_ENABLED.key -> "false") {
+        // The array keys are hashed by the row projection.
+        Seq(Seq($"k"), Seq($"k", $"s", $"d", $"x"), Seq($"s", $"a")).foreach { keys =>
+          val query = () => spark.read.parquet(path.getCanonicalPath).repartition(7, keys: _*)
+            .selectExpr("k", "s", "d", "x", "spark_partition_id() AS p")
+          val expected = withSQLConf(SQLConf.COLUMNAR_SHUFFLE_ENABLED.key -> "false") {
+            query().collect()
+          }
+          withSQLConf(SQLConf.COLUMNAR_SHUFFLE_ENABLED.key -> "true") {
+            val df = query()
+            assert(df.queryExecution.executedPlan.exists {
+              case e: ShuffleExchangeExec => e.supportsColumnar
+              case _ => false
+            })
+            QueryTest.checkAnswer(df, expected.toSeq)
+          }
+        }
+      }
+    }
+  }
+
   test("SPARK-23207: Make repartition() generate consistent output") {
     def assertConsistency(ds: Dataset[java.lang.Long]): Unit = {
       ds.persist()
@@ -134,6 +134,26 @@ class SortSuite extends SparkPlanTest with SharedSparkSession {
     }
   }
 
+  test("sorting by collation keys of ICU collated strings") {
+    val words = Seq("a", "A", "b", "B", "\u00e4", "\u00c4", "ab", "aB", "z", "", " ", null)
+    val inputData = Seq.tabulate(1000)(i => Row(words(Random.nextInt(words.size)), i))
+    Seq("UNICODE", "UNICODE_CI", "UNICODE_CI_AI_RTRIM", "DE_CI").foreach { collation =>
+      val inputDf = spark.createDataFrame(
+        sparkContext.parallelize(inputData),
+        StructType(StructField("s", StringType(collation)) :: StructField("i", IntegerType) :: Nil))
+      Seq($"s".asc :: $"i".asc :: Nil, $"s".desc_nullsFirst :: $"i".desc :: Nil).foreach {
+        sortOrder =>
+          withSQLConf(SQLConf.SORT_BY_COLLATION_KEYS_ENABLED.key -> "true") {
+            checkThatPlansAgree(
+              inputDf,
+              p => SortExec(sortOrder, global = true, p: SparkPlan, testSpillFrequency = 23),
+              ReferenceSort(sortOrder, global = true, _: SparkPlan),
+              sortAnswers = false)
+          }
+      }
+    }
+  }
+
   // Test sorting on different data types
   for (
     dataType <- DataTypeTestUtils.atomicTypes ++ Set(NullType);
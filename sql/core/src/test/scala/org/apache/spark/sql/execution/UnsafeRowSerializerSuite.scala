@@ -28,8 +28,9 @@ import org.apache.spark.rdd.RDD
 import org.apache.spark.shuffle.sort.io.LocalDiskShuffleExecutorComponents
 import org.apache.spark.sql.{LocalSparkSession, Row, SparkSession}
 import org.apache.spark.sql.catalyst.{CatalystTypeConverters, InternalRow}
-import org.apache.spark.sql.catalyst.expressions.{UnsafeProjection, UnsafeRow}
-import org.apache.spark.sql.execution.metric.SQLShuffleReadMetricsReporter
+import org.apache.spark.sql.catalyst.expressions.{CompactUnsafeRowFormat, UnsafeProjection, UnsafeRow}
+import org.apache.spark.sql.execution.metric.{SQLMetric, SQLShuffleReadMetricsReporter}
+import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.types._
 import org.apache.spark.util.collection.ExternalSorter
 
@@ -89,6 +90,65 @@ class UnsafeRowSerializerSuite extends SparkFunSuite with LocalSparkSession {
     assert(input.closed)
   }
 
+  test("compact row serialization") {
+    val schema = new StructType()
+      .add("i", IntegerType, nullable = false)
+      .add("s", ShortType, nullable = false)
+      .add("l", LongType)
+    val rows = (0 until 100).map(i => Row(i, (i * 3).toShort, if (i % 7 == 0) null else -i.toLong))
+    val unsafeRows = rows.map(row => toUnsafeRow(row, schema.map(_.dataType).toArray).copy())
+    val format = CompactUnsafeRowFormat.create(schema)
+    assert(format.sizeInBytes === 1 + 4 + 2 + 8)
+    val dataSize = new SQLMetric("size")
+    val compactDataSize = new SQLMetric("size")
+    val serializer =
+      new UnsafeRowSerializer(3, dataSize, format, compactDataSize).newInstance()
+    val baos = new ByteArrayOutputStream()
+    val serializerStream = serializer.serializeStream(baos)
+    for (unsafeRow <- unsafeRows) {
+      serializerStream.writeKey(0)
+      serializerStream.writeValue(unsafeRow)
+    }
+    serializerStream.close()
+    assert(baos.size() === unsafeRows.length * format.sizeInBytes)
+    // The data size is the size of the rows in memory, which AQE plans with.
+    assert(dataSize.value === unsafeRows.map(_.getSizeInBytes.toLong).sum)
+    assert(compactDataSize.value === baos.size())
+
+    val input = new ClosableByteArrayInputStream(baos.toByteArray)
+    val deserializerIter = serializer.deserializeStream(input).asKeyValueIterator
+    for (expectedRow <- unsafeRows) {
+      val actualRow = deserializerIter.next().asInstanceOf[(Integer, UnsafeRow)]._2
+      assert(actualRow === expectedRow)
+    }
+    assert(!deserializerIter.hasNext)
+    assert(input.closed)
+
+    val deserializerStream =
+      serializer.deserializeStream(new ByteArrayInputStream(baos.toByteArray))
+    for (expectedRow <- unsafeRows) {
+      deserializerStream.readKey[Int]()
+      assert(deserializerStream.readValue[UnsafeRow]() === expectedRow)
+    }
+    deserializerStream.close()
+
+    val emptyInput = new ClosableByteArrayInputStream(Array.empty)
+    assert(!serializer.deserializeStream(emptyInput).asKeyValueIterator.hasNext)
+    assert(emptyInput.closed)
+  }
+
+  test("shuffle the rows of fixed-width types in the compact format") {
+    val conf = new SparkConf()
+      .set(SQLConf.COMPACT_ROW_SHUFFLE_ENABLED.key, "true")
+      .set(SHUFFLE_SORT_BYPASS_MERGE_THRESHOLD, 0)
+    spark = SparkSession.builder().master("local").appName("test").config(conf).getOrCreate()
+    val df = spark.range(0, 10000, 1, 4).selectExpr("CAST(id % 100 AS INT) AS k",
+      "CAST(id AS SHORT) AS s", "IF(id % 3 = 0, NULL, id) AS l", "DATE'2024-01-01' + k AS d")
+    val expected = df.collect().toSet
+    assert(df.repartition(7, df("k")).collect().toSet === expected)
+    assert(df.groupBy("k").count().collect().map(_.getLong(1)).toSet === Set(100L))
+  }
+
   test("close empty input stream") {
     val input = new ClosableByteArrayInputStream(Array.empty)
     val serializer = new UnsafeRowSerializer(numFields = 2).newInstance()
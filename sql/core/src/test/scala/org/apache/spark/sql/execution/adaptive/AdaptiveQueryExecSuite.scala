@@ -2756,6 +2756,46 @@ class AdaptiveQueryExecSuite
     }
   }
 
+  test("Optimize skewed join by the number of rows of the shuffle partitions") {
+    withSQLConf(
+      SQLConf.ADAPTIVE_EXECUTION_ENABLED.key -> "true",
+      SQLConf.AUTO_BROADCASTJOIN_THRESHOLD.key -> "-1",
+      SQLConf.COALESCE_PARTITIONS_ENABLED.key -> "false",
+      SQLConf.SKEW_JOIN_SKEWED_PARTITION_THRESHOLD.key -> "100MB",
+      SQLConf.ADVISORY_PARTITION_SIZE_IN_BYTES.key -> "100",
+      SQLConf.SHUFFLE_PARTITIONS.key -> "10") {
+      withTempView("skewData1", "skewData2") {
+        // Key 0 has many narrow rows and the other keys have fewer wide rows, so that the
+        // partition of key 0 is skewed by its number of rows but not by its size.
+        spark
+          .range(0, 20000, 1, 20)
+          .selectExpr("0L as key1", "'' as value1")
+          .union(spark.range(0, 9000, 1, 10).selectExpr(
+            "id % 9 + 1 as key1", "repeat(sha2(cast(id as string), 256), 2) as value1"))
+          .createOrReplaceTempView("skewData1")
+        spark
+          .range(0, 10)
+          .selectExpr("id as key2", "id as value2")
+          .createOrReplaceTempView("skewData2")
+
+        Seq(false, true).foreach { enabled =>
+          withSQLConf(SQLConf.ADAPTIVE_SHUFFLE_KEY_STATISTICS_ENABLED.key -> enabled.toString) {
+            val (_, adaptivePlan) = runAdaptiveAndVerifyResult(
+              "SELECT key1, value1, value2 FROM skewData1 JOIN skewData2 ON key1 = key2")
+            val smj = findTopLevelSortMergeJoin(adaptivePlan)
+            assert(smj.size == 1 && smj.head.isSkewJoin == enabled)
+            // The distinct counts of the join keys are column statistics of the query stages.
+            val distinctCounts = collect(adaptivePlan) {
+              case s: ShuffleQueryStageExec =>
+                s.computeStats().get.attributeStats.values.flatMap(_.distinctCount)
+            }.flatten
+            assert(distinctCounts == (if (enabled) Seq(BigInt(10), BigInt(10)) else Nil))
+          }
+        }
+      }
+    }
+  }
+
   test("SPARK-38162: Optimize one row plan in AQE Optimizer") {
     withTempView("v") {
       spark.sparkContext.parallelize(
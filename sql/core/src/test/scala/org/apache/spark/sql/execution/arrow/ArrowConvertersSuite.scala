@@ -34,10 +34,12 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions.UnsafeProjection
 import org.apache.spark.sql.catalyst.util.DateTimeUtils
 import org.apache.spark.sql.classic.DataFrame
+import org.apache.spark.sql.execution.vectorized.{OffHeapColumnVector, OnHeapColumnVector, WritableColumnVector}
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.test.SharedSparkSession
-import org.apache.spark.sql.types.{ArrayType, BinaryType, Decimal, IntegerType, NullType, StringType, StructField, StructType}
+import org.apache.spark.sql.types.{ArrayType, BinaryType, BooleanType, Decimal, DoubleType, IntegerType, LongType, NullType, StringType, StructField, StructType}
 import org.apache.spark.sql.util.ArrowUtils
+import org.apache.spark.sql.vectorized.{ColumnarBatch, ColumnVector}
 import org.apache.spark.unsafe.types.UTF8String
 import org.apache.spark.util.Utils
 
@@ -1992,4 +1994,72 @@ class ArrowConvertersSuite extends SharedSparkSession {
     arrowRoot.close()
     allocator.close()
   }
+
+  test("columnar batches to arrow batches") {
+    val schema = new StructType()
+      .add("i", IntegerType)
+      .add("l", LongType)
+      .add("b", BooleanType)
+      .add("d", DoubleType)
+      .add("s", StringType)
+    val ctx = TaskContext.empty()
+
+    def isNull(rowId: Int, ordinal: Int): Boolean = (rowId + ordinal) % 3 == 0
+
+    // Batch sizes that are not multiples of 8 so that the bulk copy of nulls and booleans into
+    // Arrow bitmaps starts at unaligned offsets.
+    val batchSizes = Seq(7, 13, 21)
+    var firstRowId = 0
+    val batches = batchSizes.map { numRows =>
+      val columns = Array[WritableColumnVector](
+        new OffHeapColumnVector(numRows, IntegerType),
+        new OffHeapColumnVector(numRows, LongType),
+        new OffHeapColumnVector(numRows, BooleanType),
+        new OffHeapColumnVector(numRows, DoubleType),
+        new OnHeapColumnVector(numRows, StringType))
+      (0 until numRows).foreach { i =>
+        val rowId = firstRowId + i
+        columns.zipWithIndex.foreach { case (column, ordinal) =>
+          if (isNull(rowId, ordinal)) {
+            column.putNull(i)
+          } else {
+            ordinal match {
+              case 0 => column.putInt(i, rowId)
+              case 1 => column.putLong(i, rowId * 10L)
+              case 2 => column.putBoolean(i, rowId % 2 == 0)
+              case 3 => column.putDouble(i, rowId / 2.0)
+              case 4 => column.putByteArray(i, rowId.toString.getBytes)
+            }
+          }
+        }
+      }
+      firstRowId += numRows
+      val batch = new ColumnarBatch(columns.toArray[ColumnVector])
+      batch.setNumRows(numRows)
+      batch
+    }
+
+    try {
+      val arrowBatches = ArrowConverters.toBatchIteratorFromColumnar(
+        batches.iterator, schema, 8, null, true, false, ctx).toArray
+      assert(arrowBatches.length == 6)
+
+      val proj = UnsafeProjection.create(schema)
+      val rows = ArrowConverters.fromBatchIterator(
+        arrowBatches.iterator, schema, null, true, false, ctx).map(proj(_).copy()).toArray
+      assert(rows.length == batchSizes.sum)
+      rows.zipWithIndex.foreach { case (row, rowId) =>
+        (0 until 5).foreach { ordinal =>
+          assert(row.isNullAt(ordinal) == isNull(rowId, ordinal))
+        }
+        if (!isNull(rowId, 0)) assert(row.getInt(0) == rowId)
+        if (!isNull(rowId, 1)) assert(row.getLong(1) == rowId * 10L)
+        if (!isNull(rowId, 2)) assert(row.getBoolean(2) == (rowId % 2 == 0))
+        if (!isNull(rowId, 3)) assert(row.getDouble(3) == rowId / 2.0)
+        if (!isNull(rowId, 4)) assert(row.getUTF8String(4).toString == rowId.toString)
+      }
+    } finally {
+      batches.foreach(_.close())
+    }
+  }
 }
@@ -22,7 +22,7 @@ import org.apache.spark.benchmark.{Benchmark, BenchmarkBase}
 import org.apache.spark.sql.catalyst.expressions.Murmur3HashFunction
 import org.apache.spark.sql.catalyst.util.{CollationFactory, CollationSupport}
 import org.apache.spark.sql.types.StringType
-import org.apache.spark.unsafe.types.UTF8String
+import org.apache.spark.unsafe.types.{UTF8String, UTF8StringSearcher}
 
 abstract class CollationBenchmarkBase extends BenchmarkBase {
   protected val collationTypes: Seq[String] =
@@ -132,6 +132,43 @@ abstract class CollationBenchmarkBase extends BenchmarkBase {
     benchmark.run(relativeTime = true)
   }
 
+  def benchmarkSubstringSearch(utf8Strings: Seq[UTF8String]): Unit = {
+    // Long strings made of the inputs, searched for a short and a long (Two-Way) substring that
+    // they do not contain.
+    val separator = UTF8String.fromString(" ")
+    val strings = utf8Strings.grouped(40).map(UTF8String.concatWs(separator, _: _*)).toSeq
+    val substrings = Seq("token", "ABC DEF GHI JKL MNO PQR STU VWX YZ").map(UTF8String.fromString)
+    substrings.foreach { substring =>
+      val searcher = new UTF8StringSearcher(substring)
+      val benchmark = new Benchmark(
+        s"substring search - ${substring.numBytes} bytes",
+        strings.size * 100,
+        warmupTime = 10.seconds,
+        output = output)
+      benchmark.addCase("UTF8String.contains") { _ =>
+        (0 until 100).foreach { _ =>
+          strings.foreach(_.contains(substring))
+        }
+      }
+      benchmark.addCase("UTF8StringSearcher.containedIn") { _ =>
+        (0 until 100).foreach { _ =>
+          strings.foreach(searcher.containedIn)
+        }
+      }
+      benchmark.addCase("UTF8String.indexOf") { _ =>
+        (0 until 100).foreach { _ =>
+          strings.foreach(_.indexOf(substring, 1))
+        }
+      }
+      benchmark.addCase("UTF8StringSearcher.indexOf") { _ =>
+        (0 until 100).foreach { _ =>
+          strings.foreach(searcher.indexOf(_, 1))
+        }
+      }
+      benchmark.run(relativeTime = true)
+    }
+  }
+
   def benchmarkStartsWith(
       collationTypes: Seq[String],
       utf8Strings: Seq[UTF8String]): Unit = {
@@ -188,6 +225,63 @@ abstract class CollationBenchmarkBase extends BenchmarkBase {
     benchmark.run(relativeTime = true)
   }
 
+  def benchmarkLocate(
+      collationTypes: Seq[String],
+      utf8Strings: Seq[UTF8String]): Unit = {
+    val sublistStrings = utf8Strings
+
+    val benchmark = new Benchmark(
+      "collation unit benchmarks - locate",
+      utf8Strings.size * 10,
+      warmupTime = 10.seconds,
+      output = output)
+    collationTypes.foreach { collationType => {
+      val collationId = CollationFactory.collationNameToId(collationType)
+      benchmark.addCase(s"$collationType") { _ =>
+        sublistStrings.foreach { s1 =>
+          utf8Strings.foreach { s =>
+            (0 to 3).foreach { _ =>
+              CollationSupport.StringLocate.exec(
+                s, s1, 0, collationId
+              )
+            }
+          }
+        }
+      }
+    }
+    }
+    benchmark.run(relativeTime = true)
+  }
+
+  def benchmarkReplace(
+      collationTypes: Seq[String],
+      utf8Strings: Seq[UTF8String]): Unit = {
+    val sublistStrings = utf8Strings
+    val replacement = UTF8String.fromString("_")
+
+    val benchmark = new Benchmark(
+      "collation unit benchmarks - replace",
+      utf8Strings.size * 10,
+      warmupTime = 10.seconds,
+      output = output)
+    collationTypes.foreach { collationType => {
+      val collationId = CollationFactory.collationNameToId(collationType)
+      benchmark.addCase(s"$collationType") { _ =>
+        sublistStrings.foreach { s1 =>
+          utf8Strings.foreach { s =>
+            (0 to 3).foreach { _ =>
+              CollationSupport.StringReplace.exec(
+                s, s1, replacement, collationId
+              )
+            }
+          }
+        }
+      }
+    }
+    }
+    benchmark.run(relativeTime = true)
+  }
+
   def benchmarkInitCap(
       collationTypes: Seq[String],
       utf8Strings: Seq[UTF8String]): Unit = {
@@ -261,8 +355,11 @@ object CollationBenchmark extends CollationBenchmarkBase {
     benchmarkUTFStringCompare(collationTypes, inputs)
     benchmarkUTFStringHashFunction(collationTypes, inputs)
     benchmarkContains(collationTypes, inputs)
+    benchmarkSubstringSearch(inputs)
     benchmarkStartsWith(collationTypes, inputs)
     benchmarkEndsWith(collationTypes, inputs)
+    benchmarkLocate(collationTypes, inputs)
+    benchmarkReplace(collationTypes, inputs)
     benchmarkInitCap(collationTypes, inputs)
   }
 }
@@ -293,6 +390,8 @@ object CollationNonASCIIBenchmark extends CollationBenchmarkBase {
     benchmarkContains(collationTypes, inputs)
     benchmarkStartsWith(collationTypes, inputs)
     benchmarkEndsWith(collationTypes, inputs)
+    benchmarkLocate(collationTypes, inputs)
+    benchmarkReplace(collationTypes, inputs)
     benchmarkInitCap(collationTypes, inputs)
   }
 }
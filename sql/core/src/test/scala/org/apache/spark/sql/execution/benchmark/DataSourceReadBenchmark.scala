@@ -193,6 +193,12 @@ object DataSourceReadBenchmark extends SqlBasedBenchmark {
           spark.sql(s"SELECT $query FROM orcTable").noop()
         }
 
+        sqlBenchmark.addCase("SQL ORC Vectorized (Direct Decoding Enabled)") { _ =>
+          withSQLConf(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED.key -> "true") {
+            spark.sql(s"SELECT $query FROM orcTable").noop()
+          }
+        }
+
         sqlBenchmark.addCase("SQL ORC MR") { _ =>
           withSQLConf(SQLConf.ORC_VECTORIZED_READER_ENABLED.key -> "false") {
             spark.sql(s"SELECT $query FROM orcTable").noop()
@@ -459,6 +465,12 @@ object DataSourceReadBenchmark extends SqlBasedBenchmark {
           spark.sql("SELECT sum(c1), sum(length(c2)) FROM orcTable").noop()
         }
 
+        benchmark.addCase("SQL ORC Vectorized (Direct Decoding Enabled)") { _ =>
+          withSQLConf(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED.key -> "true") {
+            spark.sql("SELECT sum(c1), sum(length(c2)) FROM orcTable").noop()
+          }
+        }
+
         benchmark.addCase("SQL ORC MR") { _ =>
           withSQLConf(SQLConf.ORC_VECTORIZED_READER_ENABLED.key -> "false") {
             spark.sql("SELECT sum(c1), sum(length(c2)) FROM orcTable").noop()
@@ -508,6 +520,12 @@ object DataSourceReadBenchmark extends SqlBasedBenchmark {
           spark.sql("select sum(length(c1)) from orcTable").noop()
         }
 
+        benchmark.addCase("SQL ORC Vectorized (Direct Decoding Enabled)") { _ =>
+          withSQLConf(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED.key -> "true") {
+            spark.sql("select sum(length(c1)) from orcTable").noop()
+          }
+        }
+
         benchmark.addCase("SQL ORC MR") { _ =>
           withSQLConf(SQLConf.ORC_VECTORIZED_READER_ENABLED.key -> "false") {
             spark.sql("select sum(length(c1)) from orcTable").noop()
@@ -716,6 +734,77 @@ object DataSourceReadBenchmark extends SqlBasedBenchmark {
     }
   }
 
+  def intWithNullsScanBenchmark(values: Int, fractionOfNulls: Double): Unit = {
+    val percentageOfNulls = fractionOfNulls * 100
+    val benchmark =
+      new Benchmark(s"Int with Nulls Scan ($percentageOfNulls%)", values, output = output)
+
+    withTempPath { dir =>
+      withTempTable("t1", "parquetTable") {
+        spark.range(values).createOrReplaceTempView("t1")
+        val df = spark.sql(
+          s"SELECT IF(RAND(1) < $fractionOfNulls, NULL, CAST(id % 1000 as INT)) AS c1 FROM t1")
+
+        // Definition levels are always RLE/bit-packed hybrid encoded, while the values use a
+        // different encoding per case.
+        val encodings = Seq(
+          ("PLAIN", ParquetProperties.WriterVersion.PARQUET_1_0, false),
+          ("RLE_DICTIONARY", ParquetProperties.WriterVersion.PARQUET_1_0, true),
+          ("DELTA_BINARY_PACKED", ParquetProperties.WriterVersion.PARQUET_2_0, false))
+        encodings.foreach { case (encoding, writerVersion, dictionary) =>
+          val path = new File(dir, encoding).getCanonicalPath
+          df.write
+            .option(ParquetOutputFormat.WRITER_VERSION, writerVersion.toString)
+            .option(ParquetOutputFormat.ENABLE_DICTIONARY, dictionary)
+            .parquet(path)
+
+          benchmark.addCase(s"SQL Parquet Vectorized: $encoding") { _ =>
+            spark.read.parquet(path).createOrReplaceTempView("parquetTable")
+            spark.sql("SELECT SUM(c1) FROM parquetTable WHERE c1 IS NOT NULL").noop()
+          }
+        }
+
+        benchmark.run()
+      }
+    }
+  }
+
+  def smallFilesScanBenchmark(numFiles: Int, rowsPerFile: Int): Unit = {
+    val benchmark = new Benchmark(
+      s"Scan $numFiles files of $rowsPerFile rows, one task per file",
+      numFiles.toLong * rowsPerFile,
+      output = output)
+
+    withTempPath { dir =>
+      withTempTable("t1", "parquetTable") {
+        spark.range(numFiles.toLong * rowsPerFile).createOrReplaceTempView("t1")
+        spark.sql("SELECT CAST(id AS INT) AS c1, id AS c2, CAST(id AS DOUBLE) AS c3, " +
+          "CAST(id AS STRING) AS c4 FROM t1")
+          .repartition(numFiles)
+          .write.parquet(dir.getCanonicalPath)
+        spark.read.parquet(dir.getCanonicalPath).createOrReplaceTempView("parquetTable")
+
+        Seq(false, true).foreach { offHeap =>
+          Seq(false, true).foreach { pooled =>
+            val memoryMode = if (offHeap) "off-heap" else "on-heap"
+            val pool = if (pooled) "pooled vectors" else "new vectors"
+            benchmark.addCase(s"SQL Parquet Vectorized: $memoryMode, $pool") { _ =>
+              withSQLConf(
+                  SQLConf.FILES_MAX_PARTITION_BYTES.key -> "1MB",
+                  SQLConf.FILES_OPEN_COST_IN_BYTES.key -> "1MB",
+                  SQLConf.COLUMN_VECTOR_OFFHEAP_ENABLED.key -> offHeap.toString,
+                  SQLConf.COLUMN_VECTOR_POOL_ENABLED.key -> pooled.toString) {
+                spark.sql("SELECT sum(c1), sum(c2), sum(c3), max(c4) FROM parquetTable").noop()
+              }
+            }
+          }
+        }
+
+        benchmark.run()
+      }
+    }
+  }
+
   def columnsBenchmark(values: Int, width: Int): Unit = {
     val benchmark = new Benchmark(
       s"Single Column Scan from $width columns",
@@ -797,6 +886,14 @@ object DataSourceReadBenchmark extends SqlBasedBenchmark {
         stringWithNullsScanBenchmark(1024 * 1024 * 10, fractionOfNulls)
       }
     }
+    runBenchmark("Int with Nulls Scan") {
+      for (fractionOfNulls <- List(0.0, 0.10, 0.50, 0.95)) {
+        intWithNullsScanBenchmark(1024 * 1024 * 10, fractionOfNulls)
+      }
+    }
+    runBenchmark("Scan of Many Small Files") {
+      smallFilesScanBenchmark(2000, 100)
+    }
     runBenchmark("Single Column Scan From Wide Columns") {
       for (columnWidth <- List(10, 50, 100)) {
         columnsBenchmark(1024 * 1024 * 1, columnWidth)
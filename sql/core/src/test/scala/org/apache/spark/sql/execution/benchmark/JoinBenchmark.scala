@@ -17,6 +17,7 @@
 
 package org.apache.spark.sql.execution.benchmark
 
+import org.apache.spark.benchmark.Benchmark
 import org.apache.spark.sql.execution.joins._
 import org.apache.spark.sql.functions._
 import org.apache.spark.sql.internal.SQLConf
@@ -165,6 +166,36 @@ object JoinBenchmark extends SqlBasedBenchmark {
     }
   }
 
+  def radixPartitionedHashJoin(): Unit = {
+    val N: Long = 16 << 20
+    // Build sides of 16 bytes per row, from 1MB to 4GB. The hashed relation of the 4GB build
+    // side takes about 14GB, so the driver and the executor need a heap of at least 32GB.
+    Seq(1 << 16, 1 << 22, 1 << 26, 1 << 28).foreach { M =>
+      Seq(
+        "BROADCAST" -> classOf[BroadcastHashJoinExec],
+        "SHUFFLE_HASH" -> classOf[ShuffledHashJoinExec]).foreach { case (hint, joinClass) =>
+        val benchmark = new Benchmark(
+          s"${joinClass.getSimpleName} w ${M.toLong * 16 >> 20}MB build side", N, output = output)
+        Seq(false, true).foreach { radix =>
+          benchmark.addCase(s"radix partitioned $radix", numIters = 2) { _ =>
+            withSQLConf(
+              SQLConf.SHUFFLE_PARTITIONS.key -> "1",
+              SQLConf.AUTO_BROADCASTJOIN_THRESHOLD.key -> "-1",
+              SQLConf.PREFER_SORTMERGEJOIN.key -> "false",
+              SQLConf.RADIX_PARTITIONED_HASH_JOIN_ENABLED.key -> radix.toString) {
+              val df = spark.range(N).selectExpr(s"id * 7 % ${M * 2L} as k1")
+                .join(spark.range(M).selectExpr("id * 2 as k2").hint(hint),
+                  col("k1") === col("k2"))
+              assert(df.queryExecution.sparkPlan.exists(joinClass.isInstance))
+              df.noop()
+            }
+          }
+        }
+        benchmark.run()
+      }
+    }
+  }
+
   def broadcastNestedLoopJoin(): Unit = {
     val N = 20 << 20
     val M = 1 << 4
@@ -189,6 +220,7 @@ object JoinBenchmark extends SqlBasedBenchmark {
       sortMergeJoin()
       sortMergeJoinWithDuplicates()
       shuffleHashJoin()
+      radixPartitionedHashJoin()
       broadcastNestedLoopJoin()
     }
   }
@@ -19,6 +19,7 @@ package org.apache.spark.sql.execution.benchmark
 
 import org.apache.spark.benchmark.Benchmark
 import org.apache.spark.sql.SparkSession
+import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.util.collection.Utils.createArray
 
 /**
@@ -46,6 +47,9 @@ object PrimitiveArrayBenchmark extends SqlBasedBenchmark {
     runBenchmark("Write primitive arrays in dataset") {
       writeDatasetArray(4)
     }
+    runBenchmark("Apply lambda functions to primitive arrays") {
+      applyLambdaFunctions()
+    }
   }
 
   def writeDatasetArray(iters: Int): Unit = {
@@ -82,4 +86,35 @@ object PrimitiveArrayBenchmark extends SqlBasedBenchmark {
     benchmark.addCase("Double")(doubleArray)
     benchmark.run()
   }
+
+  def applyLambdaFunctions(): Unit = {
+    val numRows = 1024 * 64
+    val numElements = 100
+
+    val df = spark.range(numRows)
+      .selectExpr(s"transform(sequence(1, $numElements), i -> id * 0.5D + i) AS values")
+      .selectExpr("values", s"map_from_arrays(sequence(1, $numElements), values) AS features")
+      .cache()
+    df.count()  // force to build dataset
+
+    Seq(
+      "transform" -> "transform(values, x -> x * 2.0D + 1.0D)",
+      "filter" -> "filter(values, x -> x % 2 > 0.5D)",
+      "aggregate" -> "aggregate(values, 0.0D, (acc, x) -> acc + x * x)",
+      "transform_values" -> "transform_values(features, (k, v) -> v * k)"
+    ).foreach { case (name, expr) =>
+      val benchmark = new Benchmark(
+        s"Apply $name to doubles", numRows.toLong * numElements, output = output)
+      Seq("off", "on").foreach { codegen =>
+        benchmark.addCase(s"codegen of lambda functions $codegen", numIters = 3) { _ =>
+          val enabled = (codegen == "on").toString
+          withSQLConf(SQLConf.CODEGEN_HIGHER_ORDER_FUNCTIONS_ENABLED.key -> enabled) {
+            df.selectExpr(expr).noop()
+          }
+        }
+      }
+      benchmark.run()
+    }
+    df.unpersist()
+  }
 }
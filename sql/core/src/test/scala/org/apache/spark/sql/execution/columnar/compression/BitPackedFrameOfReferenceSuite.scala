@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.columnar.compression
+
+import java.nio.ByteBuffer
+
+import scala.util.Random
+
+import org.apache.spark.SparkFunSuite
+import org.apache.spark.sql.catalyst.expressions.GenericInternalRow
+import org.apache.spark.sql.catalyst.plans.SQLHelper
+import org.apache.spark.sql.catalyst.types.PhysicalDataType
+import org.apache.spark.sql.execution.columnar._
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.types.{IntegerType, LongType}
+
+class BitPackedFrameOfReferenceSuite extends SparkFunSuite with SQLHelper {
+
+  // Builds a column of `input`, where `None` is a null, compressed with `scheme`.
+  private def build[T <: PhysicalDataType](
+      columnStats: ColumnStats,
+      columnType: NativeColumnType[T],
+      scheme: CompressionScheme,
+      input: Seq[Option[Any]]): ByteBuffer = {
+    val builder = TestCompressibleColumnBuilder(columnStats, columnType, scheme)
+    val row = new GenericInternalRow(1)
+    input.foreach {
+      case Some(value) =>
+        columnType.setField(row, 0, value.asInstanceOf[T#InternalType])
+        builder.appendFrom(row, 0)
+      case None =>
+        row.setNullAt(0)
+        builder.appendFrom(row, 0)
+    }
+    val buffer = builder.build()
+    buffer.position(CompressionScheme.columnHeaderSize(buffer))
+    assertResult(scheme.typeId, "Wrong compression scheme ID")(buffer.getInt())
+    buffer
+  }
+
+  private def randomValues(columnType: NativeColumnType[_], bitWidth: Int, n: Int): Seq[Any] = {
+    val random = new Random(bitWidth)
+    val mask = if (bitWidth == 64) -1L else (1L << bitWidth) - 1
+    val min = if (columnType == INT) -1000L else Long.MinValue / 2
+    Seq.fill(n) {
+      val value = if (bitWidth == 64) random.nextLong() else min + (random.nextLong() & mask)
+      if (columnType == INT) value.toInt else value
+    }
+  }
+
+  // Column types with the maximum bit width of their values.
+  private val columnTypes: Seq[(NativeColumnType[_ <: PhysicalDataType], Int)] =
+    Seq((INT, 32), (LONG, 64))
+
+  columnTypes.foreach { case (columnType, maxBitWidth) =>
+    def columnStats: ColumnStats =
+      if (columnType == INT) new IntColumnStats else new LongColumnStats
+    val dataType = if (columnType == INT) IntegerType else LongType
+
+    test(s"$BitPackedFrameOfReference $columnType: encoded size and decoding") {
+      Seq(0, 1, 3, 7, 13, 31, maxBitWidth).foreach { bitWidth =>
+        Seq(0, 1, 63, 64, 65, 1000).foreach { n =>
+          val input = randomValues(columnType, bitWidth, n)
+          val buffer = build(columnStats, columnType, BitPackedFrameOfReference, input.map(Some(_)))
+          val values = input.map {
+            case i: Int => i.toLong
+            case l: Long => l
+          }
+          val width = if (n == 0) 0 else 64 - java.lang.Long.numberOfLeadingZeros(
+            values.max - values.min)
+          assertResult(4 + 4 + 16 + (n.toLong * width + 63) / 64 * 8, "Wrong buffer capacity")(
+            buffer.capacity)
+
+          val decoder = BitPackedFrameOfReference.decoder(buffer, columnType)
+          val row = new GenericInternalRow(1)
+          input.foreach { expected =>
+            assert(decoder.hasNext)
+            decoder.next(row, 0)
+            assertResult(expected, s"Wrong decoded value, bit width $bitWidth")(
+              columnType.getField(row, 0))
+          }
+          assert(!decoder.hasNext)
+        }
+      }
+    }
+
+    test(s"$BitPackedFrameOfReference $columnType: decompress and encoded vector with nulls") {
+      val random = new Random(42)
+      val input = randomValues(columnType, 17, 500).map { v =>
+        if (random.nextInt(5) == 0) None else Some(v)
+      }
+      val buffer = build(columnStats, columnType, BitPackedFrameOfReference, input)
+
+      val columnVector = new OnHeapColumnVector(input.length, dataType)
+      BitPackedFrameOfReference.decoder(buffer.duplicate().order(buffer.order()), columnType)
+        .decompress(columnVector, input.length)
+      val encodedVector = BitPackedFrameOfReference.decoder(buffer, columnType)
+        .encodedColumnVector(dataType, input.length).get
+      assertResult(input.count(_.isEmpty))(encodedVector.numNulls)
+
+      input.zipWithIndex.foreach {
+        case (None, i) =>
+          assert(columnVector.isNullAt(i), s"Wrong null ${i}th-position")
+          assert(encodedVector.isNullAt(i), s"Wrong null ${i}th-position")
+        case (Some(expected), i) =>
+          assert(!encodedVector.isNullAt(i))
+          val (decompressed, encoded) = if (columnType == INT) {
+            (columnVector.getInt(i), encodedVector.getInt(i))
+          } else {
+            (columnVector.getLong(i), encodedVector.getLong(i))
+          }
+          assertResult(expected, s"Wrong ${i}-th decompressed value")(decompressed)
+          assertResult(expected, s"Wrong ${i}-th encoded value")(encoded)
+      }
+    }
+
+    Seq(PassThrough, DictionaryEncoding).foreach { scheme =>
+      test(s"$scheme $columnType: encoded vector with nulls") {
+        val random = new Random(7)
+        val input = randomValues(columnType, 5, 300).map { v =>
+          if (random.nextInt(4) == 0) None else Some(v)
+        } ++ Seq.fill(70)(None)
+        val buffer = build(columnStats, columnType, scheme, input)
+        val vector = scheme.decoder(buffer, columnType)
+          .encodedColumnVector(dataType, input.length).get
+
+        input.zipWithIndex.foreach {
+          case (None, i) => assert(vector.isNullAt(i), s"Wrong null ${i}th-position")
+          case (Some(expected), i) =>
+            val actual = if (columnType == INT) vector.getInt(i) else vector.getLong(i)
+            assertResult(expected, s"Wrong ${i}-th encoded value")(actual)
+        }
+      }
+    }
+
+    test(s"$BitPackedFrameOfReference $columnType: only picked with encoded vectors enabled") {
+      Seq(true, false).foreach { enabled =>
+        withSQLConf(SQLConf.CACHE_ENCODED_VECTORS_ENABLED.key -> enabled.toString) {
+          val builder = ColumnBuilder(dataType, 1024, useCompression = true)
+          val row = new GenericInternalRow(1)
+          randomValues(columnType, 13, 1000).foreach { value =>
+            row.update(0, value)
+            builder.appendFrom(row, 0)
+          }
+          val buffer = builder.build()
+          buffer.position(CompressionScheme.columnHeaderSize(buffer))
+          assert((buffer.getInt() == BitPackedFrameOfReference.typeId) == enabled)
+        }
+      }
+    }
+  }
+}
@@ -31,7 +31,7 @@ import org.apache.spark.sql.QueryTest
 import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions.GenericInternalRow
 import org.apache.spark.sql.catalyst.util.DateTimeUtils
-import org.apache.spark.sql.execution.vectorized.{ConstantColumnVector, OffHeapColumnVector}
+import org.apache.spark.sql.execution.vectorized._
 import org.apache.spark.sql.test.SharedSparkSession
 import org.apache.spark.sql.types._
 import org.apache.spark.unsafe.types.UTF8String
@@ -160,4 +160,80 @@ class OrcColumnarBatchReaderSuite extends QueryTest with SharedSparkSession {
       InternalRow.empty)
     assert(reader.columnarBatch.column(2).isInstanceOf[OffHeapColumnVector])
   }
+
+  Seq(MemoryMode.ON_HEAP, MemoryMode.OFF_HEAP).foreach { memoryMode =>
+    test(s"direct decoding into Spark column vectors: $memoryMode") {
+      withTempPath { dir =>
+        val df = spark.range(0, 1000, 1, 1).selectExpr(
+          "id % 2 = 0 AS b",
+          "CAST(id % 100 AS BYTE) AS tiny",
+          "IF(id % 3 = 0, NULL, CAST(id AS SHORT)) AS small",
+          "CAST(id AS INT) AS i",
+          "IF(id % 5 = 0, NULL, id * 1000000007) AS l",
+          "CAST(id AS FLOAT) / 3 AS f",
+          "IF(id % 7 = 0, NULL, CAST(id AS DOUBLE) / 7) AS d",
+          "DATE_ADD(DATE'1500-01-01', CAST(id AS INT)) AS date",
+          "IF(id % 11 = 0, NULL, CAST(id % 13 AS STRING)) AS s",
+          "CAST(CAST(id AS STRING) AS BINARY) AS bin",
+          "IF(id < 500, NULL, 'constant') AS repeated",
+          "CAST(id AS DECIMAL(10, 2)) AS dec")
+        df.write.orc(dir.getCanonicalPath)
+        val file = TestUtils.listDirectory(dir).map(new File(_))
+          .find(_.getName.endsWith(".orc")).get
+        val schema = df.schema
+        val orcFileSchema = TypeDescription.fromString(schema.simpleString)
+
+        def readAll(directDecoding: Boolean): Seq[InternalRow] = {
+          val fileSplit =
+            new FileSplit(new Path(file.getCanonicalPath), 0L, file.length, Array.empty)
+          val attemptId = new TaskAttemptID(new TaskID(new JobID(), TaskType.MAP, 0), 0)
+          val taskAttemptContext =
+            new TaskAttemptContextImpl(spark.sessionState.newHadoopConf(), attemptId)
+          val reader = new OrcColumnarBatchReader(128, memoryMode, directDecoding)
+          try {
+            reader.initialize(fileSplit, taskAttemptContext)
+            reader.initBatch(
+              orcFileSchema,
+              schema.fields,
+              schema.indices.toArray,
+              Array.fill(schema.length)(-1),
+              InternalRow.empty)
+            val batch = reader.columnarBatch
+            schema.indices.foreach { i =>
+              val decoded = batch.column(i).isInstanceOf[WritableColumnVector]
+              assert(decoded == (directDecoding && schema(i).name != "dec"))
+            }
+            if (directDecoding) {
+              val expectedClass = if (memoryMode == MemoryMode.OFF_HEAP) {
+                classOf[OffHeapColumnVector]
+              } else {
+                classOf[OnHeapColumnVector]
+              }
+              assert(batch.column(0).getClass == expectedClass)
+            }
+            val rows = Seq.newBuilder[InternalRow]
+            while (reader.nextKeyValue()) {
+              val batch = reader.getCurrentValue
+              (0 until batch.numRows).foreach { i =>
+                rows += batch.getRow(i).copy()
+              }
+            }
+            rows.result()
+          } finally {
+            reader.close()
+          }
+        }
+
+        val wrapped = readAll(directDecoding = false)
+        val decoded = readAll(directDecoding = true)
+        assert(decoded.length == 1000)
+        def toSeq(row: InternalRow): Seq[Any] = row.toSeq(schema).map {
+          case bytes: Array[Byte] => bytes.toSeq
+          case other => other
+        }
+        assert(decoded.map(toSeq) == wrapped.map(toSeq))
+        checkAnswer(spark.read.orc(dir.getCanonicalPath), df)
+      }
+    }
+  }
 }
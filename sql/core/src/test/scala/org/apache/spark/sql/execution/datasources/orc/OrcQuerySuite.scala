@@ -914,3 +914,17 @@ class OrcV2QuerySuite extends OrcQuerySuite {
       .sparkConf
       .set(SQLConf.USE_V1_SOURCE_LIST, "")
 }
+
+class OrcV1QueryDirectDecodingSuite extends OrcV1QuerySuite {
+  override protected def sparkConf: SparkConf =
+    super
+      .sparkConf
+      .set(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED, true)
+}
+
+class OrcV2QueryDirectDecodingSuite extends OrcV2QuerySuite {
+  override protected def sparkConf: SparkConf =
+    super
+      .sparkConf
+      .set(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED, true)
+}
@@ -1046,3 +1046,17 @@ class OrcSourceV2Suite extends OrcSourceSuite {
       .sparkConf
       .set(SQLConf.USE_V1_SOURCE_LIST, "")
 }
+
+class OrcSourceV1DirectDecodingSuite extends OrcSourceV1Suite {
+  override protected def sparkConf: SparkConf =
+    super
+      .sparkConf
+      .set(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED, true)
+}
+
+class OrcSourceV2DirectDecodingSuite extends OrcSourceV2Suite {
+  override protected def sparkConf: SparkConf =
+    super
+      .sparkConf
+      .set(SQLConf.ORC_VECTORIZED_READER_DIRECT_DECODING_ENABLED, true)
+}
@@ -21,17 +21,22 @@ import java.sql.{Date, Timestamp}
 import java.time.{Duration, Period}
 
 import scala.jdk.CollectionConverters._
+import scala.util.Random
 
 import org.apache.hadoop.fs.Path
+import org.apache.parquet.bytes.{ByteBufferInputStream, HeapByteBufferAllocator}
 import org.apache.parquet.column.{Encoding, ParquetProperties}
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder
 import org.apache.parquet.hadoop.ParquetOutputFormat
 
 import org.apache.spark.TestUtils
 import org.apache.spark.memory.MemoryMode
 import org.apache.spark.sql.Row
 import org.apache.spark.sql.catalyst.util.DateTimeUtils
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.test.SharedSparkSession
+import org.apache.spark.sql.types.IntegerType
 
 // TODO: this needs a lot more testing but it's currently not easy to test with the parquet
 // writer abstractions. Revisit.
@@ -236,4 +241,48 @@ class ParquetEncodingSuite extends ParquetCompatibilityTest with SharedSparkSess
       }
     }
   }
+
+  test("rle/bit-packed hybrid decoding for all bit widths") {
+    val random = new Random(42)
+    (1 to 32).foreach { bitWidth =>
+      val maxValue = if (bitWidth == 32) Int.MaxValue else (1 << bitWidth) - 1
+      // Mix random values, which are bit-packed, with long repeated runs, which are RLE encoded.
+      val expected = (0 until 5000).map { i =>
+        if ((i / 500) % 2 == 0) random.nextInt() & maxValue else maxValue
+      }
+      val encoder = new RunLengthBitPackingHybridEncoder(
+        bitWidth, 64, 1024 * 1024, HeapByteBufferAllocator.getInstance())
+      expected.foreach(encoder.writeInt)
+      val in = ByteBufferInputStream.wrap(encoder.toBytes.toByteBuffer)
+
+      val reader = new VectorizedRleValuesReader(bitWidth, false)
+      reader.initFromPage(expected.length, in)
+      val column = new OnHeapColumnVector(expected.length, IntegerType)
+      try {
+        reader.readIntegers(expected.length, column, 0)
+        assert(column.getInts(0, expected.length).toSeq === expected, s"bitWidth: $bitWidth")
+      } finally {
+        column.close()
+      }
+    }
+  }
+
+  test("vectorized reader with runs of nulls in definition levels") {
+    withMemoryModes { offHeap =>
+      withSQLConf(SQLConf.COLUMN_VECTOR_OFFHEAP_ENABLED.key -> offHeap) {
+        withTempPath { dir =>
+          val path = dir.getCanonicalPath
+          val n = 10000
+          // Alternate short and long runs of nulls and non-nulls so that definition levels use
+          // both RLE and bit-packed groups.
+          val data = (0 until n).map { i =>
+            if (i % 3 == 0 || (i / 1000) % 2 == 1) null else Integer.valueOf(i)
+          }
+          data.toDF("c").coalesce(1).write.parquet(path)
+          val actual = spark.read.parquet(path).collect().map(r => r.get(0))
+          assert(actual.toSeq === data)
+        }
+      }
+    }
+  }
 }
@@ -867,6 +867,30 @@ abstract class ParquetQuerySuite extends QueryTest with ParquetTest with SharedS
     }
   }
 
+  test("vectorized reader with pooled column vectors") {
+    withTempPath { dir =>
+      val path = dir.getCanonicalPath
+      spark.range(0, 1000, 1, 10)
+        .selectExpr("id", "CAST(id AS STRING) AS s", "IF(id % 3 = 0, NULL, id) AS n",
+          "ARRAY(id, id + 1) AS a", "id % 2 AS p")
+        .write.partitionBy("p").parquet(path)
+      val expected = spark.read.parquet(path).collect().toSeq
+
+      for (offHeapEnabled <- Seq(true, false)) {
+        withSQLConf(
+            SQLConf.COLUMN_VECTOR_POOL_ENABLED.key -> "true",
+            SQLConf.COLUMN_VECTOR_OFFHEAP_ENABLED.key -> offHeapEnabled.toString,
+            SQLConf.FILES_MAX_PARTITION_BYTES.key -> "1MB",
+            SQLConf.FILES_OPEN_COST_IN_BYTES.key -> "1MB") {
+          // The second scan reuses the column vectors given back by the tasks of the first one.
+          checkAnswer(spark.read.parquet(path), expected)
+          checkAnswer(spark.read.parquet(path).where("n IS NOT NULL"),
+            expected.filterNot(_.isNullAt(2)))
+        }
+      }
+    }
+  }
+
   test("expand UDT in StructType") {
     val schema = new StructType().add("n", new TestNestedStructUDT, nullable = true)
     val expected = new StructType().add("n", new TestNestedStructUDT().sqlType, nullable = true)
@@ -27,7 +27,7 @@ import org.apache.spark.SparkConf
 import org.apache.spark.SparkException
 import org.apache.spark.internal.config._
 import org.apache.spark.internal.config.Kryo._
-import org.apache.spark.memory.{TaskMemoryManager, UnifiedMemoryManager}
+import org.apache.spark.memory.{TaskMemoryManager, TestMemoryManager, UnifiedMemoryManager}
 import org.apache.spark.serializer.KryoSerializer
 import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions._
@@ -107,6 +107,48 @@ class HashedRelationSuite extends SharedSparkSession {
     assert(java.util.Arrays.equals(os2.toByteArray, os.toByteArray))
   }
 
+  test("UnsafeHashedRelation with keys hashed by wyhash") {
+    val schema = new StructType().add("a", IntegerType).add("b", StringType)
+    val toUnsafe = UnsafeProjection.create(schema)
+    val rows = (0 until 1000).map { i =>
+      toUnsafe(InternalRow(i % 100, UTF8String.fromString("x" * (i % 37)))).copy()
+    }
+    val buildKey = Seq(BoundReference(0, IntegerType, false), BoundReference(1, StringType, false))
+    val keyProjection = UnsafeProjection.create(buildKey)
+    val expected = rows.groupBy(row => keyProjection(row).copy())
+
+    def checkRelation(relation: HashedRelation): Unit = {
+      expected.foreach { case (key, values) =>
+        assert(relation.get(key).toSeq.sortBy(_.hashCode()) === values.sortBy(_.hashCode()))
+        assert(relation.getValue(key) !== null)
+      }
+      assert(relation.get(keyProjection(toUnsafe(InternalRow(0, UTF8String.fromString("y")))))
+        === null)
+    }
+
+    withSQLConf(SQLConf.HASH_TABLE_KEY_HASH_FUNCTION.key -> "wyhash") {
+      val hashed = UnsafeHashedRelation(rows.iterator, buildKey, 1, mm)
+      checkRelation(hashed)
+      checkRelation(hashed.asReadOnlyCopy())
+
+      // The relations are deserialized with the hash function they were built with.
+      withSQLConf(SQLConf.HASH_TABLE_KEY_HASH_FUNCTION.key -> "murmur3") {
+        val os = new ByteArrayOutputStream()
+        val out = new ObjectOutputStream(os)
+        hashed.asInstanceOf[UnsafeHashedRelation].writeExternal(out)
+        out.flush()
+        val in = new ObjectInputStream(new ByteArrayInputStream(os.toByteArray))
+        val hashed2 = new UnsafeHashedRelation()
+        hashed2.readExternal(in)
+        checkRelation(hashed2)
+
+        val ser = new KryoSerializer(
+          (new SparkConf).set(KRYO_REFERENCE_TRACKING, false)).newInstance()
+        checkRelation(ser.deserialize[UnsafeHashedRelation](ser.serialize(hashed)))
+      }
+    }
+  }
+
   test("test serialization empty hash map") {
     val taskMemoryManager = new TaskMemoryManager(
       new UnifiedMemoryManager(
@@ -765,4 +807,112 @@ class HashedRelationSuite extends SharedSparkSession {
       map.free()
     }
   }
+
+  test("LongToUnsafeRowMap.tryAppend leaves the map unchanged without memory") {
+    val memoryManager = new TestMemoryManager(new SparkConf())
+    memoryManager.limit(64 * 1024)
+    val taskMemoryManager = new TaskMemoryManager(memoryManager, 0)
+    val unsafeProj = UnsafeProjection.create(Seq(BoundReference(0, LongType, false)))
+    val map = new LongToUnsafeRowMap(taskMemoryManager, 1, initialPageSize = 1024)
+    var numKeys = 0L
+    while (map.tryAppend(numKeys * 7, unsafeProj(InternalRow(numKeys * 7)))) {
+      numKeys += 1
+    }
+    assert(numKeys > 0)
+    val res = new UnsafeRow(1)
+    (0L until numKeys).foreach { k =>
+      val it = map.get(k * 7, res)
+      assert(it.next().getLong(0) === k * 7)
+      assert(!it.hasNext)
+    }
+    assert(map.get(numKeys * 7, res) === null)
+    assert(map.keys().size === numKeys)
+    map.free()
+    assert(taskMemoryManager.cleanUpAllAllocatedMemory() === 0)
+  }
+
+  Seq(
+    Seq(BoundReference(0, LongType, false)),
+    Seq(BoundReference(0, IntegerType, false), BoundReference(1, StringType, false))
+  ).foreach { key =>
+    test(s"RadixPartitionedHashedRelation with keys ${key.map(_.dataType).mkString(", ")}") {
+      val toUnsafe = UnsafeProjection.create(Seq(BoundReference(0, key.head.dataType, true),
+        BoundReference(1, StringType, true), BoundReference(2, StringType, true)))
+      def row(i: Int, j: Int): UnsafeRow = {
+        val k: Any = if (key.head.dataType == LongType) i.toLong else i
+        toUnsafe(InternalRow(k, UTF8String.fromString(s"$i"), UTF8String.fromString(s"$i-$j")))
+          .copy()
+      }
+      // Keys below 1000 have two rows, the others only one.
+      val rows = (0 until 5000).map(i => row(i, 0)) ++ (0 until 1000).map(i => row(i, 1))
+      val taskMemoryManager = new TaskMemoryManager(
+        new UnifiedMemoryManager(
+          new SparkConf().set(MEMORY_OFFHEAP_ENABLED.key, "false"),
+          Long.MaxValue,
+          Long.MaxValue / 2,
+          1),
+        0)
+      val hashed = RadixPartitionedHashedRelation(rows.iterator, key, 1024, taskMemoryManager)
+      assert(hashed.isInstanceOf[RadixPartitionedHashedRelation])
+      val relation = hashed.asInstanceOf[RadixPartitionedHashedRelation]
+      // The rows are only held by the partitions, in the task memory.
+      assert(taskMemoryManager.getMemoryConsumptionForThisTask == relation.estimatedSize)
+      val size = rows.map(_.getSizeInBytes.toLong).sum
+      assert(relation.numPartitions == 1 << RadixPartitionedHashedRelation.numRadixBits(size, 1024))
+      assert(relation.numPartitions > 1)
+      assert(relation.isLongKey == (key.head.dataType == LongType))
+      assert(!relation.keyIsUnique)
+      assert(relation.keys().map(_.copy()).toSet.size == 5000)
+
+      val os = new ByteArrayOutputStream()
+      val out = new ObjectOutputStream(os)
+      out.writeObject(relation)
+      out.flush()
+      val in = new ObjectInputStream(new ByteArrayInputStream(os.toByteArray))
+      val deserialized = in.readObject().asInstanceOf[RadixPartitionedHashedRelation]
+      val ser = new KryoSerializer(
+        (new SparkConf).set(KRYO_REFERENCE_TRACKING, false)).newInstance()
+      val kryoDeserialized =
+        ser.deserialize[RadixPartitionedHashedRelation](ser.serialize(relation))
+
+      val keyOf = UnsafeProjection.create(key)
+      Seq(relation, deserialized.asReadOnlyCopy(), kryoDeserialized).foreach { r =>
+        Seq(0, 999, 1000, 4999).foreach { i =>
+          val expected = if (i < 1000) Set(row(i, 0), row(i, 1)) else Set(row(i, 0))
+          assert(r.get(keyOf(row(i, 0))).map(_.copy()).toSet === expected)
+          if (relation.isLongKey) {
+            assert(r.get(i.toLong).map(_.copy()).toSet === expected)
+          }
+        }
+        assert(r.get(keyOf(row(5000, 0))) === null)
+      }
+
+      // Stream rows with matching, missing and null keys.
+      val streamRows = (4990 until 5010).map(i => row(i, 2)) ++ (0 until 3).map(i => row(i, 2)) :+
+        toUnsafe(InternalRow(null, null, UTF8String.fromString("null"))).copy()
+      val streamKeys = UnsafeProjection.create(key.map(_.copy(nullable = true)))
+      val probed = relation.probeInBatches(streamRows.iterator, streamKeys, 8)
+        .map { case (streamRow, matches) =>
+          streamRow.copy() -> (if (matches == null) 0 else matches.size)
+        }.toSeq
+      assert(probed.sortBy(_._1.getUTF8String(2).toString) ===
+        ((4990 until 5000).map(i => row(i, 2) -> 1) ++ (5000 until 5010).map(i => row(i, 2) -> 0) ++
+          (0 until 3).map(i => row(i, 2) -> 2)).sortBy(_._1.getUTF8String(2).toString))
+      relation.close()
+      assert(taskMemoryManager.getMemoryConsumptionForThisTask == 0)
+    }
+  }
+
+  test("RadixPartitionedHashedRelation of rows that fit in one partition") {
+    val rows = contiguousRows.map(_.asInstanceOf[InternalRow])
+    val hashed = RadixPartitionedHashedRelation(rows.iterator, singleKey, 1L << 20, mm)
+    assert(hashed.isInstanceOf[LongHashedRelation])
+    assert(hashed.getValue(contiguousRows(10)).getLong(0) == 10)
+    hashed.close()
+
+    assert(RadixPartitionedHashedRelation.numRadixBits(1L << 20, 1L << 20) == 0)
+    assert(RadixPartitionedHashedRelation.numRadixBits((1L << 20) + 1, 1L << 20) == 1)
+    assert(RadixPartitionedHashedRelation.numRadixBits(1L << 40, 1L << 10) ==
+      RadixPartitionedHashedRelation.MAX_RADIX_BITS)
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.joins
+
+import java.util.Properties
+
+import org.apache.spark.{SparkConf, TaskContext, TaskContextImpl}
+import org.apache.spark.internal.config.BUFFER_PAGESIZE
+import org.apache.spark.memory.{SparkOutOfMemoryError, TaskMemoryManager, TestMemoryManager}
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{AttributeReference, BoundReference, UnsafeProjection}
+import org.apache.spark.sql.execution.metric.SQLMetrics
+import org.apache.spark.sql.test.SharedSparkSession
+import org.apache.spark.sql.types.{LongType, StringType}
+import org.apache.spark.unsafe.types.UTF8String
+
+class HybridHashJoinSuite extends SharedSparkSession {
+
+  private val output = Seq(
+    AttributeReference("k", LongType)(), AttributeReference("v", StringType)())
+  private val longKey = Seq(BoundReference(0, LongType, true))
+  // Not a single long key, so the build side is put into an UnsafeHashedRelation.
+  private val twoKeys = Seq(BoundReference(0, LongType, true), BoundReference(0, LongType, true))
+  private val toUnsafe = UnsafeProjection.create(output, output)
+
+  private def rows(keys: Seq[Long], value: String): Seq[InternalRow] = {
+    keys.map(k => toUnsafe(InternalRow(k, UTF8String.fromString(s"$value-$k"))).copy())
+  }
+
+  // Left outer joins `streamed` with `build` on `keys` in a task with `memoryLimit` bytes of
+  // memory, returning the joined rows as strings and the spill size.
+  private def leftOuterJoin(
+      keys: Seq[BoundReference],
+      streamed: Seq[InternalRow],
+      build: Seq[InternalRow],
+      memoryLimit: Long): (Seq[String], Long) = {
+    val memoryManager = new TestMemoryManager(new SparkConf().set(BUFFER_PAGESIZE, 64L * 1024))
+    memoryManager.limit(memoryLimit)
+    val taskContext = new TaskContextImpl(0, 0, 0, 0, 0, 1,
+      new TaskMemoryManager(memoryManager, 0), new Properties, null, cpus = 1)
+    TaskContext.setTaskContext(taskContext)
+    try {
+      val spillSize = SQLMetrics.createSizeMetric(sparkContext, "spill size")
+      val streamedKey = UnsafeProjection.create(keys)
+      val joinPartition = (streamIter: Iterator[InternalRow], relation: HashedRelation) => {
+        streamIter.flatMap { row =>
+          val s = s"${row.getLong(0)},${row.getUTF8String(1)}"
+          val joined = Option(relation.get(streamedKey(row))).filter(_.hasNext) match {
+            case Some(matches) => matches.map(m => s"$s,${m.getUTF8String(1)}")
+            case None => Iterator(s"$s,null")
+          }
+          joined.map(j => InternalRow(UTF8String.fromString(j)))
+        }
+      }
+      val join = new HybridHashJoin(keys, keys, output, output, allowsNullKey = false,
+        ignoresDuplicatedKey = false, numPartitions = 4,
+        SQLMetrics.createTimingMetric(sparkContext, "build time"),
+        SQLMetrics.createSizeMetric(sparkContext, "build data size"), spillSize, joinPartition)
+      val joined = join.join(streamed.iterator, build.iterator).map(_.getUTF8String(0).toString)
+        .toList
+      taskContext.markTaskCompleted(None)
+      assert(taskContext.taskMemoryManager.cleanUpAllAllocatedMemory() === 0)
+      (joined, spillSize.value)
+    } finally {
+      TaskContext.unset()
+    }
+  }
+
+  Seq(longKey, twoKeys).foreach { keys =>
+    test(s"spill the build side that does not fit in memory with ${keys.size} keys") {
+      val streamed = rows(0L until 30000L by 3, "s")
+      val build = rows((0L until 20000L) ++ (0L until 20000L by 2), "b")
+      val expected = (0L until 30000L by 3).flatMap { k =>
+        if (k < 20000) {
+          Seq.fill(if (k % 2 == 0) 2 else 1)(s"$k,s-$k,b-$k")
+        } else {
+          Seq(s"$k,s-$k,null")
+        }
+      }
+      val (inMemory, noSpill) = leftOuterJoin(keys, streamed, build, Long.MaxValue)
+      assert(inMemory.sorted === expected.sorted)
+      assert(noSpill === 0)
+      val (spilled, spillSize) = leftOuterJoin(keys, streamed, build, 512 * 1024)
+      assert(spilled.sorted === expected.sorted)
+      assert(spillSize > 0)
+    }
+  }
+
+  test("fail when a partition does not fit in memory after splitting") {
+    val build = rows(Seq.fill(20000)(1L), "b")
+    val e = intercept[SparkOutOfMemoryError] {
+      leftOuterJoin(longKey, rows(Seq(1L), "s"), build, 512 * 1024)
+    }
+    assert(e.getCondition === "_LEGACY_ERROR_TEMP_2107")
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.joins
+
+import java.util.Properties
+
+import org.apache.spark.{SparkEnv, TaskContext, TaskContextImpl}
+import org.apache.spark.sql.{DataFrame, QueryTest}
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{BoundReference, UnsafeProjection}
+import org.apache.spark.sql.classic.SparkSession
+import org.apache.spark.sql.execution.SparkPlan
+import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanHelper
+import org.apache.spark.sql.functions._
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.test.SharedSparkSession
+import org.apache.spark.sql.types.LongType
+
+class SharedBroadcastRelationSuite extends QueryTest with SharedSparkSession
+  with AdaptiveSparkPlanHelper {
+
+  private def relation(numRows: Int): HashedRelation = {
+    val key = Seq(BoundReference(0, LongType, false))
+    val toUnsafe = UnsafeProjection.create(key)
+    val rows = (0 until numRows).map(i => toUnsafe(InternalRow(i.toLong)).copy())
+    LongHashedRelation(rows.iterator, key, numRows, HashedRelation.unlimitedTaskMemoryManager())
+  }
+
+  // Runs `f` in a new task, completes the task, and checks that it released its locks.
+  private def withTask(taskAttemptId: Long)(f: => Unit): Unit = {
+    val blockManager = SparkEnv.get.blockManager
+    blockManager.registerTask(taskAttemptId)
+    val taskContext = new TaskContextImpl(0, 0, 0, taskAttemptId, 0, 1, null, new Properties,
+      null, cpus = 1)
+    TaskContext.setTaskContext(taskContext)
+    try {
+      f
+      taskContext.markTaskCompleted(None)
+    } finally {
+      TaskContext.unset()
+    }
+    assert(blockManager.releaseAllLocksForTask(taskAttemptId).isEmpty)
+  }
+
+  test("relations are shared through the blocks of their broadcasts") {
+    val small = sparkContext.broadcast(relation(10))
+    val other = sparkContext.broadcast(relation(10))
+    val relationClass = small.value.getClass.getName
+    val maxSize = small.value.estimatedSize * 2
+    withTask(1) {
+      assert(BroadcastRelationRegistry.acquire("fp-1", relationClass, maxSize, small) eq
+        small.value)
+    }
+    assert(BroadcastRelationRegistry.isRegistered("fp-1"))
+    withTask(2) {
+      assert(BroadcastRelationRegistry.acquire("fp-1", relationClass, maxSize, other) eq
+        small.value)
+    }
+
+    // Relations that are too large are not registered.
+    val large = sparkContext.broadcast(relation(200000))
+    withTask(3) {
+      assert(BroadcastRelationRegistry.acquire("fp-2", relationClass, maxSize, large) eq
+        large.value)
+    }
+    assert(!BroadcastRelationRegistry.isRegistered("fp-2"))
+
+    // The relation of a removed broadcast is replaced by the next one.
+    small.destroy(blocking = true)
+    withTask(4) {
+      assert(BroadcastRelationRegistry.acquire("fp-1", relationClass, maxSize, other) eq
+        other.value)
+    }
+    val third = sparkContext.broadcast(relation(10))
+    withTask(5) {
+      assert(BroadcastRelationRegistry.acquire("fp-1", relationClass, maxSize, third) eq
+        other.value)
+      // A relation of another class is not shared.
+      val unsafeClass = classOf[UnsafeHashedRelation].getName
+      assert(BroadcastRelationRegistry.acquire("fp-1", unsafeClass, maxSize, third) eq
+        third.value)
+    }
+    Seq(other, large, third).foreach(_.destroy())
+  }
+
+  private def broadcastJoin(path: String, session: SparkSession = spark): DataFrame = {
+    session.range(100).join(broadcast(session.read.parquet(path)), col("id") === col("k"))
+  }
+
+  private def buildPlan(df: DataFrame): SparkPlan = {
+    val joins = collect(df.queryExecution.executedPlan) {
+      case j: BroadcastHashJoinExec => j
+    }
+    assert(joins.size === 1)
+    joins.head.buildPlan
+  }
+
+  private def fingerprint(df: DataFrame): Option[String] = {
+    val plan = buildPlan(df)
+    SharedBroadcastRelation.fingerprintOf(plan, plan.executeBroadcast[HashedRelation]().value)
+  }
+
+  test("identical broadcasts share a fingerprint") {
+    withSQLConf(SQLConf.SHARED_BROADCAST_RELATION_ENABLED.key -> "true") {
+      withTempPath { dir =>
+        val path = dir.getCanonicalPath
+        spark.range(50).selectExpr("id * 2 AS k", "id AS v").write.parquet(path)
+        val df1 = broadcastJoin(path)
+        val df2 = broadcastJoin(path)
+        checkAnswer(df1, df2.collect().toSeq)
+        val fp = fingerprint(df1)
+        assert(fp.isDefined)
+        assert(fingerprint(df2) === fp)
+        assert(BroadcastRelationRegistry.isRegistered(fp.get))
+
+        // A different build side, or different files, change the fingerprint.
+        val filtered = spark.range(100).join(
+          broadcast(spark.read.parquet(path).where("v > 1")), col("id") === col("k"))
+        filtered.collect()
+        assert(fingerprint(filtered).get !== fp.get)
+        spark.range(50).selectExpr("id * 3 AS k", "id AS v").write.mode("overwrite").parquet(path)
+        val overwritten = broadcastJoin(path)
+        checkAnswer(overwritten, spark.range(34).selectExpr("id * 3", "id * 3", "id"))
+        assert(fingerprint(overwritten).get !== fp.get)
+
+        // Non-deterministic build sides are not shared.
+        val nonDeterministic = spark.range(100).join(
+          broadcast(spark.read.parquet(path).where(rand() > 0.5)), col("id") === col("k"))
+        nonDeterministic.collect()
+        assert(fingerprint(nonDeterministic) === None)
+      }
+    }
+  }
+
+  test("relations of different classes do not share a fingerprint") {
+    withSQLConf(SQLConf.SHARED_BROADCAST_RELATION_ENABLED.key -> "true") {
+      withTempPath { dir =>
+        val path = dir.getCanonicalPath
+        spark.range(2000).selectExpr("id * 2 AS k", "id AS v").write.parquet(path)
+        val plain = broadcastJoin(path)
+        val expected = plain.collect().toSeq
+        val radixSession = spark.newSession()
+        radixSession.conf.set(SQLConf.SHARED_BROADCAST_RELATION_ENABLED.key, "true")
+        radixSession.conf.set(SQLConf.RADIX_PARTITIONED_HASH_JOIN_ENABLED.key, "true")
+        radixSession.conf.set(SQLConf.RADIX_PARTITIONED_HASH_JOIN_PARTITION_SIZE.key, "1KB")
+        val radix = broadcastJoin(path, radixSession)
+        checkAnswer(radix, expected)
+        assert(buildPlan(radix).executeBroadcast[HashedRelation]().value
+          .isInstanceOf[RadixPartitionedHashedRelation])
+        assert(buildPlan(plain).executeBroadcast[HashedRelation]().value
+          .isInstanceOf[LongHashedRelation])
+        assert(fingerprint(radix).get !== fingerprint(plain).get)
+        // Each query still gets a relation of its own class after the other one ran.
+        checkAnswer(broadcastJoin(path), expected)
+        checkAnswer(broadcastJoin(path, radixSession), expected)
+      }
+    }
+  }
+}
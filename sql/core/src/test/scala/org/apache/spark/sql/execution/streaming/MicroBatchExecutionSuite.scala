@@ -30,7 +30,7 @@ import org.apache.spark.sql.connector.read.streaming.SparkDataStream
 import org.apache.spark.sql.execution.streaming.runtime.{LongOffset, MemoryStream, MicroBatchExecution, SerializedOffset, StreamExecution, StreamingExecutionRelation}
 import org.apache.spark.sql.functions.{count, timestamp_seconds, window}
 import org.apache.spark.sql.internal.SQLConf
-import org.apache.spark.sql.streaming.{StreamingQueryException, StreamTest, Trigger}
+import org.apache.spark.sql.streaming.{OutputMode, StreamingQueryException, StreamTest, Trigger}
 import org.apache.spark.sql.types.{LongType, StructType}
 import org.apache.spark.util.Utils
 
@@ -120,6 +120,44 @@ class MicroBatchExecutionSuite extends StreamTest with BeforeAndAfter with Match
     }
   }
 
+  test("pipelined checkpoint writes") {
+    withSQLConf(SQLConf.STREAMING_PIPELINED_CHECKPOINT_WRITES_ENABLED.key -> "true") {
+      withTempDir { checkpointLocation =>
+        val inputData = MemoryStream[Int]
+        val aggregated = inputData.toDF().groupBy($"value" % 2).agg(count("*")).as[(Int, Long)]
+        def batchIds(dir: String): Seq[Int] = {
+          getListOfFiles(s"$checkpointLocation/$dir")
+            .filter(file => !file.isHidden)
+            .map(file => file.getName.toInt)
+            .sorted
+        }
+
+        testStream(aggregated, OutputMode.Complete())(
+          StartStream(checkpointLocation = checkpointLocation.getCanonicalPath),
+          AddData(inputData, 1, 2),
+          CheckAnswer((0, 1L), (1, 1L)),
+          AddData(inputData, 3),
+          CheckAnswer((0, 1L), (1, 2L)),
+          AddData(inputData, 4, 5),
+          CheckAnswer((0, 2L), (1, 3L)),
+          Execute { _ =>
+            batchIds("offsets") should equal(Seq(0, 1, 2))
+            batchIds("commits") should equal(Seq(0, 1, 2))
+          },
+          StopStream,
+          StartStream(checkpointLocation = checkpointLocation.getCanonicalPath),
+          AddData(inputData, 6),
+          CheckAnswer((0, 3L), (1, 3L)),
+          Execute { _ =>
+            batchIds("offsets") should equal(Seq(0, 1, 2, 3))
+            batchIds("commits") should equal(Seq(0, 1, 2, 3))
+          },
+          StopStream
+        )
+      }
+    }
+  }
+
   test("SPARK-24156: do not plan a no-data batch again after it has already been planned") {
     val inputData = MemoryStream[Int]
     val df = inputData.toDF()
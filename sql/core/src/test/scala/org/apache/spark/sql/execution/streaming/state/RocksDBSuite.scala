@@ -30,7 +30,7 @@ import scala.util.Random
 
 import org.apache.hadoop.conf.Configuration
 import org.apache.hadoop.fs.{FSDataInputStream, Path}
-import org.rocksdb.CompressionType
+import org.rocksdb.{CompressionType, WriteBatch}
 import org.scalactic.source.Position
 import org.scalatest.PrivateMethodTester
 import org.scalatest.Tag
@@ -1840,6 +1840,41 @@ class RocksDBSuite extends AlsoTestWithRocksDBFeatures with SharedSparkSession
     }
   }
 
+  testWithColumnFamilies("RocksDB: multiGet and putAll",
+    TestWithBothChangelogCheckpointingEnabledAndDisabled) { colFamiliesEnabled =>
+    withTempDir { dir =>
+      val remoteDir = dir.getCanonicalPath
+      withDB(remoteDir, conf = dbConf.copy(trackTotalNumberOfRows = true),
+          useColumnFamilies = colFamiliesEnabled) { db =>
+        db.load(0)
+        db.put("a", "1")
+        db.putAll(Array[Array[Byte]]("a", "b", "b"), Array[Array[Byte]]("2", "3", "4"))
+        assert(db.multiGet(Array[Array[Byte]]("c", "b", "a")).map(toStr).toSeq ===
+          Seq(null, "4", "2"))
+        db.commit()
+        assert(db.metricsOpt.get.numCommittedKeys === 2)
+
+        db.load(1)
+        assert(db.iterator().map(toStr).toSet === Set(("a", "2"), ("b", "4")))
+        db.putAll(Array.empty, Array.empty)
+        assert(db.multiGet(Array.empty).isEmpty)
+      }
+    }
+  }
+
+  test("RocksDB: serialized write batches") {
+    RocksDBLoader.loadLibrary()
+    val keys = Array(Array[Byte](1, 2), Array.fill[Byte](200)(3), Array.empty[Byte])
+    val values = Array(Array.fill[Byte](20000)(4), Array[Byte](5), Array[Byte](6, 7))
+    val writeBatch = new WriteBatch()
+    try {
+      keys.indices.foreach(i => writeBatch.put(keys(i), values(i)))
+      assert(RocksDB.serializeWriteBatch(keys, values) === writeBatch.data())
+    } finally {
+      writeBatch.close()
+    }
+  }
+
   testWithStateStoreCheckpointIdsAndColumnFamilies("RocksDBFileManager: delete orphan files",
     TestWithBothChangelogCheckpointingEnabledAndDisabled) {
     case (enableStateStoreCheckpointIds, colFamiliesEnabled) =>
@@ -2125,6 +2160,33 @@ class RocksDBSuite extends AlsoTestWithRocksDBFeatures with SharedSparkSession
       }
   }
 
+  test("RocksDBFileManager: copy immutable files concurrently") {
+    withTempDir { dir =>
+      val dfsRootDir = dir.getAbsolutePath
+      val fileManager = new RocksDBFileManager(
+        dfsRootDir, Utils.createTempDir(), hadoopConf, numFileTransferThreads = 4)
+      val cpFiles = (1 to 10).map(i => s"sst-file$i.sst" -> i * 10) ++ Seq(
+        "other-file1" -> 100,
+        "archive/00001.log" -> 1000,
+        "archive/00002.log" -> 2000)
+      saveCheckpointFiles(fileManager, cpFiles, version = 1, numKeys = 101,
+        new RocksDBFileMapping())
+      assert(listFiles(s"$dfsRootDir/SSTs").length === 10)
+      assert(listFiles(s"$dfsRootDir/logs").length === 2)
+      assert(fileManager.latestSaveCheckpointMetrics.filesCopied === 12)
+      assert(fileManager.latestSaveCheckpointMetrics.bytesCopied === 3550)
+
+      // Load the checkpoint back into a local dir on another file manager
+      val verificationDir = Utils.createTempDir().getAbsolutePath
+      val loadFileManager = new RocksDBFileManager(
+        dfsRootDir, Utils.createTempDir(), hadoopConf, numFileTransferThreads = 4)
+      loadAndVerifyCheckpointFiles(
+        loadFileManager, verificationDir, version = 1, cpFiles, 101, new RocksDBFileMapping())
+      assert(loadFileManager.latestLoadCheckpointMetrics.filesCopied === 12)
+      assert(loadFileManager.latestLoadCheckpointMetrics.bytesCopied === 3550)
+    }
+  }
+
   testWithStateStoreCheckpointIdsAndColumnFamilies("RocksDBFileManager: error writing " +
     s"[version].zip cancels the output stream",
     TestWithBothChangelogCheckpointingEnabledAndDisabled) {
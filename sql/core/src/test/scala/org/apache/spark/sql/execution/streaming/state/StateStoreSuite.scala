@@ -853,6 +853,35 @@ class StateStoreSuite extends StateStoreSuiteBase[HDFSBackedStateStoreProvider]
     }
   }
 
+  test("compact HDFS-backed state store map") {
+    def data(map: HDFSBackedStateStoreMap): Set[((String, Int), Int)] = {
+      map.iterator().map(rowPairToDataPair).toSet
+    }
+
+    val map = HDFSBackedStateStoreMap.create(keySchema, valueSchema, 0, compact = true)
+    assert(map.isInstanceOf[CompactHDFSBackedStateStoreMap])
+    (0 until 1000).foreach(i => map.put(dataToKeyRow(s"key$i", i), dataToValueRow(i)))
+    assert(map.size() === 1000)
+    assert(valueRowToData(map.put(dataToKeyRow("key1", 1), dataToValueRow(-1))) === 1)
+    assert(valueRowToData(map.get(dataToKeyRow("key1", 1))) === -1)
+    assert(map.get(dataToKeyRow("key1", 2)) === null)
+
+    // Consecutive versions share the entries, and do not see the updates of each other.
+    val nextVersion = HDFSBackedStateStoreMap.create(keySchema, valueSchema, 0, compact = true)
+    nextVersion.putAll(map)
+    val expected = data(map)
+    map.iterator().filter(pair => valueRowToData(pair.value) % 2 == 0).foreach { pair =>
+      assert(nextVersion.remove(pair.key) != null)
+    }
+    assert(nextVersion.remove(dataToKeyRow("key0", 0)) === null)
+    assert(data(map) === expected)
+    assert(data(nextVersion) === expected.filter(_._2 % 2 != 0))
+    assert(nextVersion.size() === 500)
+    (0 until 1000).foreach { i =>
+      assert((nextVersion.get(dataToKeyRow(s"key$i", i)) == null) === (i % 2 == 0))
+    }
+  }
+
   test("SPARK-48105: state store unload/close happens during the maintenance") {
     tryWithProviderResource(
       newStoreProvider(opId = Random.nextInt(), partition = 0, minDeltasForSnapshot = 1)) {
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.execution.vectorized
+
+import java.util.Properties
+
+import org.apache.spark.{SparkConf, SparkFunSuite, TaskContext, TaskContextImpl}
+import org.apache.spark.memory.{MemoryMode, TaskMemoryManager, TestMemoryManager}
+import org.apache.spark.sql.execution.columnar.ColumnDictionary
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.types.{IntegerType, LongType, StringType}
+
+class ColumnVectorPoolSuite extends SparkFunSuite {
+
+  private val memoryManager = new TestMemoryManager(new SparkConf())
+
+  // Runs `f` in a new task with the SQL configs `conf`, and returns the memory of the task that
+  // was not released.
+  private def withTask(taskAttemptId: Long, conf: (String, String)*)(
+      f: TaskMemoryManager => Unit): Long = {
+    val taskMemoryManager = new TaskMemoryManager(memoryManager, taskAttemptId)
+    val properties = new Properties
+    conf.foreach { case (key, value) => properties.setProperty(key, value) }
+    val taskContext = new TaskContextImpl(0, 0, 0, taskAttemptId, 0, 1, taskMemoryManager,
+      properties, null, cpus = 1)
+    TaskContext.setTaskContext(taskContext)
+    try {
+      f(taskMemoryManager)
+      taskContext.markTaskCompleted(None)
+      taskMemoryManager.cleanUpAllAllocatedMemory()
+    } finally {
+      TaskContext.unset()
+    }
+  }
+
+  Seq(MemoryMode.ON_HEAP, MemoryMode.OFF_HEAP).foreach { mode =>
+    test(s"reuse vectors across tasks: $mode") {
+      val pool = new ColumnVectorPool
+      var first: WritableColumnVector = null
+      val leaked1 = withTask(1) { taskMemoryManager =>
+        val lease = pool.lease()
+        first = lease.borrow(mode, 16, IntegerType)
+        assert(taskMemoryManager.getMemoryConsumptionForThisTask ==
+          ColumnVectorPool.estimatedSize(first))
+        first.putInt(0, 1)
+        first.putNull(1)
+        first.setDictionary(new ColumnDictionary(Array(1, 2, 3)))
+        first.reserveDictionaryIds(16)
+        lease.release(first)
+        assert(taskMemoryManager.getMemoryConsumptionForThisTask == 0)
+        assert(lease.numBorrowed() == 0)
+      }
+      assert(leaked1 == 0)
+      assert(pool.idleBytes() == ColumnVectorPool.estimatedSize(first))
+
+      val leaked2 = withTask(2) { _ =>
+        val lease = pool.lease()
+        val vector = lease.borrow(mode, 16, IntegerType)
+        assert(vector eq first)
+        assert(pool.idleBytes() == 0)
+        assert(!vector.hasNull)
+        assert(!vector.hasDictionary)
+        assert(vector.getDictionaryIds == null)
+
+        // A different data type or capacity needs a new vector.
+        val other = lease.borrow(mode, 32, IntegerType)
+        assert(other ne first)
+        val another = lease.borrow(mode, 16, LongType)
+        Seq(vector, other, another).foreach(lease.release)
+      }
+      assert(leaked2 == 0)
+      pool.clear()
+      assert(pool.idleBytes() == 0)
+    }
+  }
+
+  test("constant vectors are not reused") {
+    val pool = new ColumnVectorPool
+    withTask(1) { _ =>
+      val lease = pool.lease()
+      val constant = lease.borrow(MemoryMode.ON_HEAP, 16, StringType)
+      constant.setIsConstant()
+      val allNull = lease.borrow(MemoryMode.ON_HEAP, 16, StringType)
+      allNull.setAllNull()
+      lease.release(constant)
+      lease.release(allNull)
+    }
+    assert(pool.idleBytes() == 0)
+  }
+
+  test("idle vectors are bounded by the maximum pool size") {
+    val pool = new ColumnVectorPool
+    val size = ColumnVectorPool.estimatedSize(new OnHeapColumnVector(16, LongType))
+    withTask(1, SQLConf.COLUMN_VECTOR_POOL_MAX_SIZE.key -> (2 * size).toString) { _ =>
+      val lease = pool.lease()
+      val vectors = Seq.fill(3)(lease.borrow(MemoryMode.ON_HEAP, 16, LongType))
+      vectors.foreach(lease.release)
+    }
+    assert(pool.idleBytes() == 2 * size)
+    pool.clear()
+  }
+
+  test("vectors that are not released are reported as leaked task memory") {
+    val pool = new ColumnVectorPool
+    var vector: WritableColumnVector = null
+    val leaked = withTask(1) { _ =>
+      vector = pool.lease().borrow(MemoryMode.ON_HEAP, 16, LongType)
+    }
+    assert(leaked == ColumnVectorPool.estimatedSize(vector))
+    assert(pool.idleBytes() == 0)
+  }
+
+  test("no lease outside of a task") {
+    assert(new ColumnVectorPool().lease() == null)
+  }
+}
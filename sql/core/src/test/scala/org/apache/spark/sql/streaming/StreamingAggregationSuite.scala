@@ -110,6 +110,43 @@ class StreamingAggregationSuite extends StateStoreMetricsTest with Assertions {
     )
   }
 
+  testWithAllStateVersions("simple count, batched state store access") {
+    withSQLConf(SQLConf.STATE_STORE_ACCESS_BATCH_SIZE.key -> "2") {
+      val inputData = MemoryStream[Int]
+
+      val aggregated =
+        inputData.toDF()
+          .groupBy($"value")
+          .agg(count("*"))
+          .as[(Int, Long)]
+
+      testStream(aggregated, Update)(
+        AddData(inputData, 3),
+        CheckLastBatch((3, 1)),
+        AddData(inputData, 3, 2, 1),
+        CheckLastBatch((3, 2), (2, 1), (1, 1)),
+        StopStream,
+        StartStream(),
+        AddData(inputData, 3, 2, 1, 4, 4),
+        CheckLastBatch((3, 3), (2, 2), (1, 2), (4, 2))
+      )
+
+      val completeInputData = MemoryStream[Int]
+      val completeAggregated =
+        completeInputData.toDF()
+          .groupBy($"value")
+          .agg(count("*"))
+          .as[(Int, Long)]
+
+      testStream(completeAggregated, Complete)(
+        AddData(completeInputData, 3, 2, 1),
+        CheckLastBatch((3, 1), (2, 1), (1, 1)),
+        AddData(completeInputData, 3, 3, 4),
+        CheckLastBatch((3, 3), (2, 1), (1, 1), (4, 1))
+      )
+    }
+  }
+
   testWithAllStateVersions("count distinct") {
     val inputData = MemoryStream[(Int, Seq[Int])]
 
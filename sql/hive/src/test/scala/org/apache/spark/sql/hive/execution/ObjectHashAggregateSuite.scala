@@ -27,7 +27,7 @@ import org.apache.spark.sql.catalyst.expressions.ExpressionEvalHelper
 import org.apache.spark.sql.classic.DataFrame
 import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanHelper
 import org.apache.spark.sql.execution.aggregate.{HashAggregateExec, ObjectHashAggregateExec, SortAggregateExec}
-import org.apache.spark.sql.functions.{col, count_distinct, first, lit, max, percentile_approx => pa}
+import org.apache.spark.sql.functions.{col, concat, count_distinct, first, lit, max, percentile_approx => pa}
 import org.apache.spark.sql.hive.test.TestHiveSingleton
 import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.test.SQLTestUtils
@@ -104,6 +104,27 @@ class ObjectHashAggregateSuite
     }
   }
 
+  test("typed_count with keys hashed by wyhash and fallback to sort-based aggregation") {
+    val df = spark.range(0, 10000, 1, 2)
+      .select(($"id" % 1000).as("k"), concat(lit("key-"), $"id" % 1000).as("s"), $"id")
+    val expected = (0L until 1000L).map(k => Row(k, s"key-$k", 10L))
+    withSQLConf(SQLConf.HASH_TABLE_KEY_HASH_FUNCTION.key -> "wyhash") {
+      // The map holds all the keys of a task, then falls back after 10 of them.
+      Seq("10000" -> false, "10" -> true).foreach { case (threshold, fallback) =>
+        withSQLConf(SQLConf.OBJECT_AGG_SORT_BASED_FALLBACK_THRESHOLD.key -> threshold) {
+          val agg = df.groupBy($"k", $"s").agg(typed_count($"id"))
+          checkAnswer(agg, expected)
+          val aggregates = collect(agg.queryExecution.executedPlan) {
+            case o: ObjectHashAggregateExec => o
+          }
+          assert(aggregates.nonEmpty)
+          val numTasksFallBacked = aggregates.map(_.metrics("numTasksFallBacked").value).sum
+          assert((numTasksFallBacked > 0) === fallback)
+        }
+      }
+    }
+  }
+
   test("random input data types") {
     val dataTypes = Seq(
       // Integral types